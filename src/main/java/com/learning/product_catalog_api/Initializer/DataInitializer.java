@@ -1,46 +1,234 @@
 package com.learning.product_catalog_api.Initializer;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.data.ProductResponse;
 import com.learning.product_catalog_api.model.Product;
 import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.util.ProductMapper;
 
 import lombok.extern.slf4j.Slf4j;
 
+/**
+ * Seeds an empty catalog with {@code catalog.seed.count} synthetic products from a {@link ProductSeedGenerator},
+ * so that the same settings always give the same catalog.
+ *
+ * <p>Ids {@code 1..count} are split into chunks of {@code chunk-size} that are generated and inserted in
+ * parallel on {@code threads} threads, each chunk in its own transaction, with plain JDBC batches of
+ * {@code batch-size} rows rather than through the persistence context. At most two chunks per thread are in
+ * memory at a time, whatever the count. Progress is logged every {@code progress-interval}. Once done, the
+ * {@code product_seq} sequence is moved past the seeded ids.
+ *
+ * <p>The seeded rows are not published to the change log, which could not hold millions of them anyway: the
+ * {@code products} cache is cleared before seeding instead, and the first {@code warm-cache-products} products
+ * are written to it as they are inserted. The search and filter indexes and the id filter are built from the
+ * table by {@link ProductIndexInitializer} once the application is ready.
+ */
 @Component
 @Slf4j
 public class DataInitializer implements CommandLineRunner {
 
+    private static final String PRODUCTS_CACHE = "products";
+
+    private static final String INSERT_PRODUCT = "INSERT INTO product "
+            + "(id, name, description, price, available, created_at, updated_at, version) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    /**
+     * The {@code allocationSize} of {@code product_seq}: the pooled allocator hands out the block below the
+     * value it reads, so the sequence is restarted one block past the seeded ids.
+     */
+    private static final int ID_ALLOCATION_SIZE = 100;
+
     private final ProductRepository repository;
 
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final BatchCacheOperations batchCacheOperations;
+
+    private final ProductSeedGenerator generator;
+
+    private final boolean enabled;
+
+    private final int count;
+
+    private final int threads;
+
+    private final int chunkSize;
+
+    private final int batchSize;
+
+    private final int warmCacheProducts;
+
+    private final Duration progressInterval;
+
     @Autowired
-    public DataInitializer(ProductRepository repository) {
+    public DataInitializer(ProductRepository repository, JdbcTemplate jdbcTemplate,
+                           PlatformTransactionManager transactionManager, CacheManager cacheManager,
+                           BatchCacheOperations batchCacheOperations,
+                           @Value("${catalog.seed.enabled:true}") boolean enabled,
+                           @Value("${catalog.seed.count:999}") int count,
+                           @Value("${catalog.seed.seed:1}") long seed,
+                           @Value("${catalog.seed.threads:0}") int threads,
+                           @Value("${catalog.seed.chunk-size:10000}") int chunkSize,
+                           @Value("${catalog.seed.batch-size:500}") int batchSize,
+                           @Value("${catalog.seed.min-price:10}") BigDecimal minPrice,
+                           @Value("${catalog.seed.max-price:99}") BigDecimal maxPrice,
+                           @Value("${catalog.seed.price-distribution:uniform}") ProductSeedGenerator.PriceDistribution priceDistribution,
+                           @Value("${catalog.seed.available-ratio:0.5}") double availableRatio,
+                           @Value("${catalog.seed.warm-cache-products:0}") int warmCacheProducts,
+                           @Value("${catalog.seed.progress-interval:10s}") Duration progressInterval) {
         this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.batchCacheOperations = batchCacheOperations;
+        this.generator = new ProductSeedGenerator(seed, minPrice, maxPrice, priceDistribution, availableRatio);
+        this.enabled = enabled;
+        this.count = count;
+        this.threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.warmCacheProducts = warmCacheProducts;
+        this.progressInterval = progressInterval;
     }
 
     @Override
     public void run(String... args) throws Exception {
-        if (repository.count() == 0) {
-            log.info("No product found in table Product, populating it....");
-            Random random = new Random();
-            List<Product> products = IntStream.range(1, 1000)
-                    .mapToObj(i -> Product.builder()
-                            .name("Test-Product" + i)
-                            .description("Desc" + i)
-                            .price(BigDecimal.valueOf(10 + random.nextInt(90)))
-                            .available(random.nextBoolean())
-                            .build())
-                    .collect(Collectors.toList());
-            repository.saveAll(products);
-            log.info("populated db");
+        if (!enabled || count <= 0 || repository.count() > 0) {
+            return;
+        }
+        log.info("No product found in table Product, seeding {} products on {} threads....", count, threads);
+        clearCache();
+        long start = System.nanoTime();
+        AtomicLong inserted = new AtomicLong();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        LocalDateTime now = LocalDateTime.now();
+        Semaphore inFlight = new Semaphore(threads * 2);
+        ExecutorService executor = Executors.newFixedThreadPool(threads,
+                Thread.ofPlatform().name("product-seed-", 0).daemon().factory());
+        long nextProgress = System.nanoTime() + progressInterval.toNanos();
+        try {
+            for (int from = 1; from <= count && failure.get() == null; from += chunkSize) {
+                int first = from;
+                int last = (int) Math.min((long) from + chunkSize - 1, count);
+                while (!inFlight.tryAcquire(progressInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                    nextProgress = logProgress(inserted.get(), start, nextProgress);
+                }
+                executor.execute(() -> {
+                    try {
+                        inserted.addAndGet(insertChunk(first, last, now));
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                nextProgress = logProgress(inserted.get(), start, nextProgress);
+            }
+            executor.shutdown();
+            while (!executor.awaitTermination(progressInterval.toMillis(), TimeUnit.MILLISECONDS)) {
+                nextProgress = logProgress(inserted.get(), start, nextProgress);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Seeding stopped after " + inserted.get() + " products", failure.get());
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE product_seq RESTART WITH " + ((long) count + ID_ALLOCATION_SIZE + 1));
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("Seeded {} products in {} ms ({} products/s)", inserted.get(), millis, inserted.get() * 1000 / millis);
+    }
+
+    private int insertChunk(int first, int last, LocalDateTime now) {
+        List<Product> products = new ArrayList<>(last - first + 1);
+        for (int id = first; id <= last; id++) {
+            products.add(generator.product(id, now));
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_PRODUCT, products, batchSize, (statement, product) -> {
+                    statement.setInt(1, product.getId());
+                    statement.setString(2, product.getName());
+                    statement.setString(3, product.getDescription());
+                    statement.setBigDecimal(4, product.getPrice());
+                    statement.setBoolean(5, product.isAvailable());
+                    statement.setTimestamp(6, Timestamp.valueOf(product.getCreatedAt()));
+                    statement.setTimestamp(7, Timestamp.valueOf(product.getUpdatedAt()));
+                    statement.setLong(8, product.getVersion());
+                }));
+        if (first <= warmCacheProducts) {
+            warmCache(products);
+        }
+        return products.size();
+    }
+
+    private void warmCache(List<Product> products) {
+        Map<Integer, ProductResponse> responses = new HashMap<>();
+        for (Product product : products) {
+            if (product.getId() <= warmCacheProducts) {
+                responses.put(product.getId(), ProductMapper.toProductResponse(product));
+            }
+        }
+        try {
+            batchCacheOperations.putAllIfAbsent(PRODUCTS_CACHE, responses);
+        } catch (RuntimeException e) {
+            log.warn("Could not warm the {} cache with {} seeded products: {}", PRODUCTS_CACHE, responses.size(),
+                    e.getMessage());
+        }
+    }
+
+    /**
+     * Drop what a cache that outlived the previous database holds for the ids about to be reused.
+     */
+    private void clearCache() {
+        Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+        if (cache == null) {
+            return;
+        }
+        try {
+            cache.clear();
+        } catch (RuntimeException e) {
+            log.warn("Could not clear the {} cache before seeding: {}", PRODUCTS_CACHE, e.getMessage());
+        }
+    }
+
+    private long logProgress(long inserted, long start, long nextProgress) {
+        long now = System.nanoTime();
+        if (now < nextProgress) {
+            return nextProgress;
         }
+        long millis = Math.max(1, (now - start) / 1_000_000);
+        log.info("Seeded {} of {} products ({}%, {} products/s)", inserted, count, inserted * 100 / count,
+                inserted * 1000 / millis);
+        return now + progressInterval.toNanos();
     }
 }
@@ -0,0 +1,87 @@
+package com.learning.product_catalog_api.Initializer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.cache.ProductIdFilter;
+import com.learning.product_catalog_api.changes.ProductIndexChangeConsumer;
+import com.learning.product_catalog_api.changes.ProductIndexSync;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.service.ProductExportService;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Loads every product into the {@link ProductSearchIndex} and the {@link ProductFilterIndex}, and every id
+ * into the {@link ProductIdFilter}, once the application is ready, i.e. after {@link DataInitializer} has
+ * populated the table, and again whenever {@link ProductIndexChangeConsumer} fell behind the change log. Otherwise
+ * that consumer keeps the indexes up to date with the writes of this node, and {@link ProductIndexSync} with
+ * those of other nodes.
+ * The search and filter indexes are also rebuilt every {@code catalog.index.rebuild-interval}, to pick up writes
+ * whose announcement was lost and writes made outside the application, and the id filter every
+ * {@code catalog.id-filter.rebuild-interval}, to drop deleted ids and pick up ids created on other nodes whose
+ * announcement was lost.
+ */
+@Component
+@Slf4j
+public class ProductIndexInitializer {
+
+    private final ProductSearchIndex searchIndex;
+
+    private final ProductFilterIndex filterIndex;
+
+    private final ProductIdFilter idFilter;
+
+    private final ProductExportService productExportService;
+
+    private final ProductRepository productRepository;
+
+    @Autowired
+    public ProductIndexInitializer(ProductSearchIndex searchIndex, ProductFilterIndex filterIndex,
+                                   ProductIdFilter idFilter, ProductExportService productExportService,
+                                   ProductRepository productRepository) {
+        this.searchIndex = searchIndex;
+        this.filterIndex = filterIndex;
+        this.idFilter = idFilter;
+        this.productExportService = productExportService;
+        this.productRepository = productRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndexes() {
+        rebuildIndexes();
+        rebuildIdFilter();
+    }
+
+    /**
+     * Reload the search and filter indexes from the database. Searches and filters are served from the current
+     * indexes while the products are read.
+     */
+    @Scheduled(initialDelayString = "${catalog.index.rebuild-interval:10m}",
+            fixedDelayString = "${catalog.index.rebuild-interval:10m}")
+    public void rebuildIndexes() {
+        long start = System.nanoTime();
+        searchIndex.rebuild(productExportService::exportProducts);
+        log.info("Indexed {} products for search in {} ms", searchIndex.size(), (System.nanoTime() - start) / 1_000_000);
+        start = System.nanoTime();
+        filterIndex.rebuild(productExportService::exportProducts);
+        log.info("Indexed {} products for filtering in {} ms", filterIndex.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    @Scheduled(initialDelayString = "${catalog.id-filter.rebuild-interval:15m}",
+            fixedDelayString = "${catalog.id-filter.rebuild-interval:15m}")
+    public void rebuildIdFilter() {
+        if (!idFilter.isEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        idFilter.rebuild(productRepository.count(), productExportService::exportProductIds);
+        log.info("Built product id filter over {} ids in {} ms", idFilter.report().approximateIds(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,67 @@
+package com.learning.product_catalog_api.Initializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.SplittableRandom;
+
+import com.learning.product_catalog_api.model.Product;
+
+/**
+ * Generates the synthetic products {@link DataInitializer} seeds the catalog with. Every product is derived
+ * from the seed and its id alone, so a catalog comes out the same whatever the number of threads generating it
+ * or the order they run in.
+ */
+public class ProductSeedGenerator {
+
+    public enum PriceDistribution {
+        /** Every price between the bounds is equally likely. */
+        UNIFORM,
+        /** Cheap products are much more common than expensive ones: prices are uniform on a log scale. */
+        LOG_UNIFORM
+    }
+
+    private final long seed;
+
+    private final long minCents;
+
+    private final long maxCents;
+
+    private final PriceDistribution priceDistribution;
+
+    private final double availableRatio;
+
+    /**
+     * @param seed              the seed every product is derived from
+     * @param minPrice          the lowest price, inclusive
+     * @param maxPrice          the highest price, inclusive
+     * @param priceDistribution how prices are spread between the bounds
+     * @param availableRatio    the share of products that are available, between 0 and 1
+     */
+    public ProductSeedGenerator(long seed, BigDecimal minPrice, BigDecimal maxPrice,
+                                PriceDistribution priceDistribution, double availableRatio) {
+        this.seed = seed;
+        this.minCents = Math.max(1, minPrice.movePointRight(2).longValue());
+        this.maxCents = Math.max(this.minCents, maxPrice.movePointRight(2).longValue());
+        this.priceDistribution = priceDistribution;
+        this.availableRatio = availableRatio;
+    }
+
+    /**
+     * @param id  the id of the product
+     * @param now the creation and modification time to give it
+     * @return the product with the given id
+     */
+    public Product product(int id, LocalDateTime now) {
+        SplittableRandom random = new SplittableRandom(seed ^ (id * 0x9E3779B97F4A7C15L));
+        return new Product(id, "Test-Product" + id, "Desc" + id, BigDecimal.valueOf(cents(random), 2),
+                random.nextDouble() < availableRatio, now, now, 0);
+    }
+
+    private long cents(SplittableRandom random) {
+        return switch (priceDistribution) {
+            case UNIFORM -> random.nextLong(minCents, maxCents + 1);
+            case LOG_UNIFORM -> Math.min(maxCents, Math.round(
+                    Math.exp(random.nextDouble(Math.log(minCents), Math.nextUp(Math.log(maxCents))))));
+        };
+    }
+}
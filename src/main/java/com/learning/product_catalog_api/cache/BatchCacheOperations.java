@@ -0,0 +1,314 @@
+package com.learning.product_catalog_api.cache;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisStringCommands.SetOption;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.stereotype.Component;
+
+/**
+ * Multi-key reads and writes against the caches of the application {@link CacheManager}, which the
+ * Spring cache abstraction only offers one key at a time. A {@link TimedCache} is unwrapped, and the
+ * whole operation is timed once.
+ *
+ * <p>For a {@link TwoTierCache} the L1 is consulted first. Keys that miss are fetched from a Redis L2
+ * with a single {@code MGET}, writes to a Redis L2 are sent in one pipeline, and evictions in a single
+ * {@code DEL}. Any other L2 (for example an in-memory cache in tests) falls back to one call per key.
+ */
+@Component
+public class BatchCacheOperations {
+
+    private final CacheManager cacheManager;
+
+    private final RedisConnectionFactory connectionFactory;
+
+    @Autowired
+    public BatchCacheOperations(CacheManager cacheManager, RedisConnectionFactory connectionFactory) {
+        this.cacheManager = cacheManager;
+        this.connectionFactory = connectionFactory;
+    }
+
+    /**
+     * Look up several keys at once.
+     *
+     * @param cacheName the name of the cache
+     * @param keys      the keys to look up
+     * @param type      the expected type of the values
+     * @return the values found, keyed by cache key. Keys that missed are absent from the map.
+     */
+    public <K, V> Map<K, V> getAll(String cacheName, Collection<K> keys, Class<V> type) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        if (cache instanceof TimedCache timed) {
+            long start = System.nanoTime();
+            try {
+                return getAll(timed.getTargetCache(), keys, type);
+            } finally {
+                timed.multiGetTimer().recordSince(start);
+            }
+        }
+        return getAll(cache, keys, type);
+    }
+
+    private <K, V> Map<K, V> getAll(Cache cache, Collection<K> keys, Class<V> type) {
+        Map<K, V> found = new HashMap<>();
+        TwoTierCache twoTierCache = cache instanceof TwoTierCache twoTier ? twoTier : null;
+        List<K> remaining = new ArrayList<>(keys.size());
+        for (K key : keys) {
+            Object local = twoTierCache == null ? null : twoTierCache.getLocal(key);
+            if (type.isInstance(local)) {
+                found.put(key, type.cast(local));
+            } else {
+                remaining.add(key);
+            }
+        }
+        if (remaining.isEmpty()) {
+            return found;
+        }
+        Cache l2 = twoTierCache == null ? cache : twoTierCache.getL2();
+        Map<K, Long> generations = new HashMap<>();
+        if (twoTierCache != null) {
+            remaining.forEach(key -> generations.put(key, twoTierCache.generation(key)));
+        }
+        Map<K, V> remote = l2 instanceof RedisCache redisCache
+                ? multiGet(redisCache, remaining, type)
+                : getEach(l2, remaining, type);
+        if (twoTierCache != null) {
+            // Values of keys changed during the round trip may be older than L2 now, and stay out of L1.
+            remote.forEach((key, value) -> twoTierCache.putLocal(key, value, generations.get(key)));
+        }
+        found.putAll(remote);
+        return found;
+    }
+
+    /**
+     * Look a key up in this node's memory only: the L1 of a {@link TwoTierCache}, or an in-memory cache. Never
+     * goes to Redis, so it costs no round trip and no deserialization, and is not timed.
+     *
+     * @param cacheName the name of the cache
+     * @param key       the key to look up
+     * @param type      the expected type of the value
+     * @return the value held in memory, or {@code null} if there is none or the cache is only in Redis
+     */
+    public <V> V getLocal(String cacheName, Object key, Class<V> type) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TimedCache timed) {
+            cache = timed.getTargetCache();
+        }
+        Object value = null;
+        if (cache instanceof TwoTierCache twoTierCache) {
+            value = twoTierCache.getLocal(key);
+        } else if (cache != null && !(cache instanceof RedisCache)) {
+            Cache.ValueWrapper wrapper = cache.get(key);
+            value = wrapper == null ? null : wrapper.get();
+        }
+        return type.isInstance(value) ? type.cast(value) : null;
+    }
+
+    /**
+     * Look up the validator this node keeps for a key of a {@link TwoTierCache}, e.g. the ETag of a product, which
+     * outlives the L1 copy of the value. Never goes to Redis.
+     *
+     * @param cacheName the name of the cache
+     * @param key       the key to look up
+     * @return the validator, or {@code null} if there is none or the cache keeps no validators
+     */
+    public String getValidator(String cacheName, Object key) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache instanceof TimedCache timed) {
+            cache = timed.getTargetCache();
+        }
+        return cache instanceof TwoTierCache twoTierCache ? twoTierCache.getValidator(key) : null;
+    }
+
+    /**
+     * Populate several keys at once, typically after loading cache misses from the database. Keys that
+     * were written concurrently by someone else are left untouched, so a slower batch load never
+     * overwrites a newer value. For a {@link TwoTierCache} only the keys actually written to L2 are put in
+     * L1, so L1 never holds a value that lost to a newer one in L2.
+     *
+     * @param cacheName the name of the cache
+     * @param entries   the values to cache, keyed by cache key
+     */
+    public <K, V> void putAllIfAbsent(String cacheName, Map<K, V> entries) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || entries.isEmpty()) {
+            return;
+        }
+        if (cache instanceof TimedCache timed) {
+            long start = System.nanoTime();
+            try {
+                putAllIfAbsent(timed.getTargetCache(), entries);
+            } finally {
+                timed.multiPutTimer().recordSince(start);
+            }
+        } else {
+            putAllIfAbsent(cache, entries);
+        }
+    }
+
+    private <K, V> void putAllIfAbsent(Cache cache, Map<K, V> entries) {
+        TwoTierCache twoTierCache = cache instanceof TwoTierCache twoTier ? twoTier : null;
+        Cache l2 = twoTierCache == null ? cache : twoTierCache.getL2();
+        List<K> written;
+        if (l2 instanceof RedisCache redisCache) {
+            written = pipelinedSetIfAbsent(redisCache, entries);
+        } else {
+            written = new ArrayList<>(entries.size());
+            entries.forEach((key, value) -> {
+                if (l2.putIfAbsent(key, value) == null) {
+                    written.add(key);
+                }
+            });
+        }
+        if (twoTierCache != null) {
+            written.forEach(key -> twoTierCache.putLocal(key, entries.get(key)));
+        }
+    }
+
+    /**
+     * Evict several keys at once, for example after the products behind them were changed in bulk. For a
+     * {@link TwoTierCache} the keys are also dropped from L1, and the other nodes are told to drop them in one
+     * more round trip.
+     *
+     * @param cacheName the name of the cache
+     * @param keys      the keys to evict
+     */
+    public <K> void evictAll(String cacheName, Collection<K> keys) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null || keys.isEmpty()) {
+            return;
+        }
+        if (cache instanceof TimedCache timed) {
+            long start = System.nanoTime();
+            try {
+                evictAll(timed.getTargetCache(), keys);
+            } finally {
+                timed.multiEvictTimer().recordSince(start);
+            }
+        } else {
+            evictAll(cache, keys);
+        }
+    }
+
+    private <K> void evictAll(Cache cache, Collection<K> keys) {
+        TwoTierCache twoTierCache = cache instanceof TwoTierCache twoTier ? twoTier : null;
+        Cache l2 = twoTierCache == null ? cache : twoTierCache.getL2();
+        if (l2 instanceof RedisCache redisCache) {
+            byte[][] redisKeys = new byte[keys.size()][];
+            int i = 0;
+            for (K key : keys) {
+                redisKeys[i++] = redisKey(redisCache, key);
+            }
+            try (RedisConnection connection = connectionFactory.getConnection()) {
+                connection.keyCommands().del(redisKeys);
+            }
+        } else {
+            keys.forEach(l2::evict);
+        }
+        if (twoTierCache != null) {
+            twoTierCache.evictLocal(keys);
+        }
+    }
+
+    private <K, V> Map<K, V> multiGet(RedisCache cache, List<K> keys, Class<V> type) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        byte[][] redisKeys = new byte[keys.size()][];
+        for (int i = 0; i < keys.size(); i++) {
+            redisKeys[i] = redisKey(cache, keys.get(i));
+        }
+        List<byte[]> values;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            values = connection.stringCommands().mGet(redisKeys);
+        }
+        Map<K, V> found = new HashMap<>();
+        for (int i = 0; values != null && i < values.size(); i++) {
+            byte[] value = values.get(i);
+            if (value == null) {
+                continue;
+            }
+            Object decoded = config.getValueSerializationPair().read(ByteBuffer.wrap(value));
+            if (type.isInstance(decoded)) {
+                found.put(keys.get(i), type.cast(decoded));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the keys that were absent and so were set, from the replies of the pipelined {@code SET NX}
+     * commands, which come back in the order the commands were sent
+     */
+    private <K, V> List<K> pipelinedSetIfAbsent(RedisCache cache, Map<K, V> entries) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        List<K> keys = new ArrayList<>(entries.keySet());
+        List<Object> replies;
+        try (RedisConnection connection = connectionFactory.getConnection()) {
+            connection.openPipeline();
+            try {
+                for (K key : keys) {
+                    V value = entries.get(key);
+                    Duration ttl = config.getTtlFunction().getTimeToLive(key, value);
+                    Expiration expiration = ttl == null || ttl.isZero() || ttl.isNegative()
+                            ? Expiration.persistent()
+                            : Expiration.from(ttl);
+                    connection.stringCommands().set(redisKey(cache, key),
+                            toBytes(config.getValueSerializationPair().write(value)),
+                            expiration, SetOption.ifAbsent());
+                }
+            } finally {
+                replies = connection.closePipeline();
+            }
+        }
+        List<K> written = new ArrayList<>(keys.size());
+        for (int i = 0; replies != null && i < replies.size() && i < keys.size(); i++) {
+            if (Boolean.TRUE.equals(replies.get(i))) {
+                written.add(keys.get(i));
+            }
+        }
+        return written;
+    }
+
+    private static <K, V> Map<K, V> getEach(Cache cache, List<K> keys, Class<V> type) {
+        Map<K, V> found = new HashMap<>();
+        for (K key : keys) {
+            V value = cache.get(key, type);
+            if (value != null) {
+                found.put(key, value);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Builds the same key {@link RedisCache} uses for a cache key: optional prefix plus the key
+     * converted to a string, encoded with the cache's key serializer.
+     */
+    private static byte[] redisKey(RedisCache cache, Object key) {
+        RedisCacheConfiguration config = cache.getCacheConfiguration();
+        String convertedKey = config.getConversionService().convert(key, String.class);
+        String prefixedKey = config.usePrefix() ? config.getKeyPrefixFor(cache.getName()) + convertedKey : convertedKey;
+        return toBytes(config.getKeySerializationPair().write(prefixedKey));
+    }
+
+    private static byte[] toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,35 @@
+package com.learning.product_catalog_api.cache;
+
+/**
+ * A request to drop a key (or a whole cache) from the L1 near cache of every other node.
+ *
+ * @param origin    id of the node that made the change, so it can ignore its own message.
+ * @param cacheName name of the cache the key belongs to.
+ * @param key       the string form of the cache key, or {@code null} to clear the whole cache.
+ */
+public record CacheInvalidation(String origin, String cacheName, String key) {
+
+    private static final char SEPARATOR = '\t';
+
+    public boolean isClear() {
+        return key == null;
+    }
+
+    /**
+     * Encodes the invalidation as a single line suitable for a pub/sub payload.
+     */
+    public String encode() {
+        return origin + SEPARATOR + cacheName + (key == null ? "" : SEPARATOR + key);
+    }
+
+    /**
+     * Decodes a payload produced by {@link #encode()}.
+     */
+    public static CacheInvalidation decode(String payload) {
+        String[] parts = payload.split(String.valueOf(SEPARATOR), 3);
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Malformed cache invalidation: " + payload);
+        }
+        return new CacheInvalidation(parts[0], parts[1], parts.length == 3 ? parts[2] : null);
+    }
+}
@@ -0,0 +1,33 @@
+package com.learning.product_catalog_api.cache;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * Transport for L1 invalidations between nodes.
+ */
+public interface CacheInvalidationBus {
+
+    /**
+     * Broadcast an invalidation to every subscriber, including those on other nodes.
+     *
+     * @param invalidation the invalidation to send
+     */
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * Broadcast several invalidations. Transports that can send them in one round trip override this.
+     *
+     * @param invalidations the invalidations to send, in order
+     */
+    default void publishAll(Collection<CacheInvalidation> invalidations) {
+        invalidations.forEach(this::publish);
+    }
+
+    /**
+     * Register a listener that is called for every invalidation received from the bus.
+     *
+     * @param listener the listener to register
+     */
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,91 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Owns and starts the Redis listener container that receives L1 invalidations without making Redis a hard
+ * startup dependency. If Redis is unreachable the application still starts (as it did before the
+ * near cache existed) and the subscription is retried in the background. Until then, L1 entries
+ * are only bounded by their TTL.
+ */
+@Slf4j
+public class CacheInvalidationSubscriber implements SmartLifecycle, InitializingBean, DisposableBean {
+
+    private final RedisMessageListenerContainer container;
+
+    private final Duration retryInterval;
+
+    private ScheduledExecutorService retryExecutor;
+
+    private volatile boolean running;
+
+    public CacheInvalidationSubscriber(RedisMessageListenerContainer container, Duration retryInterval) {
+        this.container = container;
+        this.retryInterval = retryInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        container.afterPropertiesSet();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        container.destroy();
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        if (tryStart()) {
+            return;
+        }
+        retryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cache-invalidation-subscriber");
+            thread.setDaemon(true);
+            return thread;
+        });
+        retryExecutor.scheduleWithFixedDelay(() -> {
+            if (tryStart()) {
+                retryExecutor.shutdown();
+            }
+        }, retryInterval.toMillis(), retryInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        if (retryExecutor != null) {
+            retryExecutor.shutdownNow();
+        }
+        if (container.isRunning()) {
+            container.stop();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private boolean tryStart() {
+        try {
+            container.start();
+            log.info("Subscribed to near cache invalidations");
+            return true;
+        } catch (RuntimeException e) {
+            log.warn("Could not subscribe to near cache invalidations, retrying in {}: {}", retryInterval, e.getMessage());
+            return false;
+        }
+    }
+}
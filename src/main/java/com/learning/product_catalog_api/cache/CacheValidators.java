@@ -0,0 +1,56 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * The validators (e.g. ETags) of the values a {@link TwoTierCache} admitted, kept for more keys and for longer
+ * than L1 keeps the values themselves, so that a conditional request for a value that fell out of L1 can still
+ * be answered without reading L2 or the source.
+ *
+ * <p>A validator is dropped whenever L1 drops its key because the value changed: on writes, evictions and
+ * invalidations received from other nodes. It is not dropped when L1 evicts the value for room or age. Like L1,
+ * it is only as current as the invalidations that reach this node; a lost one leaves it stale until it expires.
+ */
+public final class CacheValidators {
+
+    private final Function<Object, String> validatorOf;
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, String> validators;
+
+    /**
+     * @param validatorOf the validator of a cached value, or {@code null} if the value has none
+     * @param maxEntries  the maximum number of validators to keep
+     * @param ttl         how long a validator is kept after its value was last admitted
+     */
+    public CacheValidators(Function<Object, String> validatorOf, long maxEntries, Duration ttl) {
+        this.validatorOf = validatorOf;
+        this.validators = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    String get(String localKey) {
+        return validators.getIfPresent(localKey);
+    }
+
+    void record(String localKey, Object value) {
+        String validator = value == null ? null : validatorOf.apply(value);
+        if (validator == null) {
+            validators.invalidate(localKey);
+        } else {
+            validators.put(localKey, validator);
+        }
+    }
+
+    void invalidate(String localKey) {
+        validators.invalidate(localKey);
+    }
+
+    void invalidateAll() {
+        validators.invalidateAll();
+    }
+}
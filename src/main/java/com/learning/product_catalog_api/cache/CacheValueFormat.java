@@ -0,0 +1,52 @@
+package com.learning.product_catalog_api.cache;
+
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Wire formats available for {@link ProductResponse} values in the Redis {@code products} cache.
+ */
+public enum CacheValueFormat {
+
+    /**
+     * Compact tagged binary layout, see {@link ProductResponseRedisSerializer}.
+     */
+    BINARY {
+        @Override
+        public RedisSerializer<ProductResponse> serializer() {
+            return new ProductResponseRedisSerializer();
+        }
+    },
+
+    /**
+     * Plain JSON via Jackson.
+     */
+    JSON {
+        @Override
+        public RedisSerializer<ProductResponse> serializer() {
+            ObjectMapper objectMapper = new ObjectMapper()
+                    .registerModule(new JavaTimeModule())
+                    .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+            return new Jackson2JsonRedisSerializer<>(objectMapper, ProductResponse.class);
+        }
+    },
+
+    /**
+     * Java serialization, the Spring Data Redis default.
+     */
+    JDK {
+        @Override
+        @SuppressWarnings("unchecked")
+        public RedisSerializer<ProductResponse> serializer() {
+            return (RedisSerializer<ProductResponse>) (RedisSerializer<?>) new JdkSerializationRedisSerializer();
+        }
+    };
+
+    public abstract RedisSerializer<ProductResponse> serializer();
+}
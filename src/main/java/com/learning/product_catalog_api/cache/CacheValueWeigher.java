@@ -0,0 +1,51 @@
+package com.learning.product_catalog_api.cache;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Rough estimate of the retained heap size of a cached value, used to bound the L1 by bytes.
+ */
+public final class CacheValueWeigher {
+
+    private static final int OBJECT_HEADER = 16;
+
+    private static final int REFERENCE = 4;
+
+    private static final int STRING_OVERHEAD = 40;
+
+    private static final int BIG_DECIMAL = 48;
+
+    private static final int LOCAL_DATE_TIME = 48;
+
+    private static final int UNKNOWN = 256;
+
+    private CacheValueWeigher() {
+    }
+
+    public static long estimate(Object value) {
+        if (value instanceof ProductResponse product) {
+            return OBJECT_HEADER + 4 + 1 + 5L * REFERENCE
+                    + estimate(product.name())
+                    + estimate(product.description())
+                    + (product.price() == null ? 0 : BIG_DECIMAL)
+                    + (product.createdAt() == null ? 0 : LOCAL_DATE_TIME)
+                    + (product.updatedAt() == null ? 0 : LOCAL_DATE_TIME);
+        }
+        if (value instanceof String text) {
+            return STRING_OVERHEAD + text.length();
+        }
+        if (value instanceof BigDecimal) {
+            return BIG_DECIMAL;
+        }
+        if (value instanceof LocalDateTime) {
+            return LOCAL_DATE_TIME;
+        }
+        if (value instanceof byte[] bytes) {
+            return OBJECT_HEADER + bytes.length;
+        }
+        return value == null ? 0 : UNKNOWN;
+    }
+}
@@ -0,0 +1,122 @@
+package com.learning.product_catalog_api.cache;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counting Bloom filter over int keys: {@code k} 4-bit counters per key instead of {@code k} bits, so keys
+ * can be removed as well as added. {@link #mightContain(int)} never returns {@code false} for a key that was
+ * added and not removed; it returns {@code true} for an absent key with roughly the configured probability.
+ *
+ * <p>Counters are packed sixteen to a {@code long}. Reads are lock-free and may run concurrently with one
+ * writer; concurrent writers must be serialised by the caller. A counter that reaches 15 sticks there and is
+ * never decremented, since its true count is no longer known.
+ */
+final class CountingBloomFilter {
+
+    private static final int COUNTERS_PER_WORD = 16;
+
+    private static final long MAX_COUNT = 15;
+
+    private final AtomicLongArray words;
+
+    private final int counters;
+
+    private final int hashes;
+
+    private final long capacity;
+
+    private CountingBloomFilter(int counters, int hashes, long capacity) {
+        this.counters = counters;
+        this.hashes = hashes;
+        this.capacity = capacity;
+        this.words = new AtomicLongArray((counters + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD);
+    }
+
+    /**
+     * Size a filter for the given number of keys and false-positive probability: {@code m = -n ln p / ln² 2}
+     * counters and {@code k = m / n ln 2} hash functions.
+     */
+    static CountingBloomFilter forCapacity(long capacity, double falsePositiveRate) {
+        long n = Math.max(1, capacity);
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int counters = (int) Math.min(Integer.MAX_VALUE - COUNTERS_PER_WORD, Math.max(COUNTERS_PER_WORD, m));
+        int hashes = (int) Math.max(1, Math.min(16, Math.round((double) counters / n * Math.log(2))));
+        return new CountingBloomFilter(counters, hashes, n);
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    boolean mightContain(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if (count(Math.floorMod(h1 + i * h2, counters)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void add(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int counter = Math.floorMod(h1 + i * h2, counters);
+            long count = count(counter);
+            if (count < MAX_COUNT) {
+                setCount(counter, count + 1);
+            }
+        }
+    }
+
+    /**
+     * Remove a key. Only call this for a key that was added, or keys sharing its counters may be reported
+     * absent.
+     */
+    void remove(int key) {
+        long hash = mix(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashes; i++) {
+            int counter = Math.floorMod(h1 + i * h2, counters);
+            long count = count(counter);
+            if (count > 0 && count < MAX_COUNT) {
+                setCount(counter, count - 1);
+            }
+        }
+    }
+
+    /**
+     * @return the false-positive probability expected with {@code keys} keys in the filter.
+     */
+    double expectedFalsePositiveRate(long keys) {
+        return Math.pow(1 - Math.exp(-(double) hashes * keys / counters), hashes);
+    }
+
+    private long count(int counter) {
+        return (words.get(counter / COUNTERS_PER_WORD) >>> shift(counter)) & MAX_COUNT;
+    }
+
+    private void setCount(int counter, long count) {
+        int word = counter / COUNTERS_PER_WORD;
+        int shift = shift(counter);
+        long value = words.get(word);
+        words.set(word, (value & ~(MAX_COUNT << shift)) | (count << shift));
+    }
+
+    private static int shift(int counter) {
+        return (counter % COUNTERS_PER_WORD) * 4;
+    }
+
+    private static long mix(int key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 31;
+        hash *= 0xBF58476D1CE4E5B9L;
+        hash ^= hash >>> 29;
+        return hash;
+    }
+}
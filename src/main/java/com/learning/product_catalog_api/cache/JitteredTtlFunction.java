@@ -0,0 +1,54 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+/**
+ * Redis cache TTL that varies by up to {@code ±jitter} of the base TTL from key to key, so entries written
+ * together (after a bulk load, a restart or a mass eviction) do not all expire in the same instant and
+ * fall through to the database together.
+ *
+ * <p>The jitter is derived from a hash of the key rather than drawn at random, so every node, and every
+ * write path ({@link org.springframework.data.redis.cache.RedisCache} and {@link BatchCacheOperations}),
+ * computes the same TTL for a key. That lets the node that loaded a value work out when it will expire,
+ * which refresh-ahead relies on.
+ */
+public class JitteredTtlFunction implements RedisCacheWriter.TtlFunction {
+
+    private final Duration ttl;
+
+    private final double jitter;
+
+    /**
+     * @param ttl    the base TTL
+     * @param jitter the maximum deviation as a fraction of the base TTL, between 0 (none) and 1
+     */
+    public JitteredTtlFunction(Duration ttl, double jitter) {
+        if (jitter < 0 || jitter > 1) {
+            throw new IllegalArgumentException("TTL jitter must be between 0 and 1: " + jitter);
+        }
+        this.ttl = ttl;
+        this.jitter = jitter;
+    }
+
+    @Override
+    public Duration getTimeToLive(Object key, Object value) {
+        if (jitter == 0) {
+            return ttl;
+        }
+        double factor = 1 - jitter + 2 * jitter * uniform(String.valueOf(key));
+        return Duration.ofMillis(Math.max(1, Math.round(ttl.toMillis() * factor)));
+    }
+
+    /**
+     * @return a value in [0, 1) spread evenly over keys, even for consecutive numeric keys.
+     */
+    static double uniform(String key) {
+        long hash = key.hashCode() * 0x9E3779B97F4A7C15L;
+        hash ^= hash >>> 32;
+        hash *= 0xD6E8FEB86659FD93L;
+        hash ^= hash >>> 32;
+        return (hash >>> 11) * 0x1.0p-53;
+    }
+}
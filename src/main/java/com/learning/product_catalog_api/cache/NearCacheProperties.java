@@ -0,0 +1,74 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings for the in-process L1 cache that sits in front of Redis.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "catalog.cache.near")
+public class NearCacheProperties {
+
+    /**
+     * Whether the L1 near cache is enabled at all. When disabled, caches go straight to Redis.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Names of the caches that get an L1 in front of them.
+     */
+    private Set<String> cacheNames = new HashSet<>(Set.of("products"));
+
+    /**
+     * Upper bound on the number of entries held in L1 per cache.
+     */
+    private long maxEntries = 10_000;
+
+    /**
+     * Upper bound on the estimated heap footprint of L1 per cache, in bytes.
+     */
+    private long maxWeightBytes = 16L * 1024 * 1024;
+
+    /**
+     * Values estimated above this size are never admitted to L1 and are always served from Redis.
+     */
+    private long maxEntryBytes = 64L * 1024;
+
+    /**
+     * Time-to-live of an L1 entry, independent of the Redis TTL. Kept short so that a lost
+     * invalidation message only leaves a node stale for a bounded time.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * Upper bound on the number of validators (ETags) kept per cache that has them. They are kept for values
+     * no longer in L1, so that a conditional request for one can be answered without reading Redis or the
+     * database; each costs around 150 bytes.
+     */
+    private long validatorMaxEntries = 100_000;
+
+    /**
+     * Time-to-live of a validator. Validators are dropped on the same invalidations as L1 entries, so this bounds
+     * how long a lost invalidation message can leave a node answering 304 for a changed value.
+     */
+    private Duration validatorTtl = Duration.ofMinutes(5);
+
+    /**
+     * How eagerly hot entries are reloaded before their Redis copy expires (see {@link RefreshAheadPolicy});
+     * 0 disables refresh-ahead.
+     */
+    private double refreshAheadBeta = 1.0;
+
+    /**
+     * Redis pub/sub channel used to tell other nodes to drop their L1 copy of a key.
+     */
+    private String invalidationChannel = "product-catalog:cache-invalidation";
+}
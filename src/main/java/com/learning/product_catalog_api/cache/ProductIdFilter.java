@@ -0,0 +1,334 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.product_catalog_api.data.IdFilterReport;
+import com.learning.product_catalog_api.model.Product;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Answers "might a product with this id exist?" without any I/O, so lookups of ids that were never created
+ * or have been deleted are rejected before they reach Redis or the database.
+ *
+ * <p>Two structures answer together. A {@link CountingBloomFilter} over every existing id says "definitely
+ * not" for most absent ids. The ids it lets through by mistake (about {@code false-positive-rate} of the
+ * absent ids looked up) miss in the database once and are then remembered in a small negative cache for
+ * {@code negative-ttl}, as are deleted ids.
+ *
+ * <p>The filter is built from the database at startup and rebuilt periodically; in between it is kept up
+ * to date by the creates of this node, and by the ids created on other nodes, which are announced over the
+ * {@link CacheInvalidationBus}. An announcement can be lost or arrive after a lookup of the new id, so the
+ * Bloom filter only rejects ids below a low-water mark no node can still assign. Each node takes ids from the
+ * sequence in blocks of {@link Product#ID_ALLOCATION_SIZE} and hands them out in increasing order, so the ids
+ * not yet assigned lie in the blocks the nodes hold, which are among the last {@code max-nodes} blocks taken
+ * before the largest id of the last build. The mark is that id less {@code max-nodes} blocks. A product
+ * created since with an id above it is looked up in the database, once per {@code negative-ttl} while it is
+ * absent. Without a bus, ids created on other nodes are never announced, and the Bloom filter
+ * rejects nothing. Deleted ids are only remembered in the negative cache, never removed from the Bloom
+ * filter: a removal of an id it does not hold would clear counters of ids it does. Until the first build every
+ * id may exist.
+ */
+@Slf4j
+@Component
+public class ProductIdFilter {
+
+    /**
+     * Pseudo cache name under which created ids are announced on the invalidation bus.
+     */
+    static final String CHANNEL_NAME = "product-ids";
+
+    private final boolean enabled;
+
+    private final double falsePositiveRate;
+
+    private final long minCapacity;
+
+    private final int allocationMargin;
+
+    private final CacheInvalidationBus bus;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final Cache<Integer, Boolean> missing;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private volatile CountingBloomFilter filter;
+
+    /**
+     * The largest id loaded by the last build, less the ids other nodes may still assign below it: the Bloom
+     * filter only answers for ids up to it. Only ever grows, as ids are never reused.
+     */
+    private volatile int lowWaterMark = Integer.MIN_VALUE;
+
+    /**
+     * Ids added while a rebuild is streaming, re-applied to the new filter before it is published.
+     */
+    private int[] journal;
+
+    private int journalSize;
+
+    private final AtomicLong approximateIds = new AtomicLong();
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder definiteMisses = new LongAdder();
+
+    private final LongAdder negativeCacheHits = new LongAdder();
+
+    private final LongAdder databaseMisses = new LongAdder();
+
+    /**
+     * @param maxNodes the largest number of nodes that create products, each holding a block of ids
+     * @param bus      the bus to announce created ids on; {@code null} when there is none, e.g. with the near
+     *                 cache disabled
+     */
+    @Autowired
+    public ProductIdFilter(@Value("${catalog.id-filter.enabled:true}") boolean enabled,
+                           @Value("${catalog.id-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                           @Value("${catalog.id-filter.min-capacity:100000}") long minCapacity,
+                           @Value("${catalog.id-filter.negative-ttl:30s}") Duration negativeTtl,
+                           @Value("${catalog.id-filter.negative-max-entries:100000}") long negativeMaxEntries,
+                           @Value("${catalog.id-filter.max-nodes:16}") int maxNodes,
+                           @Nullable CacheInvalidationBus bus) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("catalog.id-filter.false-positive-rate must be between 0 and 1");
+        }
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.minCapacity = minCapacity;
+        this.allocationMargin = Math.max(1, maxNodes) * Product.ID_ALLOCATION_SIZE;
+        this.bus = bus;
+        this.missing = Caffeine.newBuilder()
+                .expireAfterWrite(negativeTtl)
+                .maximumSize(negativeMaxEntries)
+                .build();
+        if (bus != null && enabled) {
+            bus.subscribe(this::onInvalidation);
+        }
+    }
+
+    /**
+     * Check an id before looking it up, counting the answer in the {@link #report()}.
+     *
+     * @return false if the product certainly does not exist, true if it may
+     */
+    public boolean mightExist(int id) {
+        if (!enabled) {
+            return true;
+        }
+        lookups.increment();
+        if (rejects(id)) {
+            definiteMisses.increment();
+            return false;
+        }
+        if (missing.getIfPresent(id) != null) {
+            negativeCacheHits.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Same answer as {@link #mightExist(int)}, negated, without counting it.
+     */
+    public boolean isKnownMissing(int id) {
+        if (!enabled) {
+            return false;
+        }
+        return rejects(id) || missing.getIfPresent(id) != null;
+    }
+
+    /**
+     * @return whether the Bloom filter can tell the id certainly does not exist
+     */
+    private boolean rejects(int id) {
+        if (bus == null) {
+            return false;
+        }
+        // Read before the filter: a rebuild publishes its filter first, so the filter read is at least as new
+        // as the mark.
+        int mark = lowWaterMark;
+        CountingBloomFilter current = filter;
+        return current != null && id <= mark && !current.mightContain(id);
+    }
+
+    /**
+     * Record that an id which passed {@link #mightExist(int)} was not found, so it is answered without I/O
+     * for the next {@code negative-ttl}.
+     */
+    public void recordMissing(int id) {
+        if (enabled) {
+            databaseMisses.increment();
+            missing.put(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Record a created product, on this node and on the others.
+     */
+    public void add(int id) {
+        if (!enabled) {
+            return;
+        }
+        addLocally(id);
+        announce(id);
+    }
+
+    /**
+     * Record several created products.
+     */
+    public void addAll(Collection<Integer> ids) {
+        ids.forEach(this::add);
+    }
+
+    /**
+     * Record a deleted product on this node. It stays in the Bloom filter until the next rebuild.
+     */
+    public void remove(int id) {
+        if (enabled) {
+            missing.put(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Build a new filter from the ids supplied to the given loader and swap it in. Lookups keep using the
+     * previous filter while the ids are read; ids added meanwhile are carried over.
+     *
+     * @param expectedIds the number of ids the loader is expected to supply, used to size the filter
+     * @param loader      called with a sink that accepts every existing id
+     */
+    public void rebuild(long expectedIds, Consumer<IntConsumer> loader) {
+        if (!enabled) {
+            return;
+        }
+        CountingBloomFilter next = CountingBloomFilter.forCapacity(Math.max(minCapacity, 2 * expectedIds), falsePositiveRate);
+        writeLock.lock();
+        try {
+            journal = new int[64];
+            journalSize = 0;
+        } finally {
+            writeLock.unlock();
+        }
+        long[] count = {0};
+        int[] maxId = {Integer.MIN_VALUE};
+        try {
+            loader.accept(id -> {
+                next.add(id);
+                count[0]++;
+                maxId[0] = Math.max(maxId[0], id);
+            });
+        } catch (RuntimeException e) {
+            writeLock.lock();
+            try {
+                journal = null;
+            } finally {
+                writeLock.unlock();
+            }
+            throw e;
+        }
+        writeLock.lock();
+        try {
+            for (int i = 0; i < journalSize; i++) {
+                next.add(journal[i]);
+            }
+            approximateIds.set(count[0] + journalSize);
+            journal = null;
+            filter = next;
+            if (maxId[0] != Integer.MIN_VALUE) {
+                lowWaterMark = Math.max(lowWaterMark, maxId[0] - allocationMargin);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isReady() {
+        return filter != null;
+    }
+
+    public IdFilterReport report() {
+        CountingBloomFilter current = filter;
+        long ids = approximateIds.get();
+        long misses = definiteMisses.sum();
+        long falsePositives = negativeCacheHits.sum() + databaseMisses.sum();
+        long absentLookups = misses + falsePositives;
+        return new IdFilterReport(
+                enabled,
+                current != null,
+                ids,
+                current == null ? 0 : current.capacity(),
+                falsePositiveRate,
+                current == null ? 0 : current.expectedFalsePositiveRate(ids),
+                lookups.sum(),
+                misses,
+                negativeCacheHits.sum(),
+                databaseMisses.sum(),
+                absentLookups == 0 ? 0 : (double) falsePositives / absentLookups,
+                missing.estimatedSize());
+    }
+
+    private void addLocally(int id) {
+        writeLock.lock();
+        try {
+            CountingBloomFilter current = filter;
+            if (current != null) {
+                current.add(id);
+                approximateIds.incrementAndGet();
+            }
+            if (journal != null) {
+                if (journalSize == journal.length) {
+                    journal = Arrays.copyOf(journal, journalSize * 2);
+                }
+                journal[journalSize++] = id;
+            }
+            missing.invalidate(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private void announce(int id) {
+        if (bus == null) {
+            return;
+        }
+        try {
+            bus.publish(new CacheInvalidation(nodeId, CHANNEL_NAME, Integer.toString(id)));
+        } catch (RuntimeException e) {
+            // The other nodes will see the id at their next rebuild.
+            log.warn("Could not announce product id {} to other nodes: {}", id, e.getMessage());
+        }
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (!CHANNEL_NAME.equals(invalidation.cacheName()) || nodeId.equals(invalidation.origin())
+                || invalidation.isClear()) {
+            return;
+        }
+        try {
+            addLocally(Integer.parseInt(invalidation.key()));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed product id announcement: {}", invalidation.key());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.learning.product_catalog_api.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.util.ProductETags;
+
+/**
+ * The JSON of single-product responses, rendered once and kept as UTF-8 bytes (and, if enabled, gzipped bytes)
+ * so that a hot read is written to the response as is, without Jackson. Enabled with
+ * {@code catalog.cache.products.json-bytes.enabled}.
+ *
+ * <p>Entries are held on this node only, up to {@code max-bytes}, and tagged with the
+ * {@linkplain ProductETags ETag} of the product they were rendered from. A read only uses an entry whose tag
+ * matches the product it resolved, so an entry left behind by a patch, a write on another node or a dropped
+ * write-behind update is never served; it is rendered again instead. Creations and updates store their
+ * rendering right away, and deletions drop it.
+ */
+@Component
+public class ProductJsonCache {
+
+    private final boolean enabled;
+
+    private final boolean gzip;
+
+    private final int gzipMinBytes;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<Integer, Entry> entries;
+
+    @Autowired
+    public ProductJsonCache(@Value("${catalog.cache.products.json-bytes.enabled:false}") boolean enabled,
+                            @Value("${catalog.cache.products.json-bytes.max-bytes:33554432}") long maxBytes,
+                            @Value("${catalog.cache.products.json-bytes.gzip:false}") boolean gzip,
+                            @Value("${catalog.cache.products.json-bytes.gzip-min-bytes:1024}") int gzipMinBytes,
+                            ObjectMapper objectMapper) {
+        this.enabled = enabled;
+        this.gzip = gzip;
+        this.gzipMinBytes = gzipMinBytes;
+        this.objectMapper = objectMapper;
+        this.entries = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Integer, Entry>weigher((id, entry) -> entry.weight())
+                .build();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Render and keep the JSON of a product that was just created or updated.
+     */
+    public void put(ProductResponse product) {
+        if (enabled) {
+            render(product);
+        }
+    }
+
+    public void evict(int id) {
+        entries.invalidate(id);
+    }
+
+    /**
+     * @param product      the product to respond with
+     * @param acceptsGzip  whether the client accepts a gzip-encoded body
+     * @return the response body for the product, or {@code null} if disabled
+     */
+    public Body body(ProductResponse product, boolean acceptsGzip) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(product.id());
+        if (entry == null || !entry.etag.equals(ProductETags.of(product))) {
+            entry = render(product);
+        }
+        if (!acceptsGzip || !gzip || entry.json.length < gzipMinBytes) {
+            return new Body(entry.json, false);
+        }
+        byte[] compressed = entry.gzip;
+        if (compressed == null) {
+            compressed = gzip(entry.json);
+            entry.gzip = compressed;
+            // Re-insert so the weigher accounts for the gzipped bytes.
+            entries.asMap().replace(product.id(), entry, entry);
+        }
+        return new Body(compressed, true);
+    }
+
+    private Entry render(ProductResponse product) {
+        try {
+            Entry entry = new Entry(ProductETags.of(product), objectMapper.writeValueAsBytes(product));
+            entries.put(product.id(), entry);
+            return entry;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not render product " + product.id(), e);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 2 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * A rendered response body.
+     *
+     * @param bytes   the UTF-8 JSON, or its gzip encoding
+     * @param gzipped whether {@code bytes} is gzip-encoded
+     */
+    public record Body(byte[] bytes, boolean gzipped) {
+    }
+
+    private static final class Entry {
+
+        private final String etag;
+
+        private final byte[] json;
+
+        private volatile byte[] gzip;
+
+        private Entry(String etag, byte[] json) {
+            this.etag = etag;
+            this.json = json;
+        }
+
+        private int weight() {
+            byte[] compressed = gzip;
+            return 64 + etag.length() * 2 + json.length + (compressed == null ? 0 : compressed.length);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.changes.ProductIndexSync;
+import com.learning.product_catalog_api.util.ProductETags;
+
+/**
+ * The {@linkplain ProductETags#ofPage ETags} of the pages of {@code /list} this node served lately, so that a
+ * conditional request for a page that did not change is answered with 304 Not Modified without running its
+ * queries.
+ *
+ * <p>Every entry is stamped with the {@linkplain #stamp() product change stamp} read before the page was queried,
+ * and only used while the stamp is unchanged. The stamp grows with every change this node commits, as recorded in
+ * the {@link ProductChangeLog}, and with every change another node announces through the {@link ProductIndexSync},
+ * so any write drops all entries at once. Writes made outside the application, and pages read from a replica that
+ * lagged behind a write, are not seen; entries expire after {@code catalog.list.etag-cache.ttl} to bound that.
+ */
+@Component
+public class ProductPageETagCache {
+
+    private final boolean enabled;
+
+    private final ProductChangeLog changeLog;
+
+    private final ProductIndexSync indexSync;
+
+    private final Cache<String, Entry> entries;
+
+    @Autowired
+    public ProductPageETagCache(@Value("${catalog.list.etag-cache.enabled:true}") boolean enabled,
+                                @Value("${catalog.list.etag-cache.ttl:30s}") Duration ttl,
+                                @Value("${catalog.list.etag-cache.max-entries:10000}") long maxEntries,
+                                ProductChangeLog changeLog,
+                                ProductIndexSync indexSync) {
+        this.enabled = enabled;
+        this.changeLog = changeLog;
+        this.indexSync = indexSync;
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * @return the current product change stamp; read it before querying a page and pass it to
+     * {@link #put(String, String, long)}
+     */
+    public long stamp() {
+        return changeLog.lastSequence() + indexSync.remoteChanges();
+    }
+
+    /**
+     * @param key   what identifies the page, e.g. its number, size and fields
+     * @param stamp the current {@linkplain #stamp() stamp}
+     * @return the ETag of the page, or {@code null} if none was kept or products changed since
+     */
+    public String get(String key, long stamp) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = entries.getIfPresent(key);
+        return entry == null || entry.stamp != stamp ? null : entry.eTag;
+    }
+
+    /**
+     * @param key   what identifies the page
+     * @param eTag  the ETag of the page as it was just queried
+     * @param stamp the {@linkplain #stamp() stamp} read before the page was queried
+     */
+    public void put(String key, String eTag, long stamp) {
+        if (enabled) {
+            entries.put(key, new Entry(eTag, stamp));
+        }
+    }
+
+    private record Entry(String eTag, long stamp) {
+    }
+}
@@ -0,0 +1,305 @@
+package com.learning.product_catalog_api.cache;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Compact binary {@link RedisSerializer} for cached {@link ProductResponse} values.
+ *
+ * <p>Layout: one format byte ({@value #FORMAT_V1}) followed by tagged fields. Each field starts with a
+ * varint key {@code (fieldNumber << 3) | wireType}; wire type {@value #WIRE_VARINT} is a varint and
+ * wire type {@value #WIRE_BYTES} is a varint length followed by that many bytes. Absent fields decode
+ * as {@code null} (or {@code false}/{@code 0}), and unknown fields are skipped, so fields can be added
+ * or dropped without invalidating entries written by another version of the application.
+ *
+ * <pre>
+ *  1 id              varint (zig-zag)
+ *  2 name            bytes  (UTF-8)
+ *  3 description     bytes  (UTF-8)
+ *  4 price           bytes  (zig-zag varint scale, then two's-complement unscaled value)
+ *  5 available       varint (0 or 1)
+ *  6 createdAt       varint (zig-zag epoch seconds, UTC)
+ *  7 createdAt nanos varint (omitted when 0)
+ *  8 updatedAt       varint (zig-zag epoch seconds, UTC)
+ *  9 updatedAt nanos varint (omitted when 0)
+ * 10 version         varint (omitted when 0)
+ * </pre>
+ *
+ * <p>Values written by {@link JdkSerializationRedisSerializer} (recognised by the Java serialization
+ * stream magic) are still readable, so switching serializers does not require flushing Redis.
+ */
+public class ProductResponseRedisSerializer implements RedisSerializer<ProductResponse> {
+
+    static final byte FORMAT_V1 = 1;
+
+    static final int WIRE_VARINT = 0;
+
+    static final int WIRE_BYTES = 2;
+
+    private static final int ID = 1;
+
+    private static final int NAME = 2;
+
+    private static final int DESCRIPTION = 3;
+
+    private static final int PRICE = 4;
+
+    private static final int AVAILABLE = 5;
+
+    private static final int CREATED_AT = 6;
+
+    private static final int CREATED_AT_NANOS = 7;
+
+    private static final int UPDATED_AT = 8;
+
+    private static final int UPDATED_AT_NANOS = 9;
+
+    private static final int VERSION = 10;
+
+    private static final byte JDK_STREAM_MAGIC_0 = (byte) 0xAC;
+
+    private static final byte JDK_STREAM_MAGIC_1 = (byte) 0xED;
+
+    private final JdkSerializationRedisSerializer legacySerializer = new JdkSerializationRedisSerializer();
+
+    @Override
+    public byte[] serialize(ProductResponse value) throws SerializationException {
+        if (value == null) {
+            return null;
+        }
+        Writer writer = new Writer(64 + length(value.name()) + length(value.description()));
+        writer.buffer[writer.position++] = FORMAT_V1;
+        writer.writeVarintField(ID, zigZag(value.id()));
+        writer.writeStringField(NAME, value.name());
+        writer.writeStringField(DESCRIPTION, value.description());
+        if (value.price() != null) {
+            byte[] unscaled = value.price().unscaledValue().toByteArray();
+            writer.writeKey(PRICE, WIRE_BYTES);
+            writer.writeVarint(varintSize(zigZag(value.price().scale())) + unscaled.length);
+            writer.writeVarint(zigZag(value.price().scale()));
+            writer.writeBytes(unscaled);
+        }
+        writer.writeVarintField(AVAILABLE, value.available() ? 1 : 0);
+        writer.writeTimestampFields(CREATED_AT, CREATED_AT_NANOS, value.createdAt());
+        writer.writeTimestampFields(UPDATED_AT, UPDATED_AT_NANOS, value.updatedAt());
+        if (value.version() != 0) {
+            writer.writeVarintField(VERSION, value.version());
+        }
+        return writer.toByteArray();
+    }
+
+    @Override
+    public ProductResponse deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length > 1 && bytes[0] == JDK_STREAM_MAGIC_0 && bytes[1] == JDK_STREAM_MAGIC_1) {
+            return (ProductResponse) legacySerializer.deserialize(bytes);
+        }
+        if (bytes[0] != FORMAT_V1) {
+            throw new SerializationException("Unknown ProductResponse cache format: " + bytes[0]);
+        }
+        Reader reader = new Reader(bytes, 1);
+        int id = 0;
+        String name = null;
+        String description = null;
+        BigDecimal price = null;
+        boolean available = false;
+        long createdAtSeconds = 0;
+        long createdAtNanos = 0;
+        boolean hasCreatedAt = false;
+        long updatedAtSeconds = 0;
+        long updatedAtNanos = 0;
+        boolean hasUpdatedAt = false;
+        long version = 0;
+        try {
+            while (reader.position < bytes.length) {
+                long key = reader.readVarint();
+                int field = (int) (key >>> 3);
+                int wireType = (int) (key & 0x7);
+                switch (field) {
+                    case ID -> id = (int) unZigZag(reader.readVarint());
+                    case NAME -> name = reader.readString();
+                    case DESCRIPTION -> description = reader.readString();
+                    case PRICE -> {
+                        int length = reader.readLength();
+                        int end = reader.position + length;
+                        int scale = (int) unZigZag(reader.readVarint());
+                        byte[] unscaled = Arrays.copyOfRange(bytes, reader.position, end);
+                        reader.position = end;
+                        price = new BigDecimal(new BigInteger(unscaled), scale);
+                    }
+                    case AVAILABLE -> available = reader.readVarint() != 0;
+                    case CREATED_AT -> {
+                        createdAtSeconds = unZigZag(reader.readVarint());
+                        hasCreatedAt = true;
+                    }
+                    case CREATED_AT_NANOS -> createdAtNanos = reader.readVarint();
+                    case UPDATED_AT -> {
+                        updatedAtSeconds = unZigZag(reader.readVarint());
+                        hasUpdatedAt = true;
+                    }
+                    case UPDATED_AT_NANOS -> updatedAtNanos = reader.readVarint();
+                    case VERSION -> version = reader.readVarint();
+                    default -> reader.skip(wireType);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | NegativeArraySizeException | IllegalArgumentException e) {
+            throw new SerializationException("Corrupt ProductResponse cache entry", e);
+        }
+        return new ProductResponse(id, name, description, price, available,
+                hasCreatedAt ? toLocalDateTime(createdAtSeconds, createdAtNanos) : null,
+                hasUpdatedAt ? toLocalDateTime(updatedAtSeconds, updatedAtNanos) : null,
+                version);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochSeconds, long nanos) {
+        return LocalDateTime.ofEpochSecond(epochSeconds, (int) nanos, ZoneOffset.UTC);
+    }
+
+    private static int length(String value) {
+        return value == null ? 0 : value.length() * 3;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int varintSize(long value) {
+        int size = 1;
+        while ((value & ~0x7FL) != 0) {
+            value >>>= 7;
+            size++;
+        }
+        return size;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+
+        private int position;
+
+        private Writer(int initialCapacity) {
+            this.buffer = new byte[initialCapacity];
+        }
+
+        private void writeKey(int field, int wireType) {
+            writeVarint(((long) field << 3) | wireType);
+        }
+
+        private void writeVarintField(int field, long value) {
+            writeKey(field, WIRE_VARINT);
+            writeVarint(value);
+        }
+
+        private void writeStringField(int field, String value) {
+            if (value == null) {
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeKey(field, WIRE_BYTES);
+            writeVarint(utf8.length);
+            writeBytes(utf8);
+        }
+
+        private void writeTimestampFields(int secondsField, int nanosField, LocalDateTime value) {
+            if (value == null) {
+                return;
+            }
+            writeVarintField(secondsField, zigZag(value.toEpochSecond(ZoneOffset.UTC)));
+            if (value.getNano() != 0) {
+                writeVarintField(nanosField, value.getNano());
+            }
+        }
+
+        private void writeVarint(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+
+        private int position;
+
+        private Reader(byte[] buffer, int position) {
+            this.buffer = buffer;
+            this.position = position;
+        }
+
+        private long readVarint() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                byte b = buffer[position++];
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private int readLength() {
+            long length = readVarint();
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Invalid length: " + length);
+            }
+            return (int) length;
+        }
+
+        private String readString() {
+            int length = readLength();
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        private void skip(int wireType) {
+            switch (wireType) {
+                case WIRE_VARINT -> readVarint();
+                case WIRE_BYTES -> {
+                    int length = readLength();
+                    position += length;
+                }
+                default -> throw new IllegalArgumentException("Unsupported wire type: " + wireType);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.learning.product_catalog_api.cache;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiFunction;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+/**
+ * Decides when a {@link TwoTierCache} should reload a hot entry before its L2 copy expires, so readers keep
+ * hitting the cache instead of all missing at expiry.
+ *
+ * <p>Uses probabilistic early expiration ("XFetch"): on every hit an entry is refreshed early when
+ * {@code now + loadTime * beta * -ln(random) >= expiry}. The window grows with the time the value took to
+ * load and the chance of refreshing grows as expiry approaches, so a hot key is refreshed by roughly one
+ * reader shortly before it expires while cold keys are left to expire. {@code beta} above 1 refreshes
+ * earlier.
+ *
+ * <p>Only the node that loaded a value knows its load time and the L2 expiry it set, so only that node
+ * refreshes it. Timings are forgotten when the entry is written or evicted through another path.
+ */
+public final class RefreshAheadPolicy {
+
+    private final double beta;
+
+    private final BiFunction<Object, Object, Duration> l2Ttl;
+
+    private final Executor executor;
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, LoadTiming> timings;
+
+    /**
+     * @param beta       how eagerly to refresh; larger is earlier
+     * @param l2Ttl      the TTL L2 applies to a key and value
+     * @param executor   runs the background reloads
+     * @param maxEntries the maximum number of entries to track
+     */
+    public RefreshAheadPolicy(double beta, BiFunction<Object, Object, Duration> l2Ttl, Executor executor, long maxEntries) {
+        this.beta = beta;
+        this.l2Ttl = l2Ttl;
+        this.executor = executor;
+        this.timings = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, LoadTiming>() {
+                    @Override
+                    public long expireAfterCreate(String key, LoadTiming timing, long currentTime) {
+                        return Math.max(0, timing.expiresAtNanos() - System.nanoTime());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, LoadTiming timing, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, timing, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, LoadTiming timing, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    Executor executor() {
+        return executor;
+    }
+
+    /**
+     * Remember that this node just loaded a value and wrote it to L2.
+     */
+    void recordLoad(String localKey, Object key, Object value, long loadNanos) {
+        Duration ttl = l2Ttl.apply(key, value);
+        if (ttl == null || ttl.isZero() || ttl.isNegative()) {
+            return;
+        }
+        timings.put(localKey, new LoadTiming(loadNanos, System.nanoTime() + ttl.toNanos()));
+    }
+
+    /**
+     * @return whether the entry should be reloaded now.
+     */
+    boolean isDue(String localKey) {
+        LoadTiming timing = timings.getIfPresent(localKey);
+        if (timing == null) {
+            return false;
+        }
+        double window = timing.loadNanos() * beta * -Math.log(1 - ThreadLocalRandom.current().nextDouble());
+        return System.nanoTime() + window >= timing.expiresAtNanos();
+    }
+
+    void forget(String localKey) {
+        timings.invalidate(localKey);
+    }
+
+    void forgetAll() {
+        timings.invalidateAll();
+    }
+
+    private record LoadTiming(long loadNanos, long expiresAtNanos) {
+    }
+}
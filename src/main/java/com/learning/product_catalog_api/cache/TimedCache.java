@@ -0,0 +1,216 @@
+package com.learning.product_catalog_api.cache;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.cache.Cache;
+
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.diagnostics.LatencyTimer;
+
+/**
+ * {@link Cache} decorator that times every operation of the target cache: {@code cache.get} by hit, miss or
+ * error, {@code cache.put}, {@code cache.evict} and {@code cache.clear}, tagged with the cache name. A
+ * {@link #get(Object, Callable)} that had to call the loader counts as a miss and includes the load.
+ *
+ * <p>{@link BatchCacheOperations} works on the {@link #getTargetCache() target cache} directly and records
+ * its multi-key operations in {@link #multiGetTimer()}, {@link #multiPutTimer()} and {@link #multiEvictTimer()}.
+ */
+public class TimedCache implements Cache {
+
+    private final Cache target;
+
+    private final LatencyTimer hits;
+
+    private final LatencyTimer misses;
+
+    private final LatencyTimer errors;
+
+    private final LatencyTimer puts;
+
+    private final LatencyTimer evictions;
+
+    private final LatencyTimer clears;
+
+    private final LatencyTimer multiGets;
+
+    private final LatencyTimer multiPuts;
+
+    private final LatencyTimer multiEvictions;
+
+    public TimedCache(Cache target, LatencyRecorder latencyRecorder) {
+        this.target = target;
+        String name = target.getName();
+        this.hits = latencyRecorder.timer("cache.get", Map.of("cache", name, "result", "hit"));
+        this.misses = latencyRecorder.timer("cache.get", Map.of("cache", name, "result", "miss"));
+        this.errors = latencyRecorder.timer("cache.get", Map.of("cache", name, "result", "error"));
+        this.puts = latencyRecorder.timer("cache.put", "cache", name);
+        this.evictions = latencyRecorder.timer("cache.evict", "cache", name);
+        this.clears = latencyRecorder.timer("cache.clear", "cache", name);
+        this.multiGets = latencyRecorder.timer("cache.multi_get", "cache", name);
+        this.multiPuts = latencyRecorder.timer("cache.multi_put", "cache", name);
+        this.multiEvictions = latencyRecorder.timer("cache.multi_evict", "cache", name);
+    }
+
+    public Cache getTargetCache() {
+        return target;
+    }
+
+    LatencyTimer multiGetTimer() {
+        return multiGets;
+    }
+
+    LatencyTimer multiPutTimer() {
+        return multiPuts;
+    }
+
+    LatencyTimer multiEvictTimer() {
+        return multiEvictions;
+    }
+
+    @Override
+    public String getName() {
+        return target.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return target.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        long start = System.nanoTime();
+        ValueWrapper value;
+        try {
+            value = target.get(key);
+        } catch (RuntimeException | Error e) {
+            errors.recordSince(start);
+            throw e;
+        }
+        (value != null ? hits : misses).recordSince(start);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Class<T> type) {
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = target.get(key, type);
+        } catch (RuntimeException | Error e) {
+            errors.recordSince(start);
+            throw e;
+        }
+        (value != null ? hits : misses).recordSince(start);
+        return value;
+    }
+
+    @Override
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        TrackingLoader<T> loader = new TrackingLoader<>(valueLoader);
+        long start = System.nanoTime();
+        T value;
+        try {
+            value = target.get(key, loader);
+        } catch (RuntimeException | Error e) {
+            // A loader that failed is a miss; anything else is the cache failing.
+            (loader.called ? misses : errors).recordSince(start);
+            throw e;
+        }
+        (loader.called ? misses : hits).recordSince(start);
+        return value;
+    }
+
+    @Override
+    public CompletableFuture<?> retrieve(Object key) {
+        return target.retrieve(key);
+    }
+
+    @Override
+    public <T> CompletableFuture<T> retrieve(Object key, Supplier<CompletableFuture<T>> valueLoader) {
+        return target.retrieve(key, valueLoader);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        long start = System.nanoTime();
+        try {
+            target.put(key, value);
+        } finally {
+            puts.recordSince(start);
+        }
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        long start = System.nanoTime();
+        try {
+            return target.putIfAbsent(key, value);
+        } finally {
+            puts.recordSince(start);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        long start = System.nanoTime();
+        try {
+            target.evict(key);
+        } finally {
+            evictions.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        long start = System.nanoTime();
+        try {
+            return target.evictIfPresent(key);
+        } finally {
+            evictions.recordSince(start);
+        }
+    }
+
+    @Override
+    public void clear() {
+        long start = System.nanoTime();
+        try {
+            target.clear();
+        } finally {
+            clears.recordSince(start);
+        }
+    }
+
+    @Override
+    public boolean invalidate() {
+        long start = System.nanoTime();
+        try {
+            return target.invalidate();
+        } finally {
+            clears.recordSince(start);
+        }
+    }
+
+    /**
+     * Remembers whether the target cache had to call the loader, i.e. whether the get was a miss.
+     */
+    private static final class TrackingLoader<T> implements Callable<T> {
+
+        private final Callable<T> loader;
+
+        private volatile boolean called;
+
+        private TrackingLoader(Callable<T> loader) {
+            this.loader = loader;
+        }
+
+        @Override
+        public T call() throws Exception {
+            called = true;
+            return loader.call();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.learning.product_catalog_api.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+
+/**
+ * {@link CacheManager} that wraps every cache of another manager in a {@link TimedCache}.
+ */
+public class TimedCacheManager implements CacheManager, InitializingBean {
+
+    private final CacheManager target;
+
+    private final LatencyRecorder latencyRecorder;
+
+    private final ConcurrentMap<String, TimedCache> caches = new ConcurrentHashMap<>();
+
+    public TimedCacheManager(CacheManager target, LatencyRecorder latencyRecorder) {
+        this.target = target;
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (target instanceof InitializingBean initializingBean) {
+            initializingBean.afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = target.getCache(name);
+        if (cache == null) {
+            return null;
+        }
+        TimedCache timed = caches.get(name);
+        if (timed == null || timed.getTargetCache() != cache) {
+            timed = new TimedCache(cache, latencyRecorder);
+            caches.put(name, timed);
+        }
+        return timed;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return target.getCacheNames();
+    }
+}
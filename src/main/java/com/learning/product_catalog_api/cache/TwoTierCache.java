@@ -0,0 +1,546 @@
+package com.learning.product_catalog_api.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * A {@link Cache} that keeps a bounded in-process copy (L1) of the values held in a shared cache (L2,
+ * normally Redis). Reads are served from L1 when possible and fall through to L2 otherwise. Writes and
+ * evictions go to both tiers and are broadcast on the {@link CacheInvalidationBus} so that other nodes
+ * drop their L1 copy and re-read the new value from L2.
+ *
+ * <p>{@link #get(Object, Callable)} (used by {@code @Cacheable(sync = true)}) runs at most one load per key
+ * at a time on this node: concurrent misses for the same key wait for the first one and share its result,
+ * so an expired or evicted hot key costs one database read per node rather than one per request. With a
+ * {@link RefreshAheadPolicy}, hot entries are also reloaded in the background shortly before they expire.
+ * With {@link CacheValidators}, the validators of admitted values outlive their L1 copy, see
+ * {@link #getValidator(Object)}.
+ *
+ * <p>A value read from L2 is only admitted to L1 if its key was not written, evicted or invalidated while it was
+ * being read, as it may then be older than what L2 holds now. Each write, eviction and invalidation bumps a
+ * generation counter of its key, which readers take before going to L2 and check again, atomically with the
+ * L1 write, before admitting. Counters are shared by the keys of a stripe, so a change to another key of the
+ * same stripe can cost an admit, never a stale one.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> l1;
+
+    private final Cache l2;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final String nodeId;
+
+    private final long maxEntryBytes;
+
+    private final RefreshAheadPolicy refreshAhead;
+
+    private final CacheValidators validators;
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final AtomicLong clears = new AtomicLong();
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> loads = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, CompletableFuture<Object>> refreshes = new ConcurrentHashMap<>();
+
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                        Cache l2,
+                        CacheInvalidationBus invalidationBus,
+                        String nodeId,
+                        long maxEntryBytes) {
+        this(name, l1, l2, invalidationBus, nodeId, maxEntryBytes, null, null);
+    }
+
+    /**
+     * @param refreshAhead when to reload hot entries ahead of expiry, or {@code null} to let them expire
+     */
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                        Cache l2,
+                        CacheInvalidationBus invalidationBus,
+                        String nodeId,
+                        long maxEntryBytes,
+                        RefreshAheadPolicy refreshAhead) {
+        this(name, l1, l2, invalidationBus, nodeId, maxEntryBytes, refreshAhead, null);
+    }
+
+    /**
+     * @param refreshAhead when to reload hot entries ahead of expiry, or {@code null} to let them expire
+     * @param validators   where to keep the validators of admitted values, or {@code null} to keep none
+     */
+    public TwoTierCache(String name,
+                        com.github.benmanes.caffeine.cache.Cache<String, Object> l1,
+                        Cache l2,
+                        CacheInvalidationBus invalidationBus,
+                        String nodeId,
+                        long maxEntryBytes,
+                        RefreshAheadPolicy refreshAhead,
+                        CacheValidators validators) {
+        this.name = name;
+        this.l1 = l1;
+        this.l2 = l2;
+        this.invalidationBus = invalidationBus;
+        this.nodeId = nodeId;
+        this.maxEntryBytes = maxEntryBytes;
+        this.refreshAhead = refreshAhead;
+        this.validators = validators;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return l2.getNativeCache();
+    }
+
+    /**
+     * @return the shared L2 cache this cache fronts.
+     */
+    public Cache getL2() {
+        return l2;
+    }
+
+    /**
+     * @return the in-process L1 cache, keyed by the string form of the cache key.
+     */
+    public com.github.benmanes.caffeine.cache.Cache<String, Object> getL1() {
+        return l1;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+        Object local = l1.getIfPresent(localKey);
+        if (local != null) {
+            return new SimpleValueWrapper(local);
+        }
+        long generation = generation(localKey);
+        ValueWrapper remote = l2.get(key);
+        if (remote != null) {
+            admitIfUnchanged(localKey, remote.get(), generation);
+        }
+        return remote;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper == null ? null : wrapper.get();
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+        Object local = l1.getIfPresent(localKey);
+        if (local != null) {
+            refreshIfDue(key, localKey, local, valueLoader);
+            return (T) local;
+        }
+        return (T) loadOnce(key, localKey, valueLoader);
+    }
+
+    /**
+     * Read the key from L2, or load and store it on an L2 miss, unless a read or load of the same key is
+     * already in flight on this node, in which case wait for that one.
+     */
+    private Object loadOnce(Object key, String localKey, Callable<?> valueLoader) {
+        CompletableFuture<Object> load = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = loads.putIfAbsent(localKey, load);
+        if (inFlight != null) {
+            return await(inFlight, key, valueLoader);
+        }
+        try {
+            long generation = generation(localKey);
+            ValueWrapper remote = l2.get(key);
+            Object value;
+            if (remote != null) {
+                value = remote.get();
+                admitIfUnchanged(localKey, value, generation);
+            } else {
+                value = loadAndStore(key, localKey, valueLoader, generation);
+            }
+            load.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(localKey, load);
+        }
+    }
+
+    /**
+     * @param generation the generation of the key taken before it missed in L2
+     */
+    private Object loadAndStore(Object key, String localKey, Callable<?> valueLoader, long generation) {
+        long start = System.nanoTime();
+        Object value;
+        try {
+            value = valueLoader.call();
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+        long loadNanos = System.nanoTime() - start;
+        if (value == null) {
+            return null;
+        }
+        // Do not overwrite a value written concurrently through put(), which is at least as recent.
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        Object current = existing == null || existing.get() == null ? value : existing.get();
+        admitIfUnchanged(localKey, current, generation);
+        if (refreshAhead != null && current == value) {
+            refreshAhead.recordLoad(localKey, key, value, loadNanos);
+        }
+        return current;
+    }
+
+    /**
+     * Start a background reload of the key if the refresh-ahead policy says it is about to expire and no
+     * load is in flight already. Readers keep getting the current value meanwhile.
+     *
+     * @param current the value the reload is to replace
+     */
+    private void refreshIfDue(Object key, String localKey, Object current, Callable<?> valueLoader) {
+        if (refreshAhead == null || !refreshAhead.isDue(localKey)) {
+            return;
+        }
+        CompletableFuture<Object> refresh = new CompletableFuture<>();
+        if (loads.putIfAbsent(localKey, refresh) != null) {
+            return;
+        }
+        refreshAhead.forget(localKey);
+        refreshes.put(localKey, refresh);
+        try {
+            refreshAhead.executor().execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    Object value = valueLoader.call();
+                    long loadNanos = System.nanoTime() - start;
+                    if (value != null) {
+                        storeRefreshed(key, localKey, current, refresh, value, loadNanos);
+                    }
+                    refresh.complete(value);
+                } catch (Exception e) {
+                    log.debug("Refresh ahead of {}::{} failed", name, key, e);
+                    refresh.completeExceptionally(new ValueRetrievalException(key, valueLoader, e));
+                } finally {
+                    refreshes.remove(localKey, refresh);
+                    loads.remove(localKey, refresh);
+                }
+            });
+        } catch (RuntimeException e) {
+            refreshes.remove(localKey, refresh);
+            loads.remove(localKey, refresh);
+            refresh.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Write a reloaded value to both tiers, unless the entry changed while it was being reloaded: a write or
+     * eviction on this node cancels the refresh, and one on another node shows in L2 no longer holding the
+     * value the reload replaces. The reloaded value is then dropped, as it may be older than the new one.
+     * The check and the write run under the refresh's entry in {@code refreshes}, so a local write waits for
+     * them rather than landing in between.
+     */
+    private void storeRefreshed(Object key, String localKey, Object current, CompletableFuture<Object> refresh,
+                                Object value, long loadNanos) {
+        refreshes.computeIfPresent(localKey, (k, inFlight) -> {
+            if (inFlight != refresh) {
+                return inFlight;
+            }
+            ValueWrapper stored = l2.get(key);
+            if (stored != null && current.equals(stored.get())) {
+                l2.put(key, value);
+                admit(localKey, value);
+                refreshAhead.recordLoad(localKey, key, value, loadNanos);
+            } else {
+                log.debug("Dropped refresh of {}::{}, the entry changed meanwhile", name, key);
+            }
+            return null;
+        });
+    }
+
+    private static Object await(CompletableFuture<Object> load, Object key, Callable<?> valueLoader) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new ValueRetrievalException(key, valueLoader, cause);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        forgetTiming(localKey(key));
+        bumpGeneration(localKey(key));
+        l2.put(key, value);
+        admit(localKey(key), value);
+        broadcast(localKey(key));
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        String localKey = localKey(key);
+        long generation = generation(localKey);
+        ValueWrapper existing = l2.putIfAbsent(key, value);
+        if (existing == null) {
+            bumpGeneration(localKey);
+            admit(localKey, value);
+            broadcast(localKey);
+        } else {
+            admitIfUnchanged(localKey, existing.get(), generation);
+        }
+        return existing;
+    }
+
+    @Override
+    public void evict(Object key) {
+        forgetTiming(localKey(key));
+        bumpGeneration(localKey(key));
+        l2.evict(key);
+        dropLocal(localKey(key));
+        broadcast(localKey(key));
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        forgetTiming(localKey(key));
+        bumpGeneration(localKey(key));
+        boolean present = l2.evictIfPresent(key);
+        dropLocal(localKey(key));
+        broadcast(localKey(key));
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        forgetTiming(null);
+        clears.incrementAndGet();
+        l2.clear();
+        dropAllLocal();
+        broadcast(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        forgetTiming(null);
+        clears.incrementAndGet();
+        boolean present = l2.invalidate();
+        dropAllLocal();
+        broadcast(null);
+        return present;
+    }
+
+    /**
+     * Look a key up in L1 only.
+     *
+     * @param key the cache key
+     * @return the value held in L1, or {@code null}
+     */
+    Object getLocal(Object key) {
+        return l1.getIfPresent(localKey(key));
+    }
+
+    /**
+     * Look up the validator of the value last admitted for a key, which is kept after L1 evicted the value
+     * itself for room or age, and dropped when the value is written, evicted or invalidated.
+     *
+     * @param key the cache key
+     * @return the validator, or {@code null} if there is none or validators are not kept
+     */
+    String getValidator(Object key) {
+        return validators == null ? null : validators.get(localKey(key));
+    }
+
+    /**
+     * Offer a value that was read from or written to L2 by other means to L1, subject to the usual
+     * admission policy. Nothing is broadcast because L2 is not changed.
+     *
+     * @param key   the cache key
+     * @param value the value held in L2
+     */
+    void putLocal(Object key, Object value) {
+        admit(localKey(key), value);
+    }
+
+    /**
+     * @param key the cache key
+     * @return the generation of the key, to take before reading it from L2 by other means and pass to
+     * {@link #putLocal(Object, Object, long)}
+     */
+    long generation(Object key) {
+        return generation(localKey(key));
+    }
+
+    /**
+     * Offer a value that was read from L2 by other means to L1, unless the key was written, evicted or
+     * invalidated since the given generation was taken.
+     *
+     * @param key        the cache key
+     * @param value      the value read from L2
+     * @param generation the generation of the key taken before it was read
+     */
+    void putLocal(Object key, Object value, long generation) {
+        admitIfUnchanged(localKey(key), value, generation);
+    }
+
+    /**
+     * Drop keys from L1 and tell the other nodes to do the same, after they were evicted from L2 by other means.
+     *
+     * @param keys the cache keys
+     */
+    void evictLocal(Collection<?> keys) {
+        List<CacheInvalidation> invalidations = new ArrayList<>(keys.size());
+        for (Object key : keys) {
+            String localKey = localKey(key);
+            bumpGeneration(localKey);
+            dropLocal(localKey);
+            forgetTiming(localKey);
+            invalidations.add(new CacheInvalidation(nodeId, name, localKey));
+        }
+        invalidationBus.publishAll(invalidations);
+    }
+
+    /**
+     * Apply an invalidation received from another node. Only L1 is touched, L2 is already up to date.
+     *
+     * @param invalidation the invalidation to apply
+     */
+    void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        if (invalidation.isClear()) {
+            clears.incrementAndGet();
+            dropAllLocal();
+        } else {
+            bumpGeneration(invalidation.key());
+            dropLocal(invalidation.key());
+        }
+        // Another node rewrote or evicted L2, so the expiry recorded here no longer applies.
+        forgetTiming(invalidation.key());
+    }
+
+    /**
+     * Admission policy: values that are absent or larger than the per-entry limit stay in L2 only.
+     * Everything else is offered to L1, whose own frequency-based eviction decides what survives.
+     */
+    private void admit(String localKey, Object value) {
+        if (validators != null) {
+            validators.record(localKey, value);
+        }
+        if (value == null || CacheValueWeigher.estimate(value) > maxEntryBytes) {
+            l1.invalidate(localKey);
+            return;
+        }
+        l1.put(localKey, value);
+    }
+
+    /**
+     * {@link #admit(String, Object)} a value read from L2, unless its key changed since the given generation was
+     * taken. The check runs in the same atomic step as the L1 write, and a writer bumps the generation before
+     * touching L1, so either the writer's L1 update lands last or the check sees the bump.
+     */
+    private void admitIfUnchanged(String localKey, Object value, long generation) {
+        l1.asMap().compute(localKey, (k, current) -> {
+            if (generation(localKey) != generation) {
+                return current;
+            }
+            if (validators != null) {
+                validators.record(localKey, value);
+            }
+            return value == null || CacheValueWeigher.estimate(value) > maxEntryBytes ? null : value;
+        });
+    }
+
+    private long generation(String localKey) {
+        return generations.get(stripe(localKey)) + clears.get();
+    }
+
+    private void bumpGeneration(String localKey) {
+        generations.incrementAndGet(stripe(localKey));
+    }
+
+    private static int stripe(String localKey) {
+        int hash = localKey.hashCode();
+        return (hash ^ (hash >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void dropLocal(String localKey) {
+        l1.invalidate(localKey);
+        if (validators != null) {
+            validators.invalidate(localKey);
+        }
+    }
+
+    private void dropAllLocal() {
+        l1.invalidateAll();
+        if (validators != null) {
+            validators.invalidateAll();
+        }
+    }
+
+    /**
+     * Drop the load timing of an entry that is being written or evicted, and cancel a refresh of it in flight.
+     *
+     * @param localKey the key whose load timing to drop, or {@code null} for all keys
+     */
+    private void forgetTiming(String localKey) {
+        if (refreshAhead == null) {
+            return;
+        }
+        if (localKey == null) {
+            refreshes.clear();
+            refreshAhead.forgetAll();
+        } else {
+            refreshes.remove(localKey);
+            refreshAhead.forget(localKey);
+        }
+    }
+
+    private void broadcast(String localKey) {
+        invalidationBus.publish(new CacheInvalidation(nodeId, name, localKey));
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+}
@@ -0,0 +1,140 @@
+package com.learning.product_catalog_api.cache;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.cache.RedisCache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * {@link CacheManager} that puts a bounded Caffeine L1 in front of the caches of another manager (L2).
+ * Only the caches listed in {@link NearCacheProperties#getCacheNames()} get an L1; every other cache is
+ * returned from the L2 manager unchanged.
+ *
+ * <p>Each L1 is bounded both by entry count and by estimated heap size. Caffeine only supports one
+ * bound, so every entry is charged at least {@code maxWeightBytes / maxEntries}, which caps the entry
+ * count while still charging large values their real size.
+ *
+ * <p>When {@link NearCacheProperties#getRefreshAheadBeta()} is positive and the L2 cache is a {@link RedisCache},
+ * each cache also gets a {@link RefreshAheadPolicy} based on the TTL the Redis cache applies, with reloads
+ * run on the given executor.
+ *
+ * <p>A cache given a validator function with {@link #setValidator(String, Function)} also keeps the validators
+ * of its values in {@link CacheValidators}, bounded by {@link NearCacheProperties#getValidatorMaxEntries()}.
+ */
+public class TwoTierCacheManager implements CacheManager, InitializingBean {
+
+    private final CacheManager l2CacheManager;
+
+    private final NearCacheProperties properties;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final Executor refreshExecutor;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ConcurrentMap<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    private final ConcurrentMap<String, Function<Object, String>> validatorFunctions = new ConcurrentHashMap<>();
+
+    public TwoTierCacheManager(CacheManager l2CacheManager,
+                               NearCacheProperties properties,
+                               CacheInvalidationBus invalidationBus) {
+        this(l2CacheManager, properties, invalidationBus, task -> Thread.ofVirtual().start(task));
+    }
+
+    /**
+     * @param refreshExecutor runs refresh-ahead reloads in the background
+     */
+    public TwoTierCacheManager(CacheManager l2CacheManager,
+                               NearCacheProperties properties,
+                               CacheInvalidationBus invalidationBus,
+                               Executor refreshExecutor) {
+        this.l2CacheManager = l2CacheManager;
+        this.properties = properties;
+        this.invalidationBus = invalidationBus;
+        this.refreshExecutor = refreshExecutor;
+        invalidationBus.subscribe(this::onInvalidation);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (l2CacheManager instanceof InitializingBean initializingBean) {
+            initializingBean.afterPropertiesSet();
+        }
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        if (!properties.getCacheNames().contains(name)) {
+            return l2CacheManager.getCache(name);
+        }
+        TwoTierCache cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        Cache l2 = l2CacheManager.getCache(name);
+        if (l2 == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(name, cacheName -> createCache(cacheName, l2));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return l2CacheManager.getCacheNames();
+    }
+
+    /**
+     * Keep the validators of the values of a cache, e.g. their ETags. Takes effect for a cache created afterwards,
+     * so call it before the cache is first used.
+     *
+     * @param cacheName   the name of the cache
+     * @param validatorOf the validator of a value, or {@code null} if it has none
+     */
+    public void setValidator(String cacheName, Function<Object, String> validatorOf) {
+        validatorFunctions.put(cacheName, validatorOf);
+    }
+
+    public CacheManager getL2CacheManager() {
+        return l2CacheManager;
+    }
+
+    private TwoTierCache createCache(String name, Cache l2) {
+        long minimumWeight = Math.max(1, properties.getMaxWeightBytes() / Math.max(1, properties.getMaxEntries()));
+        com.github.benmanes.caffeine.cache.Cache<String, Object> l1 = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaxWeightBytes())
+                .weigher((String key, Object value) ->
+                        (int) Math.min(Integer.MAX_VALUE, Math.max(minimumWeight, CacheValueWeigher.estimate(value))))
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+        RefreshAheadPolicy refreshAhead = null;
+        if (properties.getRefreshAheadBeta() > 0 && l2 instanceof RedisCache redisCache) {
+            refreshAhead = new RefreshAheadPolicy(properties.getRefreshAheadBeta(),
+                    redisCache.getCacheConfiguration().getTtlFunction()::getTimeToLive,
+                    refreshExecutor, properties.getMaxEntries());
+        }
+        Function<Object, String> validatorOf = validatorFunctions.get(name);
+        CacheValidators validators = validatorOf == null ? null
+                : new CacheValidators(validatorOf, properties.getValidatorMaxEntries(), properties.getValidatorTtl());
+        return new TwoTierCache(name, l1, l2, invalidationBus, nodeId, properties.getMaxEntryBytes(), refreshAhead,
+                validators);
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache != null) {
+            cache.onInvalidation(invalidation);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.learning.product_catalog_api.changes;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.data.ProductChangeEvent;
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Evicts cached products that a change made stale without the writer updating the cache: ids reused by a new
+ * database behind a cache that outlived the old one (for example rows inserted by a bulk ingest after a
+ * restart), and updates that reached the database but not the cache.
+ *
+ * <p>The cached entries of created and updated products are read with one multi-get per batch, and only those
+ * older than the change, or from another product with the same id, are evicted, so entries the writer already
+ * brought up to date stay cached. Deleted products are evicted unconditionally. Patches are not handled here:
+ * the patching service evicts its products as soon as it commits.
+ */
+@Component
+public class ProductCacheChangeConsumer implements ProductChangeConsumer {
+
+    private static final String PRODUCTS_CACHE = "products";
+
+    private final BatchCacheOperations batchCacheOperations;
+
+    @Autowired
+    public ProductCacheChangeConsumer(BatchCacheOperations batchCacheOperations) {
+        this.batchCacheOperations = batchCacheOperations;
+    }
+
+    @Override
+    public String name() {
+        return "cache";
+    }
+
+    @Override
+    public void accept(List<ProductChangeEvent> changes) {
+        Map<Integer, ProductResponse> written = new HashMap<>();
+        List<Integer> stale = new ArrayList<>();
+        for (ProductChangeEvent change : changes) {
+            switch (change.type()) {
+                case CREATED, UPDATED -> written.put(change.id(), change.product());
+                case DELETED -> {
+                    written.remove(change.id());
+                    stale.add(change.id());
+                }
+                case PATCHED -> {
+                }
+            }
+        }
+        Map<Integer, ProductResponse> cached =
+                batchCacheOperations.getAll(PRODUCTS_CACHE, written.keySet(), ProductResponse.class);
+        cached.forEach((id, product) -> {
+            if (isStale(product, written.get(id))) {
+                stale.add(id);
+            }
+        });
+        batchCacheOperations.evictAll(PRODUCTS_CACHE, stale);
+    }
+
+    private static boolean isStale(ProductResponse cached, ProductResponse changed) {
+        return cached.version() < changed.version() || !Objects.equals(millis(cached.createdAt()), millis(changed.createdAt()));
+    }
+
+    /**
+     * Timestamps read back from the database can be less precise than the ones of the entity that was saved.
+     */
+    private static LocalDateTime millis(LocalDateTime time) {
+        return time == null ? null : time.truncatedTo(ChronoUnit.MILLIS);
+    }
+}
@@ -0,0 +1,29 @@
+package com.learning.product_catalog_api.changes;
+
+import java.util.List;
+
+import com.learning.product_catalog_api.data.ProductChangeEvent;
+
+/**
+ * Receives the changes published to the {@link ProductChangeLog}. Every consumer bean gets every change, in
+ * sequence order, on a thread of its own, so a slow consumer only holds back itself.
+ */
+public interface ProductChangeConsumer {
+
+    /**
+     * A short name for logs and the diagnostics report, e.g. {@code search-index}.
+     */
+    String name();
+
+    /**
+     * Apply a batch of consecutive changes. If this throws, the batch is logged and skipped, not retried.
+     */
+    void accept(List<ProductChangeEvent> changes);
+
+    /**
+     * Called instead of delivering changes that were overwritten in the log before this consumer got to them.
+     * Consumers that keep state derived from the products should rebuild it from the database.
+     */
+    default void onGap() {
+    }
+}
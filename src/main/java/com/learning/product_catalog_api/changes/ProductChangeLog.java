@@ -0,0 +1,346 @@
+package com.learning.product_catalog_api.changes;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.learning.product_catalog_api.data.ProductChangeEvent;
+import com.learning.product_catalog_api.data.ProductChangePage;
+import com.learning.product_catalog_api.data.ProductChangesReport;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.exception.ChangesExpiredException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Log of the products created, updated, patched and deleted on this node, which the writers publish to instead
+ * of maintaining every cache and index themselves. Changes are published once the transaction that made them
+ * has committed, and numbered with a sequence that increases by one per change.
+ *
+ * <p>The log is a ring of the last {@code catalog.changes.capacity} changes. Each {@link ProductChangeConsumer}
+ * bean reads it from its own position on its own thread, in batches of up to {@code catalog.changes.batch-size},
+ * so the writers never wait for a consumer. A consumer that falls more than the capacity behind skips the
+ * overwritten changes and is told to rebuild through {@link ProductChangeConsumer#onGap()}. Clients outside the
+ * node read the log from a sequence of their choice with {@link #read(long, int, String)}.
+ *
+ * <p>The log is not persisted: sequences start over on restart, under a new {@code epoch}. The writes of other
+ * nodes reach this node's caches through the cache invalidation bus, not through this log.
+ */
+@Slf4j
+@Component
+public class ProductChangeLog implements SmartLifecycle {
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final String epoch = UUID.randomUUID().toString();
+
+    private final ProductChangeEvent[] ring;
+
+    private final int mask;
+
+    private final int batchSize;
+
+    private final List<Subscription> subscriptions;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition published = lock.newCondition();
+
+    /** The sequence of the latest change, written under {@link #lock}. */
+    private volatile long last;
+
+    private volatile boolean running;
+
+    @Autowired
+    public ProductChangeLog(@Value("${catalog.changes.capacity:65536}") int capacity,
+                            @Value("${catalog.changes.batch-size:256}") int batchSize,
+                            List<ProductChangeConsumer> consumers) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        this.ring = new ProductChangeEvent[size];
+        this.mask = size - 1;
+        this.batchSize = Math.max(1, batchSize);
+        this.subscriptions = consumers.stream().map(Subscription::new).toList();
+    }
+
+    public String epoch() {
+        return epoch;
+    }
+
+    /**
+     * @return the sequence of the latest change appended, 0 if there is none yet; it grows with every change this
+     * node commits
+     */
+    public long lastSequence() {
+        return last;
+    }
+
+    public void created(ProductResponse product) {
+        created(List.of(product));
+    }
+
+    public void created(Collection<ProductResponse> products) {
+        List<ProductChangeEvent> changes = new ArrayList<>(products.size());
+        for (ProductResponse product : products) {
+            changes.add(change(ProductChangeEvent.Type.CREATED, product.id(), product, null, null));
+        }
+        publish(changes);
+    }
+
+    public void updated(ProductResponse product) {
+        publish(List.of(change(ProductChangeEvent.Type.UPDATED, product.id(), product, null, null)));
+    }
+
+    /**
+     * Publish that the given products had their price and/or availability set, a {@code null} meaning unchanged,
+     * and their {@code updatedAt} set to the given time.
+     */
+    public void patched(Collection<Integer> ids, @Nullable BigDecimal price, @Nullable Boolean available,
+                        LocalDateTime updatedAt) {
+        List<ProductChangeEvent> changes = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            changes.add(new ProductChangeEvent(0, ProductChangeEvent.Type.PATCHED, id, updatedAt, null, price, available));
+        }
+        publish(changes);
+    }
+
+    public void deleted(int id) {
+        publish(List.of(change(ProductChangeEvent.Type.DELETED, id, null, null, null)));
+    }
+
+    private static ProductChangeEvent change(ProductChangeEvent.Type type, int id, ProductResponse product,
+                                             BigDecimal price, Boolean available) {
+        return new ProductChangeEvent(0, type, id, null, product, price, available);
+    }
+
+    /**
+     * Append the changes once the current transaction has committed, or now if there is none, so consumers
+     * that read the database never see a change before its rows.
+     */
+    private void publish(List<ProductChangeEvent> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            append(changes);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                append(changes);
+            }
+        });
+    }
+
+    private void append(List<ProductChangeEvent> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        lock.lock();
+        try {
+            for (ProductChangeEvent change : changes) {
+                last++;
+                LocalDateTime changedAt = change.changedAt() != null ? change.changedAt() : now;
+                ring[(int) (last & mask)] = new ProductChangeEvent(last, change.type(), change.id(), changedAt,
+                        change.product(), change.price(), change.available());
+            }
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Read the changes after the given sequence.
+     *
+     * @param since the sequence of the last change the caller has seen, 0 to start from the beginning
+     * @param limit the maximum number of changes to return
+     * @param epoch the epoch {@code since} was read in, or {@code null} to not check it
+     * @throws ChangesExpiredException if changes after {@code since} are no longer held, or {@code since} is from
+     *                                 another epoch; the caller has to resynchronize from a full export
+     */
+    public ProductChangePage read(long since, int limit, @Nullable String epoch) {
+        if (epoch != null && !epoch.equals(this.epoch)) {
+            throw new ChangesExpiredException("The change log was restarted since epoch " + epoch + ", resynchronize from an export");
+        }
+        lock.lock();
+        try {
+            if (since < first() - 1 || since > last) {
+                throw new ChangesExpiredException("Changes after " + since + " are no longer available, the log holds "
+                        + first() + " to " + last + "; resynchronize from an export");
+            }
+            List<ProductChangeEvent> changes = copy(since, limit);
+            long next = since + changes.size();
+            return new ProductChangePage(this.epoch, changes, next, next < last);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The sequence of the oldest change still held, guarded by {@link #lock}. */
+    private long first() {
+        return Math.max(1, last - ring.length + 1);
+    }
+
+    private List<ProductChangeEvent> copy(long since, int limit) {
+        int count = (int) Math.min(Math.max(0, limit), last - since);
+        List<ProductChangeEvent> changes = new ArrayList<>(count);
+        for (long sequence = since + 1; sequence <= since + count; sequence++) {
+            changes.add(ring[(int) (sequence & mask)]);
+        }
+        return changes;
+    }
+
+    public ProductChangesReport report() {
+        lock.lock();
+        try {
+            List<ProductChangesReport.Consumer> consumers = subscriptions.stream()
+                    .map(subscription -> new ProductChangesReport.Consumer(subscription.consumer.name(),
+                            subscription.position, last - subscription.position, subscription.delivered,
+                            subscription.batches, subscription.failures, subscription.gaps))
+                    .toList();
+            return new ProductChangesReport(epoch, ring.length, first(), last, consumers);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        lock.lock();
+        try {
+            running = true;
+            for (Subscription subscription : subscriptions) {
+                subscription.position = last;
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (Subscription subscription : subscriptions) {
+            subscription.thread = Thread.ofPlatform().name("product-changes-" + subscription.consumer.name())
+                    .daemon().start(() -> deliverUntilStopped(subscription));
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            published.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            for (Subscription subscription : subscriptions) {
+                if (!subscription.thread.join(SHUTDOWN_TIMEOUT)) {
+                    log.warn("Product change consumer {} did not catch up within {}", subscription.consumer.name(),
+                            SHUTDOWN_TIMEOUT);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the write-behind queue, whose last flush may still publish changes, and deliver those.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 8192;
+    }
+
+    private void deliverUntilStopped(Subscription subscription) {
+        while (true) {
+            List<ProductChangeEvent> batch;
+            boolean gap = false;
+            lock.lock();
+            try {
+                while (running && subscription.position == last) {
+                    published.awaitUninterruptibly();
+                }
+                if (subscription.position == last) {
+                    return;
+                }
+                if (subscription.position < first() - 1) {
+                    subscription.position = first() - 1;
+                    subscription.gaps++;
+                    gap = true;
+                }
+                batch = copy(subscription.position, batchSize);
+            } finally {
+                lock.unlock();
+            }
+            ProductChangeConsumer consumer = subscription.consumer;
+            boolean failed = false;
+            try {
+                if (gap) {
+                    log.warn("Product change consumer {} fell behind by more than {} changes, rebuilding",
+                            consumer.name(), ring.length);
+                    consumer.onGap();
+                }
+                consumer.accept(batch);
+            } catch (RuntimeException e) {
+                failed = true;
+                log.warn("Product change consumer {} failed on changes {} to {}: {}", consumer.name(),
+                        batch.get(0).sequence(), batch.get(batch.size() - 1).sequence(), e.getMessage());
+            }
+            lock.lock();
+            try {
+                subscription.position += batch.size();
+                subscription.delivered += batch.size();
+                subscription.batches++;
+                if (failed) {
+                    subscription.failures++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * A consumer and how far it has read, guarded by {@link #lock}.
+     */
+    private static final class Subscription {
+
+        private final ProductChangeConsumer consumer;
+
+        private long position;
+
+        private long delivered;
+
+        private long batches;
+
+        private long failures;
+
+        private long gaps;
+
+        private Thread thread;
+
+        private Subscription(ProductChangeConsumer consumer) {
+            this.consumer = consumer;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.learning.product_catalog_api.changes;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.data.ProductChangeEvent;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.diagnostics.LatencyTimer;
+
+/**
+ * Records, per type of change, how long product changes took from being made to reaching the consumers, as the
+ * {@code changes.delivery} timers of the {@link LatencyRecorder}. Their counts are the number of changes of each
+ * type since startup.
+ */
+@Component
+public class ProductChangeMetrics implements ProductChangeConsumer {
+
+    private final Map<ProductChangeEvent.Type, LatencyTimer> timers = new EnumMap<>(ProductChangeEvent.Type.class);
+
+    @Autowired
+    public ProductChangeMetrics(LatencyRecorder latencyRecorder) {
+        for (ProductChangeEvent.Type type : ProductChangeEvent.Type.values()) {
+            timers.put(type, latencyRecorder.timer("changes.delivery", "type", type.name().toLowerCase()));
+        }
+    }
+
+    @Override
+    public String name() {
+        return "metrics";
+    }
+
+    @Override
+    public void accept(List<ProductChangeEvent> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        for (ProductChangeEvent change : changes) {
+            timers.get(change.type()).record(Duration.between(change.changedAt(), now).toNanos());
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.learning.product_catalog_api.changes;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.Initializer.ProductIndexInitializer;
+import com.learning.product_catalog_api.data.ProductChangeEvent;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+
+/**
+ * Keeps the {@link ProductSearchIndex} and the {@link ProductFilterIndex} up to date with the product change log.
+ * Runs of creations and updates are indexed together, and runs of identical patches, as one patch request
+ * publishes them, are applied with one {@code patchAll} per index. The changed ids are then announced to the
+ * other nodes through the {@link ProductIndexSync}.
+ */
+@Component
+public class ProductIndexChangeConsumer implements ProductChangeConsumer {
+
+    private final ProductSearchIndex searchIndex;
+
+    private final ProductFilterIndex filterIndex;
+
+    private final ProductIndexInitializer indexInitializer;
+
+    private final ProductIndexSync indexSync;
+
+    @Autowired
+    public ProductIndexChangeConsumer(ProductSearchIndex searchIndex, ProductFilterIndex filterIndex,
+                                      ProductIndexInitializer indexInitializer, ProductIndexSync indexSync) {
+        this.searchIndex = searchIndex;
+        this.filterIndex = filterIndex;
+        this.indexInitializer = indexInitializer;
+        this.indexSync = indexSync;
+    }
+
+    @Override
+    public String name() {
+        return "index";
+    }
+
+    @Override
+    public void accept(List<ProductChangeEvent> changes) {
+        List<ProductResponse> upserts = new ArrayList<>();
+        List<Integer> patched = new ArrayList<>();
+        ProductChangeEvent patch = null;
+        for (ProductChangeEvent change : changes) {
+            if (change.type() != ProductChangeEvent.Type.PATCHED || (patch != null && !samePatch(patch, change))) {
+                patch(patched, patch);
+                patch = null;
+            }
+            if (change.type() == ProductChangeEvent.Type.PATCHED) {
+                upsert(upserts);
+                patch = patch != null ? patch : change;
+                patched.add(change.id());
+            } else if (change.type() == ProductChangeEvent.Type.DELETED) {
+                upsert(upserts);
+                searchIndex.remove(change.id());
+                filterIndex.remove(change.id());
+            } else {
+                upserts.add(change.product());
+            }
+        }
+        patch(patched, patch);
+        upsert(upserts);
+        if (indexSync != null) {
+            indexSync.announce(changes.stream().map(ProductChangeEvent::id).toList());
+        }
+    }
+
+    private void upsert(List<ProductResponse> products) {
+        if (!products.isEmpty()) {
+            searchIndex.indexAll(products);
+            filterIndex.indexAll(products);
+            products.clear();
+        }
+    }
+
+    private void patch(List<Integer> ids, ProductChangeEvent patch) {
+        if (!ids.isEmpty()) {
+            BigDecimal price = patch.price();
+            Boolean available = patch.available();
+            searchIndex.patchAll(ids, price, available);
+            filterIndex.patchAll(ids, price, available);
+            ids.clear();
+        }
+    }
+
+    private static boolean samePatch(ProductChangeEvent a, ProductChangeEvent b) {
+        return Objects.equals(a.price(), b.price()) && Objects.equals(a.available(), b.available())
+                && Objects.equals(a.changedAt(), b.changedAt());
+    }
+
+    /**
+     * Changes were lost, so rebuild both indexes from the database.
+     */
+    @Override
+    public void onGap() {
+        indexInitializer.buildIndexes();
+    }
+}
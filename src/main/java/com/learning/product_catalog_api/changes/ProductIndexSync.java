@@ -0,0 +1,150 @@
+package com.learning.product_catalog_api.changes;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.cache.CacheInvalidation;
+import com.learning.product_catalog_api.cache.CacheInvalidationBus;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Brings the writes of other nodes into this node's {@link ProductSearchIndex} and {@link ProductFilterIndex},
+ * which the {@link ProductChangeLog} only feeds with the writes of this node. The ids of the products this node
+ * indexed are announced over the {@link CacheInvalidationBus}; the ids other nodes announce are collected and,
+ * every {@code catalog.index.remote-sync-interval}, read from the database and indexed, or removed if they no
+ * longer exist.
+ *
+ * <p>An announcement can be lost, and a write-behind update is announced before it is committed and again once
+ * it is; the periodic rebuild of the indexes catches whatever is missed, as well as writes made outside the
+ * application. Without a bus nothing is announced or received.
+ */
+@Slf4j
+@Component
+public class ProductIndexSync {
+
+    /**
+     * Pseudo cache name under which the ids of indexed products are announced on the invalidation bus.
+     */
+    static final String CHANNEL_NAME = "product-index";
+
+    private static final int READ_CHUNK_SIZE = 1000;
+
+    private final CacheInvalidationBus bus;
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final ProductRepository productRepository;
+
+    private final ProductSearchIndex searchIndex;
+
+    private final ProductFilterIndex filterIndex;
+
+    private final Set<Integer> remoteIds = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong remoteChanges = new AtomicLong();
+
+    /**
+     * @param bus the bus to announce indexed ids on; {@code null} when there is none, e.g. with the near cache
+     *            disabled
+     */
+    @Autowired
+    public ProductIndexSync(@Nullable CacheInvalidationBus bus, ProductRepository productRepository,
+                            ProductSearchIndex searchIndex, ProductFilterIndex filterIndex) {
+        this.bus = bus;
+        this.productRepository = productRepository;
+        this.searchIndex = searchIndex;
+        this.filterIndex = filterIndex;
+        if (bus != null) {
+            bus.subscribe(this::onInvalidation);
+        }
+    }
+
+    /**
+     * Tell the other nodes that the given products changed here.
+     */
+    public void announce(Collection<Integer> ids) {
+        if (bus == null || ids.isEmpty()) {
+            return;
+        }
+        List<CacheInvalidation> announcements = new ArrayList<>(ids.size());
+        for (Integer id : new HashSet<>(ids)) {
+            announcements.add(new CacheInvalidation(nodeId, CHANNEL_NAME, Integer.toString(id)));
+        }
+        try {
+            bus.publishAll(announcements);
+        } catch (RuntimeException e) {
+            // The other nodes will see the products at their next rebuild.
+            log.warn("Could not announce {} indexed products to other nodes: {}", announcements.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * @return the number of product changes other nodes announced so far; it grows as soon as an announcement is
+     * received, before the change is indexed
+     */
+    public long remoteChanges() {
+        return remoteChanges.get();
+    }
+
+    /**
+     * Index the products other nodes announced since the last run, as they are in the database now.
+     */
+    @Scheduled(fixedDelayString = "${catalog.index.remote-sync-interval:1s}")
+    public void applyRemoteChanges() {
+        while (!remoteIds.isEmpty()) {
+            List<Integer> chunk = new ArrayList<>(Math.min(READ_CHUNK_SIZE, remoteIds.size()));
+            Iterator<Integer> iterator = remoteIds.iterator();
+            while (iterator.hasNext() && chunk.size() < READ_CHUNK_SIZE) {
+                chunk.add(iterator.next());
+                iterator.remove();
+            }
+            List<ProductResponse> products;
+            try {
+                products = productRepository.findResponsesByIdIn(chunk);
+            } catch (RuntimeException e) {
+                remoteIds.addAll(chunk);
+                log.warn("Could not read {} products changed on other nodes, retrying: {}", chunk.size(), e.getMessage());
+                return;
+            }
+            Set<Integer> missing = new HashSet<>(chunk);
+            products.forEach(product -> missing.remove(product.id()));
+            searchIndex.indexAll(products);
+            filterIndex.indexAll(products);
+            for (Integer id : missing) {
+                searchIndex.remove(id);
+                filterIndex.remove(id);
+            }
+        }
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (!CHANNEL_NAME.equals(invalidation.cacheName()) || nodeId.equals(invalidation.origin())
+                || invalidation.isClear()) {
+            return;
+        }
+        try {
+            remoteIds.add(Integer.parseInt(invalidation.key()));
+            remoteChanges.incrementAndGet();
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed indexed product announcement: {}", invalidation.key());
+        }
+    }
+}
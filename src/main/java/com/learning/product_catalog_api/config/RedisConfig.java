@@ -1,7 +1,14 @@
 package com.learning.product_catalog_api.config;
 
+import java.time.Duration;
 import java.util.Map;
+import java.util.concurrent.Executor;
 
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.interceptor.SimpleKeyGenerator;
@@ -10,22 +17,75 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.cache.RedisCacheConfiguration;
 import org.springframework.data.redis.cache.RedisCacheManager;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext.SerializationPair;
+import org.springframework.lang.Nullable;
+
+import com.learning.product_catalog_api.cache.CacheInvalidationSubscriber;
+import com.learning.product_catalog_api.cache.CacheValueFormat;
+import com.learning.product_catalog_api.cache.JitteredTtlFunction;
+import com.learning.product_catalog_api.cache.NearCacheProperties;
+import com.learning.product_catalog_api.cache.RedisCacheInvalidationBus;
+import com.learning.product_catalog_api.cache.TimedCacheManager;
+import com.learning.product_catalog_api.cache.TwoTierCacheManager;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.util.ProductETags;
 
 @Configuration
 @EnableCaching
+@EnableConfigurationProperties(NearCacheProperties.class)
 public class RedisConfig {
 
     @Bean
-    public CacheManager cacheManager(final RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(final RedisConnectionFactory connectionFactory,
+                                     final NearCacheProperties nearCacheProperties,
+                                     @Nullable final RedisCacheInvalidationBus cacheInvalidationBus,
+                                     @Value("${catalog.cache.products.value-format:binary}") final CacheValueFormat productsValueFormat,
+                                     @Value("${catalog.cache.products.ttl:5m}") final Duration productsTtl,
+                                     @Value("${catalog.cache.products.ttl-jitter:0.1}") final double productsTtlJitter,
+                                     @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) final Executor taskExecutor,
+                                     final LatencyRecorder latencyRecorder) {
         final RedisCacheConfiguration cacheConfig = RedisCacheConfiguration.defaultCacheConfig()
-                .entryTtl(java.time.Duration.ofMinutes(10))
+                .entryTtl(Duration.ofMinutes(10))
                 .disableCachingNullValues();
         final Map<String, RedisCacheConfiguration> cacheConfigurations = Map.of(
-                "products", cacheConfig.entryTtl(java.time.Duration.ofMinutes(5)));
-        return RedisCacheManager.builder(connectionFactory)
+                "products", cacheConfig.entryTtl(new JitteredTtlFunction(productsTtl, productsTtlJitter))
+                        .serializeValuesWith(SerializationPair.fromSerializer(productsValueFormat.serializer())));
+        final RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(cacheConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
                 .build();
+        CacheManager cacheManager = redisCacheManager;
+        if (nearCacheProperties.isEnabled()) {
+            final TwoTierCacheManager twoTierCacheManager =
+                    new TwoTierCacheManager(redisCacheManager, nearCacheProperties, cacheInvalidationBus, taskExecutor);
+            // Lets a conditional GET of a product that fell out of L1 be answered without reading it.
+            twoTierCacheManager.setValidator("products",
+                    value -> value instanceof ProductResponse product ? ProductETags.of(product) : null);
+            cacheManager = twoTierCacheManager;
+        }
+        return latencyRecorder.isEnabled() ? new TimedCacheManager(cacheManager, latencyRecorder) : cacheManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "catalog.cache.near", name = "enabled", matchIfMissing = true)
+    public RedisCacheInvalidationBus cacheInvalidationBus(final StringRedisTemplate redisTemplate,
+                                                          final NearCacheProperties nearCacheProperties) {
+        return new RedisCacheInvalidationBus(redisTemplate, nearCacheProperties.getInvalidationChannel());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "catalog.cache.near", name = "enabled", matchIfMissing = true)
+    public CacheInvalidationSubscriber cacheInvalidationSubscriber(final RedisConnectionFactory connectionFactory,
+                                                                   final RedisCacheInvalidationBus cacheInvalidationBus,
+                                                                   final NearCacheProperties nearCacheProperties) {
+        final RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(nearCacheProperties.getInvalidationChannel()));
+        return new CacheInvalidationSubscriber(container, Duration.ofSeconds(30));
     }
 
     @Bean
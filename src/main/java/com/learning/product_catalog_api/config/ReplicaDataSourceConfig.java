@@ -0,0 +1,92 @@
+package com.learning.product_catalog_api.config;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.learning.product_catalog_api.datasource.ReplicaDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Routes read-only transactions to read replicas, when {@code catalog.datasource.replicas.enabled} is set. The
+ * application's {@code DataSource} is then a {@link LazyConnectionDataSourceProxy} that only takes a connection
+ * at the first statement of a transaction, once it is known whether the transaction is read-only: read-only
+ * ones, i.e. {@code @Transactional(readOnly = true)} service and repository methods, get theirs from the
+ * {@link ReplicaDataSource}, all others from the primary configured under {@code spring.datasource}.
+ *
+ * <p>Each replica of {@code urls} gets its own Hikari pool of {@code pool-size} connections, with the primary's
+ * credentials and {@code spring.datasource.hikari} settings, and a short {@code connection-timeout} so that a
+ * replica that is down is ejected quickly rather than holding requests up.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "catalog.datasource.replicas", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties dataSourceProperties) {
+        final HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public ReplicaDataSource replicaDataSource(final HikariDataSource primaryDataSource,
+                                               final DataSourceProperties dataSourceProperties,
+                                               final Environment environment,
+                                               @Value("${catalog.datasource.replicas.urls:}") final List<String> urls,
+                                               @Value("${catalog.datasource.replicas.max-lag:2s}") final Duration maxLag,
+                                               @Value("${catalog.datasource.replicas.lag-query:}") final String lagQuery,
+                                               @Value("${catalog.datasource.replicas.ejection-time:30s}") final Duration ejectionTime,
+                                               @Value("${catalog.datasource.replicas.pool-size:10}") final int poolSize,
+                                               @Value("${catalog.datasource.replicas.connection-timeout:1s}") final Duration connectionTimeout) {
+        final Binder binder = Binder.get(environment);
+        final Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (final String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            final String name = "replica-" + (replicas.size() + 1);
+            final HikariDataSource replica = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName(name);
+            replica.setJdbcUrl(url.strip());
+            replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+            replica.setUsername(dataSourceProperties.determineUsername());
+            replica.setPassword(dataSourceProperties.determinePassword());
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(poolSize);
+            if (replica.getMinimumIdle() > poolSize) {
+                replica.setMinimumIdle(poolSize);
+            }
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            replicas.put(name, replica);
+        }
+        return new ReplicaDataSource(primaryDataSource, replicas, maxLag, lagQuery, ejectionTime);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(final HikariDataSource primaryDataSource, final ReplicaDataSource replicaDataSource) {
+        final LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(replicaDataSource);
+        return dataSource;
+    }
+}
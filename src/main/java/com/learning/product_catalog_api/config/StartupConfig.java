@@ -0,0 +1,59 @@
+package com.learning.product_catalog_api.config;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.type.MethodMetadata;
+
+/**
+ * Keeps subsystems that no request needs early off the startup path: beans declared by the classes in the
+ * packages listed in {@code catalog.startup.lazy-packages} are only created when first used. Their request
+ * mappings are still registered at startup, so, for example, with {@code org.springdoc} listed the OpenAPI and
+ * Swagger UI endpoints work as usual but pay for their setup on the first call rather than on every boot.
+ *
+ * <p>Bean definitions are marked lazy before any bean is created, so the choice is also recorded by AOT
+ * processing.
+ */
+@Configuration(proxyBeanMethods = false)
+public class StartupConfig {
+
+    @Bean
+    public static BeanFactoryPostProcessor lazyPackagesPostProcessor(final Environment environment) {
+        final List<String> packages = Binder.get(environment)
+                .bind("catalog.startup.lazy-packages", Bindable.listOf(String.class))
+                .orElse(List.of());
+        return beanFactory -> {
+            if (packages.isEmpty()) {
+                return;
+            }
+            for (final String name : beanFactory.getBeanDefinitionNames()) {
+                final BeanDefinition definition = beanFactory.getBeanDefinition(name);
+                final String declaringClass = declaringClassName(definition);
+                if (declaringClass != null && definition.getRole() == BeanDefinition.ROLE_APPLICATION
+                        && packages.stream().anyMatch(prefix -> declaringClass.startsWith(prefix + "."))) {
+                    definition.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return the class of the bean, or for a {@code @Bean} method the class declaring it
+     */
+    private static String declaringClassName(final BeanDefinition definition) {
+        if (definition instanceof AnnotatedBeanDefinition annotated) {
+            final MethodMetadata factoryMethod = annotated.getFactoryMethodMetadata();
+            if (factoryMethod != null) {
+                return factoryMethod.getDeclaringClassName();
+            }
+        }
+        return definition.getBeanClassName();
+    }
+}
@@ -0,0 +1,164 @@
+package com.learning.product_catalog_api.controller;
+
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.lang.Nullable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.learning.product_catalog_api.cache.ProductIdFilter;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.data.BatchLoaderReport;
+import com.learning.product_catalog_api.data.IdFilterReport;
+import com.learning.product_catalog_api.data.LatencyReport;
+import com.learning.product_catalog_api.data.PinningReport;
+import com.learning.product_catalog_api.data.ProductChangesReport;
+import com.learning.product_catalog_api.data.ReplicaReport;
+import com.learning.product_catalog_api.data.WarmUpReport;
+import com.learning.product_catalog_api.data.WriteBehindReport;
+import com.learning.product_catalog_api.datasource.ReplicaDataSource;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.diagnostics.VirtualThreadPinningMonitor;
+import com.learning.product_catalog_api.loader.ProductBatchLoader;
+import com.learning.product_catalog_api.warmup.ProductCacheWarmer;
+import com.learning.product_catalog_api.writebehind.ProductWriteBehindQueue;
+
+/**
+ * DiagnosticsController exposes runtime diagnostics of the api.
+ */
+@RestController
+@RequestMapping("/api/v1/diagnostics")
+public class DiagnosticsController {
+
+    private final VirtualThreadPinningMonitor pinningMonitor;
+
+    private final ProductIdFilter idFilter;
+
+    private final LatencyRecorder latencyRecorder;
+
+    private final ProductWriteBehindQueue writeBehind;
+
+    private final ProductChangeLog changeLog;
+
+    private final ProductCacheWarmer cacheWarmer;
+
+    private final ProductBatchLoader batchLoader;
+
+    @Nullable
+    private final ReplicaDataSource replicaDataSource;
+
+    @Autowired
+    public DiagnosticsController(VirtualThreadPinningMonitor pinningMonitor, ProductIdFilter idFilter,
+                                 LatencyRecorder latencyRecorder, ProductWriteBehindQueue writeBehind,
+                                 ProductChangeLog changeLog, ProductCacheWarmer cacheWarmer,
+                                 ProductBatchLoader batchLoader, @Nullable ReplicaDataSource replicaDataSource) {
+        this.pinningMonitor = pinningMonitor;
+        this.idFilter = idFilter;
+        this.latencyRecorder = latencyRecorder;
+        this.writeBehind = writeBehind;
+        this.changeLog = changeLog;
+        this.cacheWarmer = cacheWarmer;
+        this.batchLoader = batchLoader;
+        this.replicaDataSource = replicaDataSource;
+    }
+
+    /**
+     * Endpoint to report where virtual threads were pinned to their carrier thread since startup.
+     *
+     * @return ResponseEntity containing the pinning report; {@code monitoring} is false unless virtual threads or
+     * {@code catalog.diagnostics.pinning.enabled} are on.
+     */
+    @GetMapping(value = "/pinning", produces = "application/json")
+    public ResponseEntity<PinningReport> getPinningReport() {
+        return ResponseEntity.ok(pinningMonitor.report());
+    }
+
+    /**
+     * Endpoint to report how lookups of product ids were answered by the id filter and negative cache, and
+     * the false-positive rate observed against the one expected.
+     *
+     * @return ResponseEntity containing the id filter report.
+     */
+    @GetMapping(value = "/id-filter", produces = "application/json")
+    public ResponseEntity<IdFilterReport> getIdFilterReport() {
+        return ResponseEntity.ok(idFilter.report());
+    }
+
+    /**
+     * Endpoint to report latency percentiles of the hot paths: every endpoint ({@code http.server.requests}), cache
+     * operation ({@code cache.*}), repository method ({@code repository.invocations}) and health probe
+     * ({@code ping.probe}), for the last window and since startup.
+     *
+     * @param name optional prefix of the timer names to report, e.g. {@code cache}.
+     * @return ResponseEntity containing the latency report.
+     */
+    @GetMapping(value = "/latency", produces = "application/json")
+    public ResponseEntity<LatencyReport> getLatencyReport(@RequestParam(required = false) String name) {
+        return ResponseEntity.ok(latencyRecorder.report(name));
+    }
+
+    /**
+     * Endpoint to report how many product updates are waiting for write-behind, and how many were merged,
+     * committed, dropped and refused since startup.
+     *
+     * @return ResponseEntity containing the write-behind report; {@code enabled} is false unless
+     * {@code catalog.write-behind.enabled} is on.
+     */
+    @GetMapping(value = "/write-behind", produces = "application/json")
+    public ResponseEntity<WriteBehindReport> getWriteBehindReport() {
+        return ResponseEntity.ok(writeBehind.report());
+    }
+
+    /**
+     * Endpoint to report the range of product changes held in the change log, and how far each consumer of the
+     * log (indexes, cache, metrics) has got.
+     *
+     * @return ResponseEntity containing the change log report.
+     */
+    @GetMapping(value = "/changes", produces = "application/json")
+    public ResponseEntity<ProductChangesReport> getChangesReport() {
+        return ResponseEntity.ok(changeLog.report());
+    }
+
+    /**
+     * Endpoint to report the warm-up of the products cache from the snapshot of hot product ids taken before the
+     * last restart, and how many ids are tracked for the next snapshot.
+     *
+     * @return ResponseEntity containing the warm-up report; {@code enabled} is false unless
+     * {@code catalog.warm-up.enabled} is on.
+     */
+    @GetMapping(value = "/warm-up", produces = "application/json")
+    public ResponseEntity<WarmUpReport> getWarmUpReport() {
+        return ResponseEntity.ok(cacheWarmer.report());
+    }
+
+    /**
+     * Endpoint to report how product loads on cache misses were served: directly, or merged with concurrent loads
+     * into batch queries, with the number and mean size of the batches.
+     *
+     * @return ResponseEntity containing the batch loader report; {@code enabled} is false unless
+     * {@code catalog.batch-loader.enabled} is on.
+     */
+    @GetMapping(value = "/batch-loader", produces = "application/json")
+    public ResponseEntity<BatchLoaderReport> getBatchLoaderReport() {
+        return ResponseEntity.ok(batchLoader.report());
+    }
+
+    /**
+     * Endpoint to report how read-only connections were served: by which read replica, or by the primary for
+     * read-your-writes or because no replica was available, with each replica's lag and ejections.
+     *
+     * @return ResponseEntity containing the replica report; {@code enabled} is false unless
+     * {@code catalog.datasource.replicas.enabled} is on.
+     */
+    @GetMapping(value = "/replicas", produces = "application/json")
+    public ResponseEntity<ReplicaReport> getReplicaReport() {
+        return ResponseEntity.ok(replicaDataSource == null
+                ? new ReplicaReport(false, 0, 0, List.of())
+                : replicaDataSource.report());
+    }
+}
@@ -3,16 +3,28 @@ package com.learning.product_catalog_api.controller;
 import java.sql.Connection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 import javax.sql.DataSource;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.diagnostics.LatencyTimer;
+import com.learning.product_catalog_api.warmup.ProductCacheWarmer;
+
 /**
  * Ping controller to check health of the api.
  */
@@ -20,38 +32,79 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/v1/ping")
 public class PingController {
 
+    private static final long PROBE_TIMEOUT_SECONDS = 2;
+
     private final DataSource dataSource;
 
     private final StringRedisTemplate redisTemplate;
 
+    private final Executor taskExecutor;
+
+    private final LatencyTimer databaseProbeTimer;
+
+    private final LatencyTimer redisProbeTimer;
+
+    private final ProductCacheWarmer cacheWarmer;
+
     @Autowired
-    public PingController(DataSource dataSource, StringRedisTemplate redisTemplate) {
+    public PingController(DataSource dataSource, StringRedisTemplate redisTemplate,
+                          @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor taskExecutor,
+                          LatencyRecorder latencyRecorder, ProductCacheWarmer cacheWarmer) {
         this.dataSource = dataSource;
         this.redisTemplate = redisTemplate;
+        this.taskExecutor = taskExecutor;
+        this.databaseProbeTimer = latencyRecorder.timer("ping.probe", "probe", "database");
+        this.redisProbeTimer = latencyRecorder.timer("ping.probe", "probe", "redis");
+        this.cacheWarmer = cacheWarmer;
     }
 
+    /**
+     * Probes the database and Redis concurrently on the application task executor (virtual threads when
+     * enabled), so the response takes as long as the slower probe rather than both in turn. A probe that
+     * does not answer within two seconds is reported as DOWN. Each probe is timed in {@code ping.probe}.
+     * While the products cache is being warmed up at startup, {@code cacheWarmUp} is WARMING and the status is
+     * 503, so the node is not sent traffic before its cache is filled.
+     */
     @GetMapping
     public ResponseEntity<Map<String, String>> ping() {
+        CompletableFuture<String> database = probe(this::pingDatabase);
+        CompletableFuture<String> redis = probe(this::pingRedis);
         Map<String, String> healthStatus = new HashMap<>();
+        healthStatus.put("database", database.join());
+        healthStatus.put("redis", redis.join());
+        if (!cacheWarmer.isDone()) {
+            healthStatus.put("cacheWarmUp", "WARMING");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(healthStatus);
+        }
+        healthStatus.put("cacheWarmUp", "DONE");
+        return ResponseEntity.ok(healthStatus);
+    }
+
+    private CompletableFuture<String> probe(Supplier<String> check) {
+        return CompletableFuture.supplyAsync(check, taskExecutor)
+                .completeOnTimeout("DOWN", PROBE_TIMEOUT_SECONDS, TimeUnit.SECONDS)
+                .exceptionally(e -> "DOWN");
+    }
+
+    private String pingDatabase() {
+        long start = System.nanoTime();
         try (Connection connection = dataSource.getConnection()) {
-            if (connection.isValid(1)) {
-                healthStatus.put("database", "UP");
-            } else {
-                healthStatus.put("database", "DOWN");
-            }
+            return connection.isValid(1) ? "UP" : "DOWN";
         } catch (Exception e) {
-            healthStatus.put("database", "DOWN");
+            return "DOWN";
+        } finally {
+            databaseProbeTimer.recordSince(start);
         }
-        try {
-            String redisPing = redisTemplate.getConnectionFactory().getConnection().ping();
-            if ("PONG".equalsIgnoreCase(redisPing)) {
-                healthStatus.put("redis", "UP");
-            } else {
-                healthStatus.put("redis", "DOWN");
-            }
+    }
+
+    private String pingRedis() {
+        long start = System.nanoTime();
+        try (RedisConnection connection = redisTemplate.getConnectionFactory().getConnection()) {
+            return "PONG".equalsIgnoreCase(connection.ping()) ? "UP" : "DOWN";
         } catch (Exception e) {
-            healthStatus.put("redis", "DOWN");
+            return "DOWN";
+        } finally {
+            redisProbeTimer.recordSince(start);
         }
-        return ResponseEntity.ok(healthStatus);
     }
 }
@@ -0,0 +1,55 @@
+package com.learning.product_catalog_api.controller;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.product_catalog_api.data.ProductBulkResponse;
+import com.learning.product_catalog_api.data.ProductRequest;
+import com.learning.product_catalog_api.service.ProductBulkService;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+/**
+ * ProductBulkController handles HTTP requests that create many products at once.
+ */
+@RestController
+@RequestMapping("/api/v1/products")
+public class ProductBulkController {
+
+    private final ProductBulkService productBulkService;
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public ProductBulkController(ProductBulkService productBulkService, ObjectMapper objectMapper) {
+        this.productBulkService = productBulkService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Endpoint to create many products in one request. The body is either a JSON array of product requests
+     * or newline-delimited JSON with one product request per line. It is read incrementally, so it is never
+     * held in memory as a whole. Each item is validated on its own; valid items are inserted in JDBC batches
+     * and invalid ones are reported without failing the rest.
+     *
+     * @param warmCache whether to also write the created products to the products cache.
+     * @param request   the HTTP request to read the products from.
+     * @return ResponseEntity containing the result of every item, in request order.
+     */
+    @PostMapping(value = "/bulk", consumes = {"application/json", ProductExportController.NDJSON}, produces = "application/json")
+    public ResponseEntity<ProductBulkResponse> createProducts(@RequestParam(defaultValue = "false") boolean warmCache,
+                                                              HttpServletRequest request) throws IOException {
+        try (MappingIterator<ProductRequest> products = objectMapper.readerFor(ProductRequest.class)
+                .readValues(request.getInputStream())) {
+            return ResponseEntity.ok(productBulkService.ingest(products, warmCache));
+        }
+    }
+}
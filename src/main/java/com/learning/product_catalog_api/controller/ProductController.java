@@ -1,15 +1,22 @@
 package com.learning.product_catalog_api.controller;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.web.PagedResourcesAssembler;
 import org.springframework.hateoas.EntityModel;
 import org.springframework.hateoas.PagedModel;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
@@ -17,10 +24,28 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
+import com.learning.product_catalog_api.cache.ProductJsonCache;
+import com.learning.product_catalog_api.cache.ProductPageETagCache;
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductBatchPatchRequest;
+import com.learning.product_catalog_api.data.ProductBatchPatchResponse;
+import com.learning.product_catalog_api.data.ProductBatchRequest;
+import com.learning.product_catalog_api.data.ProductChangePage;
+import com.learning.product_catalog_api.data.ProductCursorPage;
+import com.learning.product_catalog_api.data.ProductFilterPage;
+import com.learning.product_catalog_api.data.ProductPatchRequest;
 import com.learning.product_catalog_api.data.ProductRequest;
 import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.ProductSearchResponse;
+import com.learning.product_catalog_api.exception.ProductNotFoundException;
+import com.learning.product_catalog_api.search.ProductFilterQuery;
+import com.learning.product_catalog_api.search.ProductSearchQuery;
 import com.learning.product_catalog_api.service.ProductService;
+import com.learning.product_catalog_api.util.ProductETags;
+import com.learning.product_catalog_api.util.ProductFields;
+import com.learning.product_catalog_api.warmup.HotProductTracker;
 
 import jakarta.validation.Valid;
 
@@ -32,11 +57,27 @@ import jakarta.validation.Valid;
 @RequestMapping("/api/v1/products")
 public class ProductController {
 
+    static final int MAX_SEARCH_LIMIT = 100;
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    static final int MAX_CHANGES_LIMIT = 5000;
+
     private final ProductService productService;
 
+    private final ProductJsonCache jsonCache;
+
+    private final HotProductTracker hotProducts;
+
+    private final ProductPageETagCache pageETags;
+
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductJsonCache jsonCache,
+                             HotProductTracker hotProducts, ProductPageETagCache pageETags) {
         this.productService = productService;
+        this.jsonCache = jsonCache;
+        this.hotProducts = hotProducts;
+        this.pageETags = pageETags;
     }
 
     /**
@@ -48,47 +89,297 @@ public class ProductController {
     @PostMapping(value = "/create", consumes = "application/json", produces = "application/json")
     public ResponseEntity<ProductResponse> createProduct(@Valid @RequestBody ProductRequest product) {
         ProductResponse createdProduct = productService.createProduct(product);
+        jsonCache.put(createdProduct);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
     /**
-     * Endpoint to get a product by its ID.
+     * Endpoint to get a product by its ID. The response carries a strong ETag and a Last-Modified date, and a
+     * request whose If-None-Match or If-Modified-Since still matches gets 304 Not Modified without a body. A
+     * product held in this node's memory is validated without reading Redis or the database, and so is an
+     * If-None-Match against the ETag this node still keeps for a product that left its memory. With
+     * {@code catalog.cache.products.json-bytes.enabled} the body is written from the {@link ProductJsonCache}
+     * without Jackson, gzipped if the client accepts it and {@code json-bytes.gzip} is on. Reads of existing
+     * products are counted by the {@link HotProductTracker} for the cache warm-up of the next startup.
+     *
+     * <p>With {@code fields}, only the listed properties are returned. A product that is not cached is then read
+     * with only those columns, and not cached.
      *
-     * @param id the ID of the product to retrieve.
-     * @return ResponseEntity containing the ProductResponse object if found, or 404 Not Found if not found.
+     * @param id     the ID of the product to retrieve.
+     * @param fields optional comma-separated properties to return, e.g. {@code id,price,available}; all if absent.
+     * @return ResponseEntity containing the ProductResponse object if found, 304 Not Modified if the client's copy
+     * is current, or 404 Not Found if not found.
      */
     @GetMapping(value = "/{id}", produces = "application/json")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable int id) {
-        ProductResponse product = productService.getProductById(id);
+    public ResponseEntity<?> getProductById(@PathVariable int id,
+                                            @RequestParam(required = false) String fields,
+                                            WebRequest request) {
+        ProductFields selected = ProductFields.parse(fields);
+        if (!selected.isAll()) {
+            return getProductFields(id, selected, request);
+        }
+        ProductResponse product = productService.getLocalProduct(id);
+        if (product == null) {
+            if (notModifiedFromCachedETag(id, selected, request)) {
+                return null;
+            }
+            product = productService.getProductById(id);
+        }
         if (product == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(product);
+        hotProducts.record(id);
+        // Sets ETag and Last-Modified on the response, and answers 304 if the client's copy matches them.
+        if (request.checkNotModified(ProductETags.of(product), ProductETags.lastModified(product))) {
+            return null;
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().cacheControl(CacheControl.noCache());
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        ProductJsonCache.Body body = jsonCache.body(product, acceptEncoding != null && acceptEncoding.contains("gzip"));
+        if (body == null) {
+            return response.body(product);
+        }
+        if (body.gzipped()) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body.bytes());
+    }
+
+    /**
+     * A sparse fieldset of a product, from this node's memory, the cache or the database. Its ETag is that of the
+     * product with the fieldset appended, so it never matches another view of the same product.
+     */
+    private ResponseEntity<?> getProductFields(int id, ProductFields fields, WebRequest request) {
+        ProductResponse product = productService.getLocalProduct(id);
+        if (product == null) {
+            if (notModifiedFromCachedETag(id, fields, request)) {
+                return null;
+            }
+            ProductBatchItem item = productService.getProductsByIds(List.of(id), fields).get(0);
+            if (!item.found()) {
+                throw new ProductNotFoundException("Product not found: " + id);
+            }
+            product = item.product();
+        }
+        hotProducts.record(id);
+        if (request.checkNotModified(ProductETags.of(product, fields), ProductETags.lastModified(product))) {
+            return null;
+        }
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(fields.view(product));
+    }
+
+    /**
+     * Answer 304 Not Modified from the ETag this node keeps for a product, without loading the product, if the
+     * request's If-None-Match matches it. A request without If-None-Match, or with one that does not match, is
+     * left to be validated against the product once loaded.
+     */
+    private boolean notModifiedFromCachedETag(int id, ProductFields fields, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        String eTag = productService.getCachedETag(id);
+        if (eTag == null || !request.checkNotModified(ProductETags.of(eTag, fields))) {
+            return false;
+        }
+        hotProducts.record(id);
+        return true;
+    }
+
+    /**
+     * Answer 304 Not Modified from the ETag this node last sent for a page, without querying it, if the request's
+     * If-None-Match matches it and no product changed since.
+     */
+    private boolean notModifiedFromCachedPageETag(String key, long stamp, WebRequest request) {
+        if (request.getHeader(HttpHeaders.IF_NONE_MATCH) == null) {
+            return false;
+        }
+        String eTag = pageETags.get(key, stamp);
+        return eTag != null && request.checkNotModified(eTag);
+    }
+
+    /**
+     * Endpoint to get several products by their IDs in one request.
+     *
+     * @param request the request object containing the IDs to retrieve.
+     * @param fields  optional comma-separated properties to return for each product; all if absent.
+     * @return ResponseEntity containing one result per requested ID, in request order, with a not-found marker
+     * for IDs that do not exist.
+     */
+    @PostMapping(value = "/batch-get", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<List<?>> getProductsByIds(@Valid @RequestBody ProductBatchRequest request,
+                                                    @RequestParam(required = false) String fields) {
+        ProductFields selected = ProductFields.parse(fields);
+        List<ProductBatchItem> products = productService.getProductsByIds(request.ids(), selected);
+        if (selected.isAll()) {
+            return ResponseEntity.ok(products);
+        }
+        return ResponseEntity.ok(products.stream().map(selected::view).toList());
     }
 
     /**
-     * Endpoint to list all products with pagination.
+     * Endpoint to list all products with pagination. The page carries an ETag derived from the products on it and
+     * the total count; a request whose If-None-Match still matches gets 304 Not Modified, without the paged model
+     * being assembled or rendered. The ETags of recently served pages are kept in the {@link ProductPageETagCache},
+     * so that as long as no product changed such a request is answered without running the page or count query.
      *
-     * @param page the page number to retrieve.
-     * @param size the number of products per page.
-     * @return ResponseEntity containing a PagedModel of ProductResponse objects.
+     * @param page   the page number to retrieve.
+     * @param size   the number of products per page.
+     * @param fields optional comma-separated properties to return for each product; only those columns are
+     *               read. All if absent.
+     * @return ResponseEntity containing a PagedModel of ProductResponse objects, or 304 Not Modified.
      */
     @GetMapping(value = "/list", produces = "application/json")
-    public ResponseEntity<PagedModel<EntityModel<ProductResponse>>> listProducts(
+    public ResponseEntity<PagedModel<EntityModel<Object>>> listProducts(
             @RequestParam(defaultValue = "0") int page,
             @RequestParam(defaultValue = "10") int size,
-            PagedResourcesAssembler<ProductResponse> pagedResourcesAssembler) {
+            @RequestParam(required = false) String fields,
+            PagedResourcesAssembler<ProductResponse> pagedResourcesAssembler,
+            WebRequest request) {
         if (pagedResourcesAssembler == null) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body(null);
         }
-        Page<ProductResponse> products = productService.getAllProducts(PageRequest.of(page, size));
+        ProductFields selected = ProductFields.parse(fields);
+        String key = "page:" + page + ":" + size + ":" + selected.mask();
+        long stamp = pageETags.stamp();
+        if (notModifiedFromCachedPageETag(key, stamp, request)) {
+            return null;
+        }
+        Page<ProductResponse> products = productService.getAllProducts(PageRequest.of(page, size), selected);
         if (products.isEmpty()) {
             return ResponseEntity.noContent().build();
         }
-        PagedModel<EntityModel<ProductResponse>> pagedModel = pagedResourcesAssembler.toModel(
-                products, product -> EntityModel.of(product));
-        return ResponseEntity.ok(pagedModel);
+        String eTag = selected.isAll()
+                ? ProductETags.ofPage(products.getContent(), products.getTotalElements(), page, size)
+                : ProductETags.ofPage(products.getContent(), products.getTotalElements(), page, size, selected.mask());
+        pageETags.put(key, eTag, stamp);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        PagedModel<EntityModel<Object>> pagedModel = pagedResourcesAssembler.toModel(
+                products, product -> EntityModel.of(selected.isAll() ? product : selected.view(product)));
+        return ResponseEntity.ok().cacheControl(CacheControl.noCache()).body(pagedModel);
+    }
+
+    /**
+     * Endpoint to list products with keyset (cursor) pagination. Selected instead of the offset-based listing
+     * whenever a {@code cursor} parameter is present; pass an empty cursor for the first page and the returned
+     * {@code nextCursor} for the following ones. Every page costs the same regardless of depth, and no total
+     * count is computed.
+     *
+     * @param cursor the cursor returned with the previous page, empty for the first page.
+     * @param size   the number of products per page.
+     * @param sort   the property to order by: id, price, name or createdAt.
+     * @param fields optional comma-separated properties to return for each product; all if absent. The products
+     *               are still read whole, as the next cursor is built from their sort property.
+     * @return ResponseEntity containing the page of products and the cursor for the next page, with an ETag
+     * derived from the products on it, or 304 Not Modified if If-None-Match still matches; like offset pages, without
+     * querying if no product changed since the page was last served.
+     */
+    @GetMapping(value = "/list", params = "cursor", produces = "application/json")
+    public ResponseEntity<ProductCursorPage<?>> listProductsAfter(
+            @RequestParam String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "id") String sort,
+            @RequestParam(required = false) String fields,
+            WebRequest request) {
+        ProductFields selected = ProductFields.parse(fields);
+        String key = "cursor:" + cursor + ":" + size + ":" + sort + ":" + selected.mask();
+        long stamp = pageETags.stamp();
+        if (notModifiedFromCachedPageETag(key, stamp, request)) {
+            return null;
+        }
+        ProductCursorPage<ProductResponse> products = productService.getProductsAfter(cursor, size, sort);
+        if (products.content().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        String eTag = selected.isAll()
+                ? ProductETags.ofPage(products.content(), products.hasNext() ? 1 : 0)
+                : ProductETags.ofPage(products.content(), products.hasNext() ? 1 : 0, selected.mask());
+        pageETags.put(key, eTag, stamp);
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(selected.isAll() ? products : products.map(selected::view));
+    }
+
+    /**
+     * Endpoint to search products by name and description. Every word of the query must appear in the name or
+     * the description of a product, and the last word also matches as a prefix, so partial input works for
+     * search-as-you-type. Products with the most query words in their name come first. The search is served
+     * from an in-memory index and does not query the database.
+     *
+     * @param q         the search text.
+     * @param available optional filter on availability.
+     * @param minPrice  optional lower price bound, inclusive.
+     * @param maxPrice  optional upper price bound, inclusive.
+     * @param limit     the maximum number of products to return, at most 100.
+     * @return ResponseEntity containing the best matches and the total number of matching products.
+     */
+    @GetMapping(value = "/search", produces = "application/json")
+    public ResponseEntity<ProductSearchResponse> searchProducts(
+            @RequestParam String q,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "10") int limit) {
+        ProductSearchQuery query = new ProductSearchQuery(q, available, minPrice, maxPrice,
+                Math.max(0, Math.min(limit, MAX_SEARCH_LIMIT)));
+        return ResponseEntity.ok(productService.searchProducts(query));
+    }
+
+    /**
+     * Endpoint to list the products in a price range, optionally only the available or unavailable ones, sorted
+     * by price with the ID as tie-breaker. Matching runs over an in-memory columnar index, and only the products
+     * on the requested page are loaded.
+     *
+     * @param minPrice  optional lower price bound, inclusive.
+     * @param maxPrice  optional upper price bound, inclusive.
+     * @param available optional filter on availability.
+     * @param direction the price order: asc or desc.
+     * @param page      the page number to retrieve.
+     * @param size      the number of products per page.
+     * @return ResponseEntity containing the page of products and the total number of matches, or 204 No Content
+     * if the page is empty.
+     */
+    @GetMapping(value = "/filter", produces = "application/json")
+    public ResponseEntity<ProductFilterPage> filterProducts(
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Boolean available,
+            @RequestParam(defaultValue = "asc") String direction,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        ProductFilterQuery query = new ProductFilterQuery(minPrice, maxPrice, available,
+                "desc".equalsIgnoreCase(direction), Math.max(0, page), Math.max(0, Math.min(size, MAX_PAGE_SIZE)));
+        ProductFilterPage products = productService.filterProducts(query);
+        if (products.content().isEmpty()) {
+            return ResponseEntity.noContent().build();
+        }
+        return ResponseEntity.ok(products);
+    }
+
+    /**
+     * Endpoint to read the products created, updated, patched and deleted on this node after a sequence of its
+     * change log, so that a downstream copy of the catalog can be kept in sync without exporting it again. Pass
+     * the {@code next} and {@code epoch} of the previous response to continue.
+     *
+     * @param since the sequence of the last change already seen, 0 for the oldest change still held.
+     * @param limit the maximum number of changes to return, at most 5000.
+     * @param epoch optional epoch of the previous response; a different one means the log was restarted.
+     * @return ResponseEntity containing the changes, oldest first, or 410 Gone if changes after {@code since} are
+     * no longer held and the caller has to resynchronize from an export.
+     */
+    @GetMapping(value = "/changes", produces = "application/json")
+    public ResponseEntity<ProductChangePage> getChanges(
+            @RequestParam(defaultValue = "0") long since,
+            @RequestParam(defaultValue = "500") int limit,
+            @RequestParam(required = false) String epoch) {
+        return ResponseEntity.ok(productService.getChanges(since, Math.max(0, Math.min(limit, MAX_CHANGES_LIMIT)), epoch));
     }
 
     /**
@@ -101,9 +392,40 @@ public class ProductController {
     @PutMapping(value = "/{id}", consumes = "application/json", produces = "application/json")
     public ResponseEntity<ProductResponse> updateProduct(@PathVariable int id, @Valid @RequestBody ProductRequest product) {
         ProductResponse updatedProduct = productService.updateProduct(id, product);
+        jsonCache.put(updatedProduct);
         return ResponseEntity.ok(updatedProduct);
     }
 
+    /**
+     * Endpoint to change the price and/or availability of a product. Only the given fields are written, with a
+     * single UPDATE that does not load the product first, and nothing is returned. If {@code version} is given,
+     * the product is only changed if it is still at that version.
+     *
+     * @param id    the ID of the product to change.
+     * @param patch the price and/or availability to set, and optionally the version the change is based on.
+     * @return ResponseEntity with no content if successful, 404 Not Found if the product does not exist, or
+     * 409 Conflict if it is no longer at the given version.
+     */
+    @PatchMapping(value = "/{id}", consumes = "application/json")
+    public ResponseEntity<Void> patchProduct(@PathVariable int id, @Valid @RequestBody ProductPatchRequest patch) {
+        productService.patchProduct(id, patch);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Endpoint to set the same price and/or availability on up to 5000 products at once, for example to take a
+     * range of products off sale. The products are changed with one UPDATE per distinct expected version, and their
+     * cache entries evicted in one operation.
+     *
+     * @param request the IDs, the fields to set, and optionally the version each product is expected to be at.
+     * @return ResponseEntity containing the number of products changed, and the IDs that do not exist or were not
+     * at their expected version.
+     */
+    @PatchMapping(value = "/batch-patch", consumes = "application/json", produces = "application/json")
+    public ResponseEntity<ProductBatchPatchResponse> patchProducts(@Valid @RequestBody ProductBatchPatchRequest request) {
+        return ResponseEntity.ok(productService.patchProducts(request));
+    }
+
     /**
      * Endpoint to delete a product by its ID.
      *
@@ -112,6 +434,7 @@ public class ProductController {
      */
     @DeleteMapping(value = "/{id}")
     private ResponseEntity<Void> deleteProduct(@PathVariable int id) {
+        jsonCache.evict(id);
         productService.deleteProduct(id);
         return ResponseEntity.noContent().build();
     }
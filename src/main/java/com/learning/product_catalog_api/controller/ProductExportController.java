@@ -0,0 +1,88 @@
+package com.learning.product_catalog_api.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.service.ProductExportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * ProductExportController streams the full catalog for downstream indexers and feed generators.
+ */
+@RestController
+@RequestMapping("/api/v1/products")
+public class ProductExportController {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    private final ProductExportService productExportService;
+
+    private final ObjectMapper objectMapper;
+
+    private final int flushEvery;
+
+    @Autowired
+    public ProductExportController(ProductExportService productExportService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${catalog.export.flush-every:1000}") int flushEvery) {
+        this.productExportService = productExportService;
+        this.objectMapper = objectMapper;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Endpoint to export every product as newline-delimited JSON, one ProductResponse per line in ID order.
+     * Products are written to the response as they are read from the database, so memory use stays constant
+     * whatever the size of the catalog. Output is flushed every {@code catalog.export.flush-every} products;
+     * a slow client blocks the write, which in turn pauses the database cursor. The body is gzip-compressed
+     * when the client accepts it.
+     *
+     * @param acceptEncoding the Accept-Encoding request header.
+     * @param response       the response to stream the products to.
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportProducts(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                               HttpServletResponse response) throws IOException {
+        boolean gzip = acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding("UTF-8");
+        if (gzip) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        OutputStream body = gzip ? new GZIPOutputStream(response.getOutputStream(), 8192, true) : response.getOutputStream();
+        try (SequenceWriter writer = objectMapper.writerFor(ProductResponse.class)
+                .withRootValueSeparator("\n")
+                .writeValues(body)) {
+            long[] written = {0};
+            productExportService.exportProducts(product -> {
+                try {
+                    writer.write(product);
+                    if (++written[0] % flushEvery == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (written[0] > 0) {
+                writer.flush();
+                body.write('\n');
+            }
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.learning.product_catalog_api.data;
+
+/**
+ * BatchLoaderReport is a record that represents how single-product loads from the database were served since
+ * startup: directly, or merged with concurrent loads into batches.
+ *
+ * @param enabled        whether concurrent loads are batched at all.
+ * @param directLoads    loads that went straight to the database because few loads were in progress.
+ * @param batchedLoads   loads served by a batch.
+ * @param batches        the number of batch queries run.
+ * @param meanBatchSize  the mean number of distinct ids per batch.
+ * @param largestBatch   the largest number of distinct ids in a batch.
+ * @param failedBatches  batches whose query failed; each of their loads failed with it.
+ */
+public record BatchLoaderReport(
+        boolean enabled,
+        long directLoads,
+        long batchedLoads,
+        long batches,
+        double meanBatchSize,
+        int largestBatch,
+        long failedBatches) {
+}
@@ -0,0 +1,34 @@
+package com.learning.product_catalog_api.data;
+
+/**
+ * IdFilterReport is a record that represents the state and effectiveness of the product id filter.
+ * It contains whether the filter is enabled and built, its size, the false-positive rate it was sized for
+ * and the rate expected at its current size, and counts of how lookups of product ids were answered.
+ *
+ * @param enabled                   whether lookups are filtered at all.
+ * @param ready                     whether the filter has been built; until then every id may exist.
+ * @param approximateIds            the number of ids in the filter, approximately.
+ * @param capacity                  the number of ids the filter was sized for.
+ * @param targetFalsePositiveRate   the configured false-positive rate at capacity.
+ * @param expectedFalsePositiveRate the false-positive rate expected with the current number of ids.
+ * @param lookups                   the number of ids checked against the filter.
+ * @param definiteMisses            lookups the filter answered as absent, without any I/O.
+ * @param negativeCacheHits         lookups that passed the filter but were known missing from an earlier miss.
+ * @param databaseMisses            lookups that passed the filter and then missed in the database.
+ * @param observedFalsePositiveRate the share of lookups of absent ids that the filter let through.
+ * @param negativeCacheSize         the number of ids currently cached as missing.
+ */
+public record IdFilterReport(
+        boolean enabled,
+        boolean ready,
+        long approximateIds,
+        long capacity,
+        double targetFalsePositiveRate,
+        double expectedFalsePositiveRate,
+        long lookups,
+        long definiteMisses,
+        long negativeCacheHits,
+        long databaseMisses,
+        double observedFalsePositiveRate,
+        long negativeCacheSize) {
+}
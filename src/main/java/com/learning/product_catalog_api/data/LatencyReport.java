@@ -0,0 +1,40 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LatencyReport is a record that represents the latency distributions recorded on the hot paths of the api.
+ * It contains the length of the reporting window and one entry per timer, each with the percentiles of the
+ * last complete window and of everything recorded since startup.
+ *
+ * @param windowMillis the length of a reporting window in milliseconds.
+ * @param timers       the timers, ordered by name and tags.
+ */
+public record LatencyReport(
+        long windowMillis,
+        List<Timer> timers) {
+
+    /**
+     * A timed operation, e.g. {@code cache.get} with tags {@code cache=products, result=hit}.
+     */
+    public record Timer(
+            String name,
+            Map<String, String> tags,
+            Snapshot lastWindow,
+            Snapshot sinceStart) {
+    }
+
+    /**
+     * The distribution of a set of latencies, in milliseconds, to within 1%.
+     */
+    public record Snapshot(
+            long count,
+            double mean,
+            double p50,
+            double p90,
+            double p99,
+            double p999,
+            double max) {
+    }
+}
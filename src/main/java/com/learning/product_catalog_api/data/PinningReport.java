@@ -0,0 +1,26 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * PinningReport is a record that represents the virtual thread pinning observed since startup.
+ * It contains whether pinning is monitored, the minimum pin duration reported, the number of pins seen,
+ * and the code locations they occurred at.
+ */
+public record PinningReport(
+        boolean monitoring,
+        long thresholdMillis,
+        long totalEvents,
+        List<Site> sites) {
+
+    /**
+     * A code location where virtual threads were pinned: the first application frame of the pinned stack,
+     * how often and for how long at most, and the stack trace of the first occurrence.
+     */
+    public record Site(
+            String location,
+            long count,
+            long maxMillis,
+            String stackTrace) {
+    }
+}
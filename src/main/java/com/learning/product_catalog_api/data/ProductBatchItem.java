@@ -0,0 +1,19 @@
+package com.learning.product_catalog_api.data;
+
+/**
+ * ProductBatchItem is a record that represents the result of looking up a single id in a batch lookup.
+ * It contains the requested id, whether the product was found, and the product itself when it was.
+ */
+public record ProductBatchItem(
+        int id,
+        boolean found,
+        ProductResponse product) {
+
+    public static ProductBatchItem found(ProductResponse product) {
+        return new ProductBatchItem(product.id(), true, product);
+    }
+
+    public static ProductBatchItem notFound(int id) {
+        return new ProductBatchItem(id, false, null);
+    }
+}
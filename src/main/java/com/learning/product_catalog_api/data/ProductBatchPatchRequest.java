@@ -0,0 +1,31 @@
+package com.learning.product_catalog_api.data;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * ProductBatchPatchRequest is a record that represents the request object for setting the same price and/or
+ * availability on several products at once.
+ * It contains the ids to change, the fields to change, and optionally the version each product is expected to be
+ * at, keyed by id. Products without an expected version are changed whatever their version.
+ */
+public record ProductBatchPatchRequest(
+        @NotEmpty(message = "At least one product id is required") @Size(max = ProductBatchPatchRequest.MAX_IDS, message = "At most " + ProductBatchPatchRequest.MAX_IDS + " products can be patched at once") List<@NotNull(message = "Product id must not be null") Integer> ids,
+        @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0") BigDecimal price,
+        Boolean available,
+        Map<Integer, Long> versions) {
+
+    public static final int MAX_IDS = 5000;
+
+    @AssertTrue(message = "Price or availability is required")
+    public boolean isChanging() {
+        return price != null || available != null;
+    }
+}
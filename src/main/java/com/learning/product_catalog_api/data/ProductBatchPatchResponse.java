@@ -0,0 +1,15 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductBatchPatchResponse is a record that represents the outcome of patching several products at once.
+ * It contains the number of distinct products requested and changed, the ids that do not exist, and the ids that
+ * were not at their expected version and were left unchanged.
+ */
+public record ProductBatchPatchResponse(
+        int requested,
+        int patched,
+        List<Integer> notFound,
+        List<Integer> conflicts) {
+}
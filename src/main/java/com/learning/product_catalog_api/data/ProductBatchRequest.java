@@ -0,0 +1,17 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+/**
+ * ProductBatchRequest is a record that represents the request object for looking up several products at once.
+ * It contains the ids to look up, in the order the results should be returned.
+ */
+public record ProductBatchRequest(
+        @NotEmpty(message = "At least one product id is required") @Size(max = ProductBatchRequest.MAX_IDS, message = "At most " + ProductBatchRequest.MAX_IDS + " product ids can be requested at once") List<@NotNull(message = "Product id must not be null") Integer> ids) {
+
+    public static final int MAX_IDS = 5000;
+}
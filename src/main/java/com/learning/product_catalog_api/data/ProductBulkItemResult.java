@@ -0,0 +1,27 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductBulkItemResult is a record that represents the outcome of one item of a bulk ingest.
+ * It contains the zero-based position of the item in the request, whether it was created, the ID it was
+ * created with, and the validation errors that caused it to be rejected, or why it could not be stored.
+ */
+public record ProductBulkItemResult(
+        int index,
+        boolean created,
+        Integer id,
+        List<String> errors) {
+
+    public static ProductBulkItemResult created(int index, int id) {
+        return new ProductBulkItemResult(index, true, id, List.of());
+    }
+
+    public static ProductBulkItemResult rejected(int index, List<String> errors) {
+        return new ProductBulkItemResult(index, false, null, errors);
+    }
+
+    public static ProductBulkItemResult failed(int index, String error) {
+        return new ProductBulkItemResult(index, false, null, List.of(error));
+    }
+}
@@ -0,0 +1,16 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductBulkResponse is a record that represents the response object for a bulk ingest.
+ * It contains the item counts, one result per item received, and the reason the ingest stopped early if the
+ * input could not be read to the end.
+ */
+public record ProductBulkResponse(
+        int received,
+        int created,
+        int rejected,
+        String error,
+        List<ProductBulkItemResult> items) {
+}
@@ -0,0 +1,36 @@
+package com.learning.product_catalog_api.data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * ProductChangeEvent is a record that represents one committed change of a product in the change log.
+ * It contains the position of the change in the log, what kind of change it was and the product it changed.
+ * Creations and updates carry the product as it is after the change; patches carry only the fields they set,
+ * because the rows are changed without being loaded.
+ *
+ * @param sequence  the position of the change in the log, increasing by one with every change.
+ * @param type      the kind of change.
+ * @param id        the ID of the changed product.
+ * @param changedAt when the change was published, after its transaction committed; for {@code PATCHED} changes
+ *                  the {@code updatedAt} the products were given.
+ * @param product   the product after the change, for {@code CREATED} and {@code UPDATED}.
+ * @param price     the new price, for {@code PATCHED} changes that set it.
+ * @param available the new availability, for {@code PATCHED} changes that set it.
+ */
+public record ProductChangeEvent(
+        long sequence,
+        Type type,
+        int id,
+        LocalDateTime changedAt,
+        ProductResponse product,
+        BigDecimal price,
+        Boolean available) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        PATCHED,
+        DELETED
+    }
+}
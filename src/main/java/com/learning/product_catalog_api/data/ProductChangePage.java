@@ -0,0 +1,20 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductChangePage is a record that represents a run of consecutive product changes read from the change log.
+ * It contains the epoch of the log, the changes, and the sequence to ask for the following changes with.
+ * Sequences start over when the application restarts, which shows as a new epoch.
+ *
+ * @param epoch   identifies this run of the change log; sequences are only comparable within one epoch.
+ * @param changes the changes after the requested sequence, oldest first.
+ * @param next    the sequence of the last change returned, to pass as {@code since} for the next page.
+ * @param hasMore whether more changes follow right away.
+ */
+public record ProductChangePage(
+        String epoch,
+        List<ProductChangeEvent> changes,
+        long next,
+        boolean hasMore) {
+}
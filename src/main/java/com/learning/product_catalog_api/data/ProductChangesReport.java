@@ -0,0 +1,42 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductChangesReport is a record that represents the state of the product change log.
+ * It contains the range of changes still held in the log and, per consumer, how far it has got.
+ *
+ * @param epoch     identifies this run of the change log.
+ * @param capacity  the number of most recent changes the log holds.
+ * @param first     the sequence of the oldest change still held, or the next one if the log is empty.
+ * @param last      the sequence of the latest change, 0 if none was published yet.
+ * @param consumers the consumers the changes are delivered to.
+ */
+public record ProductChangesReport(
+        String epoch,
+        int capacity,
+        long first,
+        long last,
+        List<Consumer> consumers) {
+
+    /**
+     * A consumer of the change log, e.g. {@code search-index}.
+     *
+     * @param name      the name of the consumer.
+     * @param position  the sequence of the last change delivered to it.
+     * @param lag       the number of changes published but not delivered yet.
+     * @param delivered the number of changes delivered since startup.
+     * @param batches   the number of batches they were delivered in.
+     * @param failures  the number of batches the consumer failed on.
+     * @param gaps      how often the consumer fell so far behind that changes were overwritten before delivery.
+     */
+    public record Consumer(
+            String name,
+            long position,
+            long lag,
+            long delivered,
+            long batches,
+            long failures,
+            long gaps) {
+    }
+}
@@ -0,0 +1,25 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * ProductCursorPage is a record that represents one page of products in keyset (cursor) pagination.
+ * It contains the products on the page, whether more products follow, and the cursor to fetch them with.
+ * Unlike the offset-based listing it carries no total count, which would cost a count query per page.
+ *
+ * @param <T> the type of the products, a {@link ProductResponse} or a {@link ProductView} of one
+ */
+public record ProductCursorPage<T>(
+        List<T> content,
+        int size,
+        boolean hasNext,
+        String nextCursor) {
+
+    /**
+     * @return the same page with every product converted, e.g. to a {@link ProductView}
+     */
+    public <R> ProductCursorPage<R> map(Function<? super T, ? extends R> mapper) {
+        return new ProductCursorPage<>(content.stream().<R>map(mapper).toList(), size, hasNext, nextCursor);
+    }
+}
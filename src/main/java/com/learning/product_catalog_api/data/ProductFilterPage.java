@@ -0,0 +1,14 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductFilterPage is a record that represents one page of products matching a price and availability filter.
+ * It contains the products on the page, the page number and size, and the total number of matching products.
+ */
+public record ProductFilterPage(
+        List<ProductResponse> content,
+        int page,
+        int size,
+        int totalElements) {
+}
@@ -0,0 +1,22 @@
+package com.learning.product_catalog_api.data;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMin;
+
+/**
+ * ProductPatchRequest is a record that represents the request object for changing the price and/or availability
+ * of a product without sending the rest of it.
+ * It contains the fields to change, at least one of them, and optionally the version the change is based on.
+ */
+public record ProductPatchRequest(
+        @DecimalMin(value = "0.0", inclusive = false, message = "Price must be greater than 0") BigDecimal price,
+        Boolean available,
+        Long version) {
+
+    @AssertTrue(message = "Price or availability is required")
+    public boolean isChanging() {
+        return price != null || available != null;
+    }
+}
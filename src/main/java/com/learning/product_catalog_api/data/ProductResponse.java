@@ -6,7 +6,8 @@ import java.time.LocalDateTime;
 
 /**
  * ProductResponse is a record that represents the response object for product-related operations.
- * It contains fields such as id, name, description, price, availability status, and timestamps for creation and update.
+ * It contains fields such as id, name, description, price, availability status, timestamps for creation and update,
+ * and the version of the product, which clients send back with a patch to detect concurrent changes.
  */
 public record ProductResponse(
         int id,
@@ -15,5 +16,6 @@ public record ProductResponse(
         BigDecimal price,
         boolean available,
         LocalDateTime createdAt,
-        LocalDateTime updatedAt) implements Serializable {
+        LocalDateTime updatedAt,
+        long version) implements Serializable {
 }
@@ -0,0 +1,12 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ProductSearchResponse is a record that represents the response object for a product search.
+ * It contains the best matching products, best first, and the total number of products that matched.
+ */
+public record ProductSearchResponse(
+        List<ProductResponse> results,
+        int totalMatches) {
+}
@@ -0,0 +1,13 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.LinkedHashMap;
+
+import org.springframework.hateoas.server.core.Relation;
+
+/**
+ * ProductView is a map that represents a product reduced to the properties a client selected with
+ * {@code fields=}, by name. In a HAL page it is embedded under the same relation as a whole {@link ProductResponse}.
+ */
+@Relation(collectionRelation = "productResponseList")
+public class ProductView extends LinkedHashMap<String, Object> {
+}
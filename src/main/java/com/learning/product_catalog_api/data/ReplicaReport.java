@@ -0,0 +1,28 @@
+package com.learning.product_catalog_api.data;
+
+import java.util.List;
+
+/**
+ * ReplicaReport is a record that represents how read-only connections were served by the read replicas.
+ * It contains whether replicas are configured, the connections taken from the primary for read-your-writes,
+ * those taken from the primary because no replica was available, and the state of each replica.
+ */
+public record ReplicaReport(
+        boolean enabled,
+        long stickyReads,
+        long fallbackReads,
+        List<Replica> replicas) {
+
+    /**
+     * A read replica: whether it currently serves reads, its replication lag at the last health check (-1 if
+     * unknown), the connections it served and failed to serve, and the reason it was last ejected.
+     */
+    public record Replica(
+            String name,
+            boolean available,
+            long lagMillis,
+            long reads,
+            long failures,
+            String lastError) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.learning.product_catalog_api.data;
+
+/**
+ * WarmUpReport is a record that represents the cache warm-up of this node at startup from its snapshot of hot
+ * product ids, and the tracking of hot ids for the next snapshot.
+ *
+ * @param enabled        whether warm-up and hot id tracking are on at all.
+ * @param state          PENDING until the application is ready, then RUNNING, then DONE.
+ * @param snapshotIds    the number of ids in the snapshot read at startup.
+ * @param loaded         the number of products loaded into the products cache.
+ * @param durationMillis how long the warm-up took, or has taken so far.
+ * @param trackedIds     the number of ids currently tracked as candidates for the next snapshot.
+ */
+public record WarmUpReport(
+        boolean enabled,
+        String state,
+        int snapshotIds,
+        int loaded,
+        long durationMillis,
+        int trackedIds) {
+}
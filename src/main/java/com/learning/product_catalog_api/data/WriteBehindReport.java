@@ -0,0 +1,30 @@
+package com.learning.product_catalog_api.data;
+
+/**
+ * WriteBehindReport is a record that represents the state of the write-behind queue of product updates.
+ * It contains whether write-behind is enabled, how full the queue is, and counts of the updates it took in,
+ * merged, committed, dropped and refused since startup.
+ *
+ * @param enabled    whether updates are written behind at all.
+ * @param pending    the number of products with an update waiting to be committed.
+ * @param inFlight   the number of products in the batch being committed.
+ * @param capacity   the number of products that can wait before updates are held back.
+ * @param enqueued   the number of updates queued.
+ * @param coalesced  updates that replaced a pending update of the same product, saving a write.
+ * @param committed  the number of products committed to the database.
+ * @param batches    the number of transactions the committed products were written in.
+ * @param failed     updates that could not be committed and were dropped.
+ * @param rejected   updates refused because the queue stayed full.
+ */
+public record WriteBehindReport(
+        boolean enabled,
+        int pending,
+        int inFlight,
+        int capacity,
+        long enqueued,
+        long coalesced,
+        long committed,
+        long batches,
+        long failed,
+        long rejected) {
+}
@@ -0,0 +1,134 @@
+package com.learning.product_catalog_api.datasource;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Remembers the products written on this node for {@code sticky-for}, so that reads of them go to the primary
+ * rather than to a read replica that may not have the write yet: a client reads back what it just wrote, and a
+ * stale copy is not put in the cache. {@code sticky-for} should exceed {@code max-lag}, the replication lag a
+ * replica may have and still serve reads.
+ *
+ * <p>Reads that cannot tell which products they return, such as pages, only go to the primary for the client
+ * that wrote: {@link ReadYourWritesFilter} hands each client the time of its last write in a cookie, and makes
+ * the time it sends back available to the request's thread.
+ *
+ * <p>Only active with {@code catalog.datasource.replicas.enabled}; otherwise nothing is sticky.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final int MAX_STICKY_IDS = 100_000;
+
+    private final boolean enabled;
+
+    private static final ThreadLocal<Long> CLIENT_LAST_WRITE = new ThreadLocal<>();
+
+    private final Duration stickyFor;
+
+    private final Cache<Integer, Boolean> writtenIds;
+
+    @Autowired
+    public ReadYourWrites(@Value("${catalog.datasource.replicas.enabled:false}") boolean enabled,
+                          @Value("${catalog.datasource.replicas.sticky-for:5s}") Duration stickyFor) {
+        this.enabled = enabled;
+        this.stickyFor = stickyFor;
+        this.writtenIds = Caffeine.newBuilder()
+                .expireAfterWrite(stickyFor)
+                .maximumSize(MAX_STICKY_IDS)
+                .build();
+    }
+
+    /**
+     * Record a write of the given product.
+     */
+    public void written(int id) {
+        if (!enabled) {
+            return;
+        }
+        writtenIds.put(id, Boolean.TRUE);
+    }
+
+    /**
+     * Record a write of the given products.
+     */
+    public void written(Collection<Integer> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        for (Integer id : ids) {
+            writtenIds.put(id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * @return whether the given product was written within {@code sticky-for}
+     */
+    public boolean isSticky(int id) {
+        return enabled && writtenIds.getIfPresent(id) != null;
+    }
+
+    /**
+     * @return whether any of the given products was written within {@code sticky-for}
+     */
+    public boolean anySticky(Collection<Integer> ids) {
+        if (!enabled) {
+            return false;
+        }
+        for (Integer id : ids) {
+            if (writtenIds.getIfPresent(id) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return whether the client of the current request wrote within {@code sticky-for}, for reads such as pages
+     * that cannot tell which products they will return
+     */
+    public boolean recentlyWritten() {
+        Long lastWrite = CLIENT_LAST_WRITE.get();
+        if (!enabled || lastWrite == null) {
+            return false;
+        }
+        // A time in the future, beyond clock skew between nodes, is not trusted to keep a client on the primary.
+        long age = System.currentTimeMillis() - lastWrite;
+        return age < stickyFor.toMillis() && age > -stickyFor.toMillis();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    Duration stickyFor() {
+        return stickyFor;
+    }
+
+    /**
+     * Set the time, in epoch milliseconds, the client of the current request last wrote at, or {@code null} if
+     * it did not say.
+     */
+    static void setClientLastWrite(Long epochMillis) {
+        if (epochMillis == null) {
+            CLIENT_LAST_WRITE.remove();
+        } else {
+            CLIENT_LAST_WRITE.set(epochMillis);
+        }
+    }
+
+    /**
+     * Run a read on the primary, if replicas are enabled.
+     */
+    public <T> T onPrimary(Supplier<T> read) {
+        return enabled ? ReplicaDataSource.onPrimary(read) : read.get();
+    }
+}
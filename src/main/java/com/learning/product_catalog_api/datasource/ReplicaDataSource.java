@@ -0,0 +1,224 @@
+package com.learning.product_catalog_api.datasource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import com.learning.product_catalog_api.data.ReplicaReport;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * The read-only side of the routing {@code DataSource} set up by {@code ReplicaDataSourceConfig}: hands out
+ * connections of a pool of read replicas, round robin, for read-only transactions, and connections of the
+ * primary when no replica is available.
+ *
+ * <p>A replica whose pool fails to hand out a connection is ejected for {@code ejection-time}. Every
+ * {@code health-check-interval}, each replica is probed, ejected ones included: one that answers is admitted
+ * again, unless its replication lag, measured with {@code lag-query}, exceeds {@code max-lag}.
+ *
+ * <p>Within {@link #onPrimary}, connections come from the primary, so that a product just written on this node
+ * is read back as written rather than as a lagging replica still has it.
+ */
+@Slf4j
+public class ReplicaDataSource extends AbstractDataSource implements DisposableBean {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final long maxLagMillis;
+
+    @Nullable
+    private final String lagQuery;
+
+    private final long ejectionNanos;
+
+    private final AtomicInteger next = new AtomicInteger();
+
+    private final LongAdder stickyReads = new LongAdder();
+
+    private final LongAdder fallbackReads = new LongAdder();
+
+    /**
+     * @param primary      the primary, for reads that must see the latest writes or find no replica
+     * @param replicas     the replicas by name, in the order they are tried
+     * @param maxLag       the largest replication lag a replica may have and still serve reads
+     * @param lagQuery     a query returning a replica's lag in seconds, or null to take it as 0
+     * @param ejectionTime how long a replica that failed to give a connection is left out
+     */
+    public ReplicaDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxLag,
+                             @Nullable String lagQuery, Duration ejectionTime) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.maxLagMillis = maxLag.toMillis();
+        this.lagQuery = lagQuery == null || lagQuery.isBlank() ? null : lagQuery;
+        this.ejectionNanos = ejectionTime.toNanos();
+    }
+
+    /**
+     * Run a read on the primary: read-only transactions started within it take their connection from the
+     * primary instead of a replica.
+     */
+    public static <T> T onPrimary(Supplier<T> read) {
+        Boolean previous = PRIMARY_REQUIRED.get();
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUIRED.remove();
+            } else {
+                PRIMARY_REQUIRED.set(previous);
+            }
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (PRIMARY_REQUIRED.get() != null) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        long now = System.nanoTime();
+        int start = next.getAndIncrement();
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+            if (!replica.isAvailable(now)) {
+                continue;
+            }
+            try {
+                Connection connection = replica.dataSource.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException e) {
+                eject(replica, e);
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Replica credentials are configured per pool");
+    }
+
+    /**
+     * Probe every replica: admit those that answer and do not lag behind by more than {@code max-lag}, eject
+     * the others.
+     */
+    @Scheduled(initialDelayString = "${catalog.datasource.replicas.health-check-interval:5s}",
+            fixedDelayString = "${catalog.datasource.replicas.health-check-interval:5s}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            probe(replica);
+        }
+    }
+
+    private void probe(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            if (!connection.isValid(1)) {
+                throw new SQLException("Connection is not valid");
+            }
+            long lagMillis = lagQuery == null ? 0 : lagMillis(connection);
+            replica.lagMillis = lagMillis;
+            boolean lagging = lagMillis > maxLagMillis;
+            if (lagging && !replica.lagging) {
+                log.warn("Replica {} is {} ms behind, reads go to the other replicas", replica.name, lagMillis);
+                replica.lastError = "Lagging " + lagMillis + " ms behind";
+            } else if (!lagging && !replica.isAvailable(System.nanoTime())) {
+                log.info("Replica {} is back, {} ms behind", replica.name, lagMillis);
+            }
+            replica.lagging = lagging;
+            replica.ejected = false;
+        } catch (SQLException | RuntimeException e) {
+            replica.lagMillis = -1;
+            eject(replica, e);
+        }
+    }
+
+    private long lagMillis(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(lagQuery)) {
+            return result.next() ? Math.round(result.getDouble(1) * 1000) : 0;
+        }
+    }
+
+    private void eject(Replica replica, Exception e) {
+        replica.failures.increment();
+        replica.lastError = e.getMessage();
+        replica.ejectedUntil = System.nanoTime() + ejectionNanos;
+        if (!replica.ejected) {
+            log.warn("Ejected replica {} for {} ms: {}", replica.name, ejectionNanos / 1_000_000, e.getMessage());
+        }
+        replica.ejected = true;
+    }
+
+    public ReplicaReport report() {
+        long now = System.nanoTime();
+        List<ReplicaReport.Replica> states = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            states.add(new ReplicaReport.Replica(replica.name, replica.isAvailable(now), replica.lagMillis,
+                    replica.reads.sum(), replica.failures.sum(), replica.lastError));
+        }
+        return new ReplicaReport(true, stickyReads.sum(), fallbackReads.sum(), states);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile boolean ejected;
+
+        private volatile long ejectedUntil;
+
+        private volatile boolean lagging;
+
+        private volatile long lagMillis = -1;
+
+        private volatile String lastError;
+
+        private final LongAdder reads = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable(long now) {
+            return !lagging && (!ejected || now - ejectedUntil >= 0);
+        }
+    }
+}
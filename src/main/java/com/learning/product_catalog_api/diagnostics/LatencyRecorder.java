@@ -0,0 +1,75 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.data.LatencyReport;
+
+/**
+ * Registry of the {@link LatencyTimer}s of the hot paths: HTTP endpoints, cache operations, repository calls
+ * and health probes. Reports the percentiles of the last {@code catalog.diagnostics.latency.window} and since
+ * startup.
+ *
+ * <p>Looking a timer up builds a key, so instrumented code looks its timers up once, e.g. when it is created
+ * or the first time it sees an endpoint, and then only calls {@link LatencyTimer#record(long)}. With
+ * {@code catalog.diagnostics.latency.enabled=false} timers record nothing.
+ */
+@Component
+public class LatencyRecorder {
+
+    private final boolean enabled;
+
+    private final Duration window;
+
+    private final Map<String, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public LatencyRecorder(@Value("${catalog.diagnostics.latency.enabled:true}") boolean enabled,
+                           @Value("${catalog.diagnostics.latency.window:1m}") Duration window) {
+        this.enabled = enabled;
+        this.window = window;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Return the timer with the given name and tags, creating it on first use.
+     */
+    public LatencyTimer timer(String name, Map<String, String> tags) {
+        Map<String, String> sortedTags = new TreeMap<>(tags);
+        return timers.computeIfAbsent(name + sortedTags, key -> new LatencyTimer(name, sortedTags, enabled));
+    }
+
+    public LatencyTimer timer(String name, String tag, String value) {
+        return timer(name, Map.of(tag, value));
+    }
+
+    @Scheduled(initialDelayString = "${catalog.diagnostics.latency.window:1m}",
+            fixedRateString = "${catalog.diagnostics.latency.window:1m}")
+    public void rotate() {
+        timers.values().forEach(LatencyTimer::rotate);
+    }
+
+    /**
+     * @param namePrefix only report timers whose name starts with this, or all if {@code null}
+     */
+    public LatencyReport report(String namePrefix) {
+        List<LatencyReport.Timer> snapshots = timers.entrySet().stream()
+                .filter(entry -> namePrefix == null || entry.getValue().name().startsWith(namePrefix))
+                .sorted(Map.Entry.comparingByKey(Comparator.naturalOrder()))
+                .map(entry -> entry.getValue().snapshot())
+                .toList();
+        return new LatencyReport(window.toMillis(), snapshots);
+    }
+}
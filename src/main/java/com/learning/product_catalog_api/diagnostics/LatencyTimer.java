@@ -0,0 +1,101 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import com.learning.product_catalog_api.data.LatencyReport;
+
+/**
+ * Latency distribution of one operation, recorded in nanoseconds into an HdrHistogram {@link Recorder}.
+ *
+ * <p>{@link #record(long)} is wait-free and does not allocate, so it can be called on every request. The
+ * reading side ({@link #rotate()}, {@link #snapshot()}) is synchronised and only runs when the
+ * {@link LatencyRecorder} closes a window or builds a report. Latencies are kept to two significant digits
+ * and clamped to one minute.
+ */
+public final class LatencyTimer {
+
+    static final long HIGHEST_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static final int SIGNIFICANT_DIGITS = 2;
+
+    private final String name;
+
+    private final Map<String, String> tags;
+
+    private final Recorder recorder;
+
+    private final Histogram sinceStart;
+
+    private Histogram lastWindow;
+
+    LatencyTimer(String name, Map<String, String> tags, boolean enabled) {
+        this.name = name;
+        this.tags = Map.copyOf(tags);
+        this.recorder = enabled ? new Recorder(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS) : null;
+        this.sinceStart = enabled ? new Histogram(HIGHEST_TRACKABLE_NANOS, SIGNIFICANT_DIGITS) : null;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public Map<String, String> tags() {
+        return tags;
+    }
+
+    /**
+     * Record one latency.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void record(long nanos) {
+        if (recorder != null) {
+            recorder.recordValue(Math.max(0, Math.min(nanos, HIGHEST_TRACKABLE_NANOS)));
+        }
+    }
+
+    /**
+     * Record the time elapsed since {@code startNanos}, a value of {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Close the current window: its latencies become the last window and are added to the totals.
+     */
+    synchronized void rotate() {
+        if (recorder == null) {
+            return;
+        }
+        Histogram window = recorder.getIntervalHistogram(lastWindow);
+        sinceStart.add(window);
+        lastWindow = window;
+    }
+
+    synchronized LatencyReport.Timer snapshot() {
+        return new LatencyReport.Timer(name, tags, snapshot(lastWindow), snapshot(sinceStart));
+    }
+
+    private static LatencyReport.Snapshot snapshot(Histogram histogram) {
+        if (histogram == null || histogram.getTotalCount() == 0) {
+            return new LatencyReport.Snapshot(0, 0, 0, 0, 0, 0, 0);
+        }
+        return new LatencyReport.Snapshot(
+                histogram.getTotalCount(),
+                millis(histogram.getMean()),
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private static double millis(double nanos) {
+        return Math.round(nanos / 1_000) / 1_000.0;
+    }
+}
@@ -0,0 +1,68 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds an interceptor to every Spring Data repository that times each call into a
+ * {@code repository.invocations} timer per repository method. Methods returning a {@code Stream} are timed
+ * until the stream is returned, not until it is consumed.
+ */
+@Component
+public class RepositoryLatencyPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<LatencyRecorder> latencyRecorder;
+
+    @Autowired
+    public RepositoryLatencyPostProcessor(ObjectProvider<LatencyRecorder> latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(
+                            new TimingInterceptor(latencyRecorder, information.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    private static final class TimingInterceptor implements MethodInterceptor {
+
+        private final ObjectProvider<LatencyRecorder> latencyRecorder;
+
+        private final String repository;
+
+        private final Map<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+        private TimingInterceptor(ObjectProvider<LatencyRecorder> latencyRecorder, String repository) {
+            this.latencyRecorder = latencyRecorder;
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            LatencyTimer timer = timers.get(invocation.getMethod());
+            if (timer == null) {
+                timer = timers.computeIfAbsent(invocation.getMethod(), method -> latencyRecorder.getObject()
+                        .timer("repository.invocations", Map.of("repository", repository, "method", method.getName())));
+            }
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                timer.recordSince(start);
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Times every request handled by a controller method, from the start of the filter chain to the end of
+ * response rendering, into an {@code http.server.requests} timer per endpoint (HTTP method and URI pattern).
+ * Requests that matched no controller, e.g. static resources, are not recorded.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+public class RequestLatencyFilter extends OncePerRequestFilter {
+
+    private final LatencyRecorder latencyRecorder;
+
+    private final Map<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RequestLatencyFilter(LatencyRecorder latencyRecorder) {
+        this.latencyRecorder = latencyRecorder;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !latencyRecorder.isEnabled();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+                LatencyTimer timer = timers.get(handler.getMethod());
+                if (timer == null) {
+                    timer = timers.computeIfAbsent(handler.getMethod(), method -> latencyRecorder.timer(
+                            "http.server.requests", Map.of("method", request.getMethod(), "uri", String.valueOf(
+                                    request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE)))));
+                }
+                timer.recordSince(start);
+            }
+        }
+    }
+}
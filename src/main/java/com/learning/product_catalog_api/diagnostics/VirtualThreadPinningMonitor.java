@@ -0,0 +1,159 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.data.PinningReport;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Detects virtual threads that stay pinned to their carrier thread, typically because they block inside a
+ * {@code synchronized} block or a native frame, for instance in a JDBC or Redis driver. Pinned virtual threads
+ * hold a carrier for the whole wait, so a few of them can stall every other request.
+ *
+ * <p>The monitor subscribes to the JDK Flight Recorder {@code jdk.VirtualThreadPinned} event for pins longer
+ * than {@code catalog.diagnostics.pinning.threshold}. Events are grouped by the first application frame of the
+ * pinned stack: the first event of each site is logged with its stack trace, later ones are only counted.
+ * Enabled by default when virtual threads are.
+ */
+@Slf4j
+@Component
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+
+    private static final int LOGGED_FRAMES = 48;
+
+    private final boolean enabled;
+
+    private final Duration threshold;
+
+    private final Map<String, Site> sites = new ConcurrentHashMap<>();
+
+    private final LongAdder totalEvents = new LongAdder();
+
+    private volatile RecordingStream stream;
+
+    @Autowired
+    public VirtualThreadPinningMonitor(
+            @Value("${catalog.diagnostics.pinning.enabled:${spring.threads.virtual.enabled:false}}") boolean enabled,
+            @Value("${catalog.diagnostics.pinning.threshold:20ms}") Duration threshold) {
+        this.enabled = enabled;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!enabled || stream != null) {
+            return;
+        }
+        try {
+            RecordingStream recording = new RecordingStream();
+            recording.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+            recording.onEvent(PINNED_EVENT, this::record);
+            recording.startAsync();
+            stream = recording;
+            log.info("Monitoring virtual thread pinning longer than {} ms", threshold.toMillis());
+        } catch (RuntimeException | LinkageError e) {
+            log.warn("Virtual thread pinning monitor unavailable: {}", e.toString());
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+            if (totalEvents.sum() > 0) {
+                log.warn("Virtual threads were pinned {} times at {} sites", totalEvents.sum(), sites.size());
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+    /**
+     * @return the pinning events seen so far, busiest site first.
+     */
+    public PinningReport report() {
+        List<PinningReport.Site> reported = new ArrayList<>(sites.size());
+        sites.forEach((location, site) -> reported.add(
+                new PinningReport.Site(location, site.count.sum(), site.maxNanos.get() / 1_000_000, site.stackTrace)));
+        reported.sort(Comparator.comparingLong(PinningReport.Site::count).reversed());
+        return new PinningReport(isRunning(), threshold.toMillis(), totalEvents.sum(), reported);
+    }
+
+    void record(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String location = frames.stream()
+                .filter(RecordedFrame::isJavaFrame)
+                .filter(frame -> !isJdkFrame(frame))
+                .findFirst()
+                .or(() -> frames.stream().findFirst())
+                .map(VirtualThreadPinningMonitor::format)
+                .orElse("unknown");
+        long nanos = event.getDuration().toNanos();
+        Site site = sites.computeIfAbsent(location, key -> {
+            String trace = format(frames);
+            log.warn("Virtual thread pinned for {} ms at {}:\n{}", nanos / 1_000_000, key, trace);
+            return new Site(trace);
+        });
+        site.count.increment();
+        site.maxNanos.accumulateAndGet(nanos, Math::max);
+        totalEvents.increment();
+    }
+
+    private static boolean isJdkFrame(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.") || type.startsWith("jdk.") || type.startsWith("sun.");
+    }
+
+    private static String format(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+
+    private static String format(List<RecordedFrame> frames) {
+        StringBuilder trace = new StringBuilder();
+        for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+            trace.append("\tat ").append(format(frames.get(i))).append('\n');
+        }
+        if (frames.size() > LOGGED_FRAMES) {
+            trace.append("\t... ").append(frames.size() - LOGGED_FRAMES).append(" more\n");
+        }
+        return trace.toString();
+    }
+
+    private static final class Site {
+
+        private final String stackTrace;
+
+        private final LongAdder count = new LongAdder();
+
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        private Site(String stackTrace) {
+            this.stackTrace = stackTrace;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.learning.product_catalog_api.exception;
+
+public class ChangesExpiredException extends RuntimeException {
+
+    public ChangesExpiredException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.learning.product_catalog_api.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(final String message) {
+        super(message);
+    }
+}
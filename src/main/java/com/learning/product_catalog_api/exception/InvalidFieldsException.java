@@ -0,0 +1,8 @@
+package com.learning.product_catalog_api.exception;
+
+public class InvalidFieldsException extends RuntimeException {
+
+    public InvalidFieldsException(final String message) {
+        super(message);
+    }
+}
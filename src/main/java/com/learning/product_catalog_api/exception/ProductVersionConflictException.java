@@ -0,0 +1,8 @@
+package com.learning.product_catalog_api.exception;
+
+public class ProductVersionConflictException extends RuntimeException {
+
+    public ProductVersionConflictException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package com.learning.product_catalog_api.exception;
+
+/**
+ * Thrown when an update cannot be queued for write-behind because the queue stayed full for longer than
+ * {@code catalog.write-behind.offer-timeout}, i.e. the database cannot keep up with the rate of updates.
+ */
+public class WriteBehindQueueFullException extends RuntimeException {
+
+    public WriteBehindQueueFullException(final String message) {
+        super(message);
+    }
+}
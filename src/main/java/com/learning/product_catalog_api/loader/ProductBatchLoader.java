@@ -0,0 +1,229 @@
+package com.learning.product_catalog_api.loader;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.data.BatchLoaderReport;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.diagnostics.LatencyTimer;
+import com.learning.product_catalog_api.repository.ProductRepository;
+
+/**
+ * Loads single products by id, merging the loads of concurrent requests into one {@code IN} query, so that
+ * under load the database sees a few wide queries, each on one connection, instead of a single-row query per
+ * cache miss. Products are read as {@link ProductResponse} projections. Enabled with
+ * {@code catalog.batch-loader.enabled}.
+ *
+ * <p>The first load to arrive opens a batch and waits up to {@code window} for others to join it, then runs the
+ * query for all of them on its own thread and hands each caller its product. A batch that reaches
+ * {@code max-batch-size} is run at once by the caller that filled it, and its first caller stops waiting.
+ * Concurrent loads of the same id share one slot. While fewer than {@code min-concurrency} loads are in
+ * progress, a load goes straight to the database, so a lightly loaded node does not pay the window.
+ *
+ * <p>Batches are timed as {@code loader.batch} in the {@link LatencyRecorder}, and
+ * {@code /api/v1/diagnostics/batch-loader} reports how loads were served.
+ */
+@Component
+public class ProductBatchLoader {
+
+    private final boolean enabled;
+
+    private final long windowNanos;
+
+    private final int maxBatchSize;
+
+    private final int minConcurrency;
+
+    private final ProductRepository productRepository;
+
+    private final LatencyTimer batchTimer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * The batch new loads join, or {@code null} when none is open.
+     */
+    private Batch open;
+
+    private final AtomicInteger inProgress = new AtomicInteger();
+
+    private final LongAdder directLoads = new LongAdder();
+
+    private final LongAdder batchedLoads = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder batchedIds = new LongAdder();
+
+    private final LongAccumulator largestBatch = new LongAccumulator(Math::max, 0);
+
+    private final LongAdder failedBatches = new LongAdder();
+
+    @Autowired
+    public ProductBatchLoader(@Value("${catalog.batch-loader.enabled:false}") boolean enabled,
+                              @Value("${catalog.batch-loader.window:2ms}") Duration window,
+                              @Value("${catalog.batch-loader.max-batch-size:100}") int maxBatchSize,
+                              @Value("${catalog.batch-loader.min-concurrency:4}") int minConcurrency,
+                              ProductRepository productRepository, LatencyRecorder latencyRecorder) {
+        this.enabled = enabled;
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.minConcurrency = minConcurrency;
+        this.productRepository = productRepository;
+        this.batchTimer = latencyRecorder.timer("loader.batch", "loader", "products");
+    }
+
+    /**
+     * @return the product with the given id, or empty if there is none
+     */
+    public Optional<ProductResponse> findById(int id) {
+        if (!enabled) {
+            return productRepository.findResponseById(id);
+        }
+        try {
+            if (inProgress.incrementAndGet() < minConcurrency) {
+                directLoads.increment();
+                return productRepository.findResponseById(id);
+            }
+            batchedLoads.increment();
+            return load(id);
+        } finally {
+            inProgress.decrementAndGet();
+        }
+    }
+
+    private Optional<ProductResponse> load(int id) {
+        Batch batch;
+        CompletableFuture<Optional<ProductResponse>> result;
+        boolean opened = false;
+        boolean filled = false;
+        lock.lock();
+        try {
+            if (open == null) {
+                open = new Batch();
+                opened = true;
+            }
+            batch = open;
+            result = batch.loads.computeIfAbsent(id, key -> new CompletableFuture<>());
+            if (batch.loads.size() >= maxBatchSize) {
+                open = null;
+                filled = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (filled) {
+            run(batch);
+        } else if (opened) {
+            awaitWindow(result);
+            if (close(batch)) {
+                run(batch);
+            }
+        }
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Give other loads the window to join, unless the batch fills up and is run before.
+     */
+    private void awaitWindow(CompletableFuture<Optional<ProductResponse>> result) {
+        try {
+            result.get(windowNanos, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Run the batch now, or, if it failed, rethrow when joining.
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return whether the batch was still open, i.e. whether the caller is to run it
+     */
+    private boolean close(Batch batch) {
+        lock.lock();
+        try {
+            if (open != batch) {
+                return false;
+            }
+            open = null;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Run the query of a batch and hand each of its loads the result. Every load is completed however the query
+     * ends, so that no caller is left waiting; an {@link Error} is also rethrown to the caller that ran the batch.
+     */
+    private void run(Batch batch) {
+        long start = System.nanoTime();
+        int size = batch.loads.size();
+        batches.increment();
+        batchedIds.add(size);
+        largestBatch.accumulate(size);
+        Throwable failure = null;
+        try {
+            List<ProductResponse> products = productRepository.findResponsesByIdIn(batch.loads.keySet());
+            Map<Integer, ProductResponse> byId = new HashMap<>(products.size() * 2);
+            for (ProductResponse product : products) {
+                byId.put(product.id(), product);
+            }
+            batch.loads.forEach((id, load) -> load.complete(Optional.ofNullable(byId.get(id))));
+        } catch (Throwable e) {
+            failure = e;
+            failedBatches.increment();
+            if (e instanceof Error error) {
+                throw error;
+            }
+        } finally {
+            Throwable cause = failure != null ? failure : new IllegalStateException("Batch ended without a result");
+            batch.loads.values().forEach(load -> load.completeExceptionally(cause));
+            batchTimer.recordSince(start);
+        }
+    }
+
+    public BatchLoaderReport report() {
+        long batchCount = batches.sum();
+        return new BatchLoaderReport(enabled, directLoads.sum(), batchedLoads.sum(), batchCount,
+                batchCount == 0 ? 0 : (double) batchedIds.sum() / batchCount, largestBatch.intValue(),
+                failedBatches.sum());
+    }
+
+    /**
+     * The loads that will be served by one query. Only changed under the lock, and no longer changed once it is
+     * no longer {@link #open}.
+     */
+    private static final class Batch {
+
+        private final Map<Integer, CompletableFuture<Optional<ProductResponse>>> loads = new LinkedHashMap<>();
+    }
+}
@@ -9,24 +9,40 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
-import lombok.AllArgsConstructor;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@AllArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_product_price_id", columnList = "price, id"),
+        @Index(name = "idx_product_name_id", columnList = "name, id"),
+        @Index(name = "idx_product_created_at_id", columnList = "created_at, id")})
 @NoArgsConstructor
 @Setter
 @Getter
-@Builder
 public class Product implements Serializable {
 
+    /**
+     * The number of ids a node takes from the sequence at a time and hands out before taking the next block.
+     */
+    public static final int ID_ALLOCATION_SIZE = 100;
+
+    /**
+     * Sequence ids with a pooled allocator hand out {@code allocationSize} ids per sequence call and, unlike
+     * {@code IDENTITY}, let Hibernate batch inserts.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = ID_ALLOCATION_SIZE)
     private int id;
 
     @Column(nullable = false)
@@ -44,14 +60,52 @@ public class Product implements Serializable {
 
     private LocalDateTime updatedAt;
 
+    /**
+     * Whether {@link #updatedAt} was set by the application since the entity was last written, e.g. by
+     * write-behind to the time it already handed out, in which case the next update keeps it.
+     */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private transient boolean updatedAtSet;
+
+    /**
+     * Incremented by every change, and checked by patches that carry the version they were based on. Maintained
+     * by the application rather than as a JPA {@code @Version}, because patches update it in bulk queries and
+     * write-behind commits the version the cache already handed out.
+     */
+    @Column(nullable = false)
+    private long version;
+
+    @Builder
+    public Product(int id, String name, String description, BigDecimal price, boolean available,
+                   LocalDateTime createdAt, LocalDateTime updatedAt, long version) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.available = available;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.version = version;
+    }
+
     @PrePersist
     public void prePersist() {
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
 
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+        this.updatedAtSet = true;
+    }
+
     @PreUpdate
     public void preUpdate() {
-        this.updatedAt = LocalDateTime.now();
+        if (!updatedAtSet) {
+            this.updatedAt = LocalDateTime.now();
+        }
+        this.updatedAtSet = false;
     }
 }
@@ -1,9 +1,91 @@
 package com.learning.product_catalog_api.repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import com.learning.product_catalog_api.data.ProductResponse;
 import com.learning.product_catalog_api.model.Product;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
 @Repository
-public interface ProductRepository extends JpaRepository<Product, Integer> {}
+public interface ProductRepository extends JpaRepository<Product, Integer>, ProductRepositoryCustom {
+
+    String RESPONSE = "new com.learning.product_catalog_api.data.ProductResponse("
+            + "p.id, p.name, p.description, p.price, p.available, p.createdAt, p.updatedAt, p.version)";
+
+    /**
+     * JDBC rows per round trip of the projection queries: the largest page {@code /list} serves, so a page
+     * is read in one round trip by drivers that fetch in chunks.
+     */
+    String PAGE_FETCH_SIZE = "1000";
+
+    /**
+     * Read-only projections: the rows are read straight into {@link ProductResponse}s, so no entity is created,
+     * registered in the persistence context or copied for dirty checking, only to be mapped and dropped.
+     */
+    @Query(value = "select " + RESPONSE + " from Product p", countQuery = "select count(p) from Product p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    Page<ProductResponse> findResponsesBy(Pageable pageable);
+
+    @Query("select " + RESPONSE + " from Product p where p.id = :id")
+    Optional<ProductResponse> findResponseById(@Param("id") int id);
+
+    @Query("select " + RESPONSE + " from Product p where p.id in :ids")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * First page of a keyset scan, ordered by the sort of the given pageable. Returns a {@link Slice}, so no
+     * count query is run.
+     */
+    @Query("select " + RESPONSE + " from Product p")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    Slice<ProductResponse> findSliceBy(Pageable pageable);
+
+    /**
+     * Keyset (seek) queries: the rows strictly after {@code (sortKey, id)} in {@code (sortKey, id)} order.
+     * Unlike an offset they can start from the matching index entry, so every page costs the same.
+     */
+    @Query("select " + RESPONSE + " from Product p where p.id > :id order by p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    Slice<ProductResponse> findSliceAfterId(@Param("id") int id, Pageable pageable);
+
+    @Query("select " + RESPONSE + " from Product p where p.price > :price or (p.price = :price and p.id > :id) order by p.price, p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    Slice<ProductResponse> findSliceAfterPrice(@Param("price") BigDecimal price, @Param("id") int id, Pageable pageable);
+
+    @Query("select " + RESPONSE + " from Product p where p.name > :name or (p.name = :name and p.id > :id) order by p.name, p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    Slice<ProductResponse> findSliceAfterName(@Param("name") String name, @Param("id") int id, Pageable pageable);
+
+    @Query("select " + RESPONSE + " from Product p where p.createdAt > :createdAt or (p.createdAt = :createdAt and p.id > :id) order by p.createdAt, p.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = PAGE_FETCH_SIZE))
+    Slice<ProductResponse> findSliceAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("id") int id, Pageable pageable);
+
+    /**
+     * The given products, locked until the end of the transaction, so that their version cannot change between
+     * reading and writing them.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from Product p where p.id in :ids")
+    List<Product> findAllByIdForUpdate(@Param("ids") Collection<Integer> ids);
+
+    @Query("select p.id from Product p where p.id in :ids")
+    List<Integer> findExistingIds(@Param("ids") Collection<Integer> ids);
+}
@@ -0,0 +1,96 @@
+package com.learning.product_catalog_api.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.util.ProductFields;
+
+/**
+ * Queries on {@link ProductRepository} that need direct access to the {@code EntityManager}.
+ */
+public interface ProductRepositoryCustom {
+
+    /**
+     * Stream every product in id order over a forward-only JDBC cursor, fetching {@code fetchSize} rows per
+     * round trip. Each product is detached from the persistence context as it is emitted, so memory use does
+     * not grow with the number of rows. Must be called inside a transaction, and the stream must be closed.
+     *
+     * @param fetchSize the JDBC fetch size
+     * @return a stream of all products
+     */
+    Stream<Product> streamAll(int fetchSize);
+
+    /**
+     * Stream the id of every product in id order, without loading the products. Same rules as
+     * {@link #streamAll(int)}.
+     *
+     * @param fetchSize the JDBC fetch size
+     * @return a stream of all product ids
+     */
+    Stream<Integer> streamAllIds(int fetchSize);
+
+    /**
+     * Set the price and/or availability of several products with one {@code UPDATE ... WHERE id IN (...)},
+     * without loading them. Only the given fields are written, along with {@code updatedAt}, and the version is
+     * incremented. Products already loaded in the persistence context are not refreshed.
+     *
+     * <p>The ids of the products to change, those that exist and are at the expected version, are first selected
+     * and locked in the same transaction, and only they are updated, so the ids returned are exactly the rows the
+     * update changed whatever else writes to the table.
+     *
+     * @param ids             the products to change
+     * @param expectedVersion if not null, only products at this version are changed
+     * @param price           the new price, or null to leave it
+     * @param available       the new availability, or null to leave it
+     * @param updatedAt       the modification time to record
+     * @return the ids of the products changed
+     */
+    List<Integer> patchAll(Collection<Integer> ids, Long expectedVersion, BigDecimal price, Boolean available, LocalDateTime updatedAt);
+
+    /**
+     * Replace the fields of a product with one {@code UPDATE ... WHERE id = ? AND version = ?}, without loading
+     * it, and increment its version. Nothing is written if the product changed since it was read at
+     * {@code expectedVersion}, e.g. by a concurrent {@link #patchAll patch}. Products already loaded in the
+     * persistence context are not refreshed.
+     *
+     * @param id              the product to change
+     * @param expectedVersion the version the product was read at
+     * @param name            the new name
+     * @param description     the new description
+     * @param price           the new price
+     * @param available       the new availability
+     * @param updatedAt       the modification time to record
+     * @return 1 if the product was changed, 0 if it is missing or no longer at the expected version
+     */
+    int replaceIfVersion(int id, long expectedVersion, String name, String description, BigDecimal price,
+                         boolean available, LocalDateTime updatedAt);
+
+    /**
+     * Read only the {@link ProductFields#columns() columns} of a fieldset of the given products. The properties
+     * not read are null, false or 0 in the returned products, which are meant to be rendered as a
+     * {@link ProductFields#view view} and never cached as full products.
+     *
+     * @param ids    the products to read
+     * @param fields the properties to read
+     * @return the products found, in no particular order
+     */
+    List<ProductResponse> findFieldsByIdIn(Collection<Integer> ids, ProductFields fields);
+
+    /**
+     * Read a page of products like {@link ProductRepository#findResponsesBy(Pageable)}, but only the
+     * {@link ProductFields#columns() columns} of a fieldset. Same rules as {@link #findFieldsByIdIn}.
+     *
+     * @param pageable the page to read
+     * @param fields   the properties to read
+     * @return the page of products
+     */
+    Page<ProductResponse> findFieldsBy(Pageable pageable, ProductFields fields);
+}
@@ -0,0 +1,148 @@
+package com.learning.product_catalog_api.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.util.ProductField;
+import com.learning.product_catalog_api.util.ProductFields;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+
+public class ProductRepositoryCustomImpl implements ProductRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Stream<Product> streamAll(final int fetchSize) {
+        return entityManager.createQuery("select p from Product p order by p.id", Product.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(product -> {
+                    entityManager.detach(product);
+                    return product;
+                });
+    }
+
+    @Override
+    public Stream<Integer> streamAllIds(final int fetchSize) {
+        return entityManager.createQuery("select p.id from Product p order by p.id", Integer.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    @Override
+    @Transactional
+    public List<Integer> patchAll(final Collection<Integer> ids, final Long expectedVersion, final BigDecimal price,
+                                  final Boolean available, final LocalDateTime updatedAt) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        final TypedQuery<Integer> select = entityManager.createQuery("select p.id from Product p where p.id in :ids"
+                        + (expectedVersion != null ? " and p.version = :version" : ""), Integer.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        if (expectedVersion != null) {
+            select.setParameter("version", expectedVersion);
+        }
+        final List<Integer> locked = select.getResultList();
+        if (locked.isEmpty()) {
+            return List.of();
+        }
+        final StringBuilder jpql = new StringBuilder("update Product p set p.version = p.version + 1, p.updatedAt = :updatedAt");
+        if (price != null) {
+            jpql.append(", p.price = :price");
+        }
+        if (available != null) {
+            jpql.append(", p.available = :available");
+        }
+        jpql.append(" where p.id in :ids");
+        final Query query = entityManager.createQuery(jpql.toString())
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("ids", locked);
+        if (price != null) {
+            query.setParameter("price", price);
+        }
+        if (available != null) {
+            query.setParameter("available", available);
+        }
+        query.executeUpdate();
+        return locked;
+    }
+
+    @Override
+    @Transactional
+    public int replaceIfVersion(final int id, final long expectedVersion, final String name, final String description,
+                                final BigDecimal price, final boolean available, final LocalDateTime updatedAt) {
+        return entityManager.createQuery("update Product p set p.version = p.version + 1, p.updatedAt = :updatedAt,"
+                        + " p.name = :name, p.description = :description, p.price = :price, p.available = :available"
+                        + " where p.id = :id and p.version = :version")
+                .setParameter("updatedAt", updatedAt)
+                .setParameter("name", name)
+                .setParameter("description", description)
+                .setParameter("price", price)
+                .setParameter("available", available)
+                .setParameter("id", id)
+                .setParameter("version", expectedVersion)
+                .executeUpdate();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ProductResponse> findFieldsByIdIn(final Collection<Integer> ids, final ProductFields fields) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        final List<ProductField> columns = fields.columns();
+        return toResponses(columns, entityManager.createQuery(select(columns) + " where p.id in :ids", Tuple.class)
+                .setParameter("ids", ids)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Integer.parseInt(ProductRepository.PAGE_FETCH_SIZE))
+                .getResultList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> findFieldsBy(final Pageable pageable, final ProductFields fields) {
+        final List<ProductField> columns = fields.columns();
+        final TypedQuery<Tuple> query = entityManager.createQuery(
+                        QueryUtils.applySorting(select(columns), pageable.getSort(), "p"), Tuple.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, Integer.parseInt(ProductRepository.PAGE_FETCH_SIZE));
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset()).setMaxResults(pageable.getPageSize());
+        }
+        return PageableExecutionUtils.getPage(toResponses(columns, query.getResultList()), pageable,
+                () -> entityManager.createQuery("select count(p) from Product p", Long.class).getSingleResult());
+    }
+
+    private static String select(final List<ProductField> columns) {
+        return columns.stream()
+                .map(column -> "p." + column.property())
+                .collect(Collectors.joining(", ", "select ", " from Product p"));
+    }
+
+    private static List<ProductResponse> toResponses(final List<ProductField> columns, final List<Tuple> rows) {
+        return rows.stream()
+                .map(row -> ProductFields.toResponse(columns, row.toArray()))
+                .toList();
+    }
+}
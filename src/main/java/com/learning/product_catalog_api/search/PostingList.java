@@ -0,0 +1,71 @@
+package com.learning.product_catalog_api.search;
+
+import java.util.Arrays;
+
+/**
+ * A growable, sorted, duplicate-free list of the ids of the products with a term. Ids are usually added in
+ * increasing order, which is an amortised O(1) append; out-of-order ids are inserted in place. Not thread-safe.
+ */
+final class PostingList {
+
+    private final String term;
+
+    private int[] ids = new int[4];
+
+    private int size;
+
+    PostingList(String term) {
+        this.term = term;
+    }
+
+    String term() {
+        return term;
+    }
+
+    void add(int id) {
+        if (size == 0 || id > ids[size - 1]) {
+            ensureCapacity();
+            ids[size++] = id;
+            return;
+        }
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return;
+        }
+        int insertAt = -position - 1;
+        ensureCapacity();
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+    }
+
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        size--;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the backing array; only the first {@link #size()} entries are valid.
+     */
+    int[] ids() {
+        return ids;
+    }
+
+    private void ensureCapacity() {
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, ids.length * 2);
+        }
+    }
+}
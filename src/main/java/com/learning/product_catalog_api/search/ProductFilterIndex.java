@@ -0,0 +1,420 @@
+package com.learning.product_catalog_api.search;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Column-oriented snapshot of the fields products are filtered and sorted on: the id, the price in cents
+ * and the availability, held in primitive arrays instead of one object per product.
+ *
+ * <p>Every product occupies a slot: {@code ids[slot]}, {@code priceInCents[slot]} and bit {@code slot} of
+ * {@code available}. Alongside, {@code byPrice} lists the live slots ordered by (price, id), with
+ * {@code sortedPrices} mirroring their prices so a price range is found with two binary searches. A filter
+ * scans that range, testing one bit per product, and only allocates the page of ids it returns.
+ *
+ * <p>Writes update the columns in place and shift the price order with {@link System#arraycopy}; slots of
+ * removed products are reused. Reads run concurrently under a read lock, writes take the write lock. A rebuild
+ * reads the products into new columns without holding the lock, then takes the ids changed meanwhile over from
+ * the live columns and swaps the new ones in.
+ */
+@Component
+public class ProductFilterIndex {
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * Ids changed while a rebuild is reading the products, guarded by the write lock; {@code null} when no
+     * rebuild is running.
+     */
+    private Set<Integer> changedDuringRebuild;
+
+    private int[] ids = new int[0];
+
+    private long[] priceInCents = new long[0];
+
+    private BitSet available = new BitSet();
+
+    private int[] byPrice = new int[0];
+
+    private long[] sortedPrices = new long[0];
+
+    private int liveCount;
+
+    private int slotCount;
+
+    private int[] freeSlots = new int[0];
+
+    private int freeCount;
+
+    private Map<Integer, Integer> slotsById = new HashMap<>();
+
+    /**
+     * Add a product, or update the indexed price and availability of an existing one.
+     */
+    public void index(ProductResponse product) {
+        lock.writeLock().lock();
+        try {
+            indexLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or update several products under a single acquisition of the write lock.
+     */
+    public void indexAll(Collection<ProductResponse> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Change the price and/or availability of indexed products under a single acquisition of the write lock.
+     * Products that are not indexed are skipped.
+     *
+     * @param price     the new price, or null to leave it
+     * @param available the new availability, or null to leave it
+     */
+    public void patchAll(Collection<Integer> ids, BigDecimal price, Boolean available) {
+        lock.writeLock().lock();
+        try {
+            for (Integer id : ids) {
+                Integer slot = slotsById.get(id);
+                changed(id);
+                if (slot == null) {
+                    continue;
+                }
+                if (price != null && priceInCents[slot] != toCents(price)) {
+                    removeFromPriceOrder(slot);
+                    priceInCents[slot] = toCents(price);
+                    insertIntoPriceOrder(slot);
+                }
+                if (available != null) {
+                    this.available.set(slot, available);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index. Does nothing if it is not indexed.
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index with the products supplied to the given loader. Filters and updates go on
+     * against the current columns while the products are read; products changed meanwhile keep their state in
+     * the current columns, which is at least as recent as the one read. The price order is sorted once at the
+     * end rather than maintained product by product. Only one rebuild runs at a time.
+     *
+     * @param loader called with a sink that accepts every product to index
+     */
+    public void rebuild(Consumer<Consumer<ProductResponse>> loader) {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ProductFilterIndex next = new ProductFilterIndex();
+            boolean loaded = false;
+            try {
+                next.load(loader);
+                loaded = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (loaded) {
+                        for (Integer id : changedDuringRebuild) {
+                            Integer slot = slotsById.get(id);
+                            if (slot != null) {
+                                next.indexLocked(id, priceInCents[slot], available.get(slot));
+                            } else {
+                                next.removeLocked(id);
+                            }
+                        }
+                        swapIn(next);
+                    }
+                    changedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    /**
+     * Fill this index, not yet shared, with the given products.
+     */
+    private void load(Consumer<Consumer<ProductResponse>> loader) {
+        ids = new int[1024];
+        priceInCents = new long[1024];
+        available = new BitSet();
+        slotsById = new HashMap<>();
+        freeSlots = new int[0];
+        freeCount = 0;
+        slotCount = 0;
+        loader.accept(product -> {
+            Integer existing = slotsById.get(product.id());
+            int slot = existing != null ? existing : newSlot();
+            slotsById.put(product.id(), slot);
+            ids[slot] = product.id();
+            priceInCents[slot] = toCents(product.price());
+            available.set(slot, product.available());
+        });
+        liveCount = slotCount;
+        byPrice = sortSlotsByPrice(slotCount);
+        sortedPrices = new long[byPrice.length];
+        for (int i = 0; i < liveCount; i++) {
+            sortedPrices[i] = priceInCents[byPrice[i]];
+        }
+    }
+
+    private void swapIn(ProductFilterIndex next) {
+        ids = next.ids;
+        priceInCents = next.priceInCents;
+        available = next.available;
+        byPrice = next.byPrice;
+        sortedPrices = next.sortedPrices;
+        liveCount = next.liveCount;
+        slotCount = next.slotCount;
+        freeSlots = next.freeSlots;
+        freeCount = next.freeCount;
+        slotsById = next.slotsById;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return liveCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the products in a price range, optionally restricted by availability, ordered by price then id.
+     *
+     * @param query the price bounds, availability, sort direction and page to return
+     * @return the ids on the requested page and the total number of matching products
+     */
+    public ProductFilterResult filter(ProductFilterQuery query) {
+        long minCents = query.minPrice() == null ? Long.MIN_VALUE : boundInCents(query.minPrice(), RoundingMode.CEILING);
+        long maxCents = query.maxPrice() == null ? Long.MAX_VALUE : boundInCents(query.maxPrice(), RoundingMode.FLOOR);
+        long skip = (long) query.page() * query.size();
+        lock.readLock().lock();
+        try {
+            if (minCents > maxCents || liveCount == 0) {
+                return new ProductFilterResult(new int[0], 0);
+            }
+            int from = lowerBound(sortedPrices, liveCount, minCents);
+            int to = maxCents == Long.MAX_VALUE ? liveCount : lowerBound(sortedPrices, liveCount, maxCents + 1);
+            int[] page = new int[Math.max(0, query.size())];
+            int pageCount = 0;
+            int total = 0;
+            Boolean wanted = query.available();
+            for (int i = 0; i < to - from; i++) {
+                int slot = byPrice[query.descending() ? to - 1 - i : from + i];
+                if (wanted != null && available.get(slot) != wanted) {
+                    continue;
+                }
+                if (total >= skip && pageCount < page.length) {
+                    page[pageCount++] = ids[slot];
+                }
+                total++;
+            }
+            return new ProductFilterResult(pageCount == page.length ? page : Arrays.copyOf(page, pageCount), total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void indexLocked(ProductResponse product) {
+        indexLocked(product.id(), toCents(product.price()), product.available());
+    }
+
+    private void indexLocked(int id, long cents, boolean isAvailable) {
+        changed(id);
+        Integer existing = slotsById.get(id);
+        int slot;
+        if (existing != null) {
+            slot = existing;
+            if (priceInCents[slot] != cents) {
+                removeFromPriceOrder(slot);
+                priceInCents[slot] = cents;
+                insertIntoPriceOrder(slot);
+            }
+        } else {
+            slot = freeCount > 0 ? freeSlots[--freeCount] : newSlot();
+            slotsById.put(id, slot);
+            ids[slot] = id;
+            priceInCents[slot] = cents;
+            insertIntoPriceOrder(slot);
+        }
+        available.set(slot, isAvailable);
+    }
+
+    private void removeLocked(int id) {
+        changed(id);
+        Integer slot = slotsById.remove(id);
+        if (slot != null) {
+            removeFromPriceOrder(slot);
+            available.clear(slot);
+            if (freeCount == freeSlots.length) {
+                freeSlots = Arrays.copyOf(freeSlots, Math.max(8, freeCount * 2));
+            }
+            freeSlots[freeCount++] = slot;
+        }
+    }
+
+    private void changed(int id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    private int newSlot() {
+        if (slotCount == ids.length) {
+            int capacity = Math.max(1024, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            priceInCents = Arrays.copyOf(priceInCents, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void insertIntoPriceOrder(int slot) {
+        if (liveCount == byPrice.length) {
+            int capacity = Math.max(1024, byPrice.length + (byPrice.length >> 1));
+            byPrice = Arrays.copyOf(byPrice, capacity);
+            sortedPrices = Arrays.copyOf(sortedPrices, capacity);
+        }
+        int position = positionOf(priceInCents[slot], ids[slot]);
+        System.arraycopy(byPrice, position, byPrice, position + 1, liveCount - position);
+        System.arraycopy(sortedPrices, position, sortedPrices, position + 1, liveCount - position);
+        byPrice[position] = slot;
+        sortedPrices[position] = priceInCents[slot];
+        liveCount++;
+    }
+
+    private void removeFromPriceOrder(int slot) {
+        int position = positionOf(priceInCents[slot], ids[slot]);
+        System.arraycopy(byPrice, position + 1, byPrice, position, liveCount - position - 1);
+        System.arraycopy(sortedPrices, position + 1, sortedPrices, position, liveCount - position - 1);
+        liveCount--;
+    }
+
+    /**
+     * @return the position of (price, id) in the price order, or where it would be inserted.
+     */
+    private int positionOf(long cents, int id) {
+        int low = 0;
+        int high = liveCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            long midCents = sortedPrices[mid];
+            if (midCents < cents || (midCents == cents && ids[byPrice[mid]] < id)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int[] sortSlotsByPrice(int count) {
+        // Sort (price, id) pairs packed into longs when they fit, which covers any realistic catalog price.
+        long[] keys = new long[count];
+        boolean packed = true;
+        for (int slot = 0; slot < count && packed; slot++) {
+            packed = priceInCents[slot] >= 0 && priceInCents[slot] < (1L << 31) && ids[slot] >= 0;
+            keys[slot] = priceInCents[slot] << 32 | ids[slot];
+        }
+        int[] order = new int[Math.max(count, 1024)];
+        if (packed) {
+            Arrays.sort(keys);
+            for (int i = 0; i < count; i++) {
+                order[i] = slotsById.get((int) keys[i]);
+            }
+            return order;
+        }
+        Integer[] boxed = new Integer[count];
+        for (int slot = 0; slot < count; slot++) {
+            boxed[slot] = slot;
+        }
+        Arrays.sort(boxed, (a, b) -> priceInCents[a] != priceInCents[b]
+                ? Long.compare(priceInCents[a], priceInCents[b])
+                : Integer.compare(ids[a], ids[b]));
+        for (int i = 0; i < count; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    private static int lowerBound(long[] values, int length, long key) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (values[mid] < key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    static long toCents(BigDecimal price) {
+        return price == null ? 0 : toCents(price, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts a price bound to cents, rounding towards the inside of the range so bounds with fractions of a
+     * cent stay exact, and saturating bounds that do not fit in a long.
+     */
+    static long boundInCents(BigDecimal price, RoundingMode roundingMode) {
+        try {
+            return toCents(price, roundingMode);
+        } catch (ArithmeticException e) {
+            return price.signum() < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    private static long toCents(BigDecimal price, RoundingMode roundingMode) {
+        return price.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+}
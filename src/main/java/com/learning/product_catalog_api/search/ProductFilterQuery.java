@@ -0,0 +1,17 @@
+package com.learning.product_catalog_api.search;
+
+import java.math.BigDecimal;
+
+/**
+ * A price and availability filter over the catalog, sorted by price.
+ *
+ * @param minPrice   if set, only products priced at or above this match
+ * @param maxPrice   if set, only products priced at or below this match
+ * @param available  if set, only products with this availability match
+ * @param descending whether to return the most expensive products first
+ * @param page       the zero-based page to return
+ * @param size       the number of products per page
+ */
+public record ProductFilterQuery(BigDecimal minPrice, BigDecimal maxPrice, Boolean available, boolean descending,
+                                 int page, int size) {
+}
@@ -0,0 +1,10 @@
+package com.learning.product_catalog_api.search;
+
+/**
+ * The outcome of a {@link ProductFilterQuery}.
+ *
+ * @param ids          the ids of the products on the requested page, in sort order
+ * @param totalMatches the number of products matching the filter across all pages
+ */
+public record ProductFilterResult(int[] ids, int totalMatches) {
+}
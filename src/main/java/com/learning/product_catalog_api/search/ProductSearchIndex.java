@@ -0,0 +1,593 @@
+package com.learning.product_catalog_api.search;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * In-memory inverted index over product names and descriptions.
+ *
+ * <p>Each field has its own sorted term dictionary mapping every token to a {@link PostingList} of product
+ * ids. A query token matches a product if it occurs in either field, all query tokens must match (AND),
+ * and the last token also matches every indexed token it is a prefix of. Matches are ranked by how many
+ * query tokens occur in the name, then by id. Of each product only a compact {@link Document} is kept: its
+ * price in cents, its availability and the posting lists it is in, so filtering and scoring never touch the
+ * database and the index holds no names or descriptions besides its terms. Results are ids; the service
+ * reads the products, mostly from the cache.
+ *
+ * <p>A query is driven by the postings of its rarest whole token, walked in id order, and every candidate is
+ * checked against the other tokens through its document rather than by intersecting their postings. A query
+ * of a single token, which matches as a prefix, walks the postings of the terms it starts, name terms first
+ * as those rank first, merged on the fly rather than concatenated and sorted. Either way at most
+ * {@link #MAX_CANDIDATES} candidates are examined, so a short or common prefix costs the same over any number
+ * of products. Beyond that, results are the best of the candidates examined, i.e. of the lowest ids, or of
+ * the first terms in dictionary order for a prefix of very many terms, and the total is a lower bound.
+ *
+ * <p>Searches run concurrently under a read lock; updates take the write lock and only touch the postings
+ * of the tokens of the product being changed. A rebuild reads the products into a new index without holding
+ * the lock, then takes the ids changed meanwhile over from the live index and swaps the new one in.
+ */
+@Component
+public class ProductSearchIndex {
+
+    /**
+     * The most candidates a search examines, and so the most matches it counts.
+     */
+    static final int MAX_CANDIDATES = 5_000;
+
+    private static final long NO_PRICE = Long.MIN_VALUE;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    /**
+     * Ids changed while a rebuild is reading the products, guarded by the write lock; {@code null} when no
+     * rebuild is running.
+     */
+    private Set<Integer> changedDuringRebuild;
+
+    private NavigableMap<String, PostingList> nameTerms = new TreeMap<>();
+
+    private NavigableMap<String, PostingList> descriptionTerms = new TreeMap<>();
+
+    private Map<Integer, Document> documents = new HashMap<>();
+
+    /**
+     * Add a product, or replace the indexed copy of an existing one.
+     */
+    public void index(ProductResponse product) {
+        lock.writeLock().lock();
+        try {
+            indexLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Add or replace several products under a single acquisition of the write lock.
+     */
+    public void indexAll(Collection<ProductResponse> products) {
+        lock.writeLock().lock();
+        try {
+            products.forEach(this::indexLocked);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Change the price and/or availability of indexed products, as after a patch. Names and descriptions are
+     * unchanged, so only the documents are replaced and the postings are left alone. Products that are not
+     * indexed are skipped.
+     *
+     * @param price     the new price, or null to leave it
+     * @param available the new availability, or null to leave it
+     */
+    public void patchAll(Collection<Integer> ids, BigDecimal price, Boolean available) {
+        lock.writeLock().lock();
+        try {
+            for (Integer id : ids) {
+                Document current = documents.get(id);
+                changed(id);
+                if (current != null) {
+                    documents.put(id, new Document(price != null ? priceInCents(price) : current.priceInCents(),
+                            available != null ? available : current.available(),
+                            current.name(), current.description()));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove a product from the index. Does nothing if it is not indexed.
+     */
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replace the whole index with the products supplied to the given loader. Searches and updates go on
+     * against the current index while the products are read; products changed meanwhile keep their state in
+     * the current index, which is at least as recent as the one read. Only one rebuild runs at a time.
+     *
+     * @param loader called with a sink that accepts every product to index
+     */
+    public void rebuild(Consumer<Consumer<ProductResponse>> loader) {
+        rebuildLock.lock();
+        try {
+            lock.writeLock().lock();
+            try {
+                changedDuringRebuild = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            ProductSearchIndex next = new ProductSearchIndex();
+            boolean loaded = false;
+            try {
+                loader.accept(next::indexLocked);
+                loaded = true;
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    if (loaded) {
+                        for (Integer id : changedDuringRebuild) {
+                            Document live = documents.get(id);
+                            if (live != null) {
+                                next.indexLocked(id, live.priceInCents(), live.available(),
+                                        terms(live.name()), terms(live.description()));
+                            } else {
+                                next.removeLocked(id);
+                            }
+                        }
+                        nameTerms = next.nameTerms;
+                        descriptionTerms = next.descriptionTerms;
+                        documents = next.documents;
+                    }
+                    changedDuringRebuild = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public ProductSearchResult search(ProductSearchQuery query) {
+        List<String> tokens = new ArrayList<>(new LinkedHashSet<>(ProductTokenizer.tokenize(query.text())));
+        if (tokens.isEmpty() || query.limit() <= 0) {
+            return new ProductSearchResult(new int[0], 0);
+        }
+        Filter filter = Filter.of(query);
+        String prefix = tokens.get(tokens.size() - 1);
+        List<String> whole = tokens.subList(0, tokens.size() - 1);
+        lock.readLock().lock();
+        try {
+            return whole.isEmpty()
+                    ? searchPrefix(prefix, filter, query.limit())
+                    : searchWithWholeTokens(whole, prefix, filter, query.limit());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Walk the products with the rarest of the whole tokens, keeping those that also have the others and the
+     * prefix.
+     */
+    private ProductSearchResult searchWithWholeTokens(List<String> whole, String prefix, Filter filter, int limit) {
+        String rarest = null;
+        int rarestCount = Integer.MAX_VALUE;
+        for (String token : whole) {
+            int count = size(nameTerms.get(token)) + size(descriptionTerms.get(token));
+            if (count < rarestCount) {
+                rarest = token;
+                rarestCount = count;
+            }
+        }
+        TopMatches top = new TopMatches(limit);
+        if (rarestCount == 0) {
+            return top.result();
+        }
+        // Documents refer to the posting lists of their terms, so whole tokens are matched by identity.
+        PostingList[] wholeNames = new PostingList[whole.size()];
+        PostingList[] wholeDescriptions = new PostingList[whole.size()];
+        for (int i = 0; i < whole.size(); i++) {
+            wholeNames[i] = nameTerms.get(whole.get(i));
+            wholeDescriptions[i] = descriptionTerms.get(whole.get(i));
+        }
+        MergedPostings candidates = new MergedPostings(postingsOf(rarest));
+        int examined = 0;
+        while (candidates.hasNext() && examined < MAX_CANDIDATES) {
+            int id = candidates.next();
+            examined++;
+            Document document = documents.get(id);
+            if (document != null && filter.test(document)) {
+                int score = document.score(wholeNames, wholeDescriptions, prefix);
+                if (score >= 0) {
+                    top.offer(id, score);
+                }
+            }
+        }
+        return top.result();
+    }
+
+    /**
+     * Walk the products with a name term starting with the prefix, which all score 1, in id order, then the
+     * products with only a description term starting with it, which score 0, as far as the budget goes.
+     */
+    private ProductSearchResult searchPrefix(String prefix, Filter filter, int limit) {
+        TopMatches top = new TopMatches(limit);
+        MergedPostings names = new MergedPostings(startingWith(nameTerms, prefix));
+        int examined = 0;
+        while (names.hasNext() && examined < MAX_CANDIDATES) {
+            int id = names.next();
+            examined++;
+            Document document = documents.get(id);
+            if (document != null && filter.test(document)) {
+                top.offer(id, 1);
+            }
+        }
+        MergedPostings descriptions = new MergedPostings(startingWith(descriptionTerms, prefix));
+        while (descriptions.hasNext() && examined < MAX_CANDIDATES) {
+            int id = descriptions.next();
+            examined++;
+            Document document = documents.get(id);
+            if (document != null && !Document.hasTermStartingWith(document.name(), prefix) && filter.test(document)) {
+                top.offer(id, 0);
+            }
+        }
+        return top.result();
+    }
+
+    private List<PostingList> postingsOf(String token) {
+        List<PostingList> postings = new ArrayList<>(2);
+        PostingList name = nameTerms.get(token);
+        if (name != null) {
+            postings.add(name);
+        }
+        PostingList description = descriptionTerms.get(token);
+        if (description != null) {
+            postings.add(description);
+        }
+        return postings;
+    }
+
+    /**
+     * @return the posting lists of the terms starting with the prefix, in dictionary order, as many as it takes
+     * to hold {@link #MAX_CANDIDATES} ids, so that a prefix of very many rare terms is not expanded to all of them
+     */
+    private static List<PostingList> startingWith(NavigableMap<String, PostingList> terms, String prefix) {
+        List<PostingList> postings = new ArrayList<>();
+        int ids = 0;
+        for (PostingList list : terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            if (ids >= MAX_CANDIDATES) {
+                break;
+            }
+            postings.add(list);
+            ids += list.size();
+        }
+        return postings;
+    }
+
+    private static int size(PostingList postings) {
+        return postings == null ? 0 : postings.size();
+    }
+
+    private void indexLocked(ProductResponse product) {
+        indexLocked(product.id(), product.price() == null ? NO_PRICE : priceInCents(product.price()),
+                product.available(), new LinkedHashSet<>(ProductTokenizer.tokenize(product.name())),
+                new LinkedHashSet<>(ProductTokenizer.tokenize(product.description())));
+    }
+
+    /**
+     * @param nameTokens        the distinct tokens of the name
+     * @param descriptionTokens the distinct tokens of the description
+     */
+    private void indexLocked(int id, long priceInCents, boolean available, Collection<String> nameTokens,
+                             Collection<String> descriptionTokens) {
+        changed(id);
+        Document previous = documents.remove(id);
+        if (previous != null) {
+            unindex(previous, id);
+        }
+        documents.put(id, new Document(priceInCents, available,
+                index(nameTerms, nameTokens, id), index(descriptionTerms, descriptionTokens, id)));
+    }
+
+    private static PostingList[] index(NavigableMap<String, PostingList> terms, Collection<String> tokens, int id) {
+        PostingList[] postings = new PostingList[tokens.size()];
+        int n = 0;
+        for (String token : tokens) {
+            PostingList list = terms.computeIfAbsent(token, PostingList::new);
+            list.add(id);
+            postings[n++] = list;
+        }
+        return postings;
+    }
+
+    private void removeLocked(int id) {
+        changed(id);
+        Document previous = documents.remove(id);
+        if (previous != null) {
+            unindex(previous, id);
+        }
+    }
+
+    private void changed(int id) {
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.add(id);
+        }
+    }
+
+    private void unindex(Document document, int id) {
+        unindex(nameTerms, document.name(), id);
+        unindex(descriptionTerms, document.description(), id);
+    }
+
+    private static void unindex(Map<String, PostingList> terms, PostingList[] postings, int id) {
+        for (PostingList list : postings) {
+            list.remove(id);
+            if (list.isEmpty()) {
+                terms.remove(list.term(), list);
+            }
+        }
+    }
+
+    private static List<String> terms(PostingList[] postings) {
+        List<String> terms = new ArrayList<>(postings.length);
+        for (PostingList list : postings) {
+            terms.add(list.term());
+        }
+        return terms;
+    }
+
+    private static long priceInCents(BigDecimal price) {
+        return ProductFilterIndex.toCents(price);
+    }
+
+    /**
+     * What the index keeps of a product.
+     *
+     * @param priceInCents the price in cents, or {@link #NO_PRICE}
+     * @param name         the posting lists of the distinct tokens of the name
+     * @param description  the posting lists of the distinct tokens of the description
+     */
+    private record Document(long priceInCents, boolean available, PostingList[] name, PostingList[] description) {
+
+        /**
+         * @param wholeNames        the name posting lists of the whole query tokens, {@code null} where none
+         * @param wholeDescriptions the description posting lists of the whole query tokens, {@code null} where none
+         * @return the number of query tokens in the name, or -1 if the product does not have them all
+         */
+        int score(PostingList[] wholeNames, PostingList[] wholeDescriptions, String prefix) {
+            int score = 0;
+            for (int i = 0; i < wholeNames.length; i++) {
+                if (isIn(name, wholeNames[i])) {
+                    score++;
+                } else if (!isIn(description, wholeDescriptions[i])) {
+                    return -1;
+                }
+            }
+            if (hasTermStartingWith(name, prefix)) {
+                return score + 1;
+            }
+            return hasTermStartingWith(description, prefix) ? score : -1;
+        }
+
+        private static boolean isIn(PostingList[] postings, PostingList wanted) {
+            if (wanted == null) {
+                return false;
+            }
+            for (PostingList list : postings) {
+                if (list == wanted) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        static boolean hasTermStartingWith(PostingList[] postings, String prefix) {
+            for (PostingList list : postings) {
+                if (list.term().startsWith(prefix)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The availability and price range of a query, with the bounds in cents rounded towards the inside of the
+     * range. A product without a price only passes when no bound is set.
+     */
+    private record Filter(Boolean available, boolean priced, long minCents, long maxCents) {
+
+        static Filter of(ProductSearchQuery query) {
+            return new Filter(query.available(), query.minPrice() != null || query.maxPrice() != null,
+                    query.minPrice() == null ? Long.MIN_VALUE
+                            : ProductFilterIndex.boundInCents(query.minPrice(), RoundingMode.CEILING),
+                    query.maxPrice() == null ? Long.MAX_VALUE
+                            : ProductFilterIndex.boundInCents(query.maxPrice(), RoundingMode.FLOOR));
+        }
+
+        boolean test(Document document) {
+            if (available != null && document.available() != available) {
+                return false;
+            }
+            return !priced || (document.priceInCents() != NO_PRICE
+                    && document.priceInCents() >= minCents && document.priceInCents() <= maxCents);
+        }
+    }
+
+    /**
+     * The best {@code limit} matches offered, ranked by score and then by id, and the number offered.
+     */
+    private static final class TopMatches {
+
+        private final int limit;
+
+        /** Worst first: lowest score, then highest id. */
+        private final PriorityQueue<ScoredId> best;
+
+        private int total;
+
+        TopMatches(int limit) {
+            this.limit = limit;
+            this.best = new PriorityQueue<>(Math.min(limit, 1024) + 1, Comparator.comparingInt(ScoredId::score)
+                    .thenComparing(Comparator.comparingInt(ScoredId::id).reversed()));
+        }
+
+        void offer(int id, int score) {
+            total++;
+            if (best.size() == limit) {
+                ScoredId worst = best.peek();
+                if (score < worst.score() || (score == worst.score() && id > worst.id())) {
+                    return;
+                }
+                best.poll();
+            }
+            best.offer(new ScoredId(id, score));
+        }
+
+        int total() {
+            return total;
+        }
+
+        ProductSearchResult result() {
+            int[] ids = new int[best.size()];
+            for (int i = ids.length - 1; i >= 0; i--) {
+                ids[i] = best.poll().id();
+            }
+            return new ProductSearchResult(ids, total);
+        }
+    }
+
+    private record ScoredId(int id, int score) {
+    }
+
+    /**
+     * Walks the ids of several posting lists in increasing order, each id once. The next id of every list is
+     * kept in a heap instead of concatenating and sorting them; past {@link #MAX_HEAP_FAN_IN} lists, which a
+     * prefix of many rare terms has, up to {@link #MAX_CANDIDATES} of their ids are gathered and sorted instead,
+     * as a deep heap costs more per id than sorting that many. Only valid while the lists are not changed, i.e.
+     * under the read lock.
+     */
+    static final class MergedPostings {
+
+        private static final int MAX_HEAP_FAN_IN = 16;
+
+        private final PriorityQueue<Cursor> heap;
+
+        private final int[] gathered;
+
+        private int gatheredSize;
+
+        private int position;
+
+        MergedPostings(Collection<PostingList> postings) {
+            if (postings.size() <= MAX_HEAP_FAN_IN) {
+                heap = new PriorityQueue<>(Math.max(1, postings.size()), Comparator.comparingInt(Cursor::id));
+                for (PostingList list : postings) {
+                    if (!list.isEmpty()) {
+                        heap.add(new Cursor(list.ids(), list.size()));
+                    }
+                }
+                gathered = null;
+                return;
+            }
+            heap = null;
+            int[] ids = new int[MAX_CANDIDATES];
+            int n = 0;
+            for (PostingList list : postings) {
+                int count = Math.min(list.size(), ids.length - n);
+                System.arraycopy(list.ids(), 0, ids, n, count);
+                n += count;
+                if (n == ids.length) {
+                    break;
+                }
+            }
+            Arrays.sort(ids, 0, n);
+            for (int i = 0; i < n; i++) {
+                if (i == 0 || ids[i] != ids[i - 1]) {
+                    ids[gatheredSize++] = ids[i];
+                }
+            }
+            gathered = ids;
+        }
+
+        boolean hasNext() {
+            return heap == null ? position < gatheredSize : !heap.isEmpty();
+        }
+
+        int next() {
+            if (heap == null) {
+                return gathered[position++];
+            }
+            int id = heap.peek().id();
+            while (!heap.isEmpty() && heap.peek().id() == id) {
+                Cursor cursor = heap.poll();
+                if (++cursor.position < cursor.size) {
+                    heap.add(cursor);
+                }
+            }
+            return id;
+        }
+
+        private static final class Cursor {
+
+            private final int[] ids;
+
+            private final int size;
+
+            private int position;
+
+            private Cursor(int[] ids, int size) {
+                this.ids = ids;
+                this.size = size;
+            }
+
+            private int id() {
+                return ids[position];
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.learning.product_catalog_api.search;
+
+import java.math.BigDecimal;
+
+/**
+ * A full-text product query.
+ *
+ * @param text      the query text. Every token must match the name or description of a product; the last token
+ *                  also matches as a prefix.
+ * @param available if set, only products with this availability match
+ * @param minPrice  if set, only products priced at or above this match
+ * @param maxPrice  if set, only products priced at or below this match
+ * @param limit     the maximum number of products to return
+ */
+public record ProductSearchQuery(String text, Boolean available, BigDecimal minPrice, BigDecimal maxPrice, int limit) {
+}
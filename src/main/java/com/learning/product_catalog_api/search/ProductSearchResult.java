@@ -0,0 +1,11 @@
+package com.learning.product_catalog_api.search;
+
+/**
+ * The outcome of a {@link ProductSearchQuery}.
+ *
+ * @param ids          the ids of the best matching products, best first
+ * @param totalMatches the number of products that matched, among the at most
+ *                     {@link ProductSearchIndex#MAX_CANDIDATES} examined
+ */
+public record ProductSearchResult(int[] ids, int totalMatches) {
+}
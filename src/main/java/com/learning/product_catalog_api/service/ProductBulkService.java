@@ -0,0 +1,184 @@
+package com.learning.product_catalog_api.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.cache.ProductIdFilter;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.data.ProductBulkItemResult;
+import com.learning.product_catalog_api.data.ProductBulkResponse;
+import com.learning.product_catalog_api.data.ProductRequest;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ingests large numbers of products from a stream of requests. Items are validated one by one and the
+ * valid ones are inserted in batches of {@code catalog.bulk.batch-size}, each batch in its own transaction,
+ * so the entities held and the persistence context are bounded by the batch size and not by the size of the
+ * input. The report still holds one small result per item read.
+ */
+@Slf4j
+@Service
+public class ProductBulkService {
+
+    private static final String PRODUCTS_CACHE = "products";
+
+    private final ProductRepository productRepository;
+
+    private final BatchCacheOperations batchCacheOperations;
+
+    private final ProductIdFilter idFilter;
+
+    private final ProductChangeLog changeLog;
+
+    private final Validator validator;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public ProductBulkService(final ProductRepository productRepository,
+                              final BatchCacheOperations batchCacheOperations,
+                              final ProductIdFilter idFilter,
+                              final ProductChangeLog changeLog,
+                              final Validator validator,
+                              final PlatformTransactionManager transactionManager,
+                              @Value("${catalog.bulk.batch-size:500}") final int batchSize) {
+        this.productRepository = productRepository;
+        this.batchCacheOperations = batchCacheOperations;
+        this.idFilter = idFilter;
+        this.changeLog = changeLog;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Validate and insert every product in the given sequence.
+     *
+     * <p>Batches are committed as they fill up. If the input cannot be read to the end (for example it is
+     * malformed half way through), or a batch cannot be stored, the batches already committed stay committed,
+     * the items read so far are reported, those of the batch that failed as not created, and
+     * {@link ProductBulkResponse#error()} says why the ingest stopped.
+     *
+     * @param requests  the products to create, typically read lazily from the request body
+     * @param warmCache whether to also write the created products to the products cache
+     * @return one result per item read, in input order
+     */
+    public ProductBulkResponse ingest(final Iterator<ProductRequest> requests, final boolean warmCache) {
+        final List<ProductBulkItemResult> results = new ArrayList<>();
+        final List<Product> batch = new ArrayList<>(batchSize);
+        final List<Integer> batchIndexes = new ArrayList<>(batchSize);
+        String error = null;
+        int index = 0;
+        while (true) {
+            final ProductRequest request;
+            try {
+                if (!requests.hasNext()) {
+                    break;
+                }
+                request = requests.next();
+            } catch (RuntimeException e) {
+                error = "Could not read item " + index + ": " + e.getMessage();
+                log.warn("Bulk ingest stopped: {}", error);
+                break;
+            }
+            final List<String> errors = validate(request);
+            if (errors.isEmpty()) {
+                batch.add(ProductMapper.toProduct(request));
+                batchIndexes.add(index);
+                results.add(null);
+            } else {
+                results.add(ProductBulkItemResult.rejected(index, errors));
+            }
+            index++;
+            if (batch.size() == batchSize) {
+                error = insert(batch, batchIndexes, results, warmCache);
+                if (error != null) {
+                    break;
+                }
+            }
+        }
+        if (!batch.isEmpty()) {
+            final String storeError = insert(batch, batchIndexes, results, warmCache);
+            if (storeError != null) {
+                error = error == null ? storeError : error + "; " + storeError;
+            }
+        }
+        final int created = (int) results.stream().filter(ProductBulkItemResult::created).count();
+        return new ProductBulkResponse(results.size(), created, results.size() - created, error, results);
+    }
+
+    private List<String> validate(final ProductRequest request) {
+        if (request == null) {
+            return List.of("Product must not be null");
+        }
+        final Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+        return violations.stream().map(ConstraintViolation::getMessage).sorted().toList();
+    }
+
+    /**
+     * Insert the batch in one transaction and record the outcome of its items in {@code results}.
+     *
+     * @return {@code null} if the batch was stored, otherwise why it was not
+     */
+    private String insert(final List<Product> batch, final List<Integer> batchIndexes,
+                          final List<ProductBulkItemResult> results, final boolean warmCache) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                productRepository.saveAll(batch);
+                entityManager.flush();
+                // Detach the batch so the persistence context does not grow with the input.
+                entityManager.clear();
+            });
+        } catch (RuntimeException e) {
+            final String error = "Could not store items " + batchIndexes.get(0) + " to "
+                    + batchIndexes.get(batchIndexes.size() - 1) + ": " + e.getMessage();
+            log.warn("Bulk ingest stopped: {}", error);
+            for (final int index : batchIndexes) {
+                results.set(index, ProductBulkItemResult.failed(index, "Not stored: the batch failed"));
+            }
+            batch.clear();
+            batchIndexes.clear();
+            return error;
+        }
+        final Map<Integer, ProductResponse> responses = new HashMap<>();
+        for (int i = 0; i < batch.size(); i++) {
+            final Product product = batch.get(i);
+            final int index = batchIndexes.get(i);
+            results.set(index, ProductBulkItemResult.created(index, product.getId()));
+            responses.put(product.getId(), ProductMapper.toProductResponse(product));
+        }
+        idFilter.addAll(responses.keySet());
+        changeLog.created(responses.values());
+        if (warmCache) {
+            batchCacheOperations.putAllIfAbsent(PRODUCTS_CACHE, responses);
+        }
+        batch.clear();
+        batchIndexes.clear();
+        return null;
+    }
+}
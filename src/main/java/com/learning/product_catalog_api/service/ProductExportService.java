@@ -0,0 +1,71 @@
+package com.learning.product_catalog_api.service;
+
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+/**
+ * Streams the whole catalog to a consumer one product at a time, for exports that must not hold the
+ * catalog in memory.
+ */
+@Service
+public class ProductExportService {
+
+    private final ProductRepository productRepository;
+
+    private final int fetchSize;
+
+    @Autowired
+    public ProductExportService(final ProductRepository productRepository,
+                                @Value("${catalog.export.fetch-size:1000}") final int fetchSize) {
+        this.productRepository = productRepository;
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * Pass every product, in id order, to the given consumer. The read runs in one read-only transaction so
+     * the export is a consistent snapshot on databases that provide one.
+     *
+     * @param consumer receives each product; it may block to apply backpressure
+     * @return the number of products exported
+     */
+    @Transactional(readOnly = true)
+    public long exportProducts(final Consumer<ProductResponse> consumer) {
+        long count = 0;
+        try (Stream<Product> products = productRepository.streamAll(fetchSize)) {
+            for (Product product : (Iterable<Product>) products::iterator) {
+                consumer.accept(ProductMapper.toProductResponse(product));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Pass the id of every product, in id order, to the given consumer, in one read-only transaction.
+     *
+     * @param consumer receives each id
+     * @return the number of ids exported
+     */
+    @Transactional(readOnly = true)
+    public long exportProductIds(final IntConsumer consumer) {
+        long count = 0;
+        try (Stream<Integer> ids = productRepository.streamAllIds(fetchSize)) {
+            for (Integer id : (Iterable<Integer>) ids::iterator) {
+                consumer.accept(id);
+                count++;
+            }
+        }
+        return count;
+    }
+}
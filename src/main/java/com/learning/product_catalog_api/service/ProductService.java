@@ -1,10 +1,23 @@
 package com.learning.product_catalog_api.service;
 
+import java.util.List;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductBatchPatchRequest;
+import com.learning.product_catalog_api.data.ProductBatchPatchResponse;
+import com.learning.product_catalog_api.data.ProductChangePage;
+import com.learning.product_catalog_api.data.ProductCursorPage;
+import com.learning.product_catalog_api.data.ProductFilterPage;
+import com.learning.product_catalog_api.data.ProductPatchRequest;
 import com.learning.product_catalog_api.data.ProductRequest;
 import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.ProductSearchResponse;
+import com.learning.product_catalog_api.search.ProductFilterQuery;
+import com.learning.product_catalog_api.search.ProductSearchQuery;
+import com.learning.product_catalog_api.util.ProductFields;
 
 public interface ProductService {
 
@@ -24,6 +37,42 @@ public interface ProductService {
      */
     ProductResponse getProductById(int id);
 
+    /**
+     * Get a product only if this node holds it in memory, i.e. an update of it is waiting for write-behind or
+     * it is in the near cache, without going to Redis or the database.
+     *
+     * @param id the ID of the product
+     * @return the product, or {@code null} if it is not held in memory
+     */
+    ProductResponse getLocalProduct(int id);
+
+    /**
+     * Get the ETag of a product as this node last cached it, which is kept after the product itself left the
+     * near cache, without going to Redis or the database. Enough to answer a conditional GET with 304.
+     *
+     * @param id the ID of the product
+     * @return the product's ETag, or {@code null} if this node has none for it
+     */
+    String getCachedETag(int id);
+
+    /**
+     * Get several products by their IDs in one go.
+     *
+     * @param ids the IDs of the products to retrieve
+     * @return one result per requested ID, in request order, marking the IDs that were not found
+     */
+    List<ProductBatchItem> getProductsByIds(List<Integer> ids);
+
+    /**
+     * Get several products by their IDs in one go, reading only some of their fields from the database. Products
+     * found in the cache are returned whole; products read from the database are not cached.
+     *
+     * @param ids    the IDs of the products to retrieve
+     * @param fields the fields the caller needs
+     * @return one result per requested ID, in request order, marking the IDs that were not found
+     */
+    List<ProductBatchItem> getProductsByIds(List<Integer> ids, ProductFields fields);
+
     /**
      * Get all products.
      *
@@ -31,19 +80,85 @@ public interface ProductService {
      */
     Page<ProductResponse> getAllProducts(Pageable pageable);
 
+    /**
+     * Get a page of products, reading only some of their fields.
+     *
+     * @param pageable the page to read
+     * @param fields   the fields the caller needs
+     * @return the page of products, with the fields not read left null, false or 0
+     */
+    Page<ProductResponse> getAllProducts(Pageable pageable, ProductFields fields);
+
+    /**
+     * Get a page of products using keyset pagination.
+     *
+     * @param cursor  the cursor returned with the previous page, or {@code null}/blank for the first page
+     * @param size    the maximum number of products to return
+     * @param sortKey the property to order by, ascending with the ID as tie-breaker
+     * @return the page of products and the cursor for the next page
+     */
+    ProductCursorPage<ProductResponse> getProductsAfter(String cursor, int size, String sortKey);
+
+    /**
+     * Search products by name and description using the in-memory search index.
+     *
+     * @param query the search text, filters and maximum number of results
+     * @return the best matching products and the total number of matches
+     */
+    ProductSearchResponse searchProducts(ProductSearchQuery query);
+
+    /**
+     * Get a page of products filtered by price range and availability, sorted by price.
+     *
+     * @param query the filter, sort direction and page to return
+     * @return the products on the page and the total number of matching products
+     */
+    ProductFilterPage filterProducts(ProductFilterQuery query);
+
     /**
      * Update an existing product.
      *
      * @param id      the ID of the product to update
      * @param product the updated product data
      * @return the updated product
+     * @throws com.learning.product_catalog_api.exception.ProductVersionConflictException if the product kept
+     *                                                                                    being changed concurrently
      */
     ProductResponse updateProduct(int id, ProductRequest product);
 
+    /**
+     * Change the price and/or availability of a product without loading it.
+     *
+     * @param id    the ID of the product to change
+     * @param patch the fields to change and, optionally, the version the change is based on
+     * @throws com.learning.product_catalog_api.exception.ProductNotFoundException if the product does not exist
+     * @throws com.learning.product_catalog_api.exception.ProductVersionConflictException if the product is not at
+     *                                                                                  the given version
+     */
+    void patchProduct(int id, ProductPatchRequest patch);
+
+    /**
+     * Set the same price and/or availability on several products at once.
+     *
+     * @param request the products and fields to change, and optionally the version of each product
+     * @return how many products were changed, and which were missing or not at their expected version
+     */
+    ProductBatchPatchResponse patchProducts(ProductBatchPatchRequest request);
+
     /**
      * Delete a product by its ID.
      *
      * @param id the ID of the product to delete
      */
     void deleteProduct(int id);
+
+    /**
+     * Read the product changes made on this node after the given sequence of its change log.
+     *
+     * @param since the sequence of the last change already seen, 0 for the oldest change still held
+     * @param limit the maximum number of changes to return
+     * @param epoch the epoch the sequence was read in, or {@code null} to not check it
+     * @return the changes, oldest first, and the sequence to continue from
+     */
+    ProductChangePage getChanges(long since, int limit, String epoch);
 }
@@ -1,19 +1,64 @@
 package com.learning.product_catalog_api.service;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.cache.ProductIdFilter;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductBatchPatchRequest;
+import com.learning.product_catalog_api.data.ProductBatchPatchResponse;
+import com.learning.product_catalog_api.data.ProductChangePage;
+import com.learning.product_catalog_api.data.ProductCursorPage;
+import com.learning.product_catalog_api.data.ProductFilterPage;
+import com.learning.product_catalog_api.data.ProductPatchRequest;
 import com.learning.product_catalog_api.data.ProductRequest;
 import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.ProductSearchResponse;
+import com.learning.product_catalog_api.datasource.ReadYourWrites;
+import com.learning.product_catalog_api.exception.InvalidCursorException;
 import com.learning.product_catalog_api.exception.ProductNotFoundException;
+import com.learning.product_catalog_api.exception.ProductVersionConflictException;
+import com.learning.product_catalog_api.loader.ProductBatchLoader;
 import com.learning.product_catalog_api.model.Product;
 import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductFilterQuery;
+import com.learning.product_catalog_api.search.ProductFilterResult;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.search.ProductSearchQuery;
+import com.learning.product_catalog_api.search.ProductSearchResult;
+import com.learning.product_catalog_api.util.ProductCursor;
+import com.learning.product_catalog_api.util.ProductETags;
+import com.learning.product_catalog_api.util.ProductFields;
 import com.learning.product_catalog_api.util.ProductMapper;
+import com.learning.product_catalog_api.util.ProductSortKey;
+import com.learning.product_catalog_api.writebehind.ProductWriteBehindQueue;
 
 import jakarta.annotation.Nonnull;
 import jakarta.validation.constraints.NotNull;
@@ -21,53 +66,458 @@ import jakarta.validation.constraints.NotNull;
 @Service
 public class ProductServiceImpl implements ProductService {
 
+    private static final String PRODUCTS_CACHE = "products";
+
+    /**
+     * How often a product update is tried again when the product changed between the read and the write.
+     */
+    private static final int MAX_UPDATE_ATTEMPTS = 3;
+
     private final ProductRepository productRepository;
 
+    private final BatchCacheOperations batchCacheOperations;
+
+    private final ProductSearchIndex searchIndex;
+
+    private final ProductFilterIndex filterIndex;
+
+    private final ProductIdFilter idFilter;
+
+    private final ProductWriteBehindQueue writeBehind;
+
+    private final ProductChangeLog changeLog;
+
+    private final ProductBatchLoader productLoader;
+
+    private final ReadYourWrites readYourWrites;
+
     @Autowired
-    public ProductServiceImpl(final ProductRepository productRepository) {
+    public ProductServiceImpl(final ProductRepository productRepository,
+                              final BatchCacheOperations batchCacheOperations,
+                              final ProductSearchIndex searchIndex,
+                              final ProductFilterIndex filterIndex,
+                              final ProductIdFilter idFilter,
+                              final ProductWriteBehindQueue writeBehind,
+                              final ProductChangeLog changeLog,
+                              final ProductBatchLoader productLoader,
+                              final ReadYourWrites readYourWrites) {
         this.productRepository = productRepository;
+        this.batchCacheOperations = batchCacheOperations;
+        this.searchIndex = searchIndex;
+        this.filterIndex = filterIndex;
+        this.idFilter = idFilter;
+        this.writeBehind = writeBehind;
+        this.changeLog = changeLog;
+        this.productLoader = productLoader;
+        this.readYourWrites = readYourWrites;
     }
 
     @Override
     public ProductResponse createProduct(@NotNull final ProductRequest product) {
         Product newProduct = ProductMapper.toProduct(product);
         productRepository.save(newProduct);
-        return ProductMapper.toProductResponse(newProduct);
+        idFilter.add(newProduct.getId());
+        readYourWrites.written(newProduct.getId());
+        final ProductResponse response = ProductMapper.toProductResponse(newProduct);
+        changeLog.created(response);
+        return response;
     }
 
+    /**
+     * Synchronized caching: concurrent misses for the same id on this node share one database read
+     * instead of each loading the product. Ids the {@link ProductIdFilter} knows to be missing skip the
+     * cache and the database altogether. An update still waiting for write-behind is returned instead of
+     * the older row. Under load, misses for different ids are read together by the {@link ProductBatchLoader}.
+     * The row is read as a {@link ProductResponse} projection, without loading the entity, from a read replica
+     * unless the product was just written on this node.
+     */
     @Override
-    @Cacheable(value = "products", key = "#id")
+    @Cacheable(value = PRODUCTS_CACHE, key = "#id", sync = true, condition = "@productIdFilter.mightExist(#id)")
     public ProductResponse getProductById(final int id) {
-        return productRepository.findById(id)
-                .map(ProductMapper::toProductResponse)
-                .orElseThrow(() -> new ProductNotFoundException("Product not found: " + id));
+        if (idFilter.isKnownMissing(id)) {
+            throw new ProductNotFoundException("Product not found: " + id);
+        }
+        final ProductResponse pending = writeBehind.pending(id);
+        if (pending != null) {
+            return pending;
+        }
+        final Optional<ProductResponse> product = readYourWrites.isSticky(id)
+                ? readYourWrites.onPrimary(() -> productRepository.findResponseById(id))
+                : productLoader.findById(id);
+        return product
+                .orElseThrow(() -> {
+                    idFilter.recordMissing(id);
+                    return new ProductNotFoundException("Product not found: " + id);
+                });
+    }
+
+    @Override
+    public ProductResponse getLocalProduct(final int id) {
+        final ProductResponse pending = writeBehind.pending(id);
+        if (pending != null) {
+            return pending;
+        }
+        return batchCacheOperations.getLocal(PRODUCTS_CACHE, id, ProductResponse.class);
+    }
+
+    @Override
+    public String getCachedETag(final int id) {
+        final ProductResponse pending = writeBehind.pending(id);
+        if (pending != null) {
+            return ProductETags.of(pending);
+        }
+        return batchCacheOperations.getValidator(PRODUCTS_CACHE, id);
+    }
+
+    /**
+     * Resolves cache hits with one multi-get, loads all misses with one {@code IN} query and writes
+     * them back to the cache in one pipeline, so the cost does not grow in round trips with the
+     * number of ids. Ids the {@link ProductIdFilter} knows to be missing are not looked up. Misses are read as
+     * {@link ProductResponse} projections, without loading the entities, from the primary if any of them was just
+     * written on this node.
+     */
+    @Override
+    public List<ProductBatchItem> getProductsByIds(@NotNull final List<Integer> ids) {
+        return getProductsByIds(ids, ProductFields.ALL);
     }
 
+    /**
+     * Like {@link #getProductsByIds(List)}, but misses are read with only the columns of the fieldset. Those
+     * partial products are not written to the cache, which only ever holds whole products; cache hits are
+     * returned whole.
+     */
     @Override
+    public List<ProductBatchItem> getProductsByIds(@NotNull final List<Integer> ids, final ProductFields fields) {
+        final Set<Integer> distinctIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            if (idFilter.mightExist(id)) {
+                distinctIds.add(id);
+            }
+        }
+        final Map<Integer, ProductResponse> products =
+                batchCacheOperations.getAll(PRODUCTS_CACHE, distinctIds, ProductResponse.class);
+        final List<Integer> misses = distinctIds.stream()
+                .filter(id -> !products.containsKey(id))
+                .toList();
+        if (!misses.isEmpty()) {
+            final Map<Integer, ProductResponse> loaded = new HashMap<>();
+            final Supplier<List<ProductResponse>> read = fields.isAll()
+                    ? () -> productRepository.findResponsesByIdIn(misses)
+                    : () -> productRepository.findFieldsByIdIn(misses, fields);
+            final List<ProductResponse> found = readYourWrites.anySticky(misses)
+                    ? readYourWrites.onPrimary(read)
+                    : read.get();
+            for (ProductResponse product : found) {
+                final ProductResponse pending = writeBehind.pending(product.id());
+                loaded.put(product.id(), pending != null ? pending : product);
+            }
+            misses.stream().filter(id -> !loaded.containsKey(id)).forEach(idFilter::recordMissing);
+            if (fields.isAll()) {
+                batchCacheOperations.putAllIfAbsent(PRODUCTS_CACHE, loaded);
+            }
+            products.putAll(loaded);
+        }
+        final List<ProductBatchItem> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            final ProductResponse product = products.get(id);
+            results.add(product == null ? ProductBatchItem.notFound(id) : ProductBatchItem.found(product));
+        }
+        return results;
+    }
+
+    /**
+     * Reads the page and its count in one read-only transaction, straight into {@link ProductResponse}
+     * projections: no entity is loaded, so nothing is registered in the persistence context or checked for
+     * changes. The page is read from a read replica, or from the primary while a product written on this node
+     * may not have reached the replicas yet; the connection is only taken at the first query, so the choice can
+     * still be made within the transaction.
+     */
+    @Override
+    @Transactional(readOnly = true)
     public Page<ProductResponse> getAllProducts(final Pageable pageable) {
-        return productRepository.findAll(pageable)
-                .map(ProductMapper::toProductResponse);
+        return getAllProducts(pageable, ProductFields.ALL);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> getAllProducts(final Pageable pageable, final ProductFields fields) {
+        return readYourWrites.recentlyWritten()
+                ? readYourWrites.onPrimary(() -> readPage(pageable, fields))
+                : readPage(pageable, fields);
+    }
+
+    private Page<ProductResponse> readPage(final Pageable pageable, final ProductFields fields) {
+        return fields.isAll()
+                ? productRepository.findResponsesBy(pageable)
+                : productRepository.findFieldsBy(pageable, fields);
+    }
+
+    /**
+     * Read-only and read as {@link ProductResponse} projections like the offset pages, so cursor pages are
+     * served by the replicas too, except for a client that just wrote.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public ProductCursorPage<ProductResponse> getProductsAfter(final String cursor, final int size, final String sortKey) {
+        final ProductSortKey requestedKey = ProductSortKey.fromProperty(sortKey);
+        return readYourWrites.recentlyWritten()
+                ? readYourWrites.onPrimary(() -> readSlice(cursor, size, requestedKey))
+                : readSlice(cursor, size, requestedKey);
+    }
+
+    private ProductCursorPage<ProductResponse> readSlice(final String cursor, final int size,
+                                                         final ProductSortKey requestedKey) {
+        final Pageable limit = PageRequest.of(0, size);
+        final Slice<ProductResponse> slice;
+        if (cursor == null || cursor.isBlank()) {
+            slice = productRepository.findSliceBy(PageRequest.of(0, size, Sort.by(requestedKey.property(), "id")));
+        } else {
+            final ProductCursor after = ProductCursor.decode(cursor);
+            if (after.sortKey() != requestedKey) {
+                throw new InvalidCursorException("Cursor was issued for sort '" + after.sortKey().property()
+                        + "', not '" + requestedKey.property() + "'");
+            }
+            slice = switch (requestedKey) {
+                case ID -> productRepository.findSliceAfterId(after.id(), limit);
+                case PRICE -> productRepository.findSliceAfterPrice((BigDecimal) after.typedValue(), after.id(), limit);
+                case NAME -> productRepository.findSliceAfterName((String) after.typedValue(), after.id(), limit);
+                case CREATED_AT -> productRepository.findSliceAfterCreatedAt((LocalDateTime) after.typedValue(), after.id(), limit);
+            };
+        }
+        final List<ProductResponse> products = slice.getContent();
+        final String nextCursor = slice.hasNext()
+                ? ProductCursor.after(requestedKey, products.get(products.size() - 1)).encode()
+                : null;
+        return new ProductCursorPage<>(products, products.size(), slice.hasNext(), nextCursor);
+    }
+
+    /**
+     * Ranks the matching ids in the in-memory search index, then loads only the best ones through
+     * {@link #getProductsByIds(List)}, i.e. mostly from the cache.
+     */
+    @Override
+    public ProductSearchResponse searchProducts(final ProductSearchQuery query) {
+        final ProductSearchResult result = searchIndex.search(query);
+        final List<Integer> ids = new ArrayList<>(result.ids().length);
+        for (int id : result.ids()) {
+            ids.add(id);
+        }
+        final List<ProductResponse> products = getProductsByIds(ids).stream()
+                .filter(ProductBatchItem::found)
+                .map(ProductBatchItem::product)
+                .toList();
+        return new ProductSearchResponse(products, result.totalMatches());
     }
 
+    /**
+     * Resolves the matching ids from the in-memory filter index, then loads only the products on the
+     * requested page through {@link #getProductsByIds(List)}, i.e. mostly from the cache.
+     */
     @Override
-    @CachePut(value = "products", key = "#id")
+    public ProductFilterPage filterProducts(final ProductFilterQuery query) {
+        final ProductFilterResult result = filterIndex.filter(query);
+        final List<Integer> ids = new ArrayList<>(result.ids().length);
+        for (int id : result.ids()) {
+            ids.add(id);
+        }
+        final List<ProductResponse> products = getProductsByIds(ids).stream()
+                .filter(ProductBatchItem::found)
+                .map(ProductBatchItem::product)
+                .toList();
+        return new ProductFilterPage(products, query.page(), query.size(), result.totalMatches());
+    }
+
+    /**
+     * With {@code catalog.write-behind.enabled}, the updated product is only written to the cache and the
+     * change log here, and queued for {@link ProductWriteBehindQueue} to commit to the database shortly after.
+     * The current state is then read from the write-behind queue or the cache before the database.
+     * With read replicas, the product is read from the primary, and reads of it stay on the primary for a while
+     * after, see {@link ReadYourWrites}.
+     */
+    @Override
+    @CachePut(value = PRODUCTS_CACHE, key = "#id")
     public ProductResponse updateProduct(final int id, @Nonnull final ProductRequest product) {
-        final Product existingProduct = productRepository.findById(id)
+        final ProductResponse response = writeBehind.isEnabled()
+                ? updateBehind(id, product)
+                : updateNow(id, product);
+        readYourWrites.written(id);
+        changeLog.updated(response);
+        return response;
+    }
+
+    /**
+     * Writes the product with a conditional {@code UPDATE ... WHERE version = ?}, so that a patch committed
+     * between the read and the write is not overwritten under the same version. The update is then tried again
+     * on the new version, as a full replacement does not depend on the fields it replaces.
+     */
+    private ProductResponse updateNow(final int id, final ProductRequest product) {
+        for (int attempt = 1; ; attempt++) {
+            // A projection query, so each attempt reads the row and not an entity cached by an earlier one.
+            final ProductResponse current = readYourWrites.onPrimary(() -> productRepository.findResponseById(id))
+                    .orElseThrow(() -> new ProductNotFoundException("Product not found: " + id));
+            final LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+            if (productRepository.replaceIfVersion(id, current.version(), product.name(), product.description(),
+                    product.price(), product.available(), updatedAt) == 1) {
+                return new ProductResponse(id, product.name(), product.description(), product.price(),
+                        product.available(), current.createdAt(), updatedAt, current.version() + 1);
+            }
+            if (attempt == MAX_UPDATE_ATTEMPTS) {
+                throw new ProductVersionConflictException("Product " + id + " kept changing during the update");
+            }
+        }
+    }
+
+    /**
+     * The next version is computed by the write-behind queue from the update of the product already queued, if
+     * any, so concurrent updates never share a version.
+     */
+    private ProductResponse updateBehind(final int id, final ProductRequest product) {
+        final ProductResponse current = currentProduct(id);
+        // Truncated to what the database stores, so the product reads back with the same ETag once committed.
+        final LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        return writeBehind.enqueue(current, base -> new ProductResponse(id, product.name(), product.description(),
+                product.price(), product.available(), base.createdAt(), updatedAt, base.version() + 1));
+    }
+
+    private ProductResponse currentProduct(final int id) {
+        if (!idFilter.mightExist(id) || idFilter.isKnownMissing(id)) {
+            throw new ProductNotFoundException("Product not found: " + id);
+        }
+        final ProductResponse pending = writeBehind.pending(id);
+        if (pending != null) {
+            return pending;
+        }
+        final ProductResponse cached = batchCacheOperations.getAll(PRODUCTS_CACHE, Set.of(id), ProductResponse.class).get(id);
+        if (cached != null) {
+            return cached;
+        }
+        return readYourWrites.onPrimary(() -> productRepository.findById(id))
+                .map(ProductMapper::toProductResponse)
                 .orElseThrow(() -> new ProductNotFoundException("Product not found: " + id));
-        existingProduct.setName(product.name());
-        existingProduct.setDescription(product.description());
-        existingProduct.setPrice(product.price());
-        existingProduct.setAvailable(product.available());
-        productRepository.save(existingProduct);
-        return ProductMapper.toProductResponse(existingProduct);
     }
 
     @Override
-    @CacheEvict(value = "products", key = "#id")
+    @Transactional
+    public void patchProduct(final int id, @Nonnull final ProductPatchRequest patch) {
+        final Map<Integer, Long> versions = patch.version() == null ? Map.of() : Map.of(id, patch.version());
+        final ProductBatchPatchResponse result = patch(List.of(id), versions, patch.price(), patch.available());
+        if (!result.notFound().isEmpty()) {
+            throw new ProductNotFoundException("Product not found: " + id);
+        }
+        if (!result.conflicts().isEmpty()) {
+            throw new ProductVersionConflictException("Product " + id + " is no longer at version " + patch.version());
+        }
+    }
+
+    @Override
+    @Transactional
+    public ProductBatchPatchResponse patchProducts(@Nonnull final ProductBatchPatchRequest request) {
+        return patch(request.ids(), request.versions() == null ? Map.of() : request.versions(),
+                request.price(), request.available());
+    }
+
+    /**
+     * Changes the products with one {@code UPDATE ... WHERE id IN (...)} per distinct expected version (one in
+     * all for unversioned patches), without loading them. Each update returns the ids it changed; only if some
+     * are missing are the others looked up, to tell missing products from version conflicts. The changes are published to the
+     * change log, and the cache entries evicted in one operation, once the transaction has committed. Products with an update
+     * waiting for write-behind are patched in the write-behind queue instead.
+     */
+    private ProductBatchPatchResponse patch(final List<Integer> ids, final Map<Integer, Long> versions,
+                                            final BigDecimal price, final Boolean available) {
+        final LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        final Set<Integer> distinctIds = new LinkedHashSet<>(ids);
+        final List<Integer> notFound = new ArrayList<>();
+        final List<Integer> conflicts = new ArrayList<>();
+        final List<Integer> patched = new ArrayList<>();
+        final Map<Long, List<Integer>> byVersion = new HashMap<>();
+        for (Integer id : distinctIds) {
+            final Long version = versions.get(id);
+            if (!idFilter.mightExist(id)) {
+                notFound.add(id);
+                continue;
+            }
+            final ProductResponse pending = writeBehind.pending(id);
+            if (pending == null) {
+                byVersion.computeIfAbsent(version, v -> new ArrayList<>()).add(id);
+                continue;
+            }
+            try {
+                final ProductResponse response = writeBehind.enqueue(pending, base -> {
+                    if (version != null && version != base.version()) {
+                        throw new ProductVersionConflictException("Product " + id + " is no longer at version " + version);
+                    }
+                    return new ProductResponse(id, base.name(), base.description(),
+                            price != null ? price : base.price(), available != null ? available : base.available(),
+                            base.createdAt(), updatedAt, base.version() + 1);
+                });
+                changeLog.updated(response);
+                patched.add(id);
+            } catch (ProductVersionConflictException e) {
+                conflicts.add(id);
+            }
+        }
+        final List<Integer> queried = new ArrayList<>();
+        final Set<Integer> changedIds = new HashSet<>();
+        for (Map.Entry<Long, List<Integer>> group : byVersion.entrySet()) {
+            changedIds.addAll(productRepository.patchAll(group.getValue(), group.getKey(), price, available, updatedAt));
+            queried.addAll(group.getValue());
+        }
+        final List<Integer> patchedInDatabase = new ArrayList<>(queried.size());
+        if (changedIds.size() == queried.size()) {
+            patchedInDatabase.addAll(queried);
+        } else {
+            final List<Integer> unchanged = queried.stream().filter(id -> !changedIds.contains(id)).toList();
+            final Set<Integer> existing = new HashSet<>(productRepository.findExistingIds(unchanged));
+            for (Integer id : queried) {
+                if (changedIds.contains(id)) {
+                    patchedInDatabase.add(id);
+                } else if (existing.contains(id) && versions.get(id) != null) {
+                    conflicts.add(id);
+                } else {
+                    notFound.add(id);
+                }
+            }
+        }
+        changeLog.patched(patchedInDatabase, price, available, updatedAt);
+        patched.addAll(patchedInDatabase);
+        readYourWrites.written(patched);
+        afterCommit(() -> batchCacheOperations.evictAll(PRODUCTS_CACHE, patched));
+        return new ProductBatchPatchResponse(distinctIds.size(), patched.size(), notFound, conflicts);
+    }
+
+    /**
+     * Run the action once the current transaction has committed, or now if there is none, so that a concurrent
+     * cache miss cannot read and re-cache the rows as they were before the transaction.
+     */
+    private static void afterCommit(final Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    @Override
+    @CacheEvict(value = PRODUCTS_CACHE, key = "#id")
     public void deleteProduct(final int id) {
-        if (!productRepository.existsById(id)) {
+        if (!readYourWrites.onPrimary(() -> productRepository.existsById(id))) {
             throw new ProductNotFoundException("Product not found: " + id);
         }
+        writeBehind.discard(id);
         productRepository.deleteById(id);
+        idFilter.remove(id);
+        readYourWrites.written(id);
+        changeLog.deleted(id);
+    }
+
+    @Override
+    public ProductChangePage getChanges(final long since, final int limit, final String epoch) {
+        return changeLog.read(since, limit, epoch);
     }
 }
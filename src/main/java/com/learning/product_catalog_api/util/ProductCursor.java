@@ -0,0 +1,60 @@
+package com.learning.product_catalog_api.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+import com.learning.product_catalog_api.exception.InvalidCursorException;
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Continuation token for keyset pagination: the sort key and the {@code (sortKey, id)} of the last row of
+ * the previous page. Clients treat it as opaque; it is URL-safe Base64 of {@code v1|sortKey|id|value}.
+ *
+ * @param sortKey the ordering the cursor belongs to
+ * @param id      the id of the last row returned
+ * @param value   the sort key value of the last row returned, in string form
+ */
+public record ProductCursor(ProductSortKey sortKey, int id, String value) {
+
+    private static final String VERSION = "v1";
+
+    private static final String SEPARATOR = "|";
+
+    public static ProductCursor after(ProductSortKey sortKey, ProductResponse product) {
+        return new ProductCursor(sortKey, product.id(), sortKey.valueOf(product));
+    }
+
+    public String encode() {
+        String raw = VERSION + SEPARATOR + sortKey.property() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @throws InvalidCursorException if the token is malformed
+     */
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0])) {
+                throw new InvalidCursorException("Invalid cursor: " + token);
+            }
+            ProductSortKey sortKey = ProductSortKey.fromProperty(parts[1]);
+            ProductCursor cursor = new ProductCursor(sortKey, Integer.parseInt(parts[2]), parts[3]);
+            cursor.typedValue();
+            return cursor;
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid cursor: " + token);
+        }
+    }
+
+    /**
+     * @return the sort key value parsed to the type of the underlying column.
+     */
+    public Object typedValue() {
+        return sortKey.parse(value);
+    }
+}
@@ -0,0 +1,84 @@
+package com.learning.product_catalog_api.util;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Strong validators for product responses, computed from the fields that change with every write (id,
+ * {@code version} and {@code updatedAt}) rather than from the rendered body, so a request can be answered with
+ * 304 Not Modified without serializing anything.
+ *
+ * <p>{@code updatedAt} is taken to the millisecond, because the database may keep it less precisely than the
+ * entity that was saved. It is part of the tag so that an id reused by a new database does not match a tag
+ * issued for the old product.
+ */
+public final class ProductETags {
+
+    private ProductETags() {
+    }
+
+    /**
+     * @return the entity tag of a single product, quoted, e.g. {@code "42-3-lx2k9a1b"}
+     */
+    public static String of(ProductResponse product) {
+        return "\"" + product.id() + "-" + product.version() + "-" + Long.toString(millis(product.updatedAt()), 36) + "\"";
+    }
+
+    /**
+     * @return the entity tag of a view of a product with only some of its fields, quoted, e.g.
+     * {@code "42-3-lx2k9a1b-f19"}; the tag of the whole product for {@link ProductFields#ALL}
+     */
+    public static String of(ProductResponse product, ProductFields fields) {
+        return of(of(product), fields);
+    }
+
+    /**
+     * @param productETag the entity tag of the whole product, as returned by {@link #of(ProductResponse)}
+     * @return the entity tag of a view of the product with only some of its fields, as returned by
+     * {@link #of(ProductResponse, ProductFields)}
+     */
+    public static String of(String productETag, ProductFields fields) {
+        if (fields.isAll()) {
+            return productETag;
+        }
+        return productETag.substring(0, productETag.length() - 1) + "-f" + Long.toString(fields.mask(), 36) + "\"";
+    }
+
+    /**
+     * @param products the products on the page, in order
+     * @param extra    anything else the page shows, e.g. the total number of products
+     * @return the entity tag of a page of products, quoted; it changes when any product on it changes
+     */
+    public static String ofPage(List<ProductResponse> products, long... extra) {
+        long hash = 0xcbf29ce484222325L;
+        for (ProductResponse product : products) {
+            hash = mix(hash, product.id());
+            hash = mix(hash, product.version());
+            hash = mix(hash, millis(product.updatedAt()));
+        }
+        for (long value : extra) {
+            hash = mix(hash, value);
+        }
+        return "\"p" + products.size() + "-" + Long.toHexString(hash) + "\"";
+    }
+
+    /**
+     * @return the time the product was last modified, in epoch milliseconds, or -1 if it is not known
+     */
+    public static long lastModified(ProductResponse product) {
+        return product.updatedAt() == null ? -1 : product.updatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time == null ? 0 : time.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private static long mix(long hash, long value) {
+        hash = (hash ^ value) * 0x100000001b3L;
+        return hash ^ (hash >>> 32);
+    }
+}
@@ -0,0 +1,50 @@
+package com.learning.product_catalog_api.util;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.exception.InvalidFieldsException;
+
+/**
+ * Properties of a {@link ProductResponse} that a client can select with {@code fields=}. Each property has the
+ * name of the {@code Product} attribute it is read from, so it can be selected in JPQL as {@code p.<property>}.
+ */
+public enum ProductField {
+
+    ID("id", ProductResponse::id),
+    NAME("name", ProductResponse::name),
+    DESCRIPTION("description", ProductResponse::description),
+    PRICE("price", ProductResponse::price),
+    AVAILABLE("available", ProductResponse::available),
+    CREATED_AT("createdAt", ProductResponse::createdAt),
+    UPDATED_AT("updatedAt", ProductResponse::updatedAt),
+    VERSION("version", ProductResponse::version);
+
+    private final String property;
+
+    private final Function<ProductResponse, Object> extractor;
+
+    ProductField(String property, Function<ProductResponse, Object> extractor) {
+        this.property = property;
+        this.extractor = extractor;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    /**
+     * @return this property's value on the given product
+     */
+    public Object valueOf(ProductResponse product) {
+        return extractor.apply(product);
+    }
+
+    public static ProductField fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(field -> field.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new InvalidFieldsException("Unknown product field: " + property));
+    }
+}
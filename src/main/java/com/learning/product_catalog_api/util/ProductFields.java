@@ -0,0 +1,143 @@
+package com.learning.product_catalog_api.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.ProductView;
+
+/**
+ * A sparse fieldset: the properties of a product a client asked for with {@code fields=id,price,available}.
+ * The id is always included.
+ *
+ * <p>A partial product is read with only the selected {@link #columns()} and rendered as a {@link #view} of the
+ * selected properties. The columns always include {@code updatedAt} and {@code version}, so a partial product
+ * still carries what its ETag is computed from.
+ */
+public final class ProductFields {
+
+    public static final ProductFields ALL = new ProductFields(EnumSet.allOf(ProductField.class));
+
+    private static final Set<ProductField> VALIDATORS = EnumSet.of(ProductField.UPDATED_AT, ProductField.VERSION);
+
+    private final Set<ProductField> selected;
+
+    private ProductFields(Set<ProductField> selected) {
+        this.selected = Collections.unmodifiableSet(selected);
+    }
+
+    /**
+     * @param fields comma-separated property names, e.g. {@code id,price,available}; null or blank for all
+     * @return the fieldset
+     * @throws com.learning.product_catalog_api.exception.InvalidFieldsException if a name is not a property
+     */
+    public static ProductFields parse(String fields) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+        Set<ProductField> selected = EnumSet.of(ProductField.ID);
+        for (String property : fields.split(",")) {
+            if (!property.isBlank()) {
+                selected.add(ProductField.fromProperty(property.strip()));
+            }
+        }
+        return selected.size() == ProductField.values().length ? ALL : new ProductFields(selected);
+    }
+
+    public boolean isAll() {
+        return selected.size() == ProductField.values().length;
+    }
+
+    public Set<ProductField> selected() {
+        return selected;
+    }
+
+    /**
+     * @return the properties to read from the database: the selected ones and the ETag inputs, in declaration
+     * order
+     */
+    public List<ProductField> columns() {
+        Set<ProductField> columns = EnumSet.copyOf(selected);
+        columns.addAll(VALIDATORS);
+        return new ArrayList<>(columns);
+    }
+
+    /**
+     * @return a number that identifies the selection, the same on every node, e.g. to tell apart the ETags of
+     * different views of a product
+     */
+    public long mask() {
+        long mask = 0;
+        for (ProductField field : selected) {
+            mask |= 1L << field.ordinal();
+        }
+        return mask;
+    }
+
+    /**
+     * @param values the values of the given columns, in the same order
+     * @return a product with those values; the properties not read are null, false or 0
+     */
+    public static ProductResponse toResponse(List<ProductField> columns, Object[] values) {
+        Object[] all = new Object[ProductField.values().length];
+        for (int i = 0; i < columns.size(); i++) {
+            all[columns.get(i).ordinal()] = values[i];
+        }
+        return new ProductResponse((Integer) all[ProductField.ID.ordinal()],
+                (String) all[ProductField.NAME.ordinal()],
+                (String) all[ProductField.DESCRIPTION.ordinal()],
+                (BigDecimal) all[ProductField.PRICE.ordinal()],
+                Boolean.TRUE.equals(all[ProductField.AVAILABLE.ordinal()]),
+                (LocalDateTime) all[ProductField.CREATED_AT.ordinal()],
+                (LocalDateTime) all[ProductField.UPDATED_AT.ordinal()],
+                all[ProductField.VERSION.ordinal()] instanceof Long version ? version : 0);
+    }
+
+    /**
+     * @return the selected properties of the product, by name, in declaration order; rendered by Jackson like
+     * the same properties of the full {@link ProductResponse}
+     */
+    public ProductView view(ProductResponse product) {
+        ProductView view = new ProductView();
+        for (ProductField field : selected) {
+            view.put(field.property(), field.valueOf(product));
+        }
+        return view;
+    }
+
+    /**
+     * @return the batch lookup result with its product reduced to a {@link #view}, rendered like a
+     * {@link ProductBatchItem}
+     */
+    public Map<String, Object> view(ProductBatchItem item) {
+        Map<String, Object> view = new LinkedHashMap<>();
+        view.put("id", item.id());
+        view.put("found", item.found());
+        view.put("product", item.found() ? view(item.product()) : null);
+        return view;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof ProductFields fields && selected.equals(fields.selected);
+    }
+
+    @Override
+    public int hashCode() {
+        return selected.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return selected.stream().map(ProductField::property).collect(Collectors.joining(","));
+    }
+}
@@ -14,7 +14,8 @@ public class ProductMapper {
                 product.getPrice(),
                 product.isAvailable(),
                 product.getCreatedAt(),
-                product.getUpdatedAt());
+                product.getUpdatedAt(),
+                product.getVersion());
     }
 
     public static Product toProduct(ProductRequest productRequest) {
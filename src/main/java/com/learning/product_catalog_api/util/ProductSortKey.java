@@ -0,0 +1,58 @@
+package com.learning.product_catalog_api.util;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.Function;
+
+import com.learning.product_catalog_api.exception.InvalidCursorException;
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Columns that keyset pagination can order by. Every ordering is ascending and uses the product id as
+ * a tie-breaker, so {@code (sortKey, id)} is unique and a page can resume exactly after the last row.
+ */
+public enum ProductSortKey {
+
+    ID("id", product -> String.valueOf(product.id()), value -> null),
+    PRICE("price", product -> product.price().toPlainString(), BigDecimal::new),
+    NAME("name", ProductResponse::name, value -> value),
+    CREATED_AT("createdAt", product -> product.createdAt().toString(), LocalDateTime::parse);
+
+    private final String property;
+
+    private final Function<ProductResponse, String> extractor;
+
+    private final Function<String, Object> parser;
+
+    ProductSortKey(String property, Function<ProductResponse, String> extractor, Function<String, Object> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String property() {
+        return property;
+    }
+
+    /**
+     * @return the string form of this key's value on the given product, as stored in a cursor.
+     */
+    public String valueOf(ProductResponse product) {
+        return extractor.apply(product);
+    }
+
+    /**
+     * @return the typed value for a string stored in a cursor.
+     */
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    public static ProductSortKey fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(key -> key.property.equals(property))
+                .findFirst()
+                .orElseThrow(() -> new InvalidCursorException("Unsupported sort property: " + property));
+    }
+}
@@ -0,0 +1,282 @@
+package com.learning.product_catalog_api.warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tracks the {@code top-k} most read product ids of this node, and snapshots them to a local file every
+ * {@code snapshot-interval} and on shutdown, for the {@link ProductCacheWarmer} to load at the next startup.
+ *
+ * <p>Reads are counted in a count-min sketch of {@value #DEPTH} rows of {@code sketch-width} counters: each read
+ * increments one counter per row, and an id's count is estimated as the smallest of its counters, which can
+ * only overestimate. An id whose estimate reaches the count of the current k-th hottest id becomes a candidate;
+ * once there are twice as many candidates as k, they are pruned back to the k hottest on the task executor, not
+ * on the reading thread. Until the prune has run, at most four times k candidates are tracked. Memory is
+ * therefore fixed, whatever the number of ids read. Counts are halved after each snapshot, so the hot set
+ * follows the traffic.
+ *
+ * <p>Enabled with {@code catalog.warm-up.enabled}.
+ */
+@Slf4j
+@Component
+public class HotProductTracker implements SmartLifecycle {
+
+    private static final int DEPTH = 4;
+
+    private static final long[] ROW_SEEDS = {0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final boolean enabled;
+
+    private final int topK;
+
+    private final int width;
+
+    private final Path file;
+
+    private final AtomicIntegerArray counters;
+
+    private final Executor executor;
+
+    private final Set<Integer> candidates = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean pruneQueued = new AtomicBoolean();
+
+    /**
+     * The estimated count an id needs to become a candidate: that of the k-th hottest id at the last prune.
+     */
+    private volatile int admission;
+
+    private volatile boolean running;
+
+    @Autowired
+    public HotProductTracker(@Value("${catalog.warm-up.enabled:false}") boolean enabled,
+                             @Value("${catalog.warm-up.top-k:10000}") int topK,
+                             @Value("${catalog.warm-up.sketch-width:65536}") int sketchWidth,
+                             @Value("${catalog.warm-up.file:hot-products.txt}") Path file,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor executor) {
+        this.enabled = enabled;
+        this.topK = Math.max(1, topK);
+        this.width = Integer.highestOneBit(Math.max(64, sketchWidth - 1)) << 1;
+        this.file = file;
+        this.executor = executor;
+        this.counters = new AtomicIntegerArray(enabled ? DEPTH * width : 0);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    /**
+     * Count a read of the given product.
+     */
+    public void record(int id) {
+        if (!enabled) {
+            return;
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(row, id)));
+        }
+        if (estimate >= admission && !candidates.contains(id) && candidates.size() < 4 * topK
+                && candidates.add(id) && candidates.size() > 2 * topK) {
+            queuePrune();
+        }
+    }
+
+    /**
+     * @return the estimated number of reads of the given product since it was last halved
+     */
+    public int estimate(int id) {
+        if (!enabled) {
+            return 0;
+        }
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, id)));
+        }
+        return estimate;
+    }
+
+    /**
+     * @return up to {@code top-k} ids, hottest first
+     */
+    public List<Integer> hottest() {
+        // Sort a copy of the estimates, each read once: other threads keep incrementing the counters, and a
+        // comparator reading them would not be consistent from one comparison to the next.
+        long[] ranked = new long[candidates.size()];
+        int size = 0;
+        for (int id : candidates) {
+            if (size == ranked.length) {
+                ranked = Arrays.copyOf(ranked, size * 2 + 1);
+            }
+            ranked[size++] = (long) estimate(id) << 32 | (id & 0xFFFFFFFFL);
+        }
+        Arrays.sort(ranked, 0, size);
+        List<Integer> ids = new ArrayList<>(Math.min(size, topK));
+        for (int i = size - 1; i >= 0 && ids.size() < topK; i--) {
+            ids.add((int) ranked[i]);
+        }
+        return ids;
+    }
+
+    /**
+     * @return the number of ids currently tracked as candidates for the top k
+     */
+    public int trackedIds() {
+        return candidates.size();
+    }
+
+    /**
+     * Write the hottest ids to the snapshot file, then halve every count.
+     */
+    @Scheduled(initialDelayString = "${catalog.warm-up.snapshot-interval:1m}",
+            fixedDelayString = "${catalog.warm-up.snapshot-interval:1m}")
+    public void snapshot() {
+        if (!enabled) {
+            return;
+        }
+        write();
+        decay();
+    }
+
+    /**
+     * @return the ids of the last snapshot, hottest first; empty if there is none or it cannot be read
+     */
+    public List<Integer> readSnapshot() {
+        List<Integer> ids = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(file, StandardCharsets.US_ASCII)) {
+                try {
+                    ids.add(Integer.parseInt(line.strip()));
+                } catch (NumberFormatException e) {
+                    // Skip a line cut short by a crash or edited by hand.
+                }
+            }
+        } catch (NoSuchFileException e) {
+            log.info("No hot product snapshot at {}", file);
+        } catch (IOException e) {
+            log.warn("Could not read hot product snapshot {}: {}", file, e.getMessage());
+        }
+        return ids;
+    }
+
+    private void write() {
+        List<Integer> ids = hottest();
+        if (ids.isEmpty()) {
+            return;
+        }
+        Path temp = null;
+        try {
+            Path directory = file.toAbsolutePath().getParent();
+            Files.createDirectories(directory);
+            temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.US_ASCII)) {
+                for (int id : ids) {
+                    writer.write(Integer.toString(id));
+                    writer.newLine();
+                }
+            }
+            // Replace the previous snapshot in one step, so a crash never leaves half a file behind.
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.debug("Wrote {} hot product ids to {}", ids.size(), file);
+        } catch (IOException e) {
+            log.warn("Could not write hot product snapshot {}: {}", file, e.getMessage());
+            deleteQuietly(temp);
+        }
+    }
+
+    private static void deleteQuietly(Path temp) {
+        if (temp == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            // Left for the next cleanup of the directory.
+        }
+    }
+
+    private void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, count -> count >>> 1);
+        }
+        admission >>>= 1;
+    }
+
+    private void queuePrune() {
+        if (!pruneQueued.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    prune();
+                } finally {
+                    pruneQueued.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Rejected by a saturated executor: the next candidate queues it again.
+            pruneQueued.set(false);
+        }
+    }
+
+    private void prune() {
+        List<Integer> ids = hottest();
+        candidates.retainAll(Set.copyOf(ids));
+        admission = ids.isEmpty() ? 0 : estimate(ids.getLast());
+    }
+
+    private int index(int row, int id) {
+        long hash = (id + 1L) * ROW_SEEDS[row];
+        return row * width + ((int) ((hash ^ (hash >>> 29)) >>> 32) & (width - 1));
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    /**
+     * Snapshot once more, so a deploy restarts with the ids read right up to the shutdown.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        if (enabled) {
+            write();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
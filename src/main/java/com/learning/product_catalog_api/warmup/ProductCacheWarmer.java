@@ -0,0 +1,132 @@
+package com.learning.product_catalog_api.warmup;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.WarmUpReport;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fills the {@code products} cache at startup with the products that were hottest on this node before it was
+ * restarted, as snapshotted by the {@link HotProductTracker}, so that after a deploy or a Redis flush the
+ * database does not take the whole read load while the cache fills up again.
+ *
+ * <p>Once the application is ready, the ids of the snapshot are loaded on a background thread, hottest first, in
+ * chunks of {@code chunk-size}: one {@code findAllById} query per chunk, written to Redis in one pipeline and to
+ * the near cache. Entries already cached are left alone. Until the warm-up is done or has run for
+ * {@code max-duration}, the ping endpoint reports the node as not ready, so a load balancer holds traffic back.
+ * A failure, e.g. Redis being unreachable, ends the warm-up early; the node then serves from a cold cache.
+ */
+@Slf4j
+@Component
+public class ProductCacheWarmer {
+
+    private static final String PRODUCTS_CACHE = "products";
+
+    public enum State {
+        PENDING, RUNNING, DONE
+    }
+
+    private final HotProductTracker tracker;
+
+    private final ProductRepository productRepository;
+
+    private final BatchCacheOperations batchCacheOperations;
+
+    private final int chunkSize;
+
+    private final Duration maxDuration;
+
+    private volatile State state;
+
+    private volatile int snapshotIds;
+
+    private volatile int loaded;
+
+    private volatile long startNanos;
+
+    private volatile long endNanos;
+
+    @Autowired
+    public ProductCacheWarmer(HotProductTracker tracker, ProductRepository productRepository,
+                              BatchCacheOperations batchCacheOperations,
+                              @Value("${catalog.warm-up.chunk-size:1000}") int chunkSize,
+                              @Value("${catalog.warm-up.max-duration:60s}") Duration maxDuration) {
+        this.tracker = tracker;
+        this.productRepository = productRepository;
+        this.batchCacheOperations = batchCacheOperations;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxDuration = maxDuration;
+        this.state = tracker.isEnabled() ? State.PENDING : State.DONE;
+    }
+
+    /**
+     * @return whether the warm-up is over, or disabled; the node should not take traffic before
+     */
+    public boolean isDone() {
+        return state == State.DONE;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (state != State.PENDING) {
+            return;
+        }
+        state = State.RUNNING;
+        Thread.ofPlatform().name("product-cache-warm-up").daemon().start(this::warmUp);
+    }
+
+    /**
+     * Load the snapshot into the cache, on the calling thread.
+     */
+    void warmUp() {
+        startNanos = System.nanoTime();
+        try {
+            List<Integer> ids = tracker.readSnapshot();
+            snapshotIds = ids.size();
+            long deadline = startNanos + maxDuration.toNanos();
+            for (int from = 0; from < ids.size(); from += chunkSize) {
+                if (System.nanoTime() - deadline > 0) {
+                    log.warn("Cache warm-up stopped after {} with {} of {} hot products loaded", maxDuration, loaded,
+                            ids.size());
+                    return;
+                }
+                List<Product> products = productRepository.findAllById(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+                Map<Integer, ProductResponse> responses = new HashMap<>();
+                for (Product product : products) {
+                    responses.put(product.getId(), ProductMapper.toProductResponse(product));
+                }
+                batchCacheOperations.putAllIfAbsent(PRODUCTS_CACHE, responses);
+                loaded += responses.size();
+            }
+            log.info("Warmed the {} cache with {} of {} hot products in {} ms", PRODUCTS_CACHE, loaded, ids.size(),
+                    (System.nanoTime() - startNanos) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Cache warm-up failed after {} hot products: {}", loaded, e.getMessage());
+        } finally {
+            endNanos = System.nanoTime();
+            state = State.DONE;
+        }
+    }
+
+    public WarmUpReport report() {
+        State current = state;
+        long duration = current == State.PENDING || startNanos == 0 ? 0
+                : ((current == State.DONE ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+        return new WarmUpReport(tracker.isEnabled(), current.name(), snapshotIds, loaded, duration, tracker.trackedIds());
+    }
+}
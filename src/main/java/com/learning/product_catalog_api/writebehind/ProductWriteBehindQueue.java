@@ -0,0 +1,468 @@
+package com.learning.product_catalog_api.writebehind;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.changes.ProductIndexSync;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.WriteBehindReport;
+import com.learning.product_catalog_api.exception.ProductVersionConflictException;
+import com.learning.product_catalog_api.exception.WriteBehindQueueFullException;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Commits product updates to the database in the background, so an update request only waits for the cache.
+ * Enabled with {@code catalog.write-behind.enabled}.
+ *
+ * <p>Updates wait in a bounded map keyed by product id, in arrival order. A later update of a product that is
+ * still waiting replaces the earlier one, so a product changed many times between two flushes is written once.
+ * Each update is computed from the one before it under the queue's lock, so concurrent updates of a product get
+ * successive versions, and remembers the version of the row it replaces: a product whose row has changed since,
+ * for example by a patch or on another node, is not overwritten under the same version but dropped as below.
+ * A single flusher thread takes up to {@code batch-size} products at a time, as soon as that many are waiting or
+ * {@code flush-interval} after the first one arrived, and commits them in one transaction, which Hibernate sends
+ * as JDBC batches. While the batch is written it stays readable through {@link #pending(int)}, so a cache miss in
+ * the meantime does not read the old row.
+ *
+ * <p>When {@code capacity} products are waiting, further updates of other products wait up to
+ * {@code offer-timeout} for room and are then refused with {@link WriteBehindQueueFullException}. If a batch
+ * fails, its products are retried one transaction each; an update that still fails is dropped, its cache entry
+ * evicted and the product as it is in the database published to the {@link ProductChangeLog}, and the {@link WriteBehindJournal} is told.
+ *
+ * <p>Committed products are announced to the search and filter indexes of the other nodes through the
+ * {@link ProductIndexSync}, which read them from the database.
+ *
+ * <p>The queue stops after the web server, committing everything still waiting. Updates that arrive while it
+ * is not running are committed immediately, in the caller's thread, and their failures go to the caller.
+ */
+@Slf4j
+@Component
+public class ProductWriteBehindQueue implements SmartLifecycle {
+
+    private static final String PRODUCTS_CACHE = "products";
+
+    private final boolean enabled;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final Duration flushInterval;
+
+    private final Duration offerTimeout;
+
+    private final Duration shutdownTimeout;
+
+    private final ProductRepository productRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CacheManager cacheManager;
+
+    private final ProductChangeLog changeLog;
+
+    private final WriteBehindJournal journal;
+
+    private final ProductIndexSync indexSync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = lock.newCondition();
+
+    private final Condition notFull = lock.newCondition();
+
+    private final LinkedHashMap<Integer, QueuedUpdate> pending = new LinkedHashMap<>();
+
+    private final Map<Integer, QueuedUpdate> inFlight = new HashMap<>();
+
+    private final LongAdder enqueued = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder committed = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private volatile boolean running;
+
+    private Thread flusher;
+
+    @Autowired
+    public ProductWriteBehindQueue(@Value("${catalog.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${catalog.write-behind.capacity:10000}") int capacity,
+                                   @Value("${catalog.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${catalog.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${catalog.write-behind.offer-timeout:1s}") Duration offerTimeout,
+                                   @Value("${catalog.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+                                   ProductRepository productRepository,
+                                   PlatformTransactionManager transactionManager,
+                                   CacheManager cacheManager,
+                                   ProductChangeLog changeLog,
+                                   @Nullable WriteBehindJournal journal,
+                                   @Nullable ProductIndexSync indexSync) {
+        this.enabled = enabled;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.productRepository = productRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheManager = cacheManager;
+        this.changeLog = changeLog;
+        this.journal = journal != null ? journal : WriteBehindJournal.NONE;
+        this.indexSync = indexSync;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Queue an update of a product. Returns once it is queued, or once it is committed if the queue is not
+     * running.
+     *
+     * @param current the product as the caller read it, which the update is applied to unless an update of it is
+     *                already queued or being committed
+     * @param change  computes the full new state of the product, with the next version, from its current state;
+     *                called under the queue's lock, and may throw to refuse the update
+     * @return the update queued, to be written to the cache
+     * @throws WriteBehindQueueFullException    if there was no room for the update within {@code offer-timeout}
+     * @throws ProductVersionConflictException if the queue is not running and the row changed since it was read
+     */
+    public ProductResponse enqueue(ProductResponse current, UnaryOperator<ProductResponse> change) {
+        if (!running) {
+            ProductResponse update = change.apply(current);
+            journal.appended(update);
+            List<ProductResponse> stale = write(List.of(new QueuedUpdate(update, current.version())));
+            if (!stale.isEmpty()) {
+                ProductVersionConflictException conflict = new ProductVersionConflictException("Product "
+                        + update.id() + " changed during the update");
+                journal.failed(update, conflict);
+                throw conflict;
+            }
+            return update;
+        }
+        lock.lock();
+        try {
+            int id = current.id();
+            QueuedUpdate waiting = pending.get(id);
+            QueuedUpdate previous = waiting != null ? waiting : inFlight.get(id);
+            ProductResponse update = change.apply(previous != null ? previous.update() : current);
+            // A waiting update is replaced, and the row it was to replace is still the one to replace.
+            long expectedVersion = waiting != null ? waiting.expectedVersion()
+                    : previous != null ? previous.update().version() : current.version();
+            if (waiting != null) {
+                coalesced.increment();
+            } else {
+                long remaining = offerTimeout.toNanos();
+                while (pending.size() >= capacity) {
+                    if (remaining <= 0) {
+                        rejected.increment();
+                        throw new WriteBehindQueueFullException("Write-behind queue is full (" + capacity
+                                + " products waiting), retry later");
+                    }
+                    remaining = notFull.awaitNanos(remaining);
+                }
+            }
+            journal.appended(update);
+            pending.put(id, new QueuedUpdate(update, expectedVersion));
+            enqueued.increment();
+            if (pending.size() == 1 || pending.size() >= batchSize) {
+                notEmpty.signal();
+            }
+            return update;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            rejected.increment();
+            throw new WriteBehindQueueFullException("Interrupted while waiting for room in the write-behind queue");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the update of the product that is queued or being committed, or null if there is none, in which
+     * case the database is up to date for that product.
+     */
+    public ProductResponse pending(int id) {
+        if (!enabled) {
+            return null;
+        }
+        lock.lock();
+        try {
+            QueuedUpdate update = pending.get(id);
+            if (update == null) {
+                update = inFlight.get(id);
+            }
+            return update != null ? update.update() : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Drop the queued update of a product that is being deleted. An update of it already being committed
+     * finds no row once the delete has committed, and is then dropped as well.
+     */
+    public void discard(int id) {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            if (pending.remove(id) != null) {
+                notFull.signal();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public WriteBehindReport report() {
+        lock.lock();
+        try {
+            return new WriteBehindReport(enabled, pending.size(), inFlight.size(), capacity, enqueued.sum(),
+                    coalesced.sum(), committed.sum(), batches.sum(), failed.sum(), rejected.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        lock.lock();
+        try {
+            for (ProductResponse update : journal.unflushed()) {
+                // Oldest first: the first update of a product replaces the row at the version before its own.
+                QueuedUpdate previous = pending.get(update.id());
+                pending.put(update.id(), new QueuedUpdate(update,
+                        previous != null ? previous.expectedVersion() : update.version() - 1));
+            }
+            if (!pending.isEmpty()) {
+                log.info("Replaying {} product updates from the write-behind journal", pending.size());
+            }
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        flusher = Thread.ofPlatform().name("product-write-behind").daemon().start(this::flushUntilStopped);
+    }
+
+    @Override
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            if (!flusher.join(shutdownTimeout)) {
+                WriteBehindReport report = report();
+                log.warn("Write-behind queue not drained within {}, {} product updates lost", shutdownTimeout,
+                        report.pending() + report.inFlight());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stop after the web server has stopped taking requests, so the updates of the last requests are flushed.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+
+    private void flushUntilStopped() {
+        while (true) {
+            List<QueuedUpdate> batch = takeBatch();
+            if (batch == null) {
+                return;
+            }
+            try {
+                commit(batch);
+            } finally {
+                lock.lock();
+                try {
+                    batch.forEach(update -> inFlight.remove(update.update().id(), update));
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Wait until a batch is full, or {@code flush-interval} has passed since updates started waiting, and move
+     * the batch to {@link #inFlight}. While stopping, returns whatever is waiting without delay.
+     *
+     * @return the updates to commit, or null once stopped and drained.
+     */
+    private List<QueuedUpdate> takeBatch() {
+        lock.lock();
+        try {
+            while (pending.isEmpty()) {
+                if (!running) {
+                    return null;
+                }
+                notEmpty.awaitUninterruptibly();
+            }
+            long remaining = flushInterval.toNanos();
+            while (running && pending.size() < batchSize && remaining > 0) {
+                remaining = notEmpty.awaitNanos(remaining);
+            }
+            List<QueuedUpdate> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<QueuedUpdate> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                QueuedUpdate update = iterator.next();
+                iterator.remove();
+                inFlight.put(update.update().id(), update);
+                batch.add(update);
+            }
+            notFull.signalAll();
+            return batch;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commit the updates in one transaction, or one by one if that fails. Updates of rows that changed since
+     * they were queued are dropped.
+     */
+    private void commit(List<QueuedUpdate> updates) {
+        try {
+            dropStale(write(updates));
+            return;
+        } catch (RuntimeException e) {
+            if (updates.size() == 1) {
+                drop(updates.get(0).update(), e);
+                return;
+            }
+            log.warn("Write-behind batch of {} products failed, retrying one by one: {}", updates.size(), e.getMessage());
+        }
+        for (QueuedUpdate update : updates) {
+            try {
+                dropStale(write(List.of(update)));
+            } catch (RuntimeException e) {
+                drop(update.update(), e);
+            }
+        }
+    }
+
+    private void dropStale(List<ProductResponse> stale) {
+        for (ProductResponse update : stale) {
+            drop(update, new ProductVersionConflictException("Product " + update.id()
+                    + " changed since the update was queued"));
+        }
+    }
+
+    /**
+     * Write the updates whose row is still at the version they replace, locking the rows so that it cannot
+     * change in between.
+     *
+     * @return the updates not written because their row had changed
+     */
+    private List<ProductResponse> write(List<QueuedUpdate> updates) {
+        Map<Integer, QueuedUpdate> byId = new HashMap<>();
+        updates.forEach(update -> byId.put(update.update().id(), update));
+        List<ProductResponse> written = new ArrayList<>(updates.size());
+        List<ProductResponse> stale = new ArrayList<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Product> products = new ArrayList<>(updates.size());
+            for (Product product : productRepository.findAllByIdForUpdate(byId.keySet())) {
+                QueuedUpdate queued = byId.get(product.getId());
+                ProductResponse update = queued.update();
+                if (product.getVersion() != queued.expectedVersion()) {
+                    stale.add(update);
+                    continue;
+                }
+                written.add(update);
+                product.setName(update.name());
+                product.setDescription(update.description());
+                product.setPrice(update.price());
+                product.setAvailable(update.available());
+                product.setVersion(update.version());
+                // The time the update was handed out at, not that of the commit, so the ETag does not change.
+                product.setUpdatedAt(update.updatedAt());
+                products.add(product);
+            }
+            productRepository.saveAll(products);
+        });
+        committed.add(written.size());
+        batches.increment();
+        journal.committed(written);
+        if (indexSync != null) {
+            indexSync.announce(written.stream().map(ProductResponse::id).toList());
+        }
+        return stale;
+    }
+
+    private void drop(ProductResponse update, Exception cause) {
+        failed.increment();
+        log.error("Dropping write-behind update of product {}: {}", update.id(), cause.getMessage());
+        try {
+            Cache cache = cacheManager.getCache(PRODUCTS_CACHE);
+            if (cache != null) {
+                cache.evict(update.id());
+            }
+            productRepository.findById(update.id()).map(ProductMapper::toProductResponse).ifPresentOrElse(
+                    changeLog::updated, () -> changeLog.deleted(update.id()));
+        } catch (RuntimeException e) {
+            log.warn("Could not restore product {} after a failed write-behind update: {}", update.id(), e.getMessage());
+        }
+        journal.failed(update, cause);
+    }
+
+    /**
+     * An update waiting or being committed, with the version of the row it replaces.
+     */
+    private record QueuedUpdate(ProductResponse update, long expectedVersion) {
+    }
+}
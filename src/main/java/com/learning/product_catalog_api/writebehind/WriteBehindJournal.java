@@ -0,0 +1,47 @@
+package com.learning.product_catalog_api.writebehind;
+
+import java.util.Collection;
+import java.util.List;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+/**
+ * Durability hooks of the {@link ProductWriteBehindQueue}. Updates queued for write-behind only live in
+ * memory until they are committed, so a crash loses them. An application that cannot accept that declares a
+ * bean implementing this interface, backed for example by a local append-only file or a Redis stream.
+ *
+ * <p>Every method has a no-op default, which is what {@link #NONE} uses when no bean is declared.
+ */
+public interface WriteBehindJournal {
+
+    WriteBehindJournal NONE = new WriteBehindJournal() {
+    };
+
+    /**
+     * Called before an update is queued and acknowledged to the client. Throwing rejects the update.
+     */
+    default void appended(ProductResponse update) {
+    }
+
+    /**
+     * Called once the given products have been committed to the database, with the version of each that was
+     * committed. Entries appended for the same ids since can still be pending.
+     */
+    default void committed(Collection<ProductResponse> updates) {
+    }
+
+    /**
+     * Called when an update could not be committed and was dropped. The cache entry of the product has been
+     * evicted, so reads return what is in the database again.
+     */
+    default void failed(ProductResponse update, Exception cause) {
+    }
+
+    /**
+     * @return the updates appended but never committed before the last shutdown, oldest first. They are queued
+     * again when the write-behind queue starts.
+     */
+    default List<ProductResponse> unflushed() {
+        return List.of();
+    }
+}
@@ -0,0 +1,73 @@
+package com.learning.product_catalog_api.Initializer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.model.Product;
+
+class ProductSeedGeneratorTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 5, 1, 10, 15, 30);
+
+    private static final BigDecimal MIN = new BigDecimal("10");
+
+    private static final BigDecimal MAX = new BigDecimal("99");
+
+    private static List<Product> products(ProductSeedGenerator generator, int count) {
+        return IntStream.rangeClosed(1, count).mapToObj(id -> generator.product(id, NOW)).toList();
+    }
+
+    private static List<String> values(List<Product> products) {
+        return products.stream().map(product -> product.getPrice() + "/" + product.isAvailable()).toList();
+    }
+
+    @Test
+    void sameSeedGivesTheSameProductsInAnyOrder() {
+        ProductSeedGenerator generator = new ProductSeedGenerator(42, MIN, MAX,
+                ProductSeedGenerator.PriceDistribution.UNIFORM, 0.5);
+        List<Product> forward = products(generator, 1000);
+        List<Product> backward = IntStream.iterate(1000, id -> id >= 1, id -> id - 1)
+                .mapToObj(id -> generator.product(id, NOW)).toList().reversed();
+        assertEquals(values(forward), values(backward), "values depend on the id only");
+        assertEquals(values(forward), values(products(new ProductSeedGenerator(42, MIN, MAX,
+                ProductSeedGenerator.PriceDistribution.UNIFORM, 0.5), 1000)), "same seed, same catalog");
+        assertNotEquals(values(forward), values(products(new ProductSeedGenerator(43, MIN, MAX,
+                ProductSeedGenerator.PriceDistribution.UNIFORM, 0.5), 1000)), "another seed, another catalog");
+        assertEquals("Test-Product7", forward.get(6).getName(), "name from the id");
+        assertEquals(7, forward.get(6).getId(), "id kept");
+    }
+
+    @Test
+    void pricesStayWithinBoundsAndFollowTheDistribution() {
+        for (ProductSeedGenerator.PriceDistribution distribution : ProductSeedGenerator.PriceDistribution.values()) {
+            List<Product> products = products(new ProductSeedGenerator(1, MIN, MAX, distribution, 0.5), 10_000);
+            assertTrue(products.stream().allMatch(product -> product.getPrice().compareTo(MIN) >= 0
+                    && product.getPrice().compareTo(MAX) <= 0), distribution + " prices within bounds");
+            assertTrue(products.stream().allMatch(product -> product.getPrice().scale() == 2),
+                    distribution + " prices in cents");
+        }
+        long cheapUniform = products(new ProductSeedGenerator(1, MIN, MAX,
+                ProductSeedGenerator.PriceDistribution.UNIFORM, 0.5), 10_000).stream()
+                .filter(product -> product.getPrice().compareTo(new BigDecimal("20")) < 0).count();
+        long cheapLogUniform = products(new ProductSeedGenerator(1, MIN, MAX,
+                ProductSeedGenerator.PriceDistribution.LOG_UNIFORM, 0.5), 10_000).stream()
+                .filter(product -> product.getPrice().compareTo(new BigDecimal("20")) < 0).count();
+        assertTrue(cheapLogUniform > cheapUniform * 2, "log-uniform favours cheap products");
+    }
+
+    @Test
+    void availableRatioIsHonoured() {
+        long available = products(new ProductSeedGenerator(1, MIN, MAX,
+                ProductSeedGenerator.PriceDistribution.UNIFORM, 0.8), 10_000).stream()
+                .filter(Product::isAvailable).count();
+        assertTrue(available > 7_500 && available < 8_500, "about 80% available, got " + available);
+    }
+}
@@ -0,0 +1,41 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.learning.product_catalog_api.data.ProductRequest;
+import com.learning.product_catalog_api.model.Product;
+
+/**
+ * Products of a given description length shared by the benchmarks, shaped like the ones
+ * {@code DataInitializer} seeds.
+ */
+final class BenchmarkProducts {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000);
+
+    private BenchmarkProducts() {
+    }
+
+    static Product product(int id, int descriptionLength) {
+        return new Product(id, "Test-Product" + id, description(id, descriptionLength),
+                BigDecimal.valueOf(1 + id % 10_000, 2).add(BigDecimal.TEN), id % 3 != 0,
+                CREATED_AT, CREATED_AT.plusSeconds(id % 86_400), id % 5);
+    }
+
+    static ProductRequest request(int id, int descriptionLength) {
+        Product product = product(id, descriptionLength);
+        return new ProductRequest(product.getName(), product.getDescription(), product.getPrice(), product.isAvailable());
+    }
+
+    private static String description(int id, int length) {
+        StringBuilder description = new StringBuilder(length);
+        description.append("Desc").append(id);
+        String[] words = {" sturdy", " compact", " everyday", " premium", " product", " with", " warranty"};
+        for (int i = 0; description.length() < length; i++) {
+            description.append(words[(id + i) % words.length]);
+        }
+        description.setLength(length);
+        return description.toString();
+    }
+}
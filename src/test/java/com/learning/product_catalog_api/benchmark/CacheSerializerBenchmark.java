@@ -0,0 +1,66 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import com.learning.product_catalog_api.cache.CacheValueFormat;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+/**
+ * Compares the {@link CacheValueFormat}s for a cached product: encode and decode time and allocation per
+ * operation. The encoded size of each format is printed at setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheSerializerBenchmark {
+
+    @Param({"BINARY", "JSON", "JDK"})
+    CacheValueFormat format;
+
+    @Param({"32", "1024"})
+    int descriptionLength;
+
+    private RedisSerializer<ProductResponse> serializer;
+
+    private ProductResponse product;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        serializer = format.serializer();
+        product = ProductMapper.toProductResponse(BenchmarkProducts.product(123_456, descriptionLength));
+        bytes = serializer.serialize(product);
+        if (!product.equals(serializer.deserialize(bytes))) {
+            throw new IllegalStateException(format + " does not round trip");
+        }
+        System.out.printf("%n%s, %d character description: %d bytes/entry%n", format, descriptionLength, bytes.length);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public ProductResponse deserialize() {
+        return serializer.deserialize(bytes);
+    }
+}
@@ -0,0 +1,101 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Closed-loop HTTP load generator for comparing execution modes of a running instance: a fixed number of
+ * clients each send a request, wait for the response and send the next, for a fixed time. Reports
+ * throughput, latency percentiles and status codes. Not a unit test; start the application, once with the
+ * default profile and once with {@code --spring.profiles.active=virtual-threads}, and run
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.learning.product_catalog_api.benchmark.HttpLoadTest \
+ *     -Dexec.args="http://localhost:8080/pc/api/v1/ping 1000 30"
+ * </pre>
+ *
+ * Arguments: URL, number of concurrent clients (default 500), measured seconds (default 20). The same number
+ * of seconds is spent warming up first.
+ */
+public class HttpLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        URI uri = URI.create(args.length > 0 ? args[0] : "http://localhost:8080/pc/api/v1/ping");
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder().executor(executor).connectTimeout(Duration.ofSeconds(10)).build()) {
+            run(client, executor, uri, clients, seconds);
+            Result result = run(client, executor, uri, clients, seconds);
+            long[] latencies = result.latencies();
+            Arrays.sort(latencies);
+            System.out.printf("%s, %d clients, %d s%n", uri, clients, seconds);
+            System.out.printf("throughput   %10.0f req/s%n", latencies.length / (double) seconds);
+            System.out.printf("latency p50  %10.2f ms%n", percentile(latencies, 0.50));
+            System.out.printf("latency p99  %10.2f ms%n", percentile(latencies, 0.99));
+            System.out.printf("latency max  %10.2f ms%n", percentile(latencies, 1.0));
+            System.out.printf("statuses     %s%n", result.statuses());
+        }
+    }
+
+    private static Result run(HttpClient client, ExecutorService executor, URI uri, int clients, int seconds) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build();
+        long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        List<Future<Result>> workers = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            workers.add(executor.submit(() -> {
+                long[] latencies = new long[1024];
+                int count = 0;
+                Map<String, Integer> statuses = new TreeMap<>();
+                while (System.nanoTime() < end) {
+                    long start = System.nanoTime();
+                    String status;
+                    try {
+                        status = String.valueOf(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode());
+                    } catch (Exception e) {
+                        status = e.getClass().getSimpleName();
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                    statuses.merge(status, 1, Integer::sum);
+                }
+                return new Result(Arrays.copyOf(latencies, count), statuses);
+            }));
+        }
+        long[] latencies = new long[0];
+        Map<String, Integer> statuses = new TreeMap<>();
+        for (Future<Result> worker : workers) {
+            Result result = worker.get();
+            int offset = latencies.length;
+            latencies = Arrays.copyOf(latencies, offset + result.latencies().length);
+            System.arraycopy(result.latencies(), 0, latencies, offset, result.latencies().length);
+            result.statuses().forEach((status, count) -> statuses.merge(status, count, Integer::sum));
+        }
+        return new Result(latencies, statuses);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+
+    private record Result(long[] latencies, Map<String, Integer> statuses) {
+    }
+}
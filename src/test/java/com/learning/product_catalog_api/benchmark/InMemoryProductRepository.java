@@ -0,0 +1,94 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+/**
+ * A {@link ProductRepository} over a map, implementing the methods {@code ProductServiceImpl} uses on its
+ * read and write paths, so the service can be measured without a database. Other methods throw.
+ */
+final class InMemoryProductRepository {
+
+    private InMemoryProductRepository() {
+    }
+
+    static ProductRepository of(Map<Integer, Product> products) {
+        int[] nextId = {products.keySet().stream().mapToInt(Integer::intValue).max().orElse(0) + 1};
+        return (ProductRepository) Proxy.newProxyInstance(ProductRepository.class.getClassLoader(),
+                new Class<?>[] {ProductRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "findById" -> Optional.ofNullable(products.get((Integer) args[0]));
+                    case "findResponseById" -> Optional.ofNullable(products.get((Integer) args[0]))
+                            .map(ProductMapper::toProductResponse);
+                    case "findResponsesByIdIn" -> {
+                        List<ProductResponse> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Product product = products.get((Integer) id);
+                            if (product != null) {
+                                found.add(ProductMapper.toProductResponse(product));
+                            }
+                        }
+                        yield found;
+                    }
+                    case "replaceIfVersion" -> {
+                        Product product = products.get((Integer) args[0]);
+                        if (product == null || product.getVersion() != (Long) args[1]) {
+                            yield 0;
+                        }
+                        product.setName((String) args[2]);
+                        product.setDescription((String) args[3]);
+                        product.setPrice((BigDecimal) args[4]);
+                        product.setAvailable((Boolean) args[5]);
+                        product.setUpdatedAt((LocalDateTime) args[6]);
+                        product.setVersion(product.getVersion() + 1);
+                        yield 1;
+                    }
+                    case "existsById" -> products.containsKey((Integer) args[0]);
+                    case "findAllById" -> {
+                        List<Product> found = new ArrayList<>();
+                        for (Object id : (Iterable<?>) args[0]) {
+                            Product product = products.get((Integer) id);
+                            if (product != null) {
+                                found.add(product);
+                            }
+                        }
+                        yield found;
+                    }
+                    case "save" -> {
+                        Product product = (Product) args[0];
+                        if (product.getId() == 0) {
+                            product.setId(nextId[0]++);
+                        }
+                        products.put(product.getId(), product);
+                        yield product;
+                    }
+                    case "deleteById" -> {
+                        products.remove((Integer) args[0]);
+                        yield null;
+                    }
+                    case "count" -> (long) products.size();
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    case "toString" -> "InMemoryProductRepository" + products.keySet();
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    static Map<Integer, Product> catalog(int size, int descriptionLength) {
+        Map<Integer, Product> products = new HashMap<>();
+        for (int id = 1; id <= size; id++) {
+            products.put(id, BenchmarkProducts.product(id, descriptionLength));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,140 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Compares a JMH JSON result file with a baseline and fails if any benchmark got slower, or allocates more
+ * per operation ({@code gc.alloc.rate.norm}), by more than the allowed fraction. Benchmarks are matched by
+ * name and parameters; those missing from either file are reported and skipped. Run by the
+ * {@code benchmark} Maven profile after the benchmarks:
+ *
+ * <pre>
+ * JmhRegressionGate &lt;results.json&gt; &lt;baseline.json&gt; &lt;max time regression&gt; &lt;max alloc regression&gt; [update]
+ * </pre>
+ *
+ * With {@code update} set to {@code true} the results replace the baseline instead. Otherwise a missing baseline
+ * fails the check, so that the gate cannot pass by default.
+ */
+public final class JmhRegressionGate {
+
+    static final String ALLOCATION_METRIC = "gc.alloc.rate.norm";
+
+    /**
+     * Allocation differences below one small object are noise, whatever the relative change.
+     */
+    static final double ALLOCATION_SLACK_BYTES = 16;
+
+    private JmhRegressionGate() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            throw new IllegalArgumentException(
+                    "Usage: JmhRegressionGate <results.json> <baseline.json> <max time regression> <max alloc regression> [update]");
+        }
+        Path results = Path.of(args[0]);
+        Path baseline = Path.of(args[1]);
+        if (args.length > 4 && Boolean.parseBoolean(args[4])) {
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.copy(results, baseline, StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Recorded " + results + " as the benchmark baseline " + baseline);
+            return;
+        }
+        if (!Files.exists(baseline)) {
+            throw new IllegalStateException("No benchmark baseline at " + baseline
+                    + "; record one with -Djmh.update-baseline=true");
+        }
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<String> regressions = compare(objectMapper.readTree(baseline.toFile()), objectMapper.readTree(results.toFile()),
+                Double.parseDouble(args[2]), Double.parseDouble(args[3]), System.out);
+        if (!regressions.isEmpty()) {
+            throw new IllegalStateException(regressions.size() + " benchmark regression(s) against " + baseline + ":\n  "
+                    + String.join("\n  ", regressions));
+        }
+    }
+
+    /**
+     * @param maxTimeRegression  allowed increase of the primary score, e.g. {@code 0.1} for 10%
+     * @param maxAllocRegression allowed increase of the bytes allocated per operation
+     * @param out                receives a comparison table
+     * @return a description of every regression, empty if there are none
+     */
+    static List<String> compare(JsonNode baseline, JsonNode current, double maxTimeRegression, double maxAllocRegression,
+                                PrintStream out) {
+        Map<String, JsonNode> baselineByKey = byKey(baseline);
+        Map<String, JsonNode> currentByKey = byKey(current);
+        List<String> regressions = new ArrayList<>();
+        out.printf("%-72s %14s %14s %8s %12s %12s %8s%n", "benchmark", "baseline", "current", "change",
+                "base B/op", "B/op", "change");
+        for (Map.Entry<String, JsonNode> entry : currentByKey.entrySet()) {
+            String key = entry.getKey();
+            JsonNode now = entry.getValue();
+            JsonNode before = baselineByKey.get(key);
+            if (before == null) {
+                out.printf("%-72s %14s%n", key, "(new)");
+                continue;
+            }
+            JsonNode nowScore = now.path("primaryMetric");
+            JsonNode beforeScore = before.path("primaryMetric");
+            String unit = nowScore.path("scoreUnit").asText();
+            if (!unit.equals(beforeScore.path("scoreUnit").asText())) {
+                out.printf("%-72s %14s%n", key, "(unit changed)");
+                continue;
+            }
+            double timeBefore = beforeScore.path("score").asDouble();
+            double timeNow = nowScore.path("score").asDouble();
+            double timeChange = change(timeBefore, timeNow);
+            JsonNode allocBefore = before.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+            JsonNode allocNow = now.path("secondaryMetrics").path(ALLOCATION_METRIC).path("score");
+            boolean hasAlloc = allocBefore.isNumber() && allocNow.isNumber();
+            double allocChange = hasAlloc ? change(allocBefore.asDouble(), allocNow.asDouble()) : 0;
+            out.printf("%-72s %14.3f %14.3f %+7.1f%% %12s %12s %s%n", key, timeBefore, timeNow, timeChange * 100,
+                    hasAlloc ? String.format("%.1f", allocBefore.asDouble()) : "-",
+                    hasAlloc ? String.format("%.1f", allocNow.asDouble()) : "-",
+                    hasAlloc ? String.format("%+7.1f%%", allocChange * 100) : "");
+            if (timeNow > timeBefore * (1 + maxTimeRegression)) {
+                regressions.add(String.format("%s: %.3f -> %.3f %s (%+.1f%%, limit %+.1f%%)", key, timeBefore, timeNow,
+                        unit, timeChange * 100, maxTimeRegression * 100));
+            }
+            if (hasAlloc && allocNow.asDouble() > allocBefore.asDouble() * (1 + maxAllocRegression) + ALLOCATION_SLACK_BYTES) {
+                regressions.add(String.format("%s: %.1f -> %.1f B/op (%+.1f%%, limit %+.1f%%)", key, allocBefore.asDouble(),
+                        allocNow.asDouble(), allocChange * 100, maxAllocRegression * 100));
+            }
+        }
+        for (String key : baselineByKey.keySet()) {
+            if (!currentByKey.containsKey(key)) {
+                out.printf("%-72s %14s%n", key, "(not run)");
+            }
+        }
+        return regressions;
+    }
+
+    private static Map<String, JsonNode> byKey(JsonNode results) {
+        Map<String, JsonNode> byKey = new LinkedHashMap<>();
+        for (JsonNode result : results) {
+            Map<String, String> params = new TreeMap<>();
+            result.path("params").fields().forEachRemaining(param -> params.put(param.getKey(), param.getValue().asText()));
+            String benchmark = result.path("benchmark").asText();
+            String name = benchmark.substring(benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1) + 1)
+                    + ":" + result.path("mode").asText();
+            byKey.put(params.isEmpty() ? name : name + params, result);
+        }
+        return byKey;
+    }
+
+    private static double change(double before, double now) {
+        return before == 0 ? (now == 0 ? 0 : Double.POSITIVE_INFINITY) : now / before - 1;
+    }
+}
@@ -0,0 +1,69 @@
+package com.learning.product_catalog_api.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class JmhRegressionGateTest {
+
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private JsonNode results(double nanos, double bytes, String size) throws Exception {
+        return objectMapper.readTree("""
+                [{"benchmark": "x.ProductMapperBenchmark.toProduct", "mode": "avgt", "params": {"descriptionLength": "%s"},
+                  "primaryMetric": {"score": %s, "scoreUnit": "ns/op"},
+                  "secondaryMetrics": {"gc.alloc.rate.norm": {"score": %s, "scoreUnit": "B/op"}}}]
+                """.formatted(size, nanos, bytes));
+    }
+
+    @Test
+    void changesWithinTheThresholdsPass() throws Exception {
+        List<String> regressions = JmhRegressionGate.compare(results(100, 400, "32"), results(109, 415, "32"), 0.10, 0.05, DISCARD);
+        assertTrue(regressions.isEmpty(), "within limits: " + regressions);
+    }
+
+    @Test
+    void slowerOrMoreAllocatingBenchmarksFail() throws Exception {
+        List<String> regressions = JmhRegressionGate.compare(results(100, 400, "32"), results(120, 480, "32"), 0.10, 0.05, DISCARD);
+        assertEquals(2, regressions.size(), "time and allocation regressions: " + regressions);
+        assertTrue(regressions.get(0).contains("toProduct") && regressions.get(0).contains("ns/op"), regressions.get(0));
+    }
+
+    @Test
+    void benchmarksAreMatchedByParameters() throws Exception {
+        List<String> regressions = JmhRegressionGate.compare(results(100, 400, "32"), results(500, 4000, "1024"), 0.10, 0.05, DISCARD);
+        assertTrue(regressions.isEmpty(), "different parameters are not compared: " + regressions);
+    }
+
+    @Test
+    void smallAllocationChangesAreNoise() throws Exception {
+        List<String> regressions = JmhRegressionGate.compare(results(100, 24, "32"), results(100, 32, "32"), 0.10, 0.05, DISCARD);
+        assertTrue(regressions.isEmpty(), "8 bytes on 24 is within the slack: " + regressions);
+    }
+
+    @Test
+    void missingBaselineFailsUnlessRecording(@TempDir Path directory) throws Exception {
+        Path results = directory.resolve("jmh-result.json");
+        objectMapper.writeValue(results.toFile(), results(100, 400, "32"));
+        Path baseline = directory.resolve("benchmarks/jmh-baseline.json");
+        String[] check = {results.toString(), baseline.toString(), "0.10", "0.05", "false"};
+        assertThrows(IllegalStateException.class, () -> JmhRegressionGate.main(check), "no baseline to compare with");
+        JmhRegressionGate.main(new String[] {results.toString(), baseline.toString(), "0.10", "0.05", "true"});
+        assertTrue(Files.exists(baseline), "baseline recorded");
+        JmhRegressionGate.main(check);
+    }
+}
@@ -0,0 +1,69 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.learning.product_catalog_api.data.ProductRequest;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+/**
+ * Conversions every read and write goes through: entity to response, request to entity, and the Lombok
+ * builder the latter uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductMapperBenchmark {
+
+    @Param({"32", "1024"})
+    int descriptionLength;
+
+    private Product product;
+
+    private ProductRequest request;
+
+    @Setup
+    public void setUp() {
+        product = BenchmarkProducts.product(123_456, descriptionLength);
+        request = BenchmarkProducts.request(123_456, descriptionLength);
+    }
+
+    @Benchmark
+    public ProductResponse toProductResponse() {
+        return ProductMapper.toProductResponse(product);
+    }
+
+    @Benchmark
+    public Product toProduct() {
+        return ProductMapper.toProduct(request);
+    }
+
+    @Benchmark
+    public Product builder() {
+        return Product.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .available(product.isAvailable())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+}
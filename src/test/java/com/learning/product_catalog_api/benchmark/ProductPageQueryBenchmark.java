@@ -0,0 +1,113 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.repository.ProductRepositoryCustomImpl;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Reads a {@code /list} page from an in-memory H2 catalog through the real repository and Hibernate, each in a
+ * read-only transaction: as {@link Product} entities mapped to {@link ProductResponse}s ({@code entities}, how
+ * the page was read before), and as {@link ProductResponse} projections ({@code projections}, how
+ * {@code ProductServiceImpl.getAllProducts} reads it now). Run with the GC profiler to compare the bytes
+ * allocated per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductPageQueryBenchmark {
+
+    private static final int CATALOG_SIZE = 10_000;
+
+    @Param({"10", "100", "1000"})
+    int pageSize;
+
+    private EmbeddedDatabase database;
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+
+    private ProductRepository repository;
+
+    private TransactionTemplate readOnly;
+
+    private PageRequest page;
+
+    @Setup
+    public void setUp() {
+        database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(database);
+        entityManagerFactory.setPackagesToScan(Product.class.getPackageName());
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", "create",
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.jdbc.batch_size", "500"));
+        entityManagerFactory.afterPropertiesSet();
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory.getObject());
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        EntityManager entityManager = SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject());
+        repository = new JpaRepositoryFactory(entityManager)
+                .getRepository(ProductRepository.class, RepositoryFragments.just(new ProductRepositoryCustomImpl()));
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int id = 1; id <= CATALOG_SIZE; id++) {
+                Product product = BenchmarkProducts.product(id, 48);
+                product.setId(0);
+                entityManager.persist(product);
+            }
+        });
+        page = PageRequest.of(CATALOG_SIZE / pageSize / 2, pageSize);
+    }
+
+    @TearDown
+    public void tearDown() {
+        entityManagerFactory.destroy();
+        database.shutdown();
+    }
+
+    @Benchmark
+    public Page<ProductResponse> entities() {
+        return readOnly.execute(status -> repository.findAll(page).map(ProductMapper::toProductResponse));
+    }
+
+    @Benchmark
+    public Page<ProductResponse> projections() {
+        return readOnly.execute(status -> repository.findResponsesBy(page));
+    }
+}
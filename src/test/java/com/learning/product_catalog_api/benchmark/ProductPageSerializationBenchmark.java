@@ -0,0 +1,85 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.hateoas.EntityModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.hateoas.PagedModel;
+import org.springframework.hateoas.mediatype.MessageResolver;
+import org.springframework.hateoas.mediatype.hal.CurieProvider;
+import org.springframework.hateoas.mediatype.hal.Jackson2HalModule;
+import org.springframework.hateoas.server.core.DefaultLinkRelationProvider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+/**
+ * Writes a {@code /list} page, a HAL {@link PagedModel} of {@link EntityModel}s with the links
+ * {@code PagedResourcesAssembler} adds, to a discarding stream as the message converter would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductPageSerializationBenchmark {
+
+    private static final String LIST_URL = "http://localhost:8080/pc/api/v1/products/list";
+
+    @Param({"10", "100", "1000"})
+    int pageSize;
+
+    private ObjectWriter writer;
+
+    private PagedModel<EntityModel<ProductResponse>> page;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .registerModule(new Jackson2HalModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        objectMapper.setHandlerInstantiator(new Jackson2HalModule.HalHandlerInstantiator(
+                new DefaultLinkRelationProvider(), CurieProvider.NONE, MessageResolver.DEFAULTS_ONLY));
+        writer = objectMapper.writer();
+        int total = 100_000;
+        int number = 3;
+        List<EntityModel<ProductResponse>> content = new ArrayList<>(pageSize);
+        for (int i = 0; i < pageSize; i++) {
+            content.add(EntityModel.of(ProductMapper.toProductResponse(BenchmarkProducts.product(number * pageSize + i, 48))));
+        }
+        int lastPage = (total + pageSize - 1) / pageSize - 1;
+        page = PagedModel.of(content, new PagedModel.PageMetadata(pageSize, number, total, lastPage + 1),
+                Link.of(LIST_URL + "?page=0&size=" + pageSize, IanaLinkRelations.FIRST),
+                Link.of(LIST_URL + "?page=" + (number - 1) + "&size=" + pageSize, IanaLinkRelations.PREV),
+                Link.of(LIST_URL + "?page=" + number + "&size=" + pageSize, IanaLinkRelations.SELF),
+                Link.of(LIST_URL + "?page=" + (number + 1) + "&size=" + pageSize, IanaLinkRelations.NEXT),
+                Link.of(LIST_URL + "?page=" + lastPage + "&size=" + pageSize, IanaLinkRelations.LAST));
+    }
+
+    @Benchmark
+    public void writePage() throws IOException {
+        writer.writeValue(OutputStream.nullOutputStream(), page);
+    }
+}
@@ -0,0 +1,61 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.search.ProductSearchQuery;
+import com.learning.product_catalog_api.search.ProductSearchResult;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+/**
+ * Searches the {@link ProductSearchIndex} over up to a million products for search-as-you-type input: a
+ * one-letter prefix of a term every product has ({@code t}), a prefix of a term per product
+ * ({@code product1}, over a hundred thousand terms at a million products), and a common whole word followed by
+ * a prefix ({@code sturdy c}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class ProductSearchIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    int catalogSize;
+
+    @Param({"t", "product1", "sturdy c"})
+    String text;
+
+    private ProductSearchIndex index;
+
+    private ProductSearchQuery query;
+
+    @Setup
+    public void setUp() {
+        index = new ProductSearchIndex();
+        index.rebuild(sink -> {
+            for (int id = 1; id <= catalogSize; id++) {
+                sink.accept(ProductMapper.toProductResponse(BenchmarkProducts.product(id, 48)));
+            }
+        });
+        query = new ProductSearchQuery(text, true, null, null, 20);
+    }
+
+    @Benchmark
+    public ProductSearchResult search() {
+        return index.search(query);
+    }
+}
@@ -0,0 +1,114 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.cache.ProductIdFilter;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductFilterPage;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.ProductSearchResponse;
+import com.learning.product_catalog_api.datasource.ReadYourWrites;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.loader.ProductBatchLoader;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductFilterQuery;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.search.ProductSearchQuery;
+import com.learning.product_catalog_api.service.ProductServiceImpl;
+import com.learning.product_catalog_api.util.ProductMapper;
+import com.learning.product_catalog_api.writebehind.ProductWriteBehindQueue;
+
+/**
+ * {@link ProductServiceImpl} read paths over an in-memory repository and an in-process cache, i.e. the
+ * cost the service itself adds on top of the database and Redis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int BATCH_SIZE = 50;
+
+    @Param({"1000", "100000"})
+    int catalogSize;
+
+    private ProductServiceImpl productService;
+
+    private List<Integer> batchIds;
+
+    private int nextId;
+
+    @Setup
+    public void setUp() {
+        Map<Integer, Product> catalog = InMemoryProductRepository.catalog(catalogSize, 48);
+        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager("products");
+        ProductSearchIndex searchIndex = new ProductSearchIndex();
+        ProductFilterIndex filterIndex = new ProductFilterIndex();
+        ProductIdFilter idFilter = new ProductIdFilter(true, 0.01, 100_000, Duration.ofSeconds(30), 100_000, 16, null);
+        searchIndex.rebuild(sink -> catalog.values().forEach(product -> sink.accept(ProductMapper.toProductResponse(product))));
+        filterIndex.rebuild(sink -> catalog.values().forEach(product -> sink.accept(ProductMapper.toProductResponse(product))));
+        idFilter.rebuild(catalog.size(), sink -> catalog.keySet().forEach(sink::accept));
+        ProductRepository repository = InMemoryProductRepository.of(catalog);
+        ProductChangeLog changeLog = new ProductChangeLog(1024, 256, List.of());
+        ProductWriteBehindQueue writeBehind = new ProductWriteBehindQueue(false, 1, 1, Duration.ZERO, Duration.ZERO,
+                Duration.ZERO, repository, null, cacheManager, changeLog, null, null);
+        productService = new ProductServiceImpl(repository, new BatchCacheOperations(cacheManager, null),
+                searchIndex, filterIndex, idFilter, writeBehind, changeLog,
+                new ProductBatchLoader(false, Duration.ZERO, 1, 1, repository, new LatencyRecorder(false, Duration.ofMinutes(1))),
+                new ReadYourWrites(false, Duration.ofSeconds(5)));
+        batchIds = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batchIds.add(1 + (int) ((long) i * 7919 % catalogSize));
+        }
+    }
+
+    @Benchmark
+    public ProductResponse getProductById() {
+        nextId = nextId % catalogSize + 1;
+        return productService.getProductById(nextId);
+    }
+
+    /**
+     * Misses are written back, so after the first call this measures the all-hits path.
+     */
+    @Benchmark
+    public List<ProductBatchItem> getProductsByIds() {
+        return productService.getProductsByIds(batchIds);
+    }
+
+    @Benchmark
+    public ProductSearchResponse searchProducts() {
+        return productService.searchProducts(new ProductSearchQuery("test-product12", true, null, null, 10));
+    }
+
+    @Benchmark
+    public ProductFilterPage filterProducts() {
+        return productService.filterProducts(new ProductFilterQuery(new BigDecimal("20.00"), new BigDecimal("60.00"),
+                true, false, 2, 20));
+    }
+}
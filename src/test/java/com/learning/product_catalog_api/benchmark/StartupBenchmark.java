@@ -0,0 +1,92 @@
+package com.learning.product_catalog_api.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures time to first successful request: starts the application in a new JVM, polls a URL until it
+ * answers 2xx, records the time since the JVM was launched and stops it, a given number of times. Not a unit
+ * test; build the application and run, e.g. for the plain jar against the AOT-processed, CDS-trained build of
+ * the {@code fast-startup} Maven profile,
+ *
+ * <pre>
+ * ./mvnw test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.learning.product_catalog_api.benchmark.StartupBenchmark \
+ *     -Dexec.args="5 http://localhost:8080/pc/api/v1/products/1 -jar target/product-catalog-api-0.0.1-SNAPSHOT.jar"
+ * </pre>
+ *
+ * Arguments: number of starts, URL, then the arguments of the {@code java} command that starts the
+ * application (JVM options, {@code -jar} and the jar, application arguments). Output of the application goes
+ * to {@code target/startup-benchmark.log}.
+ */
+public class StartupBenchmark {
+
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 3) {
+            System.err.println("Usage: StartupBenchmark <starts> <url> <java arguments...>");
+            System.exit(2);
+        }
+        int starts = Integer.parseInt(args[0]);
+        URI uri = URI.create(args[1]);
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(Arrays.asList(args).subList(2, args.length));
+        File log = new File("target/startup-benchmark.log");
+        long[] millis = new long[starts];
+        try (HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build()) {
+            HttpRequest request = HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(5)).GET().build();
+            for (int i = 0; i < starts; i++) {
+                millis[i] = timeToFirstSuccess(client, request, new ProcessBuilder(command)
+                        .redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.appendTo(log)));
+                System.out.printf("start %2d     %10d ms%n", i + 1, millis[i]);
+            }
+        }
+        Arrays.sort(millis);
+        System.out.printf("%s, %d starts of %s%n", uri, starts, String.join(" ", command.subList(1, command.size())));
+        System.out.printf("first 2xx min    %10d ms%n", millis[0]);
+        System.out.printf("first 2xx median %10d ms%n", millis[starts / 2]);
+        System.out.printf("first 2xx max    %10d ms%n", millis[starts - 1]);
+    }
+
+    private static long timeToFirstSuccess(HttpClient client, HttpRequest request, ProcessBuilder builder) throws Exception {
+        long start = System.nanoTime();
+        Process process = builder.start();
+        try {
+            long deadline = start + TIMEOUT.toNanos();
+            while (System.nanoTime() < deadline) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with " + process.exitValue()
+                            + " before answering, see target/startup-benchmark.log");
+                }
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 200 && status < 300) {
+                        return (System.nanoTime() - start) / 1_000_000;
+                    }
+                } catch (IOException e) {
+                    // Not listening yet.
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No 2xx from " + request.uri() + " within " + TIMEOUT);
+        } finally {
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+}
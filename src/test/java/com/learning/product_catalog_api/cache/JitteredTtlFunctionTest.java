@@ -0,0 +1,40 @@
+package com.learning.product_catalog_api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+class JitteredTtlFunctionTest {
+
+    private static final Duration TTL = Duration.ofMinutes(5);
+
+    @Test
+    void consecutiveKeysSpreadAcrossTheJitterRange() {
+        JitteredTtlFunction function = new JitteredTtlFunction(TTL, 0.1);
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        Set<Long> seconds = new HashSet<>();
+        for (int id = 1; id <= 1000; id++) {
+            long ttl = function.getTimeToLive(id, null).toMillis();
+            min = Math.min(min, ttl);
+            max = Math.max(max, ttl);
+            seconds.add(ttl / 1000);
+        }
+        assertTrue(min >= 270_000 && max <= 330_000, "within ±10% of 5 minutes: " + min + ".." + max);
+        assertTrue(max - min > 50_000, "spread over most of the range: " + min + ".." + max);
+        assertTrue(seconds.size() > 50, "expiries spread over many distinct seconds: " + seconds.size());
+    }
+
+    @Test
+    void sameKeyAlwaysGetsSameTtl() {
+        JitteredTtlFunction function = new JitteredTtlFunction(TTL, 0.1);
+        assertEquals(function.getTimeToLive(42, null), new JitteredTtlFunction(TTL, 0.1).getTimeToLive(42, "other"),
+                "deterministic per key");
+        assertEquals(TTL, new JitteredTtlFunction(TTL, 0).getTimeToLive(42, null), "no jitter");
+    }
+}
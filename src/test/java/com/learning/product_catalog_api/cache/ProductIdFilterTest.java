@@ -0,0 +1,131 @@
+package com.learning.product_catalog_api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.data.IdFilterReport;
+
+class ProductIdFilterTest {
+
+    private static ProductIdFilter newFilter(CacheInvalidationBus bus) {
+        return new ProductIdFilter(true, 0.01, 1000, Duration.ofSeconds(30), 10_000, 2, bus);
+    }
+
+    @Test
+    void bloomFilterHasNoFalseNegativesAndAboutTheConfiguredFalsePositiveRate() {
+        CountingBloomFilter filter = CountingBloomFilter.forCapacity(20_000, 0.01);
+        IntStream.range(0, 20_000).forEach(id -> filter.add(id * 3));
+        for (int id = 0; id < 20_000; id++) {
+            assertTrue(filter.mightContain(id * 3), "added id " + id * 3 + " present");
+        }
+        long falsePositives = IntStream.range(0, 20_000).filter(id -> filter.mightContain(id * 3 + 1)).count();
+        assertTrue(falsePositives < 20_000 * 0.02, "false positives near 1%: " + falsePositives);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(20_000), 0.002, "expected rate at capacity");
+    }
+
+    @Test
+    void removedIdsAreForgottenWithoutLosingOthers() {
+        CountingBloomFilter filter = CountingBloomFilter.forCapacity(1000, 0.01);
+        IntStream.range(0, 1000).forEach(filter::add);
+        IntStream.range(0, 500).forEach(filter::remove);
+        long stillPresent = IntStream.range(0, 500).filter(filter::mightContain).count();
+        assertTrue(stillPresent < 25, "removed ids mostly absent: " + stillPresent);
+        for (int id = 500; id < 1000; id++) {
+            assertTrue(filter.mightContain(id), "remaining id " + id + " present");
+        }
+    }
+
+    @Test
+    void everyIdMayExistUntilBuilt() {
+        ProductIdFilter filter = newFilter(new InMemoryCacheInvalidationBus());
+        assertTrue(filter.mightExist(42), "unknown before the first build");
+        filter.rebuild(4, ids -> IntStream.of(1, 2, 3, 1_000_000).forEach(ids));
+        assertTrue(filter.mightExist(2), "existing id");
+        assertFalse(filter.mightExist(500_000), "absent id");
+        assertTrue(filter.mightExist(1_000_001), "id above the build, maybe created since");
+        assertTrue(filter.mightExist(999_900), "id in a block another node may still hold");
+        assertTrue(filter.report().ready(), "ready after build");
+    }
+
+    @Test
+    void bloomFilterRejectsNothingWithoutABus() {
+        ProductIdFilter filter = newFilter(null);
+        filter.rebuild(2, ids -> IntStream.of(1, 1_000_000).forEach(ids));
+        assertTrue(filter.mightExist(500_000), "may have been created on another node");
+        filter.recordMissing(500_000);
+        assertFalse(filter.mightExist(500_000), "database miss still remembered");
+    }
+
+    @Test
+    void idCreatedOnAnotherNodeIsFoundWhenItsAnnouncementIsLost() {
+        // Each node on its own bus: nothing node A announces reaches node B.
+        ProductIdFilter nodeA = newFilter(new InMemoryCacheInvalidationBus());
+        ProductIdFilter nodeB = newFilter(new InMemoryCacheInvalidationBus());
+        nodeA.rebuild(100, ids -> IntStream.rangeClosed(1, 100).forEach(ids));
+        nodeB.rebuild(100, ids -> IntStream.rangeClosed(1, 100).forEach(ids));
+        nodeA.add(101);
+        assertTrue(nodeB.mightExist(101), "id created on A since the build, unannounced, not rejected on B");
+        assertFalse(nodeB.isKnownMissing(101), "not known missing on B");
+    }
+
+    @Test
+    void idCreatedBelowTheLargestIdFromAnOlderBlockIsNotRejected() {
+        // Node A holds the block 101-200, node B the block 201-300.
+        ProductIdFilter nodeA = newFilter(new InMemoryCacheInvalidationBus());
+        ProductIdFilter nodeB = newFilter(new InMemoryCacheInvalidationBus());
+        nodeB.rebuild(3, ids -> IntStream.of(1, 2, 250).forEach(ids));
+        nodeA.add(150);
+        assertTrue(nodeB.mightExist(150), "id from A's block, unannounced, not rejected on B");
+        assertFalse(nodeB.mightExist(40), "absent id below every block still rejected");
+    }
+
+    @Test
+    void missesAreRememberedUntilTheIdIsCreated() {
+        ProductIdFilter filter = newFilter(null);
+        filter.rebuild(0, ids -> { });
+        filter.add(7);
+        filter.recordMissing(7);
+        assertFalse(filter.mightExist(7), "negative entry answers");
+        filter.add(7);
+        assertTrue(filter.mightExist(7), "created id clears the negative entry");
+        filter.remove(7);
+        assertTrue(filter.isKnownMissing(7), "deleted id missing");
+        IdFilterReport report = filter.report();
+        assertEquals(1, report.databaseMisses(), "one database miss");
+        assertEquals(1.0, report.observedFalsePositiveRate(), "only absent lookup passed the filter");
+    }
+
+    @Test
+    void idsAddedDuringARebuildAreKept() {
+        ProductIdFilter filter = newFilter(null);
+        filter.rebuild(2, ids -> {
+            ids.accept(1);
+            filter.add(99);
+            ids.accept(2);
+        });
+        assertTrue(filter.mightExist(99), "id added mid-rebuild present");
+        assertTrue(filter.mightExist(1), "loaded id present");
+    }
+
+    @Test
+    void createdIdsReachOtherNodes() {
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        ProductIdFilter nodeA = newFilter(bus);
+        ProductIdFilter nodeB = newFilter(bus);
+        nodeA.rebuild(0, ids -> { });
+        nodeB.rebuild(0, ids -> { });
+        nodeB.recordMissing(5);
+        nodeA.add(5);
+        assertTrue(nodeB.mightExist(5), "id created on A visible on B");
+        nodeA.remove(5);
+        assertTrue(nodeA.isKnownMissing(5), "delete applies on A");
+        assertFalse(nodeA.isKnownMissing(6), "delete leaves other ids alone");
+        assertTrue(nodeB.mightExist(5), "delete does not propagate");
+    }
+}
@@ -0,0 +1,101 @@
+package com.learning.product_catalog_api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+class ProductResponseRedisSerializerTest {
+
+    private final ProductResponseRedisSerializer serializer = new ProductResponseRedisSerializer();
+
+    @Test
+    void roundTrip() {
+        ProductResponse product = new ProductResponse(42, "Test Product", "Ünïcödé description ✓",
+                new BigDecimal("19.99"), true,
+                LocalDateTime.of(2024, 5, 1, 10, 15, 30, 123_456_000),
+                LocalDateTime.of(2024, 5, 2, 11, 0), 17);
+        assertEquals(product, serializer.deserialize(serializer.serialize(product)), "product survives round trip");
+    }
+
+    @Test
+    void roundTripWithNullFields() {
+        ProductResponse product = new ProductResponse(0, null, null, null, false, null, null, 0);
+        assertEquals(product, serializer.deserialize(serializer.serialize(product)), "nulls survive round trip");
+    }
+
+    @Test
+    void roundTripPreservesPriceScaleAndLargeValues() {
+        BigDecimal[] prices = {
+                new BigDecimal("10"), new BigDecimal("10.00"), new BigDecimal("-0.5"),
+                new BigDecimal("123456789012345678901234567890.123456789")};
+        for (BigDecimal price : prices) {
+            ProductResponse product = new ProductResponse(1, "Test Product", null, price, true, null, null, 0);
+            assertEquals(price, serializer.deserialize(serializer.serialize(product)).price(), "price " + price);
+        }
+    }
+
+    @Test
+    void roundTripPreservesTimestampsBeforeEpoch() {
+        LocalDateTime timestamp = LocalDateTime.of(1960, 1, 1, 0, 0, 0, 1);
+        ProductResponse product = new ProductResponse(1, "Test Product", null, BigDecimal.ONE, true, timestamp, timestamp, 3);
+        assertEquals(product, serializer.deserialize(serializer.serialize(product)), "timestamp survives round trip");
+    }
+
+    @Test
+    void isMuchSmallerThanJavaSerialization() {
+        ProductResponse product = new ProductResponse(42, "Test-Product42", "Desc42", new BigDecimal("55"), true,
+                LocalDateTime.now(), LocalDateTime.now(), 0);
+        int binary = serializer.serialize(product).length;
+        int jdk = new JdkSerializationRedisSerializer().serialize(product).length;
+        assertTrue(binary * 5 < jdk, "binary " + binary + " bytes vs jdk " + jdk + " bytes");
+    }
+
+    @Test
+    void unknownFieldsAreSkipped() {
+        ProductResponse product = new ProductResponse(7, "Test Product", "Test Description", BigDecimal.TEN, true, null, null, 0);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.writeBytes(serializer.serialize(product));
+        // field 15 as a varint, then field 16 as length-delimited bytes: written by a newer version
+        out.write(15 << 3 | ProductResponseRedisSerializer.WIRE_VARINT);
+        out.write(0x96);
+        out.write(0x01);
+        out.write((16 << 3 | ProductResponseRedisSerializer.WIRE_BYTES) & 0x7F | 0x80);
+        out.write((16 << 3) >>> 7);
+        out.write(3);
+        out.writeBytes(new byte[] {1, 2, 3});
+        assertEquals(product, serializer.deserialize(out.toByteArray()), "unknown fields ignored");
+    }
+
+    @Test
+    void readsEntriesWrittenWithJavaSerialization() {
+        ProductResponse product = new ProductResponse(7, "Test Product", "Test Description", BigDecimal.TEN, true, null, null, 0);
+        byte[] legacy = new JdkSerializationRedisSerializer().serialize(product);
+        assertEquals(product, serializer.deserialize(legacy), "legacy entry readable");
+    }
+
+    @Test
+    void nullAndEmptyInput() {
+        assertNull(serializer.serialize(null), "null serializes to null");
+        assertNull(serializer.deserialize(null), "null deserializes to null");
+        assertNull(serializer.deserialize(new byte[0]), "empty deserializes to null");
+    }
+
+    @Test
+    void rejectsUnknownFormatAndTruncatedInput() {
+        assertThrows(SerializationException.class, () -> serializer.deserialize(new byte[] {99, 0}));
+        byte[] bytes = serializer.serialize(new ProductResponse(1, "Test Product", null, BigDecimal.ONE, true, null, null, 0));
+        byte[] truncated = java.util.Arrays.copyOf(bytes, 5);
+        assertThrows(SerializationException.class, () -> serializer.deserialize(truncated));
+    }
+}
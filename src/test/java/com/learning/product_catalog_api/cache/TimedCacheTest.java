@@ -0,0 +1,78 @@
+package com.learning.product_catalog_api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.learning.product_catalog_api.data.LatencyReport;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+
+class TimedCacheTest {
+
+    private final LatencyRecorder recorder = new LatencyRecorder(true, Duration.ofMinutes(1));
+
+    private Map<String, Long> counts() {
+        recorder.rotate();
+        return recorder.report("cache").timers().stream().collect(Collectors.toMap(
+                timer -> timer.name() + (timer.tags().containsKey("result") ? "." + timer.tags().get("result") : ""),
+                timer -> timer.lastWindow().count()));
+    }
+
+    @Test
+    void getsAreTimedByOutcome() {
+        Cache cache = new TimedCache(new ConcurrentMapCache("products"), recorder);
+        cache.put(1, "one");
+        cache.get(1);
+        cache.get(2, String.class);
+        cache.get(1, () -> "unused");
+        cache.get(3, () -> "three");
+        cache.evict(3);
+        Map<String, Long> counts = counts();
+        assertEquals(2, counts.get("cache.get.hit"), "hits");
+        assertEquals(2, counts.get("cache.get.miss"), "misses, including the load");
+        assertEquals(1, counts.get("cache.put"), "puts");
+        assertEquals(1, counts.get("cache.evict"), "evictions");
+    }
+
+    @Test
+    void failingCachesAreNotCountedAsHits() {
+        Cache cache = new TimedCache(new ConcurrentMapCache("products") {
+            @Override
+            public <T> T get(Object key, Callable<T> valueLoader) {
+                throw new IllegalStateException("down");
+            }
+        }, recorder);
+        assertThrows(IllegalStateException.class, () -> cache.get(1, () -> "one"));
+        Map<String, Long> counts = counts();
+        assertEquals(1, counts.get("cache.get.error"), "error");
+        assertEquals(0, counts.get("cache.get.hit"), "no hit");
+    }
+
+    @Test
+    void batchOperationsSeeThroughTheDecorator() {
+        TimedCacheManager cacheManager = new TimedCacheManager(new ConcurrentMapCacheManager("products"), recorder);
+        BatchCacheOperations batch = new BatchCacheOperations(cacheManager, null);
+        batch.putAllIfAbsent("products", Map.of(1, "one", 2, "two"));
+        assertEquals(Map.of(1, "one"), batch.getAll("products", List.of(1, 3), String.class), "multi-get");
+        batch.evictAll("products", List.of(1, 2));
+        assertNull(cacheManager.getCache("products").get(2), "multi-evict");
+        Map<String, Long> counts = counts();
+        assertEquals(1, counts.get("cache.multi_put"), "one multi-put");
+        assertEquals(1, counts.get("cache.multi_get"), "one multi-get");
+        assertEquals(1, counts.get("cache.multi_evict"), "one multi-evict");
+        assertEquals(0, counts.get("cache.put"), "not timed per key");
+        LatencyReport report = recorder.report("cache.multi");
+        assertEquals(3, report.timers().size(), "multi-key timers");
+    }
+}
@@ -0,0 +1,305 @@
+package com.learning.product_catalog_api.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+class TwoTierCacheTest {
+
+    private ConcurrentMapCacheManager l2CacheManager;
+
+    private TwoTierCache nodeA;
+
+    private TwoTierCache nodeB;
+
+    @BeforeEach
+    void setUp() {
+        l2CacheManager = new ConcurrentMapCacheManager("products");
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        NearCacheProperties properties = new NearCacheProperties();
+        properties.setMaxEntryBytes(1024);
+        nodeA = (TwoTierCache) new TwoTierCacheManager(l2CacheManager, properties, bus).getCache("products");
+        nodeB = (TwoTierCache) new TwoTierCacheManager(l2CacheManager, properties, bus).getCache("products");
+    }
+
+    @Test
+    void readThroughPopulatesL1() {
+        ProductResponse product = product(1, "Test Product", "100.00");
+        l2CacheManager.getCache("products").put(1, product);
+        assertNull(nodeA.getL1().getIfPresent("1"), "L1 starts cold");
+        assertSame(product, nodeA.get(1).get(), "value read from L2");
+        assertSame(product, nodeA.getL1().getIfPresent("1"), "value admitted to L1");
+    }
+
+    @Test
+    void hitIsServedFromL1WithoutTouchingL2() {
+        ProductResponse product = product(1, "Test Product", "100.00");
+        nodeA.put(1, product);
+        l2CacheManager.getCache("products").evict(1);
+        assertSame(product, nodeA.get(1, ProductResponse.class), "served from L1");
+    }
+
+    @Test
+    void putOnOneNodeInvalidatesOtherNodes() {
+        nodeA.put(1, product(1, "Old Name", "100.00"));
+        assertEquals("Old Name", nodeB.get(1, ProductResponse.class).name(), "node B caches old value");
+        nodeA.put(1, product(1, "New Name", "200.00"));
+        assertNull(nodeB.getL1().getIfPresent("1"), "node B L1 invalidated");
+        assertEquals("New Name", nodeB.get(1, ProductResponse.class).name(), "node B reads new value from L2");
+        assertEquals("New Name", nodeA.getL1().getIfPresent("1") instanceof ProductResponse p ? p.name() : null,
+                "node A keeps its own write in L1");
+    }
+
+    @Test
+    void evictOnOneNodeInvalidatesOtherNodes() {
+        nodeA.put(1, product(1, "Test Product", "100.00"));
+        nodeB.get(1);
+        nodeA.evict(1);
+        assertNull(nodeB.get(1), "evicted from both tiers on every node");
+        assertNull(l2CacheManager.getCache("products").get(1), "evicted from L2");
+    }
+
+    @Test
+    void clearOnOneNodeClearsOtherNodes() {
+        nodeA.put(1, product(1, "Test Product", "100.00"));
+        nodeB.get(1);
+        nodeA.clear();
+        assertEquals(0, nodeB.getL1().estimatedSize(), "node B L1 cleared");
+    }
+
+    @Test
+    void oversizedValuesAreNotAdmittedToL1() {
+        ProductResponse product = product(1, "Test Product", "100.00", "x".repeat(2048));
+        nodeA.put(1, product);
+        assertNull(nodeA.getL1().getIfPresent("1"), "oversized value kept out of L1");
+        assertSame(product, nodeA.get(1).get(), "oversized value still served from L2");
+    }
+
+    @Test
+    void valueLoaderRunsOnceAndPopulatesBothTiers() {
+        AtomicInteger loads = new AtomicInteger();
+        ProductResponse product = product(1, "Test Product", "100.00");
+        nodeA.get(1, () -> {
+            loads.incrementAndGet();
+            return product;
+        });
+        nodeA.get(1, () -> {
+            loads.incrementAndGet();
+            return product;
+        });
+        assertEquals(1, loads.get(), "loader called once");
+        assertNotNull(nodeA.getL1().getIfPresent("1"), "value in L1");
+        Cache.ValueWrapper l2Value = l2CacheManager.getCache("products").get(1);
+        assertNotNull(l2Value, "value in L2");
+    }
+
+    @Test
+    void concurrentMissesShareOneLoad() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ProductResponse product = product(1, "Test Product", "100.00");
+        List<Future<ProductResponse>> readers = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 32; i++) {
+                readers.add(executor.submit(() -> nodeA.get(1, () -> {
+                    loads.incrementAndGet();
+                    release.await(5, TimeUnit.SECONDS);
+                    return product;
+                })));
+            }
+            Thread.sleep(100);
+            release.countDown();
+            for (Future<ProductResponse> reader : readers) {
+                assertSame(product, reader.get(5, TimeUnit.SECONDS), "every reader gets the loaded value");
+            }
+        }
+        assertEquals(1, loads.get(), "one load for all concurrent misses");
+    }
+
+    @Test
+    void loaderFailureIsReportedAndNotCached() {
+        IllegalStateException failure = new IllegalStateException("database down");
+        Cache.ValueRetrievalException thrown = assertThrows(Cache.ValueRetrievalException.class,
+                () -> nodeA.get(1, () -> {
+                    throw failure;
+                }));
+        assertSame(failure, thrown.getCause(), "loader exception is the cause");
+        ProductResponse product = product(1, "Test Product", "100.00");
+        assertSame(product, nodeA.get(1, () -> product), "next read loads again");
+    }
+
+    @Test
+    void hotEntryIsRefreshedBeforeExpiry() {
+        Cache l2 = new ConcurrentMapCache("products");
+        // A huge beta makes every hit after a load fall inside the refresh window.
+        RefreshAheadPolicy policy = new RefreshAheadPolicy(1e12, (key, value) -> Duration.ofMinutes(5), Runnable::run, 100);
+        TwoTierCache cache = new TwoTierCache("products", Caffeine.newBuilder().build(), l2,
+                new InMemoryCacheInvalidationBus(), "node", 1024, policy);
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, () -> product(1, "Version " + loads.incrementAndGet(), "100.00"));
+        ProductResponse served = cache.get(1, () -> {
+            sleep(2);
+            return product(1, "Version " + loads.incrementAndGet(), "100.00");
+        });
+        assertEquals("Version 1", served.name(), "reader is served the current value");
+        assertEquals(2, loads.get(), "value reloaded in the background");
+        assertEquals("Version 2", ((ProductResponse) l2.get(1).get()).name(), "L2 holds the refreshed value");
+        assertEquals("Version 2", cache.get(1, ProductResponse.class).name(), "L1 holds the refreshed value");
+    }
+
+    @Test
+    void refreshDoesNotOverwriteAWriteMadeWhileItRan() {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshAheadPolicy policy = new RefreshAheadPolicy(1e12, (key, value) -> Duration.ofMinutes(5), refreshes::add, 100);
+        Cache l2 = new ConcurrentMapCache("products");
+        TwoTierCache cache = new TwoTierCache("products", Caffeine.newBuilder().build(), l2,
+                new InMemoryCacheInvalidationBus(), "node", 1024, policy);
+        cache.get(1, () -> product(1, "Loaded", "100.00"));
+        sleep(2);
+        cache.get(1, () -> product(1, "Refreshed", "100.00"));
+        assertEquals(1, refreshes.size(), "refresh started");
+        cache.put(1, product(1, "Updated", "150.00"));
+        refreshes.get(0).run();
+        assertEquals("Updated", ((ProductResponse) l2.get(1).get()).name(), "L2 keeps the write");
+        assertEquals("Updated", cache.get(1, ProductResponse.class).name(), "L1 keeps the write");
+    }
+
+    @Test
+    void refreshDoesNotOverwriteAWriteMadeOnAnotherNode() {
+        List<Runnable> refreshes = new ArrayList<>();
+        RefreshAheadPolicy policy = new RefreshAheadPolicy(1e12, (key, value) -> Duration.ofMinutes(5), refreshes::add, 100);
+        Cache l2 = new ConcurrentMapCache("products");
+        TwoTierCache cache = new TwoTierCache("products", Caffeine.newBuilder().build(), l2,
+                new InMemoryCacheInvalidationBus(), "node", 1024, policy);
+        cache.get(1, () -> product(1, "Loaded", "100.00"));
+        sleep(2);
+        cache.get(1, () -> product(1, "Refreshed", "100.00"));
+        // Another node rewrites L2; its invalidation has not arrived yet.
+        l2.put(1, product(1, "Updated", "150.00"));
+        refreshes.get(0).run();
+        assertEquals("Updated", ((ProductResponse) l2.get(1).get()).name(), "L2 keeps the other node's write");
+    }
+
+    @Test
+    void entriesNotLoadedHereAreNotRefreshed() {
+        RefreshAheadPolicy policy = new RefreshAheadPolicy(1e12, (key, value) -> Duration.ofMinutes(5), Runnable::run, 100);
+        TwoTierCache cache = new TwoTierCache("products", Caffeine.newBuilder().build(), new ConcurrentMapCache("products"),
+                new InMemoryCacheInvalidationBus(), "node", 1024, policy);
+        cache.put(1, product(1, "Test Product", "100.00"));
+        AtomicInteger loads = new AtomicInteger();
+        cache.get(1, () -> product(1, "Version " + loads.incrementAndGet(), "100.00"));
+        assertEquals(0, loads.get(), "no load time or expiry known, so no refresh");
+    }
+
+    @Test
+    void batchPutKeepsL1OutOfKeysAlreadyInL2() {
+        TwoTierCacheManager manager = new TwoTierCacheManager(l2CacheManager, new NearCacheProperties(),
+                new InMemoryCacheInvalidationBus());
+        BatchCacheOperations batch = new BatchCacheOperations(manager, null);
+        ProductResponse newer = product(1, "Newer", "200.00");
+        l2CacheManager.getCache("products").put(1, newer);
+        batch.putAllIfAbsent("products", Map.of(1, product(1, "Older", "100.00"), 2, product(2, "Loaded", "50.00")));
+        TwoTierCache cache = (TwoTierCache) manager.getCache("products");
+        assertNull(cache.getL1().getIfPresent("1"), "the losing value is not admitted to L1");
+        assertEquals("Newer", cache.get(1, ProductResponse.class).name(), "L2 keeps the newer value");
+        assertEquals("Loaded", ((ProductResponse) cache.getL1().getIfPresent("2")).name(), "written key admitted to L1");
+    }
+
+    @Test
+    void validatorsOutliveL1AndAreDroppedWithChanges() {
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        TwoTierCache[] nodes = new TwoTierCache[2];
+        for (int i = 0; i < nodes.length; i++) {
+            TwoTierCacheManager manager = new TwoTierCacheManager(l2CacheManager, new NearCacheProperties(), bus);
+            manager.setValidator("products", value -> ((ProductResponse) value).name());
+            nodes[i] = (TwoTierCache) manager.getCache("products");
+        }
+        nodes[0].put(1, product(1, "Red Scarf", "15.00"));
+        nodes[1].get(1);
+        nodes[1].getL1().invalidateAll();
+        assertEquals("Red Scarf", nodes[1].getValidator(1), "kept after L1 let the value go");
+        nodes[0].put(1, product(1, "Blue Scarf", "15.00"));
+        assertNull(nodes[1].getValidator(1), "dropped on a write elsewhere");
+        assertEquals("Blue Scarf", nodes[0].getValidator(1), "replaced on a write here");
+        nodes[0].evict(1);
+        assertNull(nodes[0].getValidator(1), "dropped on eviction");
+    }
+
+    @Test
+    void valueReadFromL2BeforeAWriteElsewhereIsNotAdmitted() {
+        AtomicReference<Runnable> duringRead = new AtomicReference<>();
+        ConcurrentMapCache l2 = new ConcurrentMapCache("products") {
+            @Override
+            public ValueWrapper get(Object key) {
+                ValueWrapper value = super.get(key);
+                Runnable write = duringRead.getAndSet(null);
+                if (write != null) {
+                    write.run();
+                }
+                return value;
+            }
+        };
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        TwoTierCache reader = new TwoTierCache("products", Caffeine.newBuilder().build(), l2, bus, "reader", 1024);
+        TwoTierCache writer = new TwoTierCache("products", Caffeine.newBuilder().build(), l2, bus, "writer", 1024);
+        bus.subscribe(reader::onInvalidation);
+        bus.subscribe(writer::onInvalidation);
+        l2.put(1, product(1, "Old Name", "100.00"));
+        duringRead.set(() -> writer.put(1, product(1, "New Name", "200.00")));
+        assertEquals("Old Name", reader.get(1, ProductResponse.class).name(), "read before the write");
+        assertNull(reader.getL1().getIfPresent("1"), "the older value is not admitted to L1");
+        assertEquals("New Name", reader.get(1, ProductResponse.class).name(), "the next read sees the write");
+        reader.getL1().invalidateAll();
+        duringRead.set(() -> writer.evict(1));
+        assertEquals("New Name", reader.get(1, () -> (ProductResponse) null).name(), "read before the eviction");
+        assertNull(reader.getL1().getIfPresent("1"), "the evicted value is not admitted to L1");
+    }
+
+    @Test
+    void cachesWithoutNearCacheAreReturnedUnchanged() {
+        TwoTierCacheManager manager = new TwoTierCacheManager(l2CacheManager, new NearCacheProperties(),
+                new InMemoryCacheInvalidationBus());
+        assertSame(l2CacheManager.getCache("other"), manager.getCache("other"), "no L1 for unlisted caches");
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ProductResponse product(int id, String name, String price) {
+        return product(id, name, price, "Test Description");
+    }
+
+    private static ProductResponse product(int id, String name, String price, String description) {
+        return new ProductResponse(id, name, description, new BigDecimal(price), true, null, null, 0);
+    }
+}
@@ -0,0 +1,148 @@
+package com.learning.product_catalog_api.changes;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.data.ProductChangeEvent;
+import com.learning.product_catalog_api.data.ProductChangePage;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.exception.ChangesExpiredException;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductFilterQuery;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+
+class ProductChangeLogTest {
+
+    private static ProductResponse product(int id, BigDecimal price, boolean available) {
+        return new ProductResponse(id, "Product " + id, null, price, available, null, null, 0);
+    }
+
+    private static List<ProductResponse> products(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(id -> product(id, BigDecimal.TEN, true)).toList();
+    }
+
+    private static List<Long> sequences(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    /**
+     * Records every batch, optionally holding up the first one until released.
+     */
+    private static class RecordingConsumer implements ProductChangeConsumer {
+
+        final List<List<ProductChangeEvent>> batches = new CopyOnWriteArrayList<>();
+
+        final AtomicInteger gaps = new AtomicInteger();
+
+        final CountDownLatch firstBatchTaken = new CountDownLatch(1);
+
+        volatile CountDownLatch release = new CountDownLatch(0);
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public void accept(List<ProductChangeEvent> changes) {
+            firstBatchTaken.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            batches.add(changes);
+        }
+
+        @Override
+        public void onGap() {
+            gaps.incrementAndGet();
+        }
+
+        List<Long> sequences() {
+            return batches.stream().flatMap(List::stream).map(ProductChangeEvent::sequence).toList();
+        }
+    }
+
+    @Test
+    void consumersGetEveryChangeInOrderInBatches() {
+        RecordingConsumer consumer = new RecordingConsumer();
+        ProductChangeLog changeLog = new ProductChangeLog(64, 4, List.of(consumer));
+        changeLog.start();
+        changeLog.created(products(1, 5));
+        changeLog.patched(List.of(1, 2, 3), BigDecimal.ONE, null, LocalDateTime.now());
+        changeLog.deleted(4);
+        changeLog.stop();
+        assertEquals(sequences(1, 9), consumer.sequences(), "every change delivered once, in order");
+        assertTrue(consumer.batches.stream().allMatch(batch -> batch.size() <= 4), "batches bounded");
+        assertEquals(ProductChangeEvent.Type.DELETED, consumer.batches.getLast().getLast().type(), "deletion last");
+        assertEquals(0, changeLog.report().consumers().get(0).lag(), "consumer caught up on stop");
+    }
+
+    @Test
+    void readReturnsChangesAfterSinceWhileTheyAreHeld() {
+        ProductChangeLog changeLog = new ProductChangeLog(4, 4, List.of());
+        changeLog.created(products(1, 6));
+        ProductChangePage page = changeLog.read(2, 3, changeLog.epoch());
+        assertEquals(List.of(3L, 4L, 5L), page.changes().stream().map(ProductChangeEvent::sequence).toList(),
+                "changes after since");
+        assertEquals(5, page.next(), "continue after the last change returned");
+        assertTrue(page.hasMore(), "one more change held");
+        ProductChangePage last = changeLog.read(page.next(), 3, null);
+        assertEquals(6, last.changes().get(0).product().id(), "product carried");
+        assertFalse(last.hasMore(), "caught up");
+        assertTrue(changeLog.read(6, 3, null).changes().isEmpty(), "nothing after the latest change");
+        assertThrows(ChangesExpiredException.class, () -> changeLog.read(1, 3, null), "change 2 overwritten");
+        assertThrows(ChangesExpiredException.class, () -> changeLog.read(2, 3, "another"), "another epoch");
+        assertThrows(ChangesExpiredException.class, () -> changeLog.read(7, 3, null), "sequence not reached yet");
+    }
+
+    @Test
+    void consumerThatFallsBehindTheRingIsToldToRebuild() throws InterruptedException {
+        RecordingConsumer consumer = new RecordingConsumer();
+        consumer.release = new CountDownLatch(1);
+        ProductChangeLog changeLog = new ProductChangeLog(4, 2, List.of(consumer));
+        changeLog.start();
+        changeLog.created(products(1, 1));
+        assertTrue(consumer.firstBatchTaken.await(10, TimeUnit.SECONDS), "first batch taken");
+        changeLog.created(products(2, 10));
+        consumer.release.countDown();
+        changeLog.stop();
+        assertEquals(1, consumer.gaps.get(), "told about the overwritten changes once");
+        assertEquals(List.of(1L, 7L, 8L, 9L, 10L), consumer.sequences(), "delivery resumed at the oldest change held");
+        assertEquals(1, changeLog.report().consumers().get(0).gaps(), "gap reported");
+    }
+
+    @Test
+    void indexConsumerAppliesCreationsPatchesAndDeletions() {
+        ProductSearchIndex searchIndex = new ProductSearchIndex();
+        ProductFilterIndex filterIndex = new ProductFilterIndex();
+        ProductChangeLog changeLog = new ProductChangeLog(64, 64,
+                List.of(new ProductIndexChangeConsumer(searchIndex, filterIndex, null, null)));
+        changeLog.start();
+        changeLog.created(products(1, 4));
+        changeLog.patched(List.of(1, 2), null, false, LocalDateTime.now());
+        changeLog.updated(product(3, BigDecimal.ONE, false));
+        changeLog.deleted(4);
+        changeLog.stop();
+        assertEquals(3, searchIndex.size(), "deleted product removed");
+        assertArrayEquals(new int[] {3, 1, 2},
+                filterIndex.filter(new ProductFilterQuery(null, null, false, false, 0, 10)).ids(),
+                "patched and updated availability and price indexed");
+    }
+}
@@ -0,0 +1,70 @@
+package com.learning.product_catalog_api.changes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.cache.InMemoryCacheInvalidationBus;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.search.ProductSearchQuery;
+
+/**
+ * Two nodes sharing one bus and one database: what node A announces ends up in node B's indexes.
+ */
+class ProductIndexSyncTest {
+
+    private final ProductRepository repository = mock(ProductRepository.class);
+
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    private final ProductFilterIndex filterIndex = new ProductFilterIndex();
+
+    private ProductIndexSync nodeA;
+
+    private ProductIndexSync nodeB;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryCacheInvalidationBus bus = new InMemoryCacheInvalidationBus();
+        nodeA = new ProductIndexSync(bus, mock(ProductRepository.class), new ProductSearchIndex(), new ProductFilterIndex());
+        nodeB = new ProductIndexSync(bus, repository, searchIndex, filterIndex);
+        searchIndex.index(product(2, "Old Hat", "19.99"));
+        filterIndex.index(product(2, "Old Hat", "19.99"));
+    }
+
+    @Test
+    void productsAnnouncedByAnotherNodeAreReadAndIndexed() {
+        when(repository.findResponsesByIdIn(anyCollection())).thenReturn(List.of(product(1, "Red Scarf", "15.00")));
+        nodeA.announce(List.of(1, 2, 1));
+        nodeB.applyRemoteChanges();
+        assertEquals(1, searchIndex.search(new ProductSearchQuery("scarf", null, null, null, 10)).totalMatches(),
+                "announced product indexed for search");
+        assertEquals(1, filterIndex.size(), "product 2, gone from the database, removed");
+        nodeB.applyRemoteChanges();
+        verify(repository).findResponsesByIdIn(anyCollection());
+    }
+
+    @Test
+    void ownAnnouncementsAreIgnored() {
+        nodeB.announce(List.of(1));
+        nodeB.applyRemoteChanges();
+        verify(repository, never()).findResponsesByIdIn(anyCollection());
+        assertEquals(1, searchIndex.size(), "index unchanged");
+    }
+
+    private static ProductResponse product(int id, String name, String price) {
+        return new ProductResponse(id, name, null, new BigDecimal(price), true, null, null, 0);
+    }
+}
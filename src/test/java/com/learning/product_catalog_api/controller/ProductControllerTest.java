@@ -0,0 +1,180 @@
+package com.learning.product_catalog_api.controller;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.learning.product_catalog_api.cache.ProductJsonCache;
+import com.learning.product_catalog_api.cache.ProductPageETagCache;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.changes.ProductIndexSync;
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductCursorPage;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.exception.GlobalExceptionHandler;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.service.ProductService;
+import com.learning.product_catalog_api.util.ProductETags;
+import com.learning.product_catalog_api.util.ProductFields;
+import com.learning.product_catalog_api.warmup.HotProductTracker;
+
+class ProductControllerTest {
+
+    private final ProductResponse product = new ProductResponse(7, "Test Product", "Test Description",
+            BigDecimal.TEN, true, LocalDateTime.of(2025, 1, 1, 10, 0), LocalDateTime.of(2025, 1, 2, 10, 0), 3);
+
+    private ProductService productService;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private MockMvc mockMvc;
+
+    private final ProductChangeLog changeLog = new ProductChangeLog(16, 16, List.of());
+
+    @BeforeEach
+    void setUp() {
+        productService = Mockito.mock(ProductService.class);
+        mockMvc = controller(false);
+    }
+
+    private MockMvc controller(boolean jsonBytes) {
+        ProductJsonCache jsonCache = new ProductJsonCache(jsonBytes, 1 << 20, true, 0, objectMapper);
+        return MockMvcBuilders.standaloneSetup(new ProductController(productService, jsonCache,
+                        new HotProductTracker(false, 10, 64, Path.of("hot-products.txt"), Runnable::run),
+                        new ProductPageETagCache(true, Duration.ofMinutes(1), 100, changeLog,
+                                new ProductIndexSync(null, Mockito.mock(ProductRepository.class),
+                                        new ProductSearchIndex(), new ProductFilterIndex()))))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    void productReadCarriesValidators() throws Exception {
+        Mockito.when(productService.getProductById(7)).thenReturn(product);
+        mockMvc.perform(get("/api/v1/products/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ProductETags.of(product)))
+                .andExpect(header().exists("Last-Modified"))
+                .andExpect(header().string("Cache-Control", "no-cache"));
+    }
+
+    @Test
+    void currentCopyHeldInMemoryIsAnsweredWithoutLoadingTheProduct() throws Exception {
+        Mockito.when(productService.getLocalProduct(7)).thenReturn(product);
+        mockMvc.perform(get("/api/v1/products/7").header("If-None-Match", ProductETags.of(product)))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        Mockito.verify(productService, Mockito.never()).getProductById(7);
+    }
+
+    @Test
+    void currentCopyWhoseETagIsCachedIsAnsweredWithoutLoadingTheProduct() throws Exception {
+        Mockito.when(productService.getCachedETag(7)).thenReturn(ProductETags.of(product));
+        mockMvc.perform(get("/api/v1/products/7").header("If-None-Match", ProductETags.of(product)))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", ProductETags.of(product)));
+        ProductFields fields = ProductFields.parse("price");
+        mockMvc.perform(get("/api/v1/products/7").param("fields", "price")
+                        .header("If-None-Match", ProductETags.of(product, fields)))
+                .andExpect(status().isNotModified());
+        Mockito.verify(productService, Mockito.never()).getProductById(7);
+        Mockito.verify(productService, Mockito.never()).getProductsByIds(List.of(7), fields);
+    }
+
+    @Test
+    void changedProductIsSentAgain() throws Exception {
+        Mockito.when(productService.getProductById(7)).thenReturn(product);
+        ProductResponse older = new ProductResponse(7, "Test Product", "Test Description", BigDecimal.ONE, true,
+                product.createdAt(), product.updatedAt().minusDays(1), 2);
+        mockMvc.perform(get("/api/v1/products/7").header("If-None-Match", ProductETags.of(older)))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("\"version\":3")));
+    }
+
+    @Test
+    void renderedJsonIsServedAsStoredBytes() throws Exception {
+        mockMvc = controller(true);
+        Mockito.when(productService.getProductById(7)).thenReturn(product);
+        byte[] plain = mockMvc.perform(get("/api/v1/products/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", ProductETags.of(product)))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(objectMapper.writeValueAsBytes(product), plain, "same JSON as Jackson renders");
+        byte[] gzipped = mockMvc.perform(get("/api/v1/products/7").header("Accept-Encoding", "gzip"))
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn().getResponse().getContentAsByteArray();
+        assertArrayEquals(plain, new GZIPInputStream(new ByteArrayInputStream(gzipped)).readAllBytes(),
+                "gzipped copy of the same JSON");
+    }
+
+    @Test
+    void sparseFieldsetRendersOnlyTheSelectedProperties() throws Exception {
+        ProductFields fields = ProductFields.parse("price,available");
+        Mockito.when(productService.getProductsByIds(List.of(7), fields)).thenReturn(List.of(ProductBatchItem.found(product)));
+        mockMvc.perform(get("/api/v1/products/7").param("fields", "price,available"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"id\":7,\"price\":10,\"available\":true}", true))
+                .andExpect(header().string("ETag", ProductETags.of(product, fields)));
+        Mockito.verify(productService, Mockito.never()).getProductById(7);
+        assertNotEquals(ProductETags.of(product), ProductETags.of(product, fields), "views of a product tagged apart");
+    }
+
+    @Test
+    void cursorPageRendersOnlyTheSelectedProperties() throws Exception {
+        Mockito.when(productService.getProductsAfter("", 10, "price"))
+                .thenReturn(new ProductCursorPage<>(List.of(product), 1, true, "next"));
+        mockMvc.perform(get("/api/v1/products/list").param("cursor", "").param("sort", "price").param("fields", "name"))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"content\":[{\"id\":7,\"name\":\"Test Product\"}],"
+                        + "\"size\":1,\"hasNext\":true,\"nextCursor\":\"next\"}", true))
+                .andExpect(header().string("ETag",
+                        ProductETags.ofPage(List.of(product), 1, ProductFields.parse("name").mask())));
+        mockMvc.perform(get("/api/v1/products/list").param("cursor", "").param("fields", "secret"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unchangedCursorPageIsAnsweredWithoutQueryingIt() throws Exception {
+        Mockito.when(productService.getProductsAfter("", 10, "id"))
+                .thenReturn(new ProductCursorPage<>(List.of(product), 1, false, null));
+        String eTag = ProductETags.ofPage(List.of(product), 0);
+        mockMvc.perform(get("/api/v1/products/list").param("cursor", "").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", eTag));
+        mockMvc.perform(get("/api/v1/products/list").param("cursor", "").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        Mockito.verify(productService, Mockito.times(1)).getProductsAfter("", 10, "id");
+        changeLog.updated(product);
+        mockMvc.perform(get("/api/v1/products/list").param("cursor", "").header("If-None-Match", eTag))
+                .andExpect(status().isNotModified());
+        Mockito.verify(productService, Mockito.times(2)).getProductsAfter("", 10, "id");
+    }
+
+    @Test
+    void unknownFieldIsRejected() throws Exception {
+        mockMvc.perform(get("/api/v1/products/7").param("fields", "price,secret"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,64 @@
+package com.learning.product_catalog_api.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+class ReadYourWritesFilterTest {
+
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(true, Duration.ofSeconds(5));
+
+    private final ReadYourWritesFilter filter = new ReadYourWritesFilter(readYourWrites);
+
+    private final List<Boolean> recentlyWritten = new ArrayList<>();
+
+    private MockHttpServletResponse handle(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void service(HttpServletRequest req, HttpServletResponse res) {
+                recentlyWritten.add(readYourWrites.recentlyWritten());
+            }
+        }));
+        return response;
+    }
+
+    @Test
+    void writeHandsOutTheTimeAndReadsSendingItBackAreSticky() throws Exception {
+        MockHttpServletResponse written = handle(new MockHttpServletRequest("PATCH", "/api/v1/products/1"));
+        Cookie cookie = written.getCookie(ReadYourWritesFilter.COOKIE_NAME);
+        assertNotNull(cookie, "write gets the cookie");
+        assertEquals(5, cookie.getMaxAge(), "expires after sticky-for");
+
+        MockHttpServletRequest withCookie = new MockHttpServletRequest("GET", "/api/v1/products/list");
+        withCookie.setCookies(cookie);
+        assertNull(handle(withCookie).getCookie(ReadYourWritesFilter.COOKIE_NAME), "reads get no cookie");
+        handle(new MockHttpServletRequest("GET", "/api/v1/products/list"));
+
+        assertEquals(List.of(false, true, false), recentlyWritten, "only the client that wrote is sticky");
+        assertFalse(readYourWrites.recentlyWritten(), "nothing left on the thread");
+    }
+
+    @Test
+    void malformedCookieIsIgnored() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/products/list");
+        request.setCookies(new Cookie(ReadYourWritesFilter.COOKIE_NAME, "yesterday"));
+        handle(request);
+        assertEquals(List.of(false), recentlyWritten, "not sticky");
+    }
+}
@@ -0,0 +1,60 @@
+package com.learning.product_catalog_api.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class ReadYourWritesTest {
+
+    @Test
+    void writtenProductsAreStickyForAWhile() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(true, Duration.ofMinutes(1));
+        readYourWrites.written(1);
+        readYourWrites.written(List.of(2, 3));
+        assertTrue(readYourWrites.isSticky(1), "written product");
+        assertTrue(readYourWrites.anySticky(List.of(7, 3)), "one of them written");
+        assertFalse(readYourWrites.isSticky(4), "product not written");
+        assertFalse(readYourWrites.anySticky(List.of(4, 5)), "none of them written");
+    }
+
+    @Test
+    void pagesGoToThePrimaryOnlyForTheClientThatWrote() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(true, Duration.ofMinutes(1));
+        readYourWrites.written(1);
+        assertFalse(readYourWrites.recentlyWritten(), "write by another client");
+        try {
+            ReadYourWrites.setClientLastWrite(System.currentTimeMillis() - 1000);
+            assertTrue(readYourWrites.recentlyWritten(), "client wrote a second ago");
+            ReadYourWrites.setClientLastWrite(System.currentTimeMillis() - Duration.ofMinutes(2).toMillis());
+            assertFalse(readYourWrites.recentlyWritten(), "client wrote before sticky-for");
+            ReadYourWrites.setClientLastWrite(System.currentTimeMillis() + Duration.ofDays(1).toMillis());
+            assertFalse(readYourWrites.recentlyWritten(), "time in the future not trusted");
+        } finally {
+            ReadYourWrites.setClientLastWrite(null);
+        }
+    }
+
+    @Test
+    void stickinessExpires() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(true, Duration.ZERO);
+        readYourWrites.written(1);
+        assertFalse(readYourWrites.isSticky(1), "expired");
+    }
+
+    @Test
+    void nothingIsStickyWithoutReplicas() {
+        ReadYourWrites readYourWrites = new ReadYourWrites(false, Duration.ofMinutes(1));
+        readYourWrites.written(1);
+        assertFalse(readYourWrites.isSticky(1), "disabled");
+        try {
+            ReadYourWrites.setClientLastWrite(System.currentTimeMillis());
+            assertFalse(readYourWrites.recentlyWritten(), "disabled");
+        } finally {
+            ReadYourWrites.setClientLastWrite(null);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.learning.product_catalog_api.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learning.product_catalog_api.data.ReplicaReport;
+
+/**
+ * Routes transactions over three separate H2 databases standing in for the primary and two replicas, each with
+ * a {@code node} table naming it, so that a query tells which one served it.
+ */
+class ReplicaDataSourceTest {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    private final EmbeddedDatabase primary = database("primary");
+
+    private final SwitchableDataSource replica1 = new SwitchableDataSource(database("replica-1"));
+
+    private final SwitchableDataSource replica2 = new SwitchableDataSource(database("replica-2"));
+
+    private ReplicaDataSource replicas;
+
+    private JdbcTemplate jdbc;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true).build();
+        JdbcTemplate template = new JdbcTemplate(database);
+        template.execute("create table node (name varchar(20))");
+        template.update("insert into node values (?)", name);
+        template.execute("create table lag (seconds double)");
+        template.update("insert into lag values (0)");
+        databases.add(database);
+        return database;
+    }
+
+    private void route(String lagQuery) {
+        Map<String, DataSource> pool = new LinkedHashMap<>();
+        pool.put("replica-1", replica1);
+        pool.put("replica-2", replica2);
+        replicas = new ReplicaDataSource(primary, pool, Duration.ofSeconds(2), lagQuery, Duration.ofMinutes(1));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(replicas);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        jdbc = new JdbcTemplate(dataSource);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+    }
+
+    private String read() {
+        return readOnly.execute(status -> node());
+    }
+
+    private String node() {
+        return jdbc.queryForObject("select name from node", String.class);
+    }
+
+    private static void setLag(DataSource replica, double seconds) {
+        new JdbcTemplate(replica).update("update lag set seconds = ?", seconds);
+    }
+
+    private ReplicaReport.Replica state(String name) {
+        return replicas.report().replicas().stream().filter(replica -> replica.name().equals(name)).findFirst()
+                .orElseThrow();
+    }
+
+    @AfterEach
+    void shutDown() {
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void readOnlyTransactionsAreSpreadOverTheReplicas() {
+        route(null);
+        List<String> nodes = List.of(read(), read(), read(), read());
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"), nodes, "round robin");
+        assertEquals(2, state("replica-1").reads(), "reads of replica-1");
+        assertEquals(0, replicas.report().fallbackReads(), "no read on the primary");
+    }
+
+    @Test
+    void writesAndReadsOnPrimaryGoToThePrimary() {
+        route(null);
+        assertEquals("primary, written", readWrite.execute(status -> {
+            jdbc.update("update node set name = 'primary, written'");
+            return node();
+        }), "read-write transaction");
+        assertEquals("primary, written", ReplicaDataSource.onPrimary(this::read), "read-your-writes");
+        assertEquals(1, replicas.report().stickyReads(), "sticky reads");
+        assertEquals("replica-1", read(), "later reads go to a replica again");
+    }
+
+    @Test
+    void failingReplicaIsEjectedUntilItAnswersAgain() {
+        route(null);
+        replica1.down = true;
+        assertEquals(List.of("replica-2", "replica-2", "replica-2"), List.of(read(), read(), read()),
+                "reads skip the failed replica");
+        ReplicaReport.Replica failed = state("replica-1");
+        assertFalse(failed.available(), "ejected");
+        assertEquals(1, failed.failures(), "tried once, then left out");
+
+        replica2.down = true;
+        assertEquals("primary", read(), "no replica left");
+        assertEquals(1, replicas.report().fallbackReads(), "fallback reads");
+
+        replica1.down = false;
+        replica2.down = false;
+        replicas.checkHealth();
+        assertTrue(state("replica-1").available(), "admitted again by the health check");
+        assertEquals(List.of("replica-1", "replica-2"), List.of(read(), read()), "both replicas serve again");
+    }
+
+    @Test
+    void laggingReplicaServesNoReadsUntilItCatchesUp() {
+        route("select seconds from lag");
+        setLag(replica2, 5);
+        replicas.checkHealth();
+        assertFalse(state("replica-2").available(), "more than max-lag behind");
+        assertEquals(5000, state("replica-2").lagMillis(), "lag");
+        assertEquals(List.of("replica-1", "replica-1", "replica-1"), List.of(read(), read(), read()),
+                "reads go to the replica that is up to date");
+
+        setLag(replica2, 1.5);
+        replicas.checkHealth();
+        assertTrue(state("replica-2").available(), "within max-lag again");
+        assertEquals(List.of("replica-2", "replica-1"), List.of(read(), read()), "both replicas serve again");
+    }
+
+    /**
+     * A replica that can be taken down: while it is, no connection can be had from it.
+     */
+    private static final class SwitchableDataSource extends DelegatingDataSource {
+
+        private volatile boolean down;
+
+        private SwitchableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
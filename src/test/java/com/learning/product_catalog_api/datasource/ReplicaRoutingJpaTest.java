@@ -0,0 +1,144 @@
+package com.learning.product_catalog_api.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.repository.core.support.RepositoryComposition.RepositoryFragments;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.repository.ProductRepositoryCustomImpl;
+
+/**
+ * Routes {@link ProductRepository} calls made through a {@link JpaTransactionManager}, as the application makes
+ * them, over three H2 databases standing in for the primary and two replicas. Each holds one product named after
+ * the database, so that reading it tells which one served the read.
+ */
+class ReplicaRoutingJpaTest {
+
+    private final List<EmbeddedDatabase> databases = new ArrayList<>();
+
+    private LocalContainerEntityManagerFactoryBean entityManagerFactory;
+
+    private ProductRepository repository;
+
+    private TransactionTemplate readOnly;
+
+    private TransactionTemplate readWrite;
+
+    private int id;
+
+    @BeforeEach
+    void setUp() {
+        EmbeddedDatabase primary = database("primary");
+        Map<String, DataSource> pool = new LinkedHashMap<>();
+        pool.put("replica-1", database("replica-1"));
+        pool.put("replica-2", database("replica-2"));
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaDataSource(primary, pool, Duration.ofSeconds(2), null, Duration.ofMinutes(1)));
+        entityManagerFactory = entityManagerFactory(dataSource, "none");
+        JpaTransactionManager transactionManager = new JpaTransactionManager(entityManagerFactory.getObject());
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        readWrite = new TransactionTemplate(transactionManager);
+        repository = new JpaRepositoryFactory(
+                SharedEntityManagerCreator.createSharedEntityManager(entityManagerFactory.getObject()))
+                .getRepository(ProductRepository.class, RepositoryFragments.just(new ProductRepositoryCustomImpl()));
+    }
+
+    /**
+     * Create a database with the product schema, holding one product named after it.
+     */
+    private EmbeddedDatabase database(String name) {
+        EmbeddedDatabase database = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true).build();
+        databases.add(database);
+        LocalContainerEntityManagerFactoryBean schema = entityManagerFactory(database, "create");
+        try {
+            Product product = Product.builder().name(name).price(BigDecimal.TEN).available(true).build();
+            new TransactionTemplate(new JpaTransactionManager(schema.getObject())).executeWithoutResult(status ->
+                    SharedEntityManagerCreator.createSharedEntityManager(schema.getObject()).persist(product));
+            id = product.getId();
+        } finally {
+            schema.destroy();
+        }
+        return database;
+    }
+
+    private static LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, String ddl) {
+        LocalContainerEntityManagerFactoryBean entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan(Product.class.getPackageName());
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.setJpaPropertyMap(Map.of(
+                "hibernate.hbm2ddl.auto", ddl,
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName()));
+        entityManagerFactory.afterPropertiesSet();
+        return entityManagerFactory;
+    }
+
+    private String read() {
+        return readOnly.execute(status -> node());
+    }
+
+    private String node() {
+        return repository.findResponseById(id).orElseThrow().name();
+    }
+
+    @AfterEach
+    void shutDown() {
+        entityManagerFactory.destroy();
+        databases.forEach(EmbeddedDatabase::shutdown);
+    }
+
+    @Test
+    void readOnlyTransactionsAreServedByTheReplicas() {
+        assertEquals(List.of("replica-1", "replica-2", "replica-1"), List.of(read(), read(), read()),
+                "round robin over the replicas");
+    }
+
+    @Test
+    void cursorPagesAreReadAsProjectionsFromTheReplicas() {
+        assertEquals("replica-1", readOnly.execute(status -> repository.findSliceBy(PageRequest.of(0, 10, Sort.by("id")))
+                .getContent().get(0).name()), "first page");
+        assertEquals("replica-2", readOnly.execute(status -> repository.findSliceAfterId(id - 1, PageRequest.of(0, 10))
+                .getContent().get(0).name()), "next page");
+    }
+
+    @Test
+    void writesAndReadsOnPrimaryGoToThePrimary() {
+        assertEquals("primary", readWrite.execute(status -> node()), "read-write transaction");
+        readWrite.executeWithoutResult(status -> {
+            Product product = repository.findById(id).orElseThrow();
+            product.setName("primary, written");
+        });
+        ReadYourWrites readYourWrites = new ReadYourWrites(true, Duration.ofMinutes(1));
+        assertEquals("primary, written", readYourWrites.onPrimary(this::read), "read-your-writes");
+        assertEquals("replica-1", read(), "the write did not reach the replicas");
+    }
+}
@@ -0,0 +1,79 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.data.LatencyReport;
+
+class LatencyRecorderTest {
+
+    @Test
+    void timersAreSharedByNameAndTags() {
+        LatencyRecorder recorder = new LatencyRecorder(true, Duration.ofMinutes(1));
+        LatencyTimer timer = recorder.timer("cache.get", Map.of("cache", "products", "result", "hit"));
+        assertSame(timer, recorder.timer("cache.get", Map.of("result", "hit", "cache", "products")), "same timer");
+        assertEquals(1, recorder.report(null).timers().size(), "one timer");
+    }
+
+    @Test
+    void windowsReportPercentilesToWithinOnePercent() {
+        LatencyRecorder recorder = new LatencyRecorder(true, Duration.ofMinutes(1));
+        LatencyTimer timer = recorder.timer("repository.invocations", "method", "findById");
+        for (int i = 1; i <= 1000; i++) {
+            timer.record(i * 1_000_000L);
+        }
+        assertEquals(0, recorder.report(null).timers().get(0).sinceStart().count(), "nothing reported before the window closes");
+        recorder.rotate();
+        LatencyReport.Snapshot window = recorder.report("repository").timers().get(0).lastWindow();
+        assertEquals(1000, window.count(), "every latency counted");
+        assertEquals(500, window.p50(), 5, "median in ms");
+        assertEquals(990, window.p99(), 10, "p99 in ms");
+        assertEquals(1000, window.max(), 10, "max in ms");
+        timer.record(5_000_000);
+        recorder.rotate();
+        LatencyReport.Timer report = recorder.report(null).timers().get(0);
+        assertEquals(1, report.lastWindow().count(), "new window");
+        assertEquals(1001, report.sinceStart().count(), "totals accumulate");
+        assertTrue(recorder.report("http").timers().isEmpty(), "filtered by name");
+    }
+
+    @Test
+    void outOfRangeLatenciesAreClamped() {
+        LatencyRecorder recorder = new LatencyRecorder(true, Duration.ofMinutes(1));
+        LatencyTimer timer = recorder.timer("ping.probe", "probe", "redis");
+        timer.record(-5);
+        timer.record(Long.MAX_VALUE);
+        recorder.rotate();
+        assertEquals(2, recorder.report(null).timers().get(0).lastWindow().count(), "both recorded");
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        LatencyTimer timer = new LatencyRecorder(true, Duration.ofMinutes(1)).timer("http.server.requests", "uri", "/");
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < 100_000; i++) {
+            timer.record(i);
+        }
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 100_000; i++) {
+            timer.record(i * 997L);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+        assertTrue(allocated < 1024, "recording allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void disabledTimersRecordNothing() {
+        LatencyRecorder recorder = new LatencyRecorder(false, Duration.ofMinutes(1));
+        recorder.timer("cache.put", "cache", "products").record(1_000);
+        recorder.rotate();
+        assertEquals(0, recorder.report(null).timers().get(0).sinceStart().count(), "nothing recorded");
+    }
+}
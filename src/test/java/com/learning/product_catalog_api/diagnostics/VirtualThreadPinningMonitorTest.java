@@ -0,0 +1,57 @@
+package com.learning.product_catalog_api.diagnostics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.data.PinningReport;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object lock = new Object();
+
+    @Test
+    void reportsBlockingInsideSynchronizedOnVirtualThread() throws Exception {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(true, Duration.ofMillis(5));
+        monitor.start();
+        try {
+            assertTrue(monitor.isRunning(), "monitor started");
+            Thread.ofVirtual().start(this::sleepWhileHoldingLock).join();
+            long deadline = System.nanoTime() + Duration.ofSeconds(15).toNanos();
+            while (monitor.report().totalEvents() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            PinningReport report = monitor.report();
+            assertTrue(report.totalEvents() >= 1, "pinning event recorded");
+            PinningReport.Site site = report.sites().get(0);
+            assertTrue(site.location().contains("sleepWhileHoldingLock"), "pin attributed to the application frame: "
+                    + site.location());
+            assertTrue(site.maxMillis() >= 5, "pin duration reported");
+        } finally {
+            monitor.stop();
+        }
+        assertFalse(monitor.isRunning(), "monitor stopped");
+    }
+
+    @Test
+    void staysIdleWhenDisabled() {
+        VirtualThreadPinningMonitor monitor = new VirtualThreadPinningMonitor(false, Duration.ofMillis(20));
+        monitor.start();
+        assertFalse(monitor.isRunning(), "monitor not started");
+        assertEquals(0, monitor.report().totalEvents(), "no events");
+    }
+
+    private void sleepWhileHoldingLock() {
+        synchronized (lock) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.learning.product_catalog_api.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.learning.product_catalog_api.data.BatchLoaderReport;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.repository.ProductRepository;
+
+class ProductBatchLoaderTest {
+
+    private final ProductRepository repository = Mockito.mock(ProductRepository.class);
+
+    private static ProductResponse product(int id) {
+        return new ProductResponse(id, "Product " + id, null, BigDecimal.TEN, true, null, null, 0);
+    }
+
+    private ProductBatchLoader loader(Duration window, int maxBatchSize, int minConcurrency) {
+        return new ProductBatchLoader(true, window, maxBatchSize, minConcurrency, repository,
+                new LatencyRecorder(true, Duration.ofMinutes(1)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Class<Collection<T>> collection() {
+        return (Class<Collection<T>>) (Class<?>) Collection.class;
+    }
+
+    @Test
+    void concurrentLoadsShareOneQuery() throws Exception {
+        Mockito.when(repository.findResponsesByIdIn(any())).thenAnswer(invocation -> {
+            Collection<Integer> ids = invocation.getArgument(0);
+            return ids.stream().filter(id -> id != 4).map(ProductBatchLoaderTest::product).toList();
+        });
+        // A window long enough that only a full batch can be run.
+        ProductBatchLoader loader = loader(Duration.ofSeconds(30), 5, 1);
+        List<Future<Optional<ProductResponse>>> loads = new ArrayList<>();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newFixedThreadPool(5)) {
+            for (int id = 1; id <= 5; id++) {
+                int productId = id;
+                loads.add(executor.submit(() -> loader.findById(productId)));
+            }
+            List<Integer> found = new ArrayList<>();
+            for (Future<Optional<ProductResponse>> load : loads) {
+                found.add(load.get().map(ProductResponse::id).orElse(-1));
+            }
+            assertEquals(List.of(1, 2, 3, -1, 5), found, "each caller gets its product, or none");
+        }
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(10).toNanos(), "full batch run without the window");
+        ArgumentCaptor<Collection<Integer>> ids = ArgumentCaptor.forClass(collection());
+        Mockito.verify(repository).findResponsesByIdIn(ids.capture());
+        assertEquals(Set.of(1, 2, 3, 4, 5), Set.copyOf(ids.getValue()), "one query for all ids");
+        Mockito.verify(repository, Mockito.never()).findResponseById(anyInt());
+        BatchLoaderReport report = loader.report();
+        assertEquals(5, report.batchedLoads(), "every load batched");
+        assertEquals(1, report.batches(), "one batch");
+        assertEquals(5, report.largestBatch(), "ids per batch");
+    }
+
+    @Test
+    void loneLoadRunsItsBatchAfterTheWindow() {
+        Mockito.when(repository.findResponsesByIdIn(any())).thenReturn(List.of(product(7)));
+        ProductBatchLoader loader = loader(Duration.ofMillis(5), 100, 1);
+        assertEquals(7, loader.findById(7).orElseThrow().id(), "loaded after the window");
+        assertEquals(1, loader.report().batches(), "batch of one");
+    }
+
+    @Test
+    void loadsGoDirectlyAtLowConcurrency() {
+        Mockito.when(repository.findResponseById(3)).thenReturn(Optional.of(product(3)));
+        ProductBatchLoader loader = loader(Duration.ofSeconds(30), 100, 4);
+        assertEquals(3, loader.findById(3).orElseThrow().id(), "loaded");
+        Mockito.verify(repository, Mockito.never()).findResponsesByIdIn(any());
+        assertEquals(1, loader.report().directLoads(), "counted as direct");
+    }
+
+    @Test
+    void failedQueryFailsEveryLoadOfTheBatch() {
+        Mockito.when(repository.findResponsesByIdIn(any())).thenThrow(new IllegalStateException("database down"));
+        ProductBatchLoader loader = loader(Duration.ofMillis(5), 100, 1);
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> loader.findById(1));
+        assertEquals("database down", error.getMessage(), "cause rethrown");
+        assertEquals(1, loader.report().failedBatches(), "failure counted");
+    }
+
+    @Test
+    void errorInTheQueryReleasesEveryLoadOfTheBatch() throws Exception {
+        Mockito.when(repository.findResponsesByIdIn(any())).thenThrow(new NoClassDefFoundError("driver"));
+        // A window long enough that only a full batch can be run, by the caller that fills it.
+        ProductBatchLoader loader = loader(Duration.ofSeconds(30), 2, 1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(2)) {
+            Future<Optional<ProductResponse>> waiting = executor.submit(() -> loader.findById(1));
+            Future<Optional<ProductResponse>> running = executor.submit(() -> loader.findById(2));
+            for (Future<Optional<ProductResponse>> load : List.of(waiting, running)) {
+                ExecutionException failure = assertThrows(ExecutionException.class, () -> load.get(10, TimeUnit.SECONDS));
+                assertInstanceOf(NoClassDefFoundError.class, failure.getCause(), "error rethrown to each caller");
+            }
+        }
+        assertEquals(1, loader.report().failedBatches(), "failure counted");
+    }
+}
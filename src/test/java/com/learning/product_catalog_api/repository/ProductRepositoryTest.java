@@ -0,0 +1,205 @@
+package com.learning.product_catalog_api.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.util.ProductFields;
+import com.learning.product_catalog_api.util.ProductMapper;
+
+import jakarta.persistence.EntityManager;
+
+@DataJpaTest
+class ProductRepositoryTest {
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @BeforeEach
+    void setUp() {
+        productRepository.deleteAll();
+        // Only 5 distinct prices, so most pages end in the middle of a run of equal prices.
+        productRepository.saveAll(IntStream.range(0, 53)
+                .mapToObj(i -> Product.builder()
+                        .name("Test-Product" + (i % 7))
+                        .description("Desc" + i)
+                        .price(BigDecimal.valueOf(10 + i % 5))
+                        .available(i % 2 == 0)
+                        .build())
+                .toList());
+    }
+
+    @Test
+    void seekByPriceVisitsEveryProductOnceInOrder() {
+        List<ProductResponse> visited = new ArrayList<>();
+        Slice<ProductResponse> slice = productRepository.findSliceBy(PageRequest.of(0, 10, Sort.by("price", "id")));
+        visited.addAll(slice.getContent());
+        while (slice.hasNext()) {
+            ProductResponse last = visited.get(visited.size() - 1);
+            slice = productRepository.findSliceAfterPrice(last.price(), last.id(), PageRequest.of(0, 10));
+            visited.addAll(slice.getContent());
+        }
+        List<Product> expected = productRepository.findAll().stream()
+                .sorted(Comparator.comparing(Product::getPrice).thenComparing(Product::getId))
+                .toList();
+        assertEquals(expected.stream().map(Product::getId).toList(), visited.stream().map(ProductResponse::id).toList(),
+                "every product visited once in (price, id) order");
+    }
+
+    @Test
+    void seekByNameVisitsEveryProductOnce() {
+        List<ProductResponse> visited = new ArrayList<>();
+        Slice<ProductResponse> slice = productRepository.findSliceBy(PageRequest.of(0, 8, Sort.by("name", "id")));
+        visited.addAll(slice.getContent());
+        while (slice.hasNext()) {
+            ProductResponse last = visited.get(visited.size() - 1);
+            slice = productRepository.findSliceAfterName(last.name(), last.id(), PageRequest.of(0, 8));
+            visited.addAll(slice.getContent());
+        }
+        assertEquals(53, visited.stream().map(ProductResponse::id).distinct().count(), "every product visited once");
+    }
+
+    @Test
+    void seekByIdReportsLastPage() {
+        List<Product> all = productRepository.findAll(Sort.by("id"));
+        Slice<ProductResponse> slice = productRepository.findSliceAfterId(all.get(42).getId(), PageRequest.of(0, 10));
+        assertEquals(10, slice.getNumberOfElements(), "remaining products returned");
+        assertFalse(slice.hasNext(), "no further page");
+        slice = productRepository.findSliceAfterId(all.get(41).getId(), PageRequest.of(0, 10));
+        assertTrue(slice.hasNext(), "one more product left");
+    }
+
+    @Test
+    void responseProjectionsMatchTheMappedProducts() {
+        entityManager.flush();
+        entityManager.clear();
+        List<ProductResponse> expected = productRepository.findAll(Sort.by("id")).stream()
+                .map(ProductMapper::toProductResponse)
+                .toList();
+        entityManager.clear();
+        Page<ProductResponse> page = productRepository.findResponsesBy(PageRequest.of(1, 10, Sort.by("id")));
+        assertEquals(expected.subList(10, 20), page.getContent(), "second page projected");
+        assertEquals(53, page.getTotalElements(), "total counted");
+        assertEquals(List.of(expected.get(3), expected.get(7)), productRepository.findResponsesByIdIn(
+                List.of(expected.get(3).id(), expected.get(7).id(), -1)).stream()
+                .sorted(Comparator.comparingInt(ProductResponse::id)).toList(), "found ids projected");
+        assertEquals(expected.get(5), productRepository.findResponseById(expected.get(5).id()).orElseThrow(),
+                "single product projected");
+        assertTrue(productRepository.findResponseById(-1).isEmpty(), "missing id not found");
+        assertEquals(0, entityManager.unwrap(Session.class).getStatistics().getEntityCount(),
+                "no product loaded into the persistence context");
+    }
+
+    @Test
+    void fieldsQueriesReadOnlyTheSelectedColumns() {
+        entityManager.flush();
+        entityManager.clear();
+        List<ProductResponse> expected = productRepository.findAll(Sort.by("id")).stream()
+                .map(ProductMapper::toProductResponse)
+                .toList();
+        ProductFields fields = ProductFields.parse("price,available");
+        ProductResponse full = expected.get(4);
+        ProductResponse partial = productRepository.findFieldsByIdIn(List.of(full.id(), -1), fields).get(0);
+        assertEquals(new ProductResponse(full.id(), null, null, full.price(), full.available(), null,
+                full.updatedAt(), full.version()), partial, "selected fields and validators read, others left empty");
+        Page<ProductResponse> page = productRepository.findFieldsBy(PageRequest.of(2, 10, Sort.by("id")), fields);
+        assertEquals(expected.subList(20, 30).stream().map(ProductResponse::price).toList(),
+                page.getContent().stream().map(ProductResponse::price).toList(), "third page read");
+        assertEquals(53, page.getTotalElements(), "total counted");
+    }
+
+    @Test
+    void streamAllReturnsEveryProductInIdOrderDetached() {
+        List<Product> streamed;
+        try (Stream<Product> products = productRepository.streamAll(7)) {
+            streamed = products.toList();
+        }
+        assertEquals(productRepository.findAll(Sort.by("id")).stream().map(Product::getId).toList(),
+                streamed.stream().map(Product::getId).toList(), "every product streamed in id order");
+        assertFalse(entityManager.contains(streamed.get(0)), "streamed products are detached");
+    }
+
+    @Test
+    void patchAllSetsOnlyTheGivenFieldsOfProductsAtTheExpectedVersion() {
+        List<Product> all = productRepository.findAll(Sort.by("id"));
+        Product first = all.get(0);
+        Product second = all.get(1);
+        LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        assertEquals(List.of(first.getId()), productRepository.patchAll(List.of(first.getId()), null, null, false,
+                updatedAt), "unversioned patch applied");
+        assertEquals(List.of(first.getId()), productRepository.patchAll(List.of(first.getId(), second.getId()), 1L,
+                BigDecimal.valueOf(99), null, updatedAt), "only products at version 1 changed, same timestamp or not");
+        assertEquals(List.of(), productRepository.patchAll(List.of(first.getId(), -1), 1L, BigDecimal.ONE, null,
+                updatedAt), "stale version and missing product not changed");
+        entityManager.clear();
+        Product patched = productRepository.findById(first.getId()).orElseThrow();
+        assertEquals(0, BigDecimal.valueOf(99).compareTo(patched.getPrice()), "price set");
+        assertFalse(patched.isAvailable(), "availability set");
+        assertEquals(first.getName(), patched.getName(), "other fields left alone");
+        assertEquals(2, patched.getVersion(), "version incremented by each patch");
+        assertEquals(0, productRepository.findById(second.getId()).orElseThrow().getVersion(), "second left alone");
+    }
+
+    @Test
+    void replaceIfVersionDoesNotOverwriteAConcurrentPatch() {
+        Product product = productRepository.findAll(Sort.by("id")).get(0);
+        LocalDateTime updatedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        productRepository.patchAll(List.of(product.getId()), null, BigDecimal.ONE, null, updatedAt);
+        assertEquals(0, productRepository.replaceIfVersion(product.getId(), 0, "Replaced", null, BigDecimal.TEN,
+                true, updatedAt), "version read before the patch rejected");
+        assertEquals(1, productRepository.replaceIfVersion(product.getId(), 1, "Replaced", null, BigDecimal.TEN,
+                true, updatedAt.plusSeconds(1)), "current version replaced");
+        entityManager.clear();
+        Product replaced = productRepository.findById(product.getId()).orElseThrow();
+        assertEquals("Replaced", replaced.getName(), "name replaced");
+        assertEquals(0, BigDecimal.TEN.compareTo(replaced.getPrice()), "price replaced");
+        assertEquals(updatedAt.plusSeconds(1), replaced.getUpdatedAt(), "modification time recorded");
+        assertEquals(2, replaced.getVersion(), "one version per change");
+    }
+
+    @Test
+    void explicitModificationTimeIsKeptOnUpdate() {
+        Product product = productRepository.findAll(Sort.by("id")).get(0);
+        LocalDateTime handedOut = LocalDateTime.now().minusMinutes(1).truncatedTo(ChronoUnit.MICROS);
+        product.setName("Written behind");
+        product.setUpdatedAt(handedOut);
+        productRepository.saveAndFlush(product);
+        product.setName("Written now");
+        productRepository.saveAndFlush(product);
+        LocalDateTime touched = product.getUpdatedAt();
+        entityManager.clear();
+        assertTrue(touched.isAfter(handedOut), "set on the next update without an explicit time");
+
+        product = productRepository.findById(product.getId()).orElseThrow();
+        product.setUpdatedAt(handedOut);
+        product.setName("Written behind again");
+        productRepository.saveAndFlush(product);
+        entityManager.clear();
+        assertEquals(handedOut, productRepository.findById(product.getId()).orElseThrow().getUpdatedAt(),
+                "explicit time stored");
+    }
+}
@@ -0,0 +1,125 @@
+package com.learning.product_catalog_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+class ProductFilterIndexTest {
+
+    private ProductFilterIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductFilterIndex();
+        index.indexAll(List.of(
+                product(1, "25.00", true),
+                product(2, "19.99", true),
+                product(3, "50.00", false),
+                product(4, "25.00", true),
+                product(5, "50.01", true),
+                product(6, "35.50", true)));
+    }
+
+    @Test
+    void filtersByInclusivePriceRangeAndAvailability() {
+        ProductFilterResult result = index.filter(query("20", "50", true, false, 0, 10));
+        assertArrayEquals(new int[] {1, 4, 6}, result.ids(), "available products priced 20-50 by price, then id");
+        assertEquals(3, result.totalMatches(), "total matches");
+        result = index.filter(query("20", "50", null, true, 0, 10));
+        assertArrayEquals(new int[] {3, 6, 4, 1}, result.ids(), "descending includes the unavailable product");
+    }
+
+    @Test
+    void fractionalBoundsDoNotWidenTheRange() {
+        assertArrayEquals(new int[] {2}, index.filter(query("19.985", "19.999", null, false, 0, 10)).ids(),
+                "bounds round towards the inside of the range");
+    }
+
+    @Test
+    void paginatesAndCountsEveryMatch() {
+        ProductFilterResult result = index.filter(query(null, null, null, false, 1, 4));
+        assertArrayEquals(new int[] {3, 5}, result.ids(), "second page");
+        assertEquals(6, result.totalMatches(), "total across pages");
+    }
+
+    @Test
+    void updatesRemovalsAndRebuildMatchReferenceFilter() {
+        Random random = new Random(42);
+        Map<Integer, ProductResponse> reference = new HashMap<>();
+        index.rebuild(sink -> {
+            for (int id = 1; id <= 500; id++) {
+                ProductResponse product = product(id, String.valueOf(random.nextInt(100)), random.nextBoolean());
+                reference.put(id, product);
+                sink.accept(product);
+            }
+        });
+        for (int i = 0; i < 2000; i++) {
+            int id = 1 + random.nextInt(600);
+            if (random.nextInt(4) == 0) {
+                index.remove(id);
+                reference.remove(id);
+            } else {
+                ProductResponse product = product(id, random.nextInt(100) + "." + random.nextInt(10), random.nextBoolean());
+                index.index(product);
+                reference.put(id, product);
+            }
+        }
+        assertEquals(reference.size(), index.size(), "indexed products");
+        for (int i = 0; i < 50; i++) {
+            int min = random.nextInt(100);
+            int max = min + random.nextInt(30);
+            Boolean available = random.nextBoolean() ? null : random.nextBoolean();
+            List<Integer> expected = new ArrayList<>();
+            reference.values().stream()
+                    .filter(p -> p.price().compareTo(BigDecimal.valueOf(min)) >= 0)
+                    .filter(p -> p.price().compareTo(BigDecimal.valueOf(max)) <= 0)
+                    .filter(p -> available == null || p.available() == available)
+                    .sorted(Comparator.comparing(ProductResponse::price).thenComparingInt(ProductResponse::id))
+                    .forEach(p -> expected.add(p.id()));
+            ProductFilterResult result = index.filter(query(String.valueOf(min), String.valueOf(max), available, false, 0, 1000));
+            assertEquals(expected, Arrays.stream(result.ids()).boxed().toList(), "same products in same order");
+            assertEquals(expected.size(), result.totalMatches(), "same total");
+        }
+    }
+
+    @Test
+    void filtersGoOnAndChangesAreKeptDuringRebuild() {
+        index.rebuild(sink -> {
+            sink.accept(product(1, "25.00", true));
+            sink.accept(product(2, "19.99", true));
+            ProductFilterResult current = CompletableFuture.supplyAsync(() -> index.filter(query(null, null, null, false, 0, 10)))
+                    .orTimeout(5, TimeUnit.SECONDS).join();
+            assertEquals(6, current.totalMatches(), "another thread filters the current index");
+            index.index(product(1, "60.00", false));
+            index.index(product(7, "10.00", true));
+            index.remove(2);
+        });
+        assertArrayEquals(new int[] {7, 1}, index.filter(query(null, null, null, false, 0, 10)).ids(),
+                "the changes made while reading win over what was read");
+        assertArrayEquals(new int[] {7}, index.filter(query(null, null, true, false, 0, 10)).ids(), "availability");
+    }
+
+    private static ProductFilterQuery query(String min, String max, Boolean available, boolean descending, int page, int size) {
+        return new ProductFilterQuery(min == null ? null : new BigDecimal(min), max == null ? null : new BigDecimal(max),
+                available, descending, page, size);
+    }
+
+    private static ProductResponse product(int id, String price, boolean available) {
+        return new ProductResponse(id, "Product" + id, null, new BigDecimal(price), available, null, null, 0);
+    }
+}
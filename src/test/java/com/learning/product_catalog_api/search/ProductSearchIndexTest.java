@@ -0,0 +1,162 @@
+package com.learning.product_catalog_api.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.learning.product_catalog_api.data.ProductResponse;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex();
+        index.indexAll(List.of(
+                product(1, "Red Running Shoe", "Lightweight trainer", "89.99", true),
+                product(2, "Blue Running Jacket", "Waterproof shell for running", "120.00", true),
+                product(3, "Red Rain Jacket", "Packable, red and waterproof", "75.50", false),
+                product(4, "Trail Shoe", "Grippy sole for red clay trails", "99.00", true)));
+    }
+
+    @Test
+    void allTokensMustMatchNameOrDescription() {
+        assertEquals(List.of(3), ids(search("red waterproof")), "only product 3 has both tokens");
+        assertEquals(List.of(), ids(search("red waterproof trainer")), "no product has all three tokens");
+    }
+
+    @Test
+    void lastTokenMatchesAsPrefix() {
+        assertEquals(List.of(1, 2), ids(search("runn")), "prefix of running");
+        assertEquals(List.of(), ids(search("runn shoe")), "only the last token is a prefix");
+    }
+
+    @Test
+    void nameMatchesRankAboveDescriptionMatches() {
+        ProductSearchResult response = search("red");
+        assertEquals(List.of(1, 3, 4), ids(response), "name matches by id, then the description match");
+        assertEquals(3, response.totalMatches(), "total matches");
+    }
+
+    @Test
+    void filtersAndLimitApplyToMatches() {
+        ProductSearchResult response = index.search(new ProductSearchQuery("red", true, null, null, 1));
+        assertEquals(List.of(1), ids(response), "best available match");
+        assertEquals(2, response.totalMatches(), "unavailable product 3 is not counted");
+        response = index.search(new ProductSearchQuery("jacket", null, new BigDecimal("80"), new BigDecimal("120.0"), 10));
+        assertEquals(List.of(2), ids(response), "price bounds are inclusive and scale-insensitive");
+    }
+
+    @Test
+    void updatesAndRemovalsReplaceIndexedTerms() {
+        index.index(product(1, "Green Running Shoe", "Lightweight trainer", "89.99", true));
+        assertEquals(List.of(3, 4), ids(search("red")), "old name no longer indexed");
+        assertEquals(List.of(1), ids(search("green")), "new name indexed");
+        index.remove(4);
+        assertEquals(List.of(1), ids(search("shoe")), "removed product not returned");
+        assertEquals(3, index.size(), "indexed products");
+    }
+
+    @Test
+    void rebuildReplacesTheWholeIndex() {
+        index.rebuild(sink -> sink.accept(product(9, "Red Scarf", null, "15.00", true)));
+        assertEquals(List.of(9), ids(search("red")), "only the rebuilt products are indexed");
+    }
+
+    @Test
+    void searchesGoOnAndChangesAreKeptDuringRebuild() {
+        index.rebuild(sink -> {
+            sink.accept(product(1, "Red Running Shoe", "Lightweight trainer", "89.99", true));
+            sink.accept(product(3, "Red Rain Jacket", "Packable, red and waterproof", "75.50", false));
+            List<Integer> current = ids(CompletableFuture.supplyAsync(() -> search("red")).orTimeout(5, TimeUnit.SECONDS).join());
+            assertEquals(List.of(1, 3, 4), current,
+                    "another thread searches the current index");
+            index.index(product(1, "Green Running Shoe", "Lightweight trainer", "89.99", true));
+            index.index(product(9, "Red Scarf", null, "15.00", true));
+            index.remove(3);
+        });
+        assertEquals(List.of(9), ids(search("red")), "the changes made while reading win over what was read");
+        assertEquals(List.of(1), ids(search("green")), "updated product");
+        assertEquals(2, index.size(), "indexed products");
+    }
+
+    @Test
+    void patchesChangeWhatFiltersSee() {
+        index.patchAll(List.of(3, 8), new BigDecimal("9.99"), true);
+        assertEquals(List.of(1, 3), ids(index.search(new ProductSearchQuery("red", true, null, new BigDecimal("90"), 10))),
+                "product 3 now available and cheaper");
+        assertEquals(4, index.size(), "product 8 is not indexed and is skipped");
+    }
+
+    @Test
+    void commonPrefixStopsCountingAtTheCap() {
+        List<ProductResponse> products = new ArrayList<>();
+        for (int id = 100; id < 100 + ProductSearchIndex.MAX_CANDIDATES + 50; id++) {
+            products.add(product(id, "Plain Item " + id, null, "1.00", true));
+        }
+        index.indexAll(products);
+        ProductSearchResult result = search("p");
+        assertEquals(ProductSearchIndex.MAX_CANDIDATES, result.totalMatches(), "counted up to the cap");
+        assertEquals(List.of(100, 101, 102), ids(index.search(new ProductSearchQuery("p", null, null, null, 3))),
+                "name matches first, by id");
+        assertEquals(List.of(3), ids(search("waterproof p")), "a rare whole token drives the search");
+    }
+
+    @Test
+    void mergedPostingsWalkIdsInOrderOnce() {
+        PostingList a = new PostingList("a");
+        PostingList b = new PostingList("b");
+        for (int id : new int[] {1, 3, 5, 9}) {
+            a.add(id);
+        }
+        for (int id : new int[] {3, 4, 9, 12}) {
+            b.add(id);
+        }
+        ProductSearchIndex.MergedPostings merged = new ProductSearchIndex.MergedPostings(List.of(a, b));
+        List<Integer> walked = new ArrayList<>();
+        while (merged.hasNext()) {
+            walked.add(merged.next());
+        }
+        assertEquals(List.of(1, 3, 4, 5, 9, 12), walked, "union in id order");
+    }
+
+    @Test
+    void mergedPostingsOfManyListsGatherIdsInOrderOnce() {
+        List<PostingList> postings = new ArrayList<>();
+        for (int term = 0; term < 40; term++) {
+            PostingList list = new PostingList("t" + term);
+            list.add(100 - term);
+            list.add(200);
+            postings.add(list);
+        }
+        ProductSearchIndex.MergedPostings merged = new ProductSearchIndex.MergedPostings(postings);
+        List<Integer> walked = new ArrayList<>();
+        while (merged.hasNext()) {
+            walked.add(merged.next());
+        }
+        assertEquals(41, walked.size(), "forty ids once each, and 200 once");
+        assertEquals(61, walked.get(0), "lowest id first");
+        assertEquals(200, walked.get(40), "highest id last");
+    }
+
+    private ProductSearchResult search(String text) {
+        return index.search(new ProductSearchQuery(text, null, null, null, 10));
+    }
+
+    private static List<Integer> ids(ProductSearchResult result) {
+        return Arrays.stream(result.ids()).boxed().toList();
+    }
+
+    private static ProductResponse product(int id, String name, String description, String price, boolean available) {
+        return new ProductResponse(id, name, description, new BigDecimal(price), available, null, null, 0);
+    }
+}
@@ -0,0 +1,110 @@
+package com.learning.product_catalog_api.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+
+import com.learning.product_catalog_api.data.ProductBulkResponse;
+import com.learning.product_catalog_api.data.ProductRequest;
+import com.learning.product_catalog_api.repository.ProductRepository;
+
+@SpringBootTest
+@TestPropertySource(properties = "catalog.bulk.batch-size=4")
+class ProductBulkServiceTest {
+
+    @Autowired
+    private ProductBulkService productBulkService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Test
+    void ingestInsertsValidItemsAcrossBatchesAndReportsInvalidOnes() {
+        List<ProductRequest> requests = new ArrayList<>(IntStream.range(0, 10)
+                .mapToObj(i -> new ProductRequest("Bulk Product " + i, "Bulk Description", BigDecimal.valueOf(10 + i), true))
+                .toList());
+        requests.add(3, new ProductRequest("", "Bulk Description", BigDecimal.TEN, true));
+        requests.add(7, null);
+        long before = productRepository.count();
+
+        ProductBulkResponse response = productBulkService.ingest(requests.iterator(), false);
+
+        assertEquals(12, response.received(), "every item reported");
+        assertEquals(10, response.created(), "valid items created");
+        assertEquals(2, response.rejected(), "invalid items rejected");
+        assertNull(response.error(), "input read to the end");
+        assertEquals(before + 10, productRepository.count(), "valid items stored");
+        assertFalse(response.items().get(3).created(), "blank name rejected");
+        assertTrue(response.items().get(3).errors().contains("Product name is required"), "validation message reported");
+        assertFalse(response.items().get(7).created(), "null item rejected");
+        for (int i : new int[] {0, 4, 8, 11}) {
+            assertEquals(i, response.items().get(i).index(), "results in input order");
+            assertNotNull(response.items().get(i).id(), "created item has an id");
+            assertTrue(productRepository.existsById(response.items().get(i).id()), "created item stored");
+        }
+    }
+
+    @Test
+    void ingestStopsAtUnreadableItemAndKeepsEarlierBatches() {
+        Iterator<ProductRequest> source = Arrays.asList(
+                new ProductRequest("Bulk Product A", null, BigDecimal.ONE, true),
+                new ProductRequest("Bulk Product B", null, BigDecimal.ONE, true)).iterator();
+        Iterator<ProductRequest> failing = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                if (!source.hasNext()) {
+                    throw new IllegalStateException("Unexpected end-of-input");
+                }
+                return true;
+            }
+
+            @Override
+            public ProductRequest next() {
+                return source.next();
+            }
+        };
+        long before = productRepository.count();
+
+        ProductBulkResponse response = productBulkService.ingest(failing, false);
+
+        assertEquals(2, response.created(), "items before the failure created");
+        assertTrue(response.error().contains("item 2"), "failure position reported");
+        assertEquals(before + 2, productRepository.count(), "items before the failure stored");
+    }
+
+    @Test
+    void ingestStopsAtBatchTheDatabaseRejectsAndReportsItsItems() {
+        List<ProductRequest> requests = new ArrayList<>(IntStream.range(0, 10)
+                .mapToObj(i -> new ProductRequest("Bulk Product " + i, null, BigDecimal.ONE, true))
+                .toList());
+        // Longer than the description column: valid, but the second batch cannot be stored.
+        requests.set(5, new ProductRequest("Bulk Product 5", "x".repeat(1000), BigDecimal.ONE, true));
+        long before = productRepository.count();
+
+        ProductBulkResponse response = productBulkService.ingest(requests.iterator(), false);
+
+        assertEquals(8, response.received(), "items read up to the failed batch");
+        assertEquals(4, response.created(), "first batch created");
+        assertEquals(4, response.rejected(), "failed batch not created");
+        assertTrue(response.error().contains("items 4 to 7"), "failed batch reported: " + response.error());
+        for (int i = 4; i < 8; i++) {
+            assertFalse(response.items().get(i).created(), "item of the failed batch");
+            assertNull(response.items().get(i).id(), "no id for an item not stored");
+        }
+        assertEquals(before + 4, productRepository.count(), "only the first batch stored");
+    }
+}
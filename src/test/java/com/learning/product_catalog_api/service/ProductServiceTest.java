@@ -1,13 +1,22 @@
 package com.learning.product_catalog_api.service;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
 import static org.mockito.ArgumentMatchers.isA;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -17,11 +26,31 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.stubbing.Answer;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
 
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.cache.InMemoryCacheInvalidationBus;
+import com.learning.product_catalog_api.cache.ProductIdFilter;
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.data.ProductBatchItem;
+import com.learning.product_catalog_api.data.ProductBatchPatchRequest;
+import com.learning.product_catalog_api.data.ProductBatchPatchResponse;
+import com.learning.product_catalog_api.data.ProductPatchRequest;
 import com.learning.product_catalog_api.data.ProductRequest;
 import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.datasource.ReadYourWrites;
+import com.learning.product_catalog_api.diagnostics.LatencyRecorder;
+import com.learning.product_catalog_api.exception.ProductNotFoundException;
+import com.learning.product_catalog_api.exception.ProductVersionConflictException;
+import com.learning.product_catalog_api.loader.ProductBatchLoader;
 import com.learning.product_catalog_api.model.Product;
 import com.learning.product_catalog_api.repository.ProductRepository;
+import com.learning.product_catalog_api.search.ProductFilterIndex;
+import com.learning.product_catalog_api.search.ProductSearchIndex;
+import com.learning.product_catalog_api.util.ProductFields;
+import com.learning.product_catalog_api.util.ProductMapper;
+import com.learning.product_catalog_api.writebehind.ProductWriteBehindQueue;
 
 class ProductServiceTest {
 
@@ -32,6 +61,12 @@ class ProductServiceTest {
 
     private Map<Integer, Product> productMap;
 
+    private ConcurrentMapCacheManager cacheManager;
+
+    private ProductIdFilter idFilter;
+
+    private ProductChangeLog changeLog;
+
     @BeforeEach
     void setUp() {
         setupMocks();
@@ -55,6 +90,37 @@ class ProductServiceTest {
                     Integer id = invocationOnMock.getArgument(0);
                     return productMap.containsKey(id);
                 });
+        Answer<List<Product>> findAllById = invocationOnMock -> {
+            Iterable<Integer> ids = invocationOnMock.getArgument(0);
+            List<Product> products = new ArrayList<>();
+            ids.forEach(id -> Optional.ofNullable(productMap.get(id)).ifPresent(products::add));
+            return products;
+        };
+        Mockito.when(productRepository.findAllById(anyIterable())).thenAnswer(findAllById);
+        Mockito.when(productRepository.findAllByIdForUpdate(anyCollection())).thenAnswer(findAllById);
+        Mockito.when(productRepository.findResponseById(anyInt()))
+                .thenAnswer((Answer<Optional<ProductResponse>>) invocationOnMock -> {
+                    Integer id = invocationOnMock.getArgument(0);
+                    return Optional.ofNullable(productMap.get(id)).map(ProductMapper::toProductResponse);
+                });
+        Mockito.when(productRepository.findResponsesByIdIn(anyCollection()))
+                .thenAnswer((Answer<List<ProductResponse>>) invocationOnMock -> {
+                    Collection<Integer> ids = invocationOnMock.getArgument(0);
+                    List<ProductResponse> products = new ArrayList<>();
+                    ids.forEach(id -> Optional.ofNullable(productMap.get(id)).map(ProductMapper::toProductResponse)
+                            .ifPresent(products::add));
+                    return products;
+                });
+        Mockito.when(productRepository.findFieldsByIdIn(anyCollection(), isA(ProductFields.class)))
+                .thenAnswer((Answer<List<ProductResponse>>) invocationOnMock -> {
+                    Collection<Integer> ids = invocationOnMock.getArgument(0);
+                    List<ProductResponse> products = new ArrayList<>();
+                    ids.forEach(id -> Optional.ofNullable(productMap.get(id))
+                            .map(product -> new ProductResponse(product.getId(), null, null, product.getPrice(),
+                                    product.isAvailable(), null, product.getUpdatedAt(), product.getVersion()))
+                            .ifPresent(products::add));
+                    return products;
+                });
         Mockito.when(productRepository.findAll())
                 .thenAnswer((Answer<Iterable<Product>>) invocationOnMock -> productMap.values());
         Mockito.doAnswer(invocation -> {
@@ -62,6 +128,21 @@ class ProductServiceTest {
             productMap.remove(id);
             return null;
         }).when(productRepository).deleteById(anyInt());
+        Mockito.when(productRepository.replaceIfVersion(anyInt(), Mockito.anyLong(), Mockito.any(), Mockito.any(),
+                        Mockito.any(), Mockito.anyBoolean(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    Product product = productMap.get(invocation.<Integer>getArgument(0));
+                    if (product == null || product.getVersion() != invocation.<Long>getArgument(1)) {
+                        return 0;
+                    }
+                    product.setName(invocation.getArgument(2));
+                    product.setDescription(invocation.getArgument(3));
+                    product.setPrice(invocation.getArgument(4));
+                    product.setAvailable(invocation.getArgument(5));
+                    product.setUpdatedAt(invocation.getArgument(6));
+                    product.setVersion(product.getVersion() + 1);
+                    return 1;
+                });
         Mockito.when(productRepository.save(isA(Product.class)))
                 .thenAnswer((Answer<Product>) invocationOnMock -> {
                     Product product = (Product) invocationOnMock.getArguments()[0];
@@ -71,7 +152,23 @@ class ProductServiceTest {
     }
 
     private void setupTarget() {
-        productService = new ProductServiceImpl(productRepository);
+        cacheManager = new ConcurrentMapCacheManager("products");
+        changeLog = new ProductChangeLog(1024, 100, List.of());
+        idFilter = new ProductIdFilter(true, 0.01, 1000, Duration.ofSeconds(30), 1000, 1, new InMemoryCacheInvalidationBus());
+        productService = new ProductServiceImpl(productRepository, new BatchCacheOperations(cacheManager, null),
+                new ProductSearchIndex(), new ProductFilterIndex(), idFilter, writeBehind(false), changeLog, loader(),
+                new ReadYourWrites(false, Duration.ofSeconds(5)));
+    }
+
+    private ProductBatchLoader loader() {
+        return new ProductBatchLoader(false, Duration.ZERO, 1, 1, productRepository,
+                new LatencyRecorder(false, Duration.ofMinutes(1)));
+    }
+
+    private ProductWriteBehindQueue writeBehind(boolean enabled) {
+        return new ProductWriteBehindQueue(enabled, 100, 10, Duration.ofMinutes(1), Duration.ofSeconds(1),
+                Duration.ofSeconds(10), productRepository, Mockito.mock(PlatformTransactionManager.class), cacheManager,
+                changeLog, null, null);
     }
 
     @Test
@@ -92,7 +189,7 @@ class ProductServiceTest {
     @Test
     void getProductById() {
         productMap.clear();
-        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null);
+        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
         productMap.put(product.getId(), product);
         final ProductResponse result = productService.getProductById(product.getId());
         assertEquals(product.getId(), result.id(), "id is same");
@@ -117,7 +214,7 @@ class ProductServiceTest {
     @Test
     void deleteProductById() {
         productMap.clear();
-        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null);
+        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
         productMap.put(product.getId(), product);
         productService.deleteProduct(product.getId());
         assertTrue(productMap.isEmpty(), "product is deleted");
@@ -139,18 +236,114 @@ class ProductServiceTest {
     @Test
     void updateProduct() {
         productMap.clear();
-        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null);
+        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
         productMap.put(product.getId(), product);
         ProductRequest productRequest = new ProductRequest("Updated Product", "Updated Description", BigDecimal.valueOf(200.0), false);
-        ArgumentCaptor<Product> productCaptor = ArgumentCaptor.forClass(Product.class);
         final ProductResponse result = productService.updateProduct(product.getId(), productRequest);
-        Mockito.verify(productRepository).save(productCaptor.capture());
-        final Product updatedProduct = productCaptor.getValue();
+        Mockito.verify(productRepository).replaceIfVersion(1, 0, "Updated Product", "Updated Description",
+                BigDecimal.valueOf(200.0), false, result.updatedAt());
         assertEquals(productRequest.name(), result.name(), "name is same");
         assertEquals(productRequest.description(), result.description(), "description is same");
         assertEquals(productRequest.price(), result.price(), "price is same");
         assertEquals(productRequest.available(), result.available(), "available is same");
-        assertTrue(productMap.containsKey(updatedProduct.getId()), "product is updated");
+        assertEquals(1, result.version(), "version incremented");
+        assertEquals(ProductMapper.toProductResponse(product), result, "response matches the stored product");
+    }
+
+    @Test
+    void updateProductRetriesOnAConcurrentPatch() {
+        productMap.clear();
+        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
+        productMap.put(product.getId(), product);
+        // A patch commits between the first read and its conditional update.
+        Mockito.when(productRepository.findResponseById(1))
+                .thenAnswer(invocation -> {
+                    ProductResponse read = ProductMapper.toProductResponse(product);
+                    product.setAvailable(false);
+                    product.setVersion(product.getVersion() + 1);
+                    return Optional.of(read);
+                })
+                .thenAnswer(invocation -> Optional.of(ProductMapper.toProductResponse(product)));
+        final ProductResponse result = productService.updateProduct(1,
+                new ProductRequest("Updated Product", "Updated Description", BigDecimal.valueOf(200.0), true));
+        assertEquals(2, result.version(), "written over the patch's version, not beside it");
+        assertEquals(2, product.getVersion(), "stored version");
+        assertTrue(product.isAvailable(), "replaced in full");
+        Mockito.verify(productRepository, Mockito.times(2)).replaceIfVersion(anyInt(), Mockito.anyLong(),
+                Mockito.any(), Mockito.any(), Mockito.any(), Mockito.anyBoolean(), Mockito.any());
+    }
+
+    @Test
+    void updateProductWriteBehind() {
+        productMap.clear();
+        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
+        productMap.put(product.getId(), product);
+        ProductWriteBehindQueue writeBehind = writeBehind(true);
+        productService = new ProductServiceImpl(productRepository, new BatchCacheOperations(cacheManager, null),
+                new ProductSearchIndex(), new ProductFilterIndex(), idFilter, writeBehind, changeLog, loader(),
+                new ReadYourWrites(false, Duration.ofSeconds(5)));
+        writeBehind.start();
+        productService.updateProduct(1, new ProductRequest("Updated Product", "Updated Description", BigDecimal.valueOf(200.0), false));
+        final ProductResponse result = productService.updateProduct(1,
+                new ProductRequest("Updated Product", "Updated Description", BigDecimal.valueOf(300.0), false));
+        assertEquals(BigDecimal.valueOf(300.0), result.price(), "latest price returned");
+        assertEquals(BigDecimal.valueOf(100.0), product.getPrice(), "database not written yet");
+        assertEquals(BigDecimal.valueOf(300.0), productService.getProductById(1).price(), "queued update read back");
+        writeBehind.stop();
+        assertEquals(BigDecimal.valueOf(300.0), product.getPrice(), "queued update committed on stop");
+        assertFalse(product.isAvailable(), "availability committed");
+        assertEquals(1, writeBehind.report().committed(), "two updates of one product committed once");
+        assertEquals(1, writeBehind.report().coalesced(), "second update replaced the first");
+        Mockito.verify(productRepository, Mockito.never()).save(isA(Product.class));
+    }
+
+    @Test
+    void patchProductsReportsMissingAndConflictingProducts() {
+        productMap.clear();
+        for (int id = 1; id <= 3; id++) {
+            Product product = new Product(id, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
+            productMap.put(id, product);
+            cacheManager.getCache("products").put(id, ProductMapper.toProductResponse(product));
+        }
+        Mockito.when(productRepository.patchAll(Mockito.anyCollection(), Mockito.any(), Mockito.any(), Mockito.any(), Mockito.any()))
+                .thenAnswer(invocation -> {
+                    Collection<Integer> ids = invocation.getArgument(0);
+                    Long version = invocation.getArgument(1);
+                    List<Integer> changed = new ArrayList<>();
+                    for (Integer id : ids) {
+                        Product product = productMap.get(id);
+                        if (product != null && (version == null || product.getVersion() == version)) {
+                            product.setAvailable(invocation.getArgument(3));
+                            product.setUpdatedAt(invocation.getArgument(4));
+                            product.setVersion(product.getVersion() + 1);
+                            changed.add(id);
+                        }
+                    }
+                    return changed;
+                });
+        Mockito.when(productRepository.findExistingIds(Mockito.anyCollection()))
+                .thenAnswer(invocation -> invocation.<Collection<Integer>>getArgument(0).stream()
+                        .filter(productMap::containsKey)
+                        .toList());
+
+        final ProductBatchPatchResponse result = productService.patchProducts(
+                new ProductBatchPatchRequest(List.of(1, 2, 3, 4, 1), null, false, Map.of(2, 0L, 3, 5L)));
+
+        assertEquals(4, result.requested(), "distinct ids counted");
+        assertEquals(2, result.patched(), "products at the expected version, or without one, patched");
+        assertEquals(List.of(4), result.notFound(), "missing id reported");
+        assertEquals(List.of(3), result.conflicts(), "stale version reported");
+        assertFalse(productMap.get(2).isAvailable(), "availability set");
+        assertTrue(productMap.get(3).isAvailable(), "conflicting product left alone");
+        assertNull(cacheManager.getCache("products").get(1), "patched product evicted");
+        assertNotNull(cacheManager.getCache("products").get(3), "unchanged product still cached");
+        Mockito.verify(productRepository, Mockito.never()).findById(anyInt());
+        try {
+            productService.patchProduct(3, new ProductPatchRequest(null, false, 4L));
+            fail();
+        } catch (ProductVersionConflictException e) {
+            assertTrue(e.getMessage().contains("version 4"), "conflict reported");
+        }
     }
 
     @Test
@@ -165,4 +358,76 @@ class ProductServiceTest {
             assertTrue(e.getMessage().contains("Product not found: " + productId), "product not found exception");
         }
     }
+
+    @Test
+    void getProductsByIds() {
+        productMap.clear();
+        Product cached = new Product(1, "Cached Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
+        Product stored = new Product(2, "Stored Product", "Test Description", BigDecimal.valueOf(200.0), false, null, null, 0);
+        productMap.put(cached.getId(), cached);
+        productMap.put(stored.getId(), stored);
+        cacheManager.getCache("products").put(cached.getId(), ProductMapper.toProductResponse(cached));
+        final List<ProductBatchItem> result = productService.getProductsByIds(List.of(2, 3, 1, 2));
+        assertEquals(4, result.size(), "one result per requested id");
+        assertEquals(List.of(2, 3, 1, 2), result.stream().map(ProductBatchItem::id).toList(), "results in request order");
+        assertEquals("Stored Product", result.get(0).product().name(), "loaded from repository");
+        assertFalse(result.get(1).found(), "missing id marked as not found");
+        assertEquals("Cached Product", result.get(2).product().name(), "served from cache");
+        assertTrue(result.get(3).found(), "duplicate id resolved");
+        Mockito.verify(productRepository, Mockito.times(1)).findResponsesByIdIn(List.of(2, 3));
+        Mockito.verify(productRepository, Mockito.never()).findResponseById(anyInt());
+        assertEquals("Stored Product", cacheManager.getCache("products").get(2, ProductResponse.class).name(),
+                "misses written back to cache");
+    }
+
+    @Test
+    void partialProductsAreNotCached() {
+        productMap.clear();
+        Product cached = new Product(1, "Cached Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
+        Product stored = new Product(2, "Stored Product", "Test Description", BigDecimal.valueOf(200.0), false, null, null, 0);
+        productMap.put(cached.getId(), cached);
+        productMap.put(stored.getId(), stored);
+        cacheManager.getCache("products").put(cached.getId(), ProductMapper.toProductResponse(cached));
+        final List<ProductBatchItem> result = productService.getProductsByIds(List.of(1, 2, 3), ProductFields.parse("price"));
+        assertEquals("Cached Product", result.get(0).product().name(), "cache hit returned whole");
+        assertEquals(BigDecimal.valueOf(200.0), result.get(1).product().price(), "selected field read");
+        assertNull(result.get(1).product().name(), "other fields not read");
+        assertFalse(result.get(2).found(), "missing id marked as not found");
+        Mockito.verify(productRepository).findFieldsByIdIn(List.of(2, 3), ProductFields.parse("price"));
+        assertNull(cacheManager.getCache("products").get(2), "partial product not cached");
+    }
+
+    @Test
+    void missingIdsSkipTheRepository() {
+        productMap.clear();
+        Product product = new Product(1, "Test Product", "Test Description", BigDecimal.valueOf(100.0), true, null, null, 0);
+        productMap.put(product.getId(), product);
+        productMap.put(1000, new Product(1000, "Last Product", null, BigDecimal.ONE, true, null, null, 0));
+        idFilter.rebuild(productMap.size(), ids -> productMap.keySet().forEach(ids::accept));
+        // Created on another node after the build, its announcement lost.
+        productMap.put(1001, new Product(1001, "Remote Product", null, BigDecimal.ONE, true, null, null, 0));
+        assertEquals("Remote Product", productService.getProductById(1001).name(), "id above the build looked up");
+        Mockito.clearInvocations(productRepository);
+        for (int id = 2; id < 200; id++) {
+            try {
+                productService.getProductById(id);
+                fail();
+            } catch (ProductNotFoundException e) {
+                // expected
+            }
+        }
+        long passedFilter = Mockito.mockingDetails(productRepository).getInvocations().stream()
+                .filter(invocation -> invocation.getMethod().getName().equals("findResponseById"))
+                .count();
+        assertTrue(passedFilter < 20, "most missing ids rejected by the filter, " + passedFilter + " reached the repository");
+        assertEquals(passedFilter, idFilter.report().databaseMisses(), "every false positive recorded");
+        for (int id = 2; id < 200; id++) {
+            assertFalse(idFilter.mightExist(id), "missing id remembered");
+        }
+        assertEquals("Test Product", productService.getProductById(1).name(), "existing id still found");
+        productService.deleteProduct(1);
+        Mockito.clearInvocations(productRepository);
+        assertFalse(productService.getProductsByIds(List.of(1)).get(0).found(), "deleted id not found");
+        Mockito.verifyNoInteractions(productRepository);
+    }
 }
@@ -0,0 +1,98 @@
+package com.learning.product_catalog_api.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class HotProductTrackerTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void findsTheHottestIdsAmongManyColdOnes() {
+        HotProductTracker tracker = new HotProductTracker(true, 10, 4096, directory.resolve("hot.txt"), Runnable::run);
+        SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < 200_000; i++) {
+            if (random.nextInt(4) == 0) {
+                // A quarter of the reads go to ids 1..10, the lower the id the hotter.
+                tracker.record(1 + Math.min(random.nextInt(10), random.nextInt(10)));
+            } else {
+                tracker.record(1_000 + random.nextInt(1_000_000));
+            }
+        }
+        List<Integer> hottest = tracker.hottest();
+        assertEquals(1, hottest.getFirst(), "hottest first");
+        assertEquals(List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10), hottest.stream().sorted().toList(), "hot ids found");
+        assertTrue(tracker.trackedIds() <= 20, "candidates bounded, got " + tracker.trackedIds());
+    }
+
+    @Test
+    void hottestCanBeReadWhileCountsChange() throws Exception {
+        HotProductTracker tracker = new HotProductTracker(true, 500, 4096, directory.resolve("hot.txt"), Runnable::run);
+        AtomicBoolean reading = new AtomicBoolean(true);
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                long seed = thread;
+                writers.add(executor.submit(() -> {
+                    SplittableRandom random = new SplittableRandom(seed);
+                    while (reading.get()) {
+                        tracker.record(random.nextInt(2_000));
+                    }
+                }));
+            }
+            long deadline = System.nanoTime() + 500_000_000L;
+            while (System.nanoTime() < deadline) {
+                List<Integer> hottest = tracker.hottest();
+                assertTrue(hottest.size() <= 500, "at most top-k ids");
+            }
+            reading.set(false);
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+        }
+    }
+
+    @Test
+    void snapshotIsWrittenHottestFirstAndCountsDecay() throws IOException {
+        Path file = directory.resolve("warm-up/hot.txt");
+        HotProductTracker tracker = new HotProductTracker(true, 2, 1024, file, Runnable::run);
+        for (int i = 0; i < 8; i++) {
+            tracker.record(42);
+        }
+        tracker.record(7);
+        tracker.record(7);
+        tracker.record(3);
+        tracker.snapshot();
+        assertEquals(List.of("42", "7"), Files.readAllLines(file), "top 2, hottest first");
+        assertEquals(List.of(42, 7), tracker.readSnapshot(), "snapshot read back");
+        assertEquals(4, tracker.estimate(42), "counts halved after the snapshot");
+        assertEquals(List.of(),
+                new HotProductTracker(true, 2, 1024, directory.resolve("none.txt"), Runnable::run).readSnapshot(),
+                "no snapshot yet");
+    }
+
+    @Test
+    void disabledTrackerCountsNothing() {
+        HotProductTracker tracker = new HotProductTracker(false, 10, 1024, directory.resolve("hot.txt"), Runnable::run);
+        tracker.record(1);
+        tracker.snapshot();
+        tracker.stop();
+        assertEquals(List.of(), tracker.hottest(), "nothing tracked");
+        assertTrue(Files.notExists(directory.resolve("hot.txt")), "nothing written");
+    }
+}
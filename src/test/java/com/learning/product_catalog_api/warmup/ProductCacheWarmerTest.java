@@ -0,0 +1,71 @@
+package com.learning.product_catalog_api.warmup;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import com.learning.product_catalog_api.cache.BatchCacheOperations;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.data.WarmUpReport;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+
+class ProductCacheWarmerTest {
+
+    @TempDir
+    Path directory;
+
+    private static Product product(int id) {
+        LocalDateTime now = LocalDateTime.now();
+        return new Product(id, "Product " + id, null, BigDecimal.TEN, true, now, now, 0);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadsTheSnapshotInChunksBeforeReportingDone() throws IOException {
+        Path file = directory.resolve("hot.txt");
+        Files.write(file, List.of("5", "3", "9", "1", "oops"));
+        ProductRepository repository = Mockito.mock(ProductRepository.class);
+        Mockito.when(repository.findAllById(List.of(5, 3))).thenReturn(List.of(product(5), product(3)));
+        // Product 1 was deleted since the snapshot.
+        Mockito.when(repository.findAllById(List.of(9, 1))).thenReturn(List.of(product(9)));
+        BatchCacheOperations cacheOperations = Mockito.mock(BatchCacheOperations.class);
+        ProductCacheWarmer warmer = new ProductCacheWarmer(new HotProductTracker(true, 10, 1024, file, Runnable::run), repository,
+                cacheOperations, 2, Duration.ofMinutes(1));
+        assertFalse(warmer.isDone(), "not ready before the warm-up");
+        warmer.warmUp();
+        ArgumentCaptor<Map<Integer, ProductResponse>> chunks = ArgumentCaptor.forClass(Map.class);
+        Mockito.verify(cacheOperations, Mockito.times(2)).putAllIfAbsent(Mockito.eq("products"), chunks.capture());
+        assertEquals(List.of(Set.of(5, 3), Set.of(9)), chunks.getAllValues().stream().map(Map::keySet).toList(),
+                "hottest chunk first, missing products skipped");
+        assertTrue(warmer.isDone(), "ready after the warm-up");
+        WarmUpReport report = warmer.report();
+        assertEquals(4, report.snapshotIds(), "malformed line skipped");
+        assertEquals(3, report.loaded(), "existing products loaded");
+    }
+
+    @Test
+    void disabledWarmerIsDoneAtOnce() {
+        ProductCacheWarmer warmer = new ProductCacheWarmer(
+                new HotProductTracker(false, 10, 1024, directory.resolve("hot.txt"), Runnable::run),
+                Mockito.mock(ProductRepository.class), Mockito.mock(BatchCacheOperations.class), 2, Duration.ofMinutes(1));
+        warmer.start();
+        assertTrue(warmer.isDone(), "never holds the node back");
+        assertEquals("DONE", warmer.report().state(), "state reported");
+    }
+}
@@ -0,0 +1,186 @@
+package com.learning.product_catalog_api.writebehind;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyIterable;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.learning.product_catalog_api.changes.ProductChangeLog;
+import com.learning.product_catalog_api.data.ProductResponse;
+import com.learning.product_catalog_api.exception.WriteBehindQueueFullException;
+import com.learning.product_catalog_api.model.Product;
+import com.learning.product_catalog_api.repository.ProductRepository;
+
+class ProductWriteBehindQueueTest {
+
+    private final Map<Integer, Product> productMap = new ConcurrentHashMap<>();
+
+    private final List<Integer> transactionSizes = new CopyOnWriteArrayList<>();
+
+    private final List<Integer> failedIds = new CopyOnWriteArrayList<>();
+
+    private ProductRepository productRepository;
+
+    private ConcurrentMapCacheManager cacheManager;
+
+    private volatile CountDownLatch writesBlocked = new CountDownLatch(0);
+
+    @BeforeEach
+    void setUp() {
+        for (int id = 1; id <= 10; id++) {
+            productMap.put(id, new Product(id, "Product " + id, null, BigDecimal.ONE, true, null, null, 0));
+        }
+        cacheManager = new ConcurrentMapCacheManager("products");
+        productRepository = Mockito.mock(ProductRepository.class);
+        Mockito.when(productRepository.findAllByIdForUpdate(anyCollection())).thenAnswer(invocation -> {
+            writesBlocked.await(10, TimeUnit.SECONDS);
+            Iterable<Integer> ids = invocation.getArgument(0);
+            List<Product> products = new ArrayList<>();
+            // Copies, so that changes only reach productMap through saveAll, as on commit.
+            ids.forEach(id -> Optional.ofNullable(productMap.get(id))
+                    .ifPresent(product -> products.add(new Product(product.getId(), product.getName(),
+                            product.getDescription(), product.getPrice(), product.isAvailable(), null, null, product.getVersion()))));
+            return products;
+        });
+        Mockito.when(productRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            Collection<Product> products = invocation.getArgument(0);
+            if (products.stream().anyMatch(product -> product.getName().equals("invalid"))) {
+                throw new IllegalStateException("constraint violated");
+            }
+            products.forEach(product -> productMap.put(product.getId(), product));
+            transactionSizes.add(products.size());
+            return products;
+        });
+        Mockito.when(productRepository.findById(anyInt()))
+                .thenAnswer(invocation -> Optional.ofNullable(productMap.get(invocation.<Integer>getArgument(0))));
+    }
+
+    private ProductWriteBehindQueue queue(int capacity, int batchSize) {
+        WriteBehindJournal journal = new WriteBehindJournal() {
+            @Override
+            public void failed(ProductResponse update, Exception cause) {
+                failedIds.add(update.id());
+            }
+        };
+        return new ProductWriteBehindQueue(true, capacity, batchSize, Duration.ofMinutes(1), Duration.ofMillis(50),
+                Duration.ofSeconds(10), productRepository, Mockito.mock(PlatformTransactionManager.class), cacheManager,
+                new ProductChangeLog(1024, 100, List.of()), journal, null);
+    }
+
+    private static final LocalDateTime UPDATED_AT = LocalDateTime.of(2025, 1, 1, 12, 0);
+
+    /**
+     * Queue a rename of the product as it is in {@link #productMap}.
+     */
+    private ProductResponse enqueue(ProductWriteBehindQueue queue, int id, String name) {
+        Product stored = productMap.get(id);
+        return queue.enqueue(new ProductResponse(id, stored.getName(), null, stored.getPrice(), stored.isAvailable(),
+                null, null, stored.getVersion()), base -> update(base, name));
+    }
+
+    private static ProductResponse update(ProductResponse base, String name) {
+        return new ProductResponse(base.id(), name, null, BigDecimal.TEN, false, null, UPDATED_AT, base.version() + 1);
+    }
+
+    @Test
+    void fullBatchesAreCommittedWithoutWaitingForTheInterval() throws InterruptedException {
+        ProductWriteBehindQueue queue = queue(100, 4);
+        queue.start();
+        for (int id = 1; id <= 8; id++) {
+            enqueue(queue, id, "Renamed " + id);
+        }
+        for (int i = 0; i < 100 && queue.report().committed() < 8; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(List.of(4, 4), transactionSizes, "committed in two full batches");
+        assertEquals("Renamed 8", productMap.get(8).getName(), "update applied");
+        assertEquals(UPDATED_AT, productMap.get(8).getUpdatedAt(), "modification time handed out kept");
+        assertNull(queue.pending(8), "nothing left pending");
+        queue.stop();
+    }
+
+    @Test
+    void fullQueueHoldsBackAndThenRejectsUpdates() throws InterruptedException {
+        ProductWriteBehindQueue queue = queue(1, 1);
+        writesBlocked = new CountDownLatch(1);
+        queue.start();
+        enqueue(queue, 1, "First");
+        for (int i = 0; i < 100 && queue.report().inFlight() == 0; i++) {
+            Thread.sleep(10);
+        }
+        enqueue(queue, 2, "Second");
+        enqueue(queue, 2, "Second again");
+        assertThrows(WriteBehindQueueFullException.class, () -> enqueue(queue, 3, "Third"),
+                "no room for another product");
+        assertEquals("First", queue.pending(1).name(), "update being committed still readable");
+        assertEquals(1, queue.report().rejected(), "rejection counted");
+        writesBlocked.countDown();
+        queue.stop();
+        assertEquals("Second again", productMap.get(2).getName(), "waiting update committed on stop");
+        assertEquals("Product 3", productMap.get(3).getName(), "rejected update not applied");
+    }
+
+    @Test
+    void failingUpdateIsDroppedWithoutLosingTheRestOfItsBatch() {
+        ProductWriteBehindQueue queue = queue(100, 10);
+        cacheManager.getCache("products").put(2, "invalid");
+        queue.start();
+        enqueue(queue, 1, "Valid");
+        enqueue(queue, 2, "invalid");
+        enqueue(queue, 3, "Also valid");
+        queue.stop();
+        assertEquals("Valid", productMap.get(1).getName(), "earlier update committed");
+        assertEquals("Also valid", productMap.get(3).getName(), "later update committed");
+        assertEquals("Product 2", productMap.get(2).getName(), "failing update not applied");
+        assertEquals(List.of(2), failedIds, "journal told about the dropped update");
+        assertNull(cacheManager.getCache("products").get(2), "cached copy of the dropped update evicted");
+        assertTrue(queue.report().failed() == 1 && queue.report().committed() == 2, "outcomes counted");
+    }
+
+    @Test
+    void updatesOfAProductReadAtTheSameVersionGetSuccessiveVersions() {
+        ProductWriteBehindQueue queue = queue(100, 10);
+        queue.start();
+        assertEquals(1, enqueue(queue, 1, "First").version(), "first update");
+        assertEquals(2, enqueue(queue, 1, "Second").version(), "computed from the queued update, not the row read");
+        queue.stop();
+        assertEquals("Second", productMap.get(1).getName(), "later update committed");
+        assertEquals(2, productMap.get(1).getVersion(), "with its version");
+    }
+
+    @Test
+    void updateOfARowChangedSinceItWasQueuedIsDropped() {
+        ProductWriteBehindQueue queue = queue(100, 10);
+        queue.start();
+        enqueue(queue, 1, "Renamed");
+        enqueue(queue, 2, "Renamed");
+        // Patched in the database in the meantime.
+        productMap.get(1).setVersion(1);
+        queue.stop();
+        assertEquals("Product 1", productMap.get(1).getName(), "patched row not overwritten under the same version");
+        assertEquals("Renamed", productMap.get(2).getName(), "unchanged row written");
+        assertEquals(List.of(1), failedIds, "journal told about the dropped update");
+    }
+}